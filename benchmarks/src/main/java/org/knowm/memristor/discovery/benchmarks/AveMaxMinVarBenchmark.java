@@ -0,0 +1,102 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.knowm.memristor.discovery.utils.AveMaxMinVar;
+import org.knowm.memristor.discovery.utils.RunningStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AveMaxMinVar construction from the boxed lists the QC experiment used to collect and from a primitive float[], against feeding the same values to a reused
+ * RunningStatistics one by one as the QC capture loops now do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AveMaxMinVarBenchmark {
+
+  @Param({"100", "1000", "8192"})
+  public int size;
+
+  private List<Double> list;
+  private float[] floats;
+  private double[] doubles;
+  private final RunningStatistics runningStatistics = new RunningStatistics();
+
+  @Setup
+  public void setup() {
+
+    double[] v2 = SyntheticCapture.pulse(size, 42L)[1];
+    list = new ArrayList<>(size);
+    floats = new float[size];
+    doubles = v2;
+    for (int i = 0; i < size; i++) {
+      list.add(v2[i]);
+      floats[i] = (float) v2[i];
+    }
+  }
+
+  @Benchmark
+  public AveMaxMinVar fromList() {
+
+    return new AveMaxMinVar(list);
+  }
+
+  @Benchmark
+  public AveMaxMinVar fromFloatArray() {
+
+    return new AveMaxMinVar(floats);
+  }
+
+  @Benchmark
+  public RunningStatistics streaming() {
+
+    runningStatistics.reset();
+    for (int i = 0; i < size; i++) {
+      runningStatistics.add(doubles[i]);
+    }
+    return runningStatistics;
+  }
+}
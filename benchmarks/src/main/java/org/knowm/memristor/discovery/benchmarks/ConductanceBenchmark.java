@@ -0,0 +1,136 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.ConductanceUnits;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.CurrentUnits;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Current and conductance derivation from raw V1/V2 captures. The legacy benchmarks reproduce the separate allocating loops the experiments used
+ * before IVGVKernel, as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConductanceBenchmark {
+
+  private static final double CURRENT_DIVISOR = CurrentUnits.MicroAmps.getDivisor();
+  private static final double CONDUCTANCE_DIVISOR = ConductanceUnits.MilliSiemens.getDivisor();
+
+  @Param({"100", "1000", "8192"})
+  public int size;
+
+  private double[] v1;
+  private double[] v2;
+
+  private double[] vMemristor;
+  private double[] current;
+  private double[] conductance;
+
+  @Setup
+  public void setup() {
+
+    double[][] capture = SyntheticCapture.pulse(size, 42L);
+    v1 = capture[0];
+    v2 = capture[1];
+    vMemristor = new double[size];
+    current = new double[size];
+    conductance = new double[size];
+  }
+
+  @Benchmark
+  public void legacyDerive(Blackhole blackhole) {
+
+    double[] V1MinusV2 = PostProcessDataUtils.getV1MinusV2(v1, v2);
+
+    double[] current = new double[size];
+    for (int i = 0; i < size; i++) {
+      current[i] = v2[i] / SyntheticCapture.SERIES_RESISTANCE * CURRENT_DIVISOR;
+    }
+
+    double[] conductance = new double[size];
+    for (int i = 0; i < size; i++) {
+      double I = v2[i] / SyntheticCapture.SERIES_RESISTANCE;
+      double G = I / (v1[i] - v2[i]) * CONDUCTANCE_DIVISOR;
+      conductance[i] = G < 0 ? 0 : G;
+    }
+
+    blackhole.consume(V1MinusV2);
+    blackhole.consume(current);
+    blackhole.consume(conductance);
+  }
+
+  @Benchmark
+  public void kernelDerive(Blackhole blackhole) {
+
+    IVGVKernel.derive(v1, v2, size, SyntheticCapture.SERIES_RESISTANCE, false, CURRENT_DIVISOR, CONDUCTANCE_DIVISOR, vMemristor, current,
+        conductance);
+
+    blackhole.consume(vMemristor);
+    blackhole.consume(current);
+    blackhole.consume(conductance);
+  }
+
+  @Benchmark
+  public double legacyAverageConductance() {
+
+    double runningTotal = 0.0;
+    for (int i = 0; i < size; i++) {
+      double I = v2[i] / SyntheticCapture.SERIES_RESISTANCE;
+      double G = I / (v1[i] - v2[i]);
+      G = G < 0 ? 0 : G;
+      runningTotal += G;
+    }
+    return runningTotal / size * CONDUCTANCE_DIVISOR;
+  }
+
+  @Benchmark
+  public double kernelAverageConductance() {
+
+    return IVGVKernel.averageConductance(v1, v2, 0, size, SyntheticCapture.SERIES_RESISTANCE, false, CONDUCTANCE_DIVISOR);
+  }
+}
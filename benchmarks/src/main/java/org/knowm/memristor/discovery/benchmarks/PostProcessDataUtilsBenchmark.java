@@ -0,0 +1,98 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.waveforms4j.DWF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The post-processing applied to every capture before it is plotted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PostProcessDataUtilsBenchmark {
+
+  // the largest size matches DWF.AD2_MAX_BUFFER_SIZE
+  @Param({"100", "1000", "8192"})
+  public int size;
+
+  private double[] v1;
+  private double[] v2;
+
+  @Setup
+  public void setup() {
+
+    if (size > DWF.AD2_MAX_BUFFER_SIZE) {
+      throw new IllegalArgumentException("size must not exceed " + DWF.AD2_MAX_BUFFER_SIZE);
+    }
+    double[][] capture = SyntheticCapture.pulse(size, 42L);
+    v1 = capture[0];
+    v2 = capture[1];
+  }
+
+  @Benchmark
+  public double[][] trimIdleData() {
+
+    return PostProcessDataUtils.trimIdleData(v1, v2, SyntheticCapture.IDLE_THRESHOLD, 10);
+  }
+
+  @Benchmark
+  public int[] getActiveRange() {
+
+    return PostProcessDataUtils.getActiveRange(v1, size, SyntheticCapture.IDLE_THRESHOLD, 10);
+  }
+
+  @Benchmark
+  public double[] zeroIdleData() {
+
+    return PostProcessDataUtils.zeroIdleData(v1, v2, SyntheticCapture.IDLE_THRESHOLD);
+  }
+
+  @Benchmark
+  public double[] getV1MinusV2() {
+
+    return PostProcessDataUtils.getV1MinusV2(v1, v2);
+  }
+}
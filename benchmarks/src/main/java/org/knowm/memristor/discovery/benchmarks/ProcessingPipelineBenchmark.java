@@ -0,0 +1,160 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFrame;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFramePool;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DeriveStage;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ProcessingPipeline;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisCache;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisStage;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TrimStage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Pulse experiment's trim, time axis and derive stages, each on its own and chained in a ProcessingPipeline. Every invocation copies the synthetic capture
+ * into a pooled frame first, the same as a worker reading from the device, and hands the result back to the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessingPipelineBenchmark {
+
+  private static final int FRAME_V1 = 0;
+  private static final int FRAME_V2 = 1;
+  private static final int FRAME_V1_MINUS_V2 = 2;
+  private static final int FRAME_CURRENT = 3;
+  private static final int FRAME_CONDUCTANCE = 4;
+
+  @Param({"100", "1000", "8192"})
+  public int size;
+
+  private double[] v1;
+  private double[] v2;
+
+  private CaptureFramePool framePool;
+  private TrimStage trimStage;
+  private TimeAxisStage timeAxisStage;
+  private DeriveStage deriveStage;
+  private ProcessingPipeline pipeline;
+
+  @Setup
+  public void setup() {
+
+    double[][] capture = SyntheticCapture.pulse(size, 42L);
+    v1 = capture[0];
+    v2 = capture[1];
+
+    ExperimentControlModel controlModel = new ExperimentControlModel() {
+
+      @Override
+      public ExperimentPreferences initAppPreferences() {
+
+        return null;
+      }
+
+      @Override
+      public void loadModelFromPrefs() {
+
+        seriesResistance = (int) SyntheticCapture.SERIES_RESISTANCE;
+      }
+    };
+
+    framePool = new CaptureFramePool(5, size, 4);
+    trimStage = new TrimStage(FRAME_V1, SyntheticCapture.IDLE_THRESHOLD, 10, FRAME_V1, FRAME_V2);
+    timeAxisStage = new TimeAxisStage(new TimeAxisCache(4), 1.0);
+    deriveStage = new DeriveStage(controlModel, true, 1.0, 1.0, FRAME_V1, FRAME_V2, FRAME_V1_MINUS_V2, FRAME_CURRENT, FRAME_CONDUCTANCE);
+    pipeline = new ProcessingPipeline("benchmark").add(trimStage).add(timeAxisStage).add(deriveStage);
+  }
+
+  private CaptureFrame newFrame() {
+
+    CaptureFrame frame = framePool.acquire(size);
+    System.arraycopy(v1, 0, frame.get(FRAME_V1), 0, size);
+    System.arraycopy(v2, 0, frame.get(FRAME_V2), 0, size);
+    frame.setSampleFrequency(1000000);
+    return frame;
+  }
+
+  @Benchmark
+  public int copyOnly() {
+
+    CaptureFrame frame = newFrame();
+    framePool.release(frame);
+    return frame.getLength();
+  }
+
+  @Benchmark
+  public int trim() {
+
+    CaptureFrame frame = trimStage.process(newFrame(), framePool);
+    framePool.release(frame);
+    return frame.getLength();
+  }
+
+  @Benchmark
+  public int timeAxis() {
+
+    CaptureFrame frame = timeAxisStage.process(newFrame(), framePool);
+    framePool.release(frame);
+    return frame.getLength();
+  }
+
+  @Benchmark
+  public int derive() {
+
+    CaptureFrame frame = deriveStage.process(newFrame(), framePool);
+    framePool.release(frame);
+    return frame.getLength();
+  }
+
+  @Benchmark
+  public int pipeline() {
+
+    CaptureFrame frame = pipeline.process(newFrame(), framePool);
+    framePool.release(frame);
+    return frame.getLength();
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic capture data shared by the benchmarks: an idle baseline with a single pulse in the middle, much like a real V1/V2 capture
+ * across a memristor and series resistor.
+ */
+final class SyntheticCapture {
+
+  static final double SERIES_RESISTANCE = 5000;
+  static final double PULSE_AMPLITUDE = 1.0;
+  static final double IDLE_THRESHOLD = 0.05;
+
+  private SyntheticCapture() {
+
+  }
+
+  /**
+   * @param size - the number of samples
+   * @param seed - the noise seed
+   * @return {v1, v2}
+   */
+  static double[][] pulse(int size, long seed) {
+
+    Random random = new Random(seed);
+    double[] v1 = new double[size];
+    double[] v2 = new double[size];
+    int pulseStart = size / 4;
+    int pulseEnd = size - size / 4;
+    for (int i = 0; i < size; i++) {
+      double noise = random.nextGaussian() * 0.002;
+      if (i >= pulseStart && i < pulseEnd) {
+        v1[i] = PULSE_AMPLITUDE + noise;
+        v2[i] = PULSE_AMPLITUDE * 0.2 + noise * 0.2;
+      }
+      else {
+        v1[i] = noise;
+        v2[i] = noise * 0.2;
+      }
+    }
+    return new double[][]{v1, v2};
+  }
+}
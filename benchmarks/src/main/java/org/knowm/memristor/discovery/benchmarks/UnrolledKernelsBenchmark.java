@@ -0,0 +1,159 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knowm.memristor.discovery.utils.UnrolledKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The UnrolledKernels against the scalar loops of PostProcessDataUtils and IVGVKernel they replace, reproduced here as the scalar baseline. Both sides write
+ * into preallocated buffers so only the loops are compared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnrolledKernelsBenchmark {
+
+  @Param({"100", "1000", "8192"})
+  public int size;
+
+  private double[] v1;
+  private double[] v2;
+  private double[] out;
+
+  @Setup
+  public void setup() {
+
+    double[][] capture = SyntheticCapture.pulse(size, 42L);
+    v1 = capture[0];
+    v2 = capture[1];
+    out = new double[size];
+  }
+
+  @Benchmark
+  public int scalarActiveRange() {
+
+    int startIndex = 0;
+    for (int i = 0; i < size; i++) {
+      if (Math.abs(v1[i]) > SyntheticCapture.IDLE_THRESHOLD) {
+        startIndex = i;
+        break;
+      }
+    }
+    int endIndex = size - 1;
+    for (int i = size - 1; i > 0; i--) {
+      if (Math.abs(v1[i]) > SyntheticCapture.IDLE_THRESHOLD) {
+        endIndex = i;
+        break;
+      }
+    }
+    return endIndex - startIndex;
+  }
+
+  @Benchmark
+  public int unrolledActiveRange() {
+
+    return UnrolledKernels.lastIndexOfAbsAbove(v1, 1, size, SyntheticCapture.IDLE_THRESHOLD) - UnrolledKernels.indexOfAbsAbove(v1, 0, size,
+        SyntheticCapture.IDLE_THRESHOLD);
+  }
+
+  @Benchmark
+  public double[] scalarZeroIdle() {
+
+    out[0] = 0;
+    out[size - 1] = 0;
+    for (int i = 1; i < size - 1; i++) {
+      if (Math.abs(v1[i]) > SyntheticCapture.IDLE_THRESHOLD) {
+        out[i] = v2[i];
+      }
+      else {
+        out[i - 1] = 0;
+        out[i] = 0;
+        out[i + 1] = 0;
+      }
+    }
+    return out;
+  }
+
+  @Benchmark
+  public double[] unrolledZeroIdle() {
+
+    UnrolledKernels.zeroIdle(v1, v2, out, size, SyntheticCapture.IDLE_THRESHOLD);
+    return out;
+  }
+
+  @Benchmark
+  public double[] scalarSubtract() {
+
+    for (int i = 0; i < size; i++) {
+      out[i] = v1[i] - v2[i];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public double[] unrolledSubtract() {
+
+    UnrolledKernels.subtract(v1, v2, out, size);
+    return out;
+  }
+
+  @Benchmark
+  public double scalarAverageConductance() {
+
+    double inverseSeriesResistance = 1.0 / SyntheticCapture.SERIES_RESISTANCE;
+    double runningTotal = 0.0;
+    for (int i = 0; i < size; i++) {
+      double I = v2[i] * inverseSeriesResistance;
+      double G = I / (v1[i] - v2[i]);
+      runningTotal += G < 0 ? 0 : G;
+    }
+    return runningTotal / size;
+  }
+
+  @Benchmark
+  public double unrolledAverageConductance() {
+
+    return UnrolledKernels.averageConductance(v1, v2, 0, size, 1.0 / SyntheticCapture.SERIES_RESISTANCE, 0.0, 1.0);
+  }
+}
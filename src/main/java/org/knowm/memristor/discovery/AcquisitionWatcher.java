@@ -0,0 +1,183 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.knowm.memristor.discovery.simulation.ReplayDWFDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the analog in acquisition state of a DWFDevice. Instead of sleeping for a fixed time and then polling (or spinning on the status without pause), the
+ * status is polled with an exponential back-off that starts at a few microseconds and is capped relative to the expected acquisition duration, so short
+ * captures complete with microsecond latency while long ones don't burn a core. Every wait has a deadline and the time-to-armed and time-to-done of the last
+ * acquisition are recorded.
+ */
+public class AcquisitionWatcher {
+
+  private final Logger logger = LoggerFactory.getLogger(AcquisitionWatcher.class);
+
+  public static final byte STATUS_ARMED = 1;
+  public static final byte STATUS_DONE = 2;
+  public static final byte STATUS_TRIGGERED = 3;
+
+  private static final long INITIAL_BACKOFF_NANOS = 5_000; // 5 µs
+  private static final long MAX_BACKOFF_NANOS = 20_000_000; // 20 ms
+  private static final long MIN_TIMEOUT_NANOS = 2_000_000_000L; // 2 s
+  private static final int TIMEOUT_DURATION_MULTIPLE = 100; // give up after this many expected acquisition durations
+  private static final int BACKOFF_DURATION_FRACTION = 8; // never back off longer than this fraction of the expected acquisition duration
+
+  private final DWFDevice dwf;
+  private final boolean isRealTime;
+
+  private volatile long timeToArmedNanos = -1;
+  private volatile long timeToDoneNanos = -1;
+
+  /**
+   * Constructor
+   *
+   * @param dwf
+   */
+  public AcquisitionWatcher(DWFDevice dwf) {
+
+    this.dwf = dwf;
+    // a replay delivering its frames as fast as they are asked for has nothing to wait for
+    this.isRealTime = !(dwf instanceof ReplayDWFDevice && ((ReplayDWFDevice) dwf).getPacing() == ReplayDWFDevice.Pacing.AsFastAsPossible);
+  }
+
+  /**
+   * Block until the analog in is armed (or already triggered), the default deadline passes or the thread is interrupted.
+   *
+   * @return true if armed
+   */
+  public boolean waitUntilArmed() {
+
+    return waitUntilArmed(0);
+  }
+
+  /**
+   * Block until the analog in is armed (or already triggered), the deadline passes or the thread is interrupted. A level-triggered capture only arms once the
+   * samples before the trigger position are acquired, so the deadline and back-off are scaled to the time that takes.
+   *
+   * @param preTriggerSeconds - the expected time to acquire the samples before the trigger position
+   * @return true if armed
+   */
+  public boolean waitUntilArmed(double preTriggerSeconds) {
+
+    long preTriggerNanos = (long) (preTriggerSeconds * 1_000_000_000L);
+    long timeoutNanos = Math.max(MIN_TIMEOUT_NANOS, preTriggerNanos * TIMEOUT_DURATION_MULTIPLE);
+    long maxBackoffNanos = preTriggerNanos > 0 ? Math.max(INITIAL_BACKOFF_NANOS, Math.min(MAX_BACKOFF_NANOS, preTriggerNanos / BACKOFF_DURATION_FRACTION)) : 0;
+
+    long elapsed = poll(false, 0, maxBackoffNanos, timeoutNanos);
+    timeToArmedNanos = elapsed;
+    if (elapsed < 0) {
+      logger.warn("Analog in not armed after " + timeoutNanos / 1_000_000 + " ms.");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Block until the current acquisition is done, the deadline passes or the thread is interrupted. Nothing can be done before the acquisition has had time to
+   * complete, so the first poll happens after the expected duration and the back-off is then capped at a fraction of it.
+   *
+   * @param expectedDurationSeconds - the expected time for the acquisition buffer to fill
+   * @return true if done
+   */
+  public boolean waitUntilDone(double expectedDurationSeconds) {
+
+    long expectedNanos = (long) (expectedDurationSeconds * 1_000_000_000L);
+    long timeoutNanos = Math.max(MIN_TIMEOUT_NANOS, expectedNanos * TIMEOUT_DURATION_MULTIPLE);
+    long maxBackoffNanos = Math.max(INITIAL_BACKOFF_NANOS, Math.min(MAX_BACKOFF_NANOS, expectedNanos / BACKOFF_DURATION_FRACTION));
+
+    long elapsed = poll(true, expectedNanos, maxBackoffNanos, timeoutNanos);
+    timeToDoneNanos = elapsed;
+    if (elapsed < 0) {
+      logger.warn("Acquisition not done after " + timeoutNanos / 1_000_000 + " ms.");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param isWaitingForDone - true to wait for STATUS_DONE, false to wait for the armed (or any later) state
+   * @param initialWaitNanos
+   * @param maxBackoffNanos - 0 for the default cap
+   * @param timeoutNanos
+   * @return the nanoseconds until the state was reached, or -1 on timeout or interrupt
+   */
+  private long poll(boolean isWaitingForDone, long initialWaitNanos, long maxBackoffNanos, long timeoutNanos) {
+
+    long startTime = System.nanoTime();
+    long deadline = startTime + timeoutNanos;
+    long backoffNanos = INITIAL_BACKOFF_NANOS;
+    if (maxBackoffNanos <= 0) {
+      maxBackoffNanos = MAX_BACKOFF_NANOS;
+    }
+
+    if (initialWaitNanos > 0 && isRealTime) {
+      LockSupport.parkNanos(initialWaitNanos);
+    }
+
+    while (true) {
+
+      byte status = dwf.FDwfAnalogInStatus(true);
+      if (isWaitingForDone ? status == STATUS_DONE : (status == STATUS_ARMED || status == STATUS_TRIGGERED || status == STATUS_DONE)) {
+        return System.nanoTime() - startTime;
+      }
+
+      long now = System.nanoTime();
+      if (now - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+        return -1;
+      }
+      LockSupport.parkNanos(Math.min(backoffNanos, deadline - now));
+      backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+    }
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  /**
+   * @return the time it took the last acquisition to arm, or -1 if it timed out
+   */
+  public long getTimeToArmedNanos() {
+
+    return timeToArmedNanos;
+  }
+
+  /**
+   * @return the time it took the last acquisition to complete, or -1 if it timed out
+   */
+  public long getTimeToDoneNanos() {
+
+    return timeToDoneNanos;
+  }
+}
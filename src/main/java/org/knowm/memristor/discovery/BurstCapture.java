@@ -0,0 +1,265 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.utils.PulseSegmenter;
+import org.knowm.memristor.discovery.utils.WaveformUtils;
+import org.knowm.waveforms4j.DWF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a pulse train of any length as a chain of triggered captures planned by CapturePlanner, and splits every capture into its pulses with
+ * PulseSegmenter. The listener gets each capture with its pulses as soon as it is
+ * read, so a long train is processed as it runs. There is a short pause between the captures of a chain while the next one is armed. A capture that doesn't
+ * split into exactly the pulses applied during it ends the run, since its pulses could not be matched to the applied ones.
+ * <p>
+ * Analog in and out are configured through a ResidentConfiguration, so the captures of a chain that have the same buffer size and pulse count as the one
+ * before are only re-armed and re-fired. Runs sharing a ResidentConfiguration, e.g. the points of a sweep, reprogram only what differs from the run before.
+ */
+public class BurstCapture {
+
+  private final Logger logger = LoggerFactory.getLogger(BurstCapture.class);
+
+  /**
+   * Receives each capture of a burst.
+   */
+  public interface CaptureListener {
+
+    /**
+     * @param captureIndex - the index of the capture in the chain
+     * @param firstPulseNumber - the number of the first pulse applied during the capture, counting from 0
+     * @param v1
+     * @param v2
+     * @param validSamples
+     * @param sampleFrequency
+     * @param pulses - the pulses found in the capture, in order
+     */
+    void onCapture(int captureIndex, int firstPulseNumber, double[] v1, double[] v2, int validSamples, double sampleFrequency, List<PulseSegmenter.Pulse> pulses)
+        throws IOException;
+  }
+
+  /**
+   * How a capture is split into its pulses.
+   */
+  public enum Segmentation {
+
+    /**
+     * into whole periods from the trigger, each trimmed to where |V1| is above the threshold, for pulse trains
+     */
+    PULSES,
+
+    /**
+     * into whole periods from the trigger, for continuous waveforms without gaps
+     */
+    PERIODS
+  }
+
+  private static final double TRIGGER_LEVEL = 0.02;
+  private static final double MIN_THRESHOLD = 0.02; // V
+  private static final double THRESHOLD_FRACTION = 0.1; // of the amplitude
+
+  private final DWFProxy dwfProxy;
+  private final ResidentConfiguration residentConfiguration;
+  private final Segmentation segmentation;
+  private final CapturePlanner capturePlanner = new CapturePlanner();
+  private final int minSamplesPerPulse;
+  private final int maxSamplesPerPulse;
+  private final double seriesResistance;
+  private final boolean isSwitchCorrected;
+  private final double currentDivisor;
+  private final double conductanceDivisor;
+
+  private final double[] v1 = new double[DWF.AD2_MAX_BUFFER_SIZE];
+  private final double[] v2 = new double[DWF.AD2_MAX_BUFFER_SIZE];
+
+  private CapturePlanner.Plan plan;
+  private int captureCount;
+  private int appliedPulseCount;
+  private int capturedPulseCount;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy - a started up proxy
+   * @param segmentation
+   * @param minSamplesPerPulse - the fewest samples per pulse period, a longer train is split over more captures rather than sampled more sparsely
+   * @param maxSamplesPerPulse - the most samples per pulse period
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param currentDivisor - unit divisor for the peak currents
+   * @param conductanceDivisor - unit divisor for the conductances
+   */
+  public BurstCapture(DWFProxy dwfProxy, Segmentation segmentation, int minSamplesPerPulse, int maxSamplesPerPulse, double seriesResistance,
+      boolean isSwitchCorrected, double currentDivisor, double conductanceDivisor) {
+
+    this(dwfProxy, new ResidentConfiguration(dwfProxy), segmentation, minSamplesPerPulse, maxSamplesPerPulse, seriesResistance, isSwitchCorrected,
+        currentDivisor, conductanceDivisor);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy - a started up proxy
+   * @param residentConfiguration - the configuration loaded onto the device, shared with the runs before and after this one
+   * @param segmentation
+   * @param minSamplesPerPulse - the fewest samples per pulse period, a longer train is split over more captures rather than sampled more sparsely
+   * @param maxSamplesPerPulse - the most samples per pulse period
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param currentDivisor - unit divisor for the peak currents
+   * @param conductanceDivisor - unit divisor for the conductances
+   */
+  public BurstCapture(DWFProxy dwfProxy, ResidentConfiguration residentConfiguration, Segmentation segmentation, int minSamplesPerPulse,
+      int maxSamplesPerPulse, double seriesResistance, boolean isSwitchCorrected, double currentDivisor, double conductanceDivisor) {
+
+    if (minSamplesPerPulse < 1 || minSamplesPerPulse > maxSamplesPerPulse) {
+      throw new IllegalArgumentException("Samples per pulse must be between 1 and " + maxSamplesPerPulse + ": " + minSamplesPerPulse);
+    }
+    this.dwfProxy = dwfProxy;
+    this.residentConfiguration = residentConfiguration;
+    this.segmentation = segmentation;
+    this.minSamplesPerPulse = minSamplesPerPulse;
+    this.maxSamplesPerPulse = maxSamplesPerPulse;
+    this.seriesResistance = seriesResistance;
+    this.isSwitchCorrected = isSwitchCorrected;
+    this.currentDivisor = currentDivisor;
+    this.conductanceDivisor = conductanceDivisor;
+  }
+
+  /**
+   * Apply pulseNumber pulses, capturing and segmenting them in chunks.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param frequency - the pulse frequency, one pulse per period
+   * @param pulseNumber
+   * @param listener
+   * @return false if a capture did not complete or did not hold its pulses, in which case analog in and out are stopped
+   */
+  public boolean run(Waveform waveform, double amplitude, double frequency, int pulseNumber, CaptureListener listener) throws IOException {
+
+    captureCount = 0;
+    appliedPulseCount = 0;
+    capturedPulseCount = 0;
+
+    plan = capturePlanner.plan(frequency, pulseNumber, minSamplesPerPulse, maxSamplesPerPulse);
+    logger.debug("Capture plan: {}", plan);
+
+    double sampleFrequency = plan.getSampleFrequency();
+    double threshold = Math.max(MIN_THRESHOLD, THRESHOLD_FRACTION * Math.abs(amplitude));
+    int minGap = Math.max(2, plan.getSamplesPerPeriod() / 10);
+    double[] customWaveform = WaveformUtils.generateCustomWaveform(waveform, amplitude, frequency);
+
+    while (captureCount < plan.getCaptureCount()) {
+
+      int capturePulseCount = plan.getPeriodsInCapture(captureCount);
+      residentConfiguration.startCaptureLevelTrigger(sampleFrequency, TRIGGER_LEVEL * (amplitude > 0 ? 1 : -1), plan.getBufferSize(captureCount));
+      dwfProxy.getAcquisitionWatcher().waitUntilArmed(plan.getPreTriggerSeconds(captureCount));
+      residentConfiguration.startCustomPulseTrain(frequency, capturePulseCount, customWaveform);
+
+      boolean isDone = dwfProxy.getAcquisitionWatcher().waitUntilDone(capturePulseCount / frequency);
+      if (isDone) {
+        logger.debug("Capture {} armed in {} us and done in {} us.", captureCount, dwfProxy.getAcquisitionWatcher().getTimeToArmedNanos() / 1000, dwfProxy
+            .getAcquisitionWatcher().getTimeToDoneNanos() / 1000);
+        int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+        validSamples = dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, v1, Math.min(validSamples, v1.length));
+        dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+        stop();
+
+        List<int[]> ranges = PulseSegmenter.findPeriods(validSamples, plan.getSamplesPerPeriod(), capturePulseCount);
+        if (segmentation == Segmentation.PULSES) {
+          ranges = PulseSegmenter.trimToThreshold(v1, ranges, threshold, minGap);
+        }
+        if (ranges.size() != capturePulseCount) {
+          logger.error("Capture {} splits into {} pulses, but {} were applied.", captureCount, ranges.size(), capturePulseCount);
+          return false;
+        }
+        List<PulseSegmenter.Pulse> pulses = PulseSegmenter.measure(v1, v2, ranges, sampleFrequency, seriesResistance, isSwitchCorrected, currentDivisor,
+            conductanceDivisor);
+        listener.onCapture(captureCount, appliedPulseCount, v1, v2, validSamples, sampleFrequency, pulses);
+        capturedPulseCount += pulses.size();
+      }
+      else {
+        long timeToArmedNanos = dwfProxy.getAcquisitionWatcher().getTimeToArmedNanos();
+        if (timeToArmedNanos < 0) {
+          logger.warn("Capture {} did not complete, analog in never armed.", captureCount);
+        }
+        else {
+          logger.warn("Capture {} did not complete, analog in armed after {} us but never triggered.", captureCount, timeToArmedNanos / 1000);
+        }
+        stop();
+        return false;
+      }
+      captureCount++;
+      appliedPulseCount += capturePulseCount;
+    }
+    return true;
+  }
+
+  private void stop() {
+
+    residentConfiguration.stop();
+  }
+
+  /**
+   * @return the capture plan of the last run, null before the first
+   */
+  public CapturePlanner.Plan getPlan() {
+
+    return plan;
+  }
+
+  /**
+   * @return the number of captures of the last run
+   */
+  public int getCaptureCount() {
+
+    return captureCount;
+  }
+
+  /**
+   * @return the number of pulses applied in the last run
+   */
+  public int getAppliedPulseCount() {
+
+    return appliedPulseCount;
+  }
+
+  /**
+   * @return the number of pulses found in the captures of the last run
+   */
+  public int getCapturedPulseCount() {
+
+    return capturedPulseCount;
+  }
+}
@@ -0,0 +1,247 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Picks the sample rate, buffer length and number of chained captures for a level-triggered capture of a periodic waveform, given the device's maximum sample
+ * rate and buffer size. Only the part of the buffer after the trigger position holds the applied periods, by default all of it (see
+ * DWFDevice.LEVEL_TRIGGER_PRE_TRIGGER_FRACTION). Within that part the samples per period are as many as fit, between the caller's minimum and maximum and
+ * below the maximum sample rate. If even the minimum doesn't fit, the periods are split over several captures (see BurstCapture).
+ */
+public class CapturePlanner {
+
+  public static final double AD2_MAX_SAMPLE_FREQUENCY = 100_000_000; // Hz
+
+  private static final int MIN_SAMPLES_PER_PERIOD = 2;
+
+  private final double maxSampleFrequency;
+  private final int maxBufferSize;
+  private final double preTriggerFraction;
+
+  /**
+   * Constructor for the AD2
+   */
+  public CapturePlanner() {
+
+    this(AD2_MAX_SAMPLE_FREQUENCY, DWF.AD2_MAX_BUFFER_SIZE, DWFDevice.LEVEL_TRIGGER_PRE_TRIGGER_FRACTION);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param maxSampleFrequency
+   * @param maxBufferSize
+   * @param preTriggerFraction - the fraction of the buffer acquired before the trigger, 0 if the buffer starts at the trigger
+   */
+  public CapturePlanner(double maxSampleFrequency, int maxBufferSize, double preTriggerFraction) {
+
+    if (preTriggerFraction < 0 || preTriggerFraction >= 1) {
+      throw new IllegalArgumentException("Pre-trigger fraction must be at least 0 and below 1: " + preTriggerFraction);
+    }
+    if (postTriggerSize(maxBufferSize, preTriggerFraction) < MIN_SAMPLES_PER_PERIOD) {
+      throw new IllegalArgumentException("Buffer size must leave at least " + MIN_SAMPLES_PER_PERIOD + " samples after the trigger: " + maxBufferSize);
+    }
+    this.maxSampleFrequency = maxSampleFrequency;
+    this.maxBufferSize = maxBufferSize;
+    this.preTriggerFraction = preTriggerFraction;
+  }
+
+  private static int postTriggerSize(int bufferSize, double preTriggerFraction) {
+
+    return bufferSize - (int) Math.ceil(bufferSize * preTriggerFraction);
+  }
+
+  /**
+   * @param frequency - the waveform frequency
+   * @param periodCount - the number of periods to capture
+   * @param minSamplesPerPeriod - the fewest samples per period worth capturing, fewer are only used if the sample rate doesn't allow more
+   * @param maxSamplesPerPeriod - the most samples per period worth capturing
+   * @return the plan
+   */
+  public Plan plan(double frequency, int periodCount, int minSamplesPerPeriod, int maxSamplesPerPeriod) {
+
+    if (periodCount < 1) {
+      throw new IllegalArgumentException("Period count must be positive: " + periodCount);
+    }
+    if (minSamplesPerPeriod > maxSamplesPerPeriod) {
+      throw new IllegalArgumentException("Minimum samples per period must not exceed the maximum: " + minSamplesPerPeriod + " > " + maxSamplesPerPeriod);
+    }
+    int rateLimit = (int) Math.min(Integer.MAX_VALUE, Math.floor(maxSampleFrequency / frequency));
+    if (rateLimit < MIN_SAMPLES_PER_PERIOD) {
+      throw new IllegalArgumentException("Frequency must be at most " + maxSampleFrequency / MIN_SAMPLES_PER_PERIOD + " Hz: " + frequency);
+    }
+    int postTriggerSize = postTriggerSize(maxBufferSize, preTriggerFraction);
+
+    int upper = Math.min(Math.min(maxSamplesPerPeriod, rateLimit), postTriggerSize);
+    int lower = Math.max(MIN_SAMPLES_PER_PERIOD, Math.min(minSamplesPerPeriod, upper));
+    int samplesPerPeriod = Math.max(lower, Math.min(upper, postTriggerSize / periodCount));
+
+    int periodsPerCapture = Math.min(periodCount, postTriggerSize / samplesPerPeriod);
+    int captureCount = (periodCount + periodsPerCapture - 1) / periodsPerCapture;
+
+    return new Plan(frequency, periodCount, samplesPerPeriod, periodsPerCapture, captureCount, preTriggerFraction, samplesPerPeriod < minSamplesPerPeriod);
+  }
+
+  /**
+   * A capture plan.
+   */
+  public static class Plan {
+
+    private final double frequency;
+    private final int periodCount;
+    private final int samplesPerPeriod;
+    private final int periodsPerCapture;
+    private final int captureCount;
+    private final double preTriggerFraction;
+    private final boolean isRateLimited;
+
+    /**
+     * Constructor
+     *
+     * @param frequency
+     * @param periodCount
+     * @param samplesPerPeriod
+     * @param periodsPerCapture
+     * @param captureCount
+     * @param preTriggerFraction
+     * @param isRateLimited
+     */
+    private Plan(double frequency, int periodCount, int samplesPerPeriod, int periodsPerCapture, int captureCount, double preTriggerFraction,
+        boolean isRateLimited) {
+
+      this.frequency = frequency;
+      this.periodCount = periodCount;
+      this.samplesPerPeriod = samplesPerPeriod;
+      this.periodsPerCapture = periodsPerCapture;
+      this.captureCount = captureCount;
+      this.preTriggerFraction = preTriggerFraction;
+      this.isRateLimited = isRateLimited;
+    }
+
+    public double getFrequency() {
+
+      return frequency;
+    }
+
+    public int getPeriodCount() {
+
+      return periodCount;
+    }
+
+    public int getSamplesPerPeriod() {
+
+      return samplesPerPeriod;
+    }
+
+    public double getSampleFrequency() {
+
+      return frequency * samplesPerPeriod;
+    }
+
+    /**
+     * @return the most periods one capture holds
+     */
+    public int getPeriodsPerCapture() {
+
+      return periodsPerCapture;
+    }
+
+    /**
+     * @param captureIndex
+     * @return the number of periods applied during the given capture, the last one may hold fewer
+     */
+    public int getPeriodsInCapture(int captureIndex) {
+
+      return Math.min(periodsPerCapture, periodCount - captureIndex * periodsPerCapture);
+    }
+
+    public int getCaptureCount() {
+
+      return captureCount;
+    }
+
+    /**
+     * @param captureIndex
+     * @return the number of samples of the periods applied during the given capture, the part of the buffer after the trigger that holds them
+     */
+    public int getPeriodSamples(int captureIndex) {
+
+      return samplesPerPeriod * getPeriodsInCapture(captureIndex);
+    }
+
+    /**
+     * @param captureIndex
+     * @return the buffer size of the given capture, its periods' samples plus the samples before the trigger
+     */
+    public int getBufferSize(int captureIndex) {
+
+      int postTriggerSamples = getPeriodSamples(captureIndex);
+      int bufferSize = (int) Math.ceil(postTriggerSamples / (1 - preTriggerFraction));
+      while (postTriggerSize(bufferSize, preTriggerFraction) < postTriggerSamples) {
+        bufferSize++;
+      }
+      return bufferSize;
+    }
+
+    /**
+     * @return the buffer size of a single capture plan
+     */
+    public int getBufferSize() {
+
+      return getBufferSize(0);
+    }
+
+    /**
+     * @param captureIndex
+     * @return the time to acquire the samples before the trigger position of the given capture, see AcquisitionWatcher.waitUntilArmed(double)
+     */
+    public double getPreTriggerSeconds(int captureIndex) {
+
+      int bufferSize = getBufferSize(captureIndex);
+      return (bufferSize - postTriggerSize(bufferSize, preTriggerFraction)) / getSampleFrequency();
+    }
+
+    /**
+     * @return true if the maximum sample rate allowed fewer samples per period than the requested minimum
+     */
+    public boolean isRateLimited() {
+
+      return isRateLimited;
+    }
+
+    @Override
+    public String toString() {
+
+      return periodCount + " periods at " + frequency + " Hz: " + samplesPerPeriod + " samples per period at " + getSampleFrequency() + " Hz, " + captureCount
+          + (captureCount == 1 ? " capture" : " captures") + " of up to " + periodsPerCapture + " periods in " + getBufferSize() + " samples" + (isRateLimited
+              ? " (sample rate limited)" : "");
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * The subset of the waveforms4j DWF API used by DWFProxy and the experiment CaptureWorkers. The method names and signatures mirror {@link DWF} exactly so
+ * that `dwfProxy.getDwf()` call sites don't change whether they talk to a real Analog Discovery 2 or to a simulated device.
+ */
+public interface DWFDevice {
+
+  /////////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  boolean FDwfDeviceOpen();
+
+  boolean FDwfDeviceCloseAll();
+
+  String FDwfGetLastErrorMsg();
+
+  boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure);
+
+  boolean setPowerSupply(int idxChannel, double value);
+
+  /////////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask);
+
+  boolean FDwfDigitalIOOutputSet(int outputSetMask);
+
+  boolean FDwfDigitalIOConfigure();
+
+  boolean FDwfDigitalIOReset();
+
+  boolean FDwfDigitalOutReset();
+
+  int getDigitalIOStatus();
+
+  /////////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset);
+
+  boolean FDwfAnalogOutConfigure(int idxChannel, boolean start);
+
+  boolean startWave(int idxChannel, DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle);
+
+  boolean stopWave(int idxChannel);
+
+  boolean setCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData);
+
+  boolean startCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData);
+
+  boolean startPulseTrain(int idxChannel);
+
+  /////////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable);
+
+  boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange);
+
+  boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start);
+
+  byte FDwfAnalogInStatus(boolean readData);
+
+  int FDwfAnalogInStatusSamplesValid();
+
+  double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize);
+
+  /**
+   * In AcquisitionMode.Record, reports on the samples fetched by the last FDwfAnalogInStatus(true) call.
+   *
+   * @return {available, lost, corrupt} sample counts
+   */
+  int[] FDwfAnalogInStatusRecord();
+
+  /**
+   * Copy the data fetched by the last FDwfAnalogInStatus(true) call into a caller-owned buffer, so capture loops can reuse their buffers.
+   *
+   * @param idxChannel
+   * @param buffer
+   * @param length
+   * @return the number of samples copied
+   */
+  int readAnalogInStatusData(int idxChannel, double[] buffer, int length);
+
+  boolean startAnalogCaptureBothChannelsImmediately(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode);
+
+  /**
+   * The fraction of a level-triggered capture buffer acquired before the trigger. DWF.startAnalogCaptureBothChannelsLevelTrigger() sets the trigger position
+   * for no buffer prefill, so the buffer starts at the trigger.
+   */
+  double LEVEL_TRIGGER_PRE_TRIGGER_FRACTION = 0.0;
+
+  boolean startAnalogCaptureBothChannelsLevelTrigger(double sampleFrequency, double triggerLevel, int bufferSize);
+
+  boolean stopAnalogCaptureBothChannels();
+}
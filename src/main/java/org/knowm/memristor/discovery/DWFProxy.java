@@ -28,7 +28,9 @@
 package org.knowm.memristor.discovery;
 
 import java.beans.PropertyChangeListener;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.event.SwingPropertyChangeSupport;
 
@@ -53,9 +55,12 @@ public class DWFProxy {
   /////////////////////////////////////////////////////////////
 
   private boolean isAD2Running = false;
-  private int digitalIOStates = ALL_DIO_OFF;
+  private volatile int digitalIOStates = ALL_DIO_OFF;
+  private int notifiedDigitalIOStates = ALL_DIO_OFF; // EDT only
+  private final AtomicBoolean isDigitalIOReadPending = new AtomicBoolean(false);
   private final boolean isV1Board;
-  final DWF dwf;
+  final DWFDevice dwf;
+  private final AcquisitionWatcher acquisitionWatcher;
   private SwingPropertyChangeSupport swingPropertyChangeSupport;
 
   /**
@@ -63,8 +68,20 @@ public class DWFProxy {
    */
   public DWFProxy(boolean isV1Board) {
 
+    this(isV1Board, new NativeDWFDevice());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param isV1Board
+   * @param dwf - the device to talk to, either the native AD2 or a simulated one
+   */
+  public DWFProxy(boolean isV1Board, DWFDevice dwf) {
+
     this.isV1Board = isV1Board;
-    dwf = new DWF();
+    this.dwf = dwf;
+    this.acquisitionWatcher = new AcquisitionWatcher(dwf);
     swingPropertyChangeSupport = new SwingPropertyChangeSupport(this);
   }
 
@@ -86,68 +103,78 @@ public class DWFProxy {
     new AD2StartupWorker().execute();
   }
 
-  private class AD2StartupWorker extends SwingWorker<Boolean, Void> {
+  /**
+   * Open and configure the AD2 on the calling thread. The GUI goes through startupAD2(); headless callers use this directly.
+   *
+   * @return true if the AD2 is running
+   */
+  public boolean startupAD2Synchronously() {
 
-    @Override
-    protected Boolean doInBackground() throws Exception {
+    /////////////////////////////////////////////////////////////
+    // Device ///////////////////////////////////////////////////
+    /////////////////////////////////////////////////////////////
+    isAD2Running = dwf.FDwfDeviceOpen();
+
+    if (isAD2Running) {
+
+      // Some device read out stuff
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1: "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2: "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
+      // System.out.println("Analog In Trigger Position Info: "+ Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
 
       /////////////////////////////////////////////////////////////
-      // Device ///////////////////////////////////////////////////
+      // Digital I/O //////////////////////////////////////////////
       /////////////////////////////////////////////////////////////
-      isAD2Running = dwf.FDwfDeviceOpen();
-
-      if (isAD2Running) {
-
-        // Some device read out stuff
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1: "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2: "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
-        // System.out.println("Analog In Trigger Position Info: "+ Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
-
-        /////////////////////////////////////////////////////////////
-        // Digital I/O //////////////////////////////////////////////
-        /////////////////////////////////////////////////////////////
-        dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
-        if (isV1Board) {
-          digitalIOStates = DEFAULT_SELECTOR_DIO;
-          // System.out.println(Integer.toBinaryString(digitalIOStates));
-        } else {
-          digitalIOStates = ALL_DIO_OFF;
-        }
-        dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-        dwf.FDwfDigitalIOConfigure();
-        digitalIOStates = dwf.getDigitalIOStatus();
-        swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
-
-        /////////////////////////////////////////////////////////////
-        // Analog I/O //////////////////////////////////////////////
-        /////////////////////////////////////////////////////////////
-        dwf.setPowerSupply(0, 5.0);
-        dwf.setPowerSupply(1, -5.0);
-
-        /////////////////////////////////////////////////////////////
-        // Analog Out //////////////////////////////////////////////
-        /////////////////////////////////////////////////////////////
-        // set analog out offset to zero, as it seems like it's not quite there by default
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
-        // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
-
-        /////////////////////////////////////////////////////////////
-        // Analog In //////////////////////////////////////////////
-        /////////////////////////////////////////////////////////////
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
-
-        // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true), FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
-        dwf.FDwfDeviceAutoConfigureSet(false);
+      dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
+      if (isV1Board) {
+        digitalIOStates = DEFAULT_SELECTOR_DIO;
+        // System.out.println(Integer.toBinaryString(digitalIOStates));
       } else {
-
-        System.out.println(dwf.FDwfGetLastErrorMsg());
+        digitalIOStates = ALL_DIO_OFF;
       }
+      dwf.FDwfDigitalIOOutputSet(digitalIOStates);
+      dwf.FDwfDigitalIOConfigure();
+      digitalIOStates = dwf.getDigitalIOStatus();
+      swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
+
+      /////////////////////////////////////////////////////////////
+      // Analog I/O //////////////////////////////////////////////
+      /////////////////////////////////////////////////////////////
+      dwf.setPowerSupply(0, 5.0);
+      dwf.setPowerSupply(1, -5.0);
+
+      /////////////////////////////////////////////////////////////
+      // Analog Out //////////////////////////////////////////////
+      /////////////////////////////////////////////////////////////
+      // set analog out offset to zero, as it seems like it's not quite there by default
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
+      // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
+
+      /////////////////////////////////////////////////////////////
+      // Analog In //////////////////////////////////////////////
+      /////////////////////////////////////////////////////////////
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
+
+      // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true), FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
+      dwf.FDwfDeviceAutoConfigureSet(false);
+    } else {
+
+      System.out.println(dwf.FDwfGetLastErrorMsg());
+    }
+    return isAD2Running;
+  }
+
+  private class AD2StartupWorker extends SwingWorker<Boolean, Void> {
+
+    @Override
+    protected Boolean doInBackground() throws Exception {
+
       // swingPropertyChangeSupport.firePropertyChange(DWFProxy.AD2_STARTUP_CHANGE, !isAD2Running, isAD2Running);
-      return isAD2Running;
+      return startupAD2Synchronously();
     }
 
     @Override
@@ -208,93 +235,123 @@ public class DWFProxy {
    */
   public void update2DigitalIOStatesAtOnce(int toggleClickedID, boolean isOn) {
 
-    // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
+    beginDigitalIOTransaction().setIO(toggleClickedID, isOn).commit();
+  }
 
-    // Update model
-    if (isOn) {
-      digitalIOStates = digitalIOStates | (1 << toggleClickedID);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << toggleClickedID);
-    }
+  public void update2DigitalIOStatesAtOnce(int io1, int io2, boolean value1, boolean value2) {
 
-    // logger.debug("new state: " + digitalIOStates);
+    beginDigitalIOTransaction().setIO(io1, value1).setIO(io2, value2).commit();
+  }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+  public void setUpper8IOStates(int upper8SetMask) {
 
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    logger.debug("upper8SetMask: " + Integer.toBinaryString(upper8SetMask));
+    beginDigitalIOTransaction().setUpper8(upper8SetMask).commit();
   }
 
-  public void update2DigitalIOStatesAtOnce(int io1, int io2, boolean value1, boolean value2) {
+  public void setAllIOStates(int outputSetMask) {
 
-    // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
+    beginDigitalIOTransaction().setAll(outputSetMask).commit();
+  }
 
-    // Update model
-    if (value1) {
-      digitalIOStates = digitalIOStates | (1 << io1);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << io1);
-    }
-    if (value2) {
-      digitalIOStates = digitalIOStates | (1 << io2);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << io2);
+  /**
+   * Start accumulating digital I/O changes. Nothing is sent to the device until {@link DigitalIOTransaction#commit()}, which writes all the changes with a
+   * single configure.
+   *
+   * @return a new transaction based on the states at commit time
+   */
+  public DigitalIOTransaction beginDigitalIOTransaction() {
+
+    return new DigitalIOTransaction();
+  }
+
+  /**
+   * Write the given states to the device and read them back. If they equal the cached states from the last read-back, the USB round trip is skipped
+   * entirely.
+   *
+   * @param keepMask the bits of the current states to keep
+   * @param setMask the bits to set on top of the kept ones
+   */
+  private synchronized void applyDigitalIOStates(int keepMask, int setMask) {
+
+    int newDigitalIOStates = (digitalIOStates & keepMask) | setMask;
+    if (newDigitalIOStates == digitalIOStates) {
+      return;
     }
 
-    logger.debug("new state: " + Integer.toBinaryString(digitalIOStates));
+    // logger.debug("new state: " + Integer.toBinaryString(newDigitalIOStates));
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    logger.debug("AD2 Device Digital I/O Written: " + successful);
+    boolean successful = dwf.FDwfDigitalIOOutputSet(newDigitalIOStates);
+    // logger.debug("AD2 Device Digital I/O Written: " + successful);
     dwf.FDwfDigitalIOConfigure();
 
     digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    fireDigitalIORead();
   }
 
-  public void setUpper8IOStates(int upper8SetMask) {
+  /**
+   * Notify listeners of new digital I/O states on the EDT. Bursts of updates made before the EDT gets around to it collapse into a single event carrying the
+   * latest states.
+   */
+  private void fireDigitalIORead() {
 
-    logger.debug("upper8SetMask: " + Integer.toBinaryString(upper8SetMask));
-    int oldValDigitalIO = digitalIOStates;
+    if (isDigitalIOReadPending.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(new Runnable() {
+
+        @Override
+        public void run() {
 
-    int preserveLower8 = 0b0000_0000_1111_1111;
+          isDigitalIOReadPending.set(false);
+          int oldValDigitalIO = notifiedDigitalIOStates;
+          notifiedDigitalIOStates = digitalIOStates;
+          swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, notifiedDigitalIOStates);
+        }
+      });
+    }
+  }
 
-    int zeroUpper8 = digitalIOStates & preserveLower8;
+  /**
+   * Accumulates digital I/O bit changes to be applied to the device all at once.
+   */
+  public class DigitalIOTransaction {
 
-    int setUpper8 = zeroUpper8 | upper8SetMask;
+    private int keepMask = ~0;
+    private int setMask = 0;
 
-    // Update model
-    digitalIOStates = setUpper8;
+    private DigitalIOTransaction() {
 
-    // logger.debug("new state: " + digitalIOStates);
+    }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+    private DigitalIOTransaction apply(int keep, int set) {
 
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
-  }
+      keepMask &= keep;
+      setMask = (setMask & keep) | set;
+      return this;
+    }
 
-  public void setAllIOStates(int outputSetMask) {
+    public DigitalIOTransaction setIO(int io, boolean isOn) {
 
-    // logger.debug("outputSetMask: " + outputSetMask);
-    int oldValDigitalIO = digitalIOStates;
+      return apply(~(1 << io), isOn ? 1 << io : 0);
+    }
 
-    // Update model
-    digitalIOStates = outputSetMask;
+    public DigitalIOTransaction setUpper8(int upper8SetMask) {
 
-    // logger.debug("new state: " + digitalIOStates);
+      int preserveLower8 = 0b0000_0000_1111_1111;
+      return apply(preserveLower8, upper8SetMask);
+    }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+    public DigitalIOTransaction setAll(int outputSetMask) {
 
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+      return apply(0, outputSetMask);
+    }
+
+    /**
+     * Apply the accumulated changes to the device.
+     */
+    public void commit() {
+
+      applyDigitalIOStates(keepMask, setMask);
+    }
   }
 
   /////////////////////////////////////////////////////////////
@@ -311,8 +368,13 @@ public class DWFProxy {
     return isAD2Running;
   }
 
-  public DWF getDwf() {
+  public DWFDevice getDwf() {
 
     return dwf;
   }
+
+  public AcquisitionWatcher getAcquisitionWatcher() {
+
+    return acquisitionWatcher;
+  }
 }
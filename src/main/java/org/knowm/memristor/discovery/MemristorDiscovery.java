@@ -32,19 +32,28 @@ import java.awt.Container;
 import java.awt.Image;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import javax.swing.AbstractAction;
+import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JRadioButtonMenuItem;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
+import org.knowm.memristor.discovery.batch.BatchRunner;
+import org.knowm.memristor.discovery.export.ExportPreferences;
+import org.knowm.memristor.discovery.export.SeriesExporter;
 import org.knowm.memristor.discovery.gui.AboutDialog;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentHelpDialog;
@@ -64,6 +73,8 @@ import org.knowm.memristor.discovery.gui.mvc.footer.FooterController;
 import org.knowm.memristor.discovery.gui.mvc.footer.FooterPanel;
 import org.knowm.memristor.discovery.gui.mvc.header.HeaderController;
 import org.knowm.memristor.discovery.gui.mvc.header.HeaderPanel;
+import org.knowm.memristor.discovery.simulation.ReplayDWFDevice;
+import org.knowm.memristor.discovery.simulation.SimulatedDWFDevice;
 import org.knowm.waveforms4j.DWFException;
 import org.multibit.platform.GenericApplication;
 import org.multibit.platform.GenericApplicationFactory;
@@ -98,6 +109,11 @@ public class MemristorDiscovery implements GenericQuitEventListener, GenericPref
 
   public static void main(String[] args) {
 
+    if (args.length > 0 && args[0].equalsIgnoreCase(BatchRunner.BATCH_ARG)) {
+      System.setProperty("java.awt.headless", "true");
+      System.exit(BatchRunner.run(args));
+    }
+
     System.setProperty("apple.awt.application.name", "Knowm Memristor Discovery");
 
     //Set the look and feel to users OS LaF.
@@ -107,8 +123,35 @@ public class MemristorDiscovery implements GenericQuitEventListener, GenericPref
       e.printStackTrace();
     }
 
-    boolean isV1Board = args.length > 0 && args[0].equalsIgnoreCase("v1");
-    final MemristorDiscovery memristorDiscovery = new MemristorDiscovery(isV1Board);
+    boolean isV1Board = false;
+    boolean isSimulated = false;
+    Path replayFile = null;
+    ReplayDWFDevice.Pacing replayPacing = ReplayDWFDevice.Pacing.Recorded;
+    boolean isReplayLooping = false;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("v1")) {
+        isV1Board = true;
+      }
+      else if (args[i].equalsIgnoreCase("sim")) {
+        isSimulated = true; // no AD2 needed, see SimulatedDWFDevice
+      }
+      else if (args[i].equalsIgnoreCase("replay") && i + 1 < args.length) {
+        replayFile = Paths.get(args[++i]); // play back a capture log, see ReplayDWFDevice
+      }
+      else if (args[i].equalsIgnoreCase("fast")) {
+        replayPacing = ReplayDWFDevice.Pacing.AsFastAsPossible;
+      }
+      else if (args[i].equalsIgnoreCase("loop")) {
+        isReplayLooping = true;
+      }
+    }
+    final MemristorDiscovery memristorDiscovery;
+    if (replayFile != null) {
+      memristorDiscovery = new MemristorDiscovery(isV1Board, new ReplayDWFDevice(replayFile, replayPacing, isReplayLooping));
+    }
+    else {
+      memristorDiscovery = new MemristorDiscovery(isV1Board, isSimulated);
+    }
 
     // Schedule a job for the event dispatch thread:
     // creating and showing this application's GUI.
@@ -124,8 +167,19 @@ public class MemristorDiscovery implements GenericQuitEventListener, GenericPref
 
   public MemristorDiscovery(boolean isV1Board) {
 
+    this(isV1Board, false);
+  }
+
+  public MemristorDiscovery(boolean isV1Board, boolean isSimulated) {
+
+    this.isV1Board = isV1Board;
+    this.dwf = isSimulated ? new DWFProxy(isV1Board, new SimulatedDWFDevice()) : new DWFProxy(isV1Board);
+  }
+
+  public MemristorDiscovery(boolean isV1Board, DWFDevice dwfDevice) {
+
     this.isV1Board = isV1Board;
-    this.dwf = new DWFProxy(isV1Board);
+    this.dwf = new DWFProxy(isV1Board, dwfDevice);
   }
 
   public void createAndShowGUI() {
@@ -267,6 +321,44 @@ public class MemristorDiscovery implements GenericQuitEventListener, GenericPref
       }
     }
 
+    // Export menu
+    menu = new JMenu("Export");
+    menu.setMnemonic(KeyEvent.VK_E);
+    menuBar.add(menu);
+
+    final ExportPreferences exportPreferences = new ExportPreferences();
+    final JCheckBoxMenuItem exportMenuItem = new JCheckBoxMenuItem("Export Series to " + exportPreferences.getString(ExportPreferences.DIRECTORY_STRING_KEY,
+        ExportPreferences.DIRECTORY_STRING_DEFAULT_VALUE));
+    exportMenuItem.setSelected(exportPreferences.getBoolean(ExportPreferences.ENABLED_BOOLEAN_KEY, ExportPreferences.ENABLED_BOOLEAN_DEFAULT_VALUE));
+    exportMenuItem.addActionListener(new ActionListener() {
+
+      @Override
+      public void actionPerformed(ActionEvent e) {
+
+        exportPreferences.setBoolean(ExportPreferences.ENABLED_BOOLEAN_KEY, exportMenuItem.isSelected());
+      }
+    });
+    menu.add(exportMenuItem);
+    menu.addSeparator();
+
+    ButtonGroup exportFormatGroup = new ButtonGroup();
+    String exportFormat = exportPreferences.getString(ExportPreferences.FORMAT_STRING_KEY, ExportPreferences.FORMAT_STRING_DEFAULT_VALUE);
+    for (final SeriesExporter.Format format : SeriesExporter.Format.values()) {
+
+      JRadioButtonMenuItem formatMenuItem = new JRadioButtonMenuItem(format == SeriesExporter.Format.CSV ? "CSV" : "Columnar Binary");
+      formatMenuItem.setSelected(format.name().equals(exportFormat));
+      formatMenuItem.addActionListener(new ActionListener() {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+
+          exportPreferences.setString(ExportPreferences.FORMAT_STRING_KEY, format.name());
+        }
+      });
+      exportFormatGroup.add(formatMenuItem);
+      menu.add(formatMenuItem);
+    }
+
     // Window menu
     menu = new JMenu("Window");
     menu.setMnemonic(KeyEvent.VK_W);
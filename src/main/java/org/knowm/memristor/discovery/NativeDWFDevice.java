@@ -0,0 +1,224 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * A DWFDevice backed by the native waveforms4j library talking to a real Analog Discovery 2.
+ */
+public class NativeDWFDevice implements DWFDevice {
+
+  private final DWF dwf;
+
+  /**
+   * Constructor
+   */
+  public NativeDWFDevice() {
+
+    this.dwf = new DWF();
+  }
+
+  @Override
+  public boolean FDwfDeviceOpen() {
+
+    return dwf.FDwfDeviceOpen();
+  }
+
+  @Override
+  public boolean FDwfDeviceCloseAll() {
+
+    return dwf.FDwfDeviceCloseAll();
+  }
+
+  @Override
+  public String FDwfGetLastErrorMsg() {
+
+    return dwf.FDwfGetLastErrorMsg();
+  }
+
+  @Override
+  public boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return dwf.FDwfDeviceAutoConfigureSet(autoConfigure);
+  }
+
+  @Override
+  public boolean setPowerSupply(int idxChannel, double value) {
+
+    return dwf.setPowerSupply(idxChannel, value);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    return dwf.FDwfDigitalIOOutputEnableSet(outputEnableMask);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    return dwf.FDwfDigitalIOOutputSet(outputSetMask);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOConfigure() {
+
+    return dwf.FDwfDigitalIOConfigure();
+  }
+
+  @Override
+  public boolean FDwfDigitalIOReset() {
+
+    return dwf.FDwfDigitalIOReset();
+  }
+
+  @Override
+  public boolean FDwfDigitalOutReset() {
+
+    return dwf.FDwfDigitalOutReset();
+  }
+
+  @Override
+  public int getDigitalIOStatus() {
+
+    return dwf.getDigitalIOStatus();
+  }
+
+  @Override
+  public boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    return dwf.FDwfAnalogOutNodeOffsetSet(idxChannel, offset);
+  }
+
+  @Override
+  public boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    return dwf.FDwfAnalogOutConfigure(idxChannel, start);
+  }
+
+  @Override
+  public boolean startWave(int idxChannel, DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle) {
+
+    return dwf.startWave(idxChannel, waveform, frequency, amplitude, offset, dutyCycle);
+  }
+
+  @Override
+  public boolean stopWave(int idxChannel) {
+
+    return dwf.stopWave(idxChannel);
+  }
+
+  @Override
+  public boolean setCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    return dwf.setCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+  }
+
+  @Override
+  public boolean startCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    return dwf.startCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+  }
+
+  @Override
+  public boolean startPulseTrain(int idxChannel) {
+
+    return dwf.startPulseTrain(idxChannel);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    return dwf.FDwfAnalogInChannelEnableSet(idxChannel, enable);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    return dwf.FDwfAnalogInChannelRangeSet(idxChannel, voltsRange);
+  }
+
+  @Override
+  public boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    return dwf.FDwfAnalogInConfigure(reconfigure, start);
+  }
+
+  @Override
+  public byte FDwfAnalogInStatus(boolean readData) {
+
+    return dwf.FDwfAnalogInStatus(readData);
+  }
+
+  @Override
+  public int FDwfAnalogInStatusSamplesValid() {
+
+    return dwf.FDwfAnalogInStatusSamplesValid();
+  }
+
+  @Override
+  public double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    return dwf.FDwfAnalogInStatusData(idxChannel, bufferSize);
+  }
+
+  @Override
+  public int[] FDwfAnalogInStatusRecord() {
+
+    return dwf.FDwfAnalogInStatusRecord();
+  }
+
+  @Override
+  public int readAnalogInStatusData(int idxChannel, double[] buffer, int length) {
+
+    // waveforms4j always hands back a new array, so the best we can do here is copy it
+    double[] statusData = dwf.FDwfAnalogInStatusData(idxChannel, length);
+    int samples = Math.min(statusData.length, length);
+    System.arraycopy(statusData, 0, buffer, 0, samples);
+    return samples;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsImmediately(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode) {
+
+    return dwf.startAnalogCaptureBothChannelsImmediately(sampleFrequency, bufferSize, acquisitionMode);
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsLevelTrigger(double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    return dwf.startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, triggerLevel, bufferSize);
+  }
+
+  @Override
+  public boolean stopAnalogCaptureBothChannels() {
+
+    return dwf.stopAnalogCaptureBothChannels();
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.memristor.discovery.utils.WaveformUtils;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Measures the conductance with a train of small read pulses, as fast as every READ_DURATION_SECONDS or at a fixed interval. The triggered capture and the
+ * read pulse are configured once by start() and stay resident on the device: each read only fires the configured pulse train and waits for the capture, and
+ * as soon as its samples are copied out the capture is re-armed for the next read, so the device arms while the read is being processed.
+ * <p>
+ * Reads are scheduled at a fixed rate from start(). If a read is late, e.g. because the caller was busy, the schedule restarts from it instead of firing a
+ * burst of reads to catch up.
+ */
+public class ReadPulseSequencer {
+
+  public static final double READ_AMPLITUDE = 0.1;
+  public static final double READ_FREQUENCY = 100_000; // 5 us pulse width
+  public static final int READ_SAMPLES_PER_PULSE = 300;
+  public static final double READ_DURATION_SECONDS = 1 / READ_FREQUENCY;
+
+  private static final double SAMPLE_FREQUENCY = READ_FREQUENCY * READ_SAMPLES_PER_PULSE;
+  private static final double TRIGGER_LEVEL = 0.02; // 20% of the rising read pulse
+  private static final double ACTIVE_THRESHOLD = READ_AMPLITUDE * .8;
+  private static final int EDGE_SAMPLES = 3;
+
+  private final DWFProxy dwfProxy;
+  private final double seriesResistance;
+  private final boolean isSwitchCorrected;
+  private final double conductanceDivisor;
+  private final long intervalNanos;
+
+  private final double[] v1 = new double[READ_SAMPLES_PER_PULSE];
+  private final double[] v2 = new double[READ_SAMPLES_PER_PULSE];
+
+  private boolean isStarted = false;
+  private long startNanos;
+  private long nextReadNanos;
+  private long lastReadNanos;
+  private int readCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy - a started up proxy
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param conductanceDivisor - the divisor of the unit the conductance is returned in
+   * @param intervalMillis - the time from one read to the next, 0 for back-to-back reads
+   */
+  public ReadPulseSequencer(DWFProxy dwfProxy, double seriesResistance, boolean isSwitchCorrected, double conductanceDivisor, double intervalMillis) {
+
+    this.dwfProxy = dwfProxy;
+    this.seriesResistance = seriesResistance;
+    this.isSwitchCorrected = isSwitchCorrected;
+    this.conductanceDivisor = conductanceDivisor;
+    this.intervalNanos = Math.max(0, (long) (intervalMillis * 1_000_000));
+  }
+
+  /**
+   * Configure and arm the read capture and load the read pulse. Anything running on analog in or out is replaced.
+   */
+  public void start() {
+
+    dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(SAMPLE_FREQUENCY, TRIGGER_LEVEL, READ_SAMPLES_PER_PULSE);
+    double[] readPulseWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, READ_AMPLITUDE, READ_FREQUENCY);
+    dwfProxy.getDwf().setCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, READ_FREQUENCY, 0, 1, readPulseWaveform);
+    isStarted = true;
+    readCount = 0;
+    startNanos = System.nanoTime();
+    nextReadNanos = startNanos;
+  }
+
+  /**
+   * Wait for the scheduled time of the next read, apply the read pulse and measure the conductance over its flat top.
+   *
+   * @return the conductance, or NaN if the capture did not complete or the thread was interrupted
+   */
+  public double read() {
+
+    if (!isStarted) {
+      throw new IllegalStateException("Not started.");
+    }
+
+    long waitNanos = nextReadNanos - System.nanoTime();
+    if (waitNanos > 0) {
+      LockSupport.parkNanos(waitNanos);
+      if (Thread.currentThread().isInterrupted()) {
+        return Double.NaN;
+      }
+    }
+    long readNanos = System.nanoTime();
+    nextReadNanos = (readNanos - nextReadNanos > intervalNanos ? readNanos : nextReadNanos) + intervalNanos;
+
+    AcquisitionWatcher acquisitionWatcher = dwfProxy.getAcquisitionWatcher();
+    if (!acquisitionWatcher.waitUntilArmed()) {
+      return Double.NaN;
+    }
+    dwfProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
+    if (!acquisitionWatcher.waitUntilDone(READ_DURATION_SECONDS)) {
+      return Double.NaN;
+    }
+    int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    validSamples = dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, v1, Math.min(validSamples, v1.length));
+    dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+
+    // the samples are copied out, arm for the next read while this one is processed
+    dwfProxy.getDwf().FDwfAnalogInConfigure(false, true);
+    lastReadNanos = readNanos;
+    readCount++;
+
+    int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, ACTIVE_THRESHOLD, 0);
+    return IVGVKernel.averageConductance(v1, v2, activeRange[0] + EDGE_SAMPLES, activeRange[1] - EDGE_SAMPLES, seriesResistance, isSwitchCorrected,
+        conductanceDivisor);
+  }
+
+  /**
+   * Stop analog in and out.
+   */
+  public void stop() {
+
+    if (isStarted) {
+      isStarted = false;
+      dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
+      dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+    }
+  }
+
+  /**
+   * @return the number of reads since start()
+   */
+  public int getReadCount() {
+
+    return readCount;
+  }
+
+  /**
+   * @return the seconds from start() to the last read, e.g. for plotting retention over time
+   */
+  public double getLastReadTime() {
+
+    return (lastReadNanos - startNanos) / 1_000_000_000.0;
+  }
+}
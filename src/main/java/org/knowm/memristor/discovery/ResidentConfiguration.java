@@ -0,0 +1,222 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.Arrays;
+
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Keeps track of the analog in and out configuration loaded onto the device, so that runs that differ in only some settings reprogram only what differs. A
+ * capture with the same settings as the loaded one is only re-armed and a pulse train or wave with the same settings as the loaded one is only restarted,
+ * like ReadPulseSequencer does for its reads. Analog in and out are tracked separately, e.g. a new amplitude reloads the output waveform but keeps the
+ * capture configuration.
+ * <p>
+ * Stopping through stop() keeps the configuration loaded. Anything that configures analog in or out without going through this class must call
+ * invalidate() afterwards.
+ */
+public class ResidentConfiguration {
+
+  private final DWFProxy dwfProxy;
+
+  // analog in
+  private boolean isCaptureLoaded = false;
+  private boolean isLevelTriggered;
+  private double sampleFrequency;
+  private double triggerLevel;
+  private int bufferSize;
+  private DWF.AcquisitionMode acquisitionMode;
+
+  // analog out
+  private boolean isOutputLoaded = false;
+  private DWF.Waveform waveform;
+  private double frequency;
+  private double amplitude;
+  private double offset;
+  private double dutyCycle;
+  private int numPulses;
+  private double[] customData;
+
+  private int loadCount = 0;
+  private int reuseCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy - a started up proxy
+   */
+  public ResidentConfiguration(DWFProxy dwfProxy) {
+
+    this.dwfProxy = dwfProxy;
+  }
+
+  /**
+   * Arm a level-triggered capture of both channels, configuring it only if it differs from the loaded capture.
+   *
+   * @param sampleFrequency
+   * @param triggerLevel
+   * @param bufferSize
+   */
+  public void startCaptureLevelTrigger(double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    if (isCaptureLoaded && isLevelTriggered && this.sampleFrequency == sampleFrequency && this.triggerLevel == triggerLevel
+        && this.bufferSize == bufferSize) {
+      rearmCapture();
+      return;
+    }
+    dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, triggerLevel, bufferSize);
+    loadCapture(true, sampleFrequency, triggerLevel, bufferSize, DWF.AcquisitionMode.Single);
+  }
+
+  /**
+   * Start an immediate capture of both channels, configuring it only if it differs from the loaded capture.
+   *
+   * @param sampleFrequency
+   * @param bufferSize
+   * @param acquisitionMode
+   */
+  public void startCaptureImmediately(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode) {
+
+    if (isCaptureLoaded && !isLevelTriggered && this.sampleFrequency == sampleFrequency && this.bufferSize == bufferSize
+        && this.acquisitionMode == acquisitionMode) {
+      rearmCapture();
+      return;
+    }
+    dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(sampleFrequency, bufferSize, acquisitionMode);
+    loadCapture(false, sampleFrequency, 0, bufferSize, acquisitionMode);
+  }
+
+  /**
+   * Start a custom pulse train on WAVEFORM_CHANNEL_1 with no offset, loading it only if it differs from the loaded output.
+   *
+   * @param frequency
+   * @param numPulses
+   * @param customData - not changed afterwards by the caller
+   */
+  public void startCustomPulseTrain(double frequency, int numPulses, double[] customData) {
+
+    if (isOutputLoaded && waveform == DWF.Waveform.Custom && this.frequency == frequency && this.numPulses == numPulses && (this.customData == customData
+        || Arrays.equals(this.customData, customData))) {
+      restartOutput();
+      return;
+    }
+    dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, frequency, 0, numPulses, customData);
+    loadOutput(DWF.Waveform.Custom, frequency, 0, 0, 0, numPulses, customData);
+  }
+
+  /**
+   * Start a continuous wave on WAVEFORM_CHANNEL_1, loading it only if it differs from the loaded output.
+   *
+   * @param waveform
+   * @param frequency
+   * @param amplitude
+   * @param offset
+   * @param dutyCycle
+   */
+  public void startWave(DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle) {
+
+    if (isOutputLoaded && this.waveform == waveform && this.frequency == frequency && this.amplitude == amplitude && this.offset == offset
+        && this.dutyCycle == dutyCycle && numPulses == 0) {
+      restartOutput();
+      return;
+    }
+    dwfProxy.getDwf().startWave(DWF.WAVEFORM_CHANNEL_1, waveform, frequency, amplitude, offset, dutyCycle);
+    loadOutput(waveform, frequency, amplitude, offset, dutyCycle, 0, null);
+  }
+
+  /**
+   * Stop analog in and out, keeping their configuration loaded.
+   */
+  public void stop() {
+
+    dwfProxy.getDwf().FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
+    dwfProxy.getDwf().FDwfAnalogInConfigure(false, false);
+  }
+
+  /**
+   * Forget the loaded configuration, e.g. after analog in or out were configured directly, so the next start configures them again.
+   */
+  public void invalidate() {
+
+    isCaptureLoaded = false;
+    isOutputLoaded = false;
+    customData = null;
+  }
+
+  /**
+   * @return the number of captures and outputs that were configured
+   */
+  public int getLoadCount() {
+
+    return loadCount;
+  }
+
+  /**
+   * @return the number of captures and outputs that were only re-armed or restarted
+   */
+  public int getReuseCount() {
+
+    return reuseCount;
+  }
+
+  private void rearmCapture() {
+
+    dwfProxy.getDwf().FDwfAnalogInConfigure(false, true);
+    reuseCount++;
+  }
+
+  private void restartOutput() {
+
+    dwfProxy.getDwf().FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
+    reuseCount++;
+  }
+
+  private void loadCapture(boolean isLevelTriggered, double sampleFrequency, double triggerLevel, int bufferSize, DWF.AcquisitionMode acquisitionMode) {
+
+    this.isCaptureLoaded = true;
+    this.isLevelTriggered = isLevelTriggered;
+    this.sampleFrequency = sampleFrequency;
+    this.triggerLevel = triggerLevel;
+    this.bufferSize = bufferSize;
+    this.acquisitionMode = acquisitionMode;
+    loadCount++;
+  }
+
+  private void loadOutput(DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle, int numPulses, double[] customData) {
+
+    this.isOutputLoaded = true;
+    this.waveform = waveform;
+    this.frequency = frequency;
+    this.amplitude = amplitude;
+    this.offset = offset;
+    this.dutyCycle = dutyCycle;
+    this.numPulses = numPulses;
+    this.customData = customData;
+    loadCount++;
+  }
+}
@@ -0,0 +1,235 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The parameters of a batch run, read from a java.util.Properties file. Every getter takes the default used when the key is missing, normally the
+ * experiment's *_DEFAULT_VALUE preference. A value that cannot be parsed is an IllegalArgumentException naming the key.
+ */
+public class BatchParameters {
+
+  public static final String EXPERIMENT_KEY = "experiment";
+  public static final String OUTPUT_DIRECTORY_KEY = "outputDirectory";
+  public static final String OUTPUT_DIRECTORY_DEFAULT_VALUE = "./BatchResults";
+
+  // keys shared by several protocols
+  public static final String WAVEFORM_KEY = "waveform";
+  public static final String AMPLITUDE_KEY = "amplitude";
+  public static final String OFFSET_KEY = "offset";
+  public static final String FREQUENCY_KEY = "frequency";
+  public static final String SERIES_R_KEY = "seriesResistance";
+  public static final String PULSE_WIDTH_KEY = "pulseWidth"; // ns
+  public static final String PULSE_NUMBER_KEY = "pulseNumber";
+  public static final String CAPTURE_COUNT_KEY = "captureCount";
+  public static final String READ_COUNT_KEY = "readCount";
+  public static final String READ_INTERVAL_KEY = "readInterval"; // ms
+  public static final String ADAPTIVE_KEY = "adaptive"; // QC only
+  public static final String CONFIDENCE_KEY = "confidence"; // QC only
+  public static final String BOARDS_KEY = "boards"; // comma separated board indices, QC only
+  public static final String BOARDS_DEFAULT_VALUE = "0";
+  public static final String SWEEP_EXPERIMENT_KEY = "sweepExperiment"; // Sweep only
+  public static final String SWEEP_KEY_PREFIX = "sweep."; // Sweep only, e.g. sweep.amplitude=0.5,0.6,0.7
+
+  private final Properties properties;
+
+  /**
+   * Constructor
+   *
+   * @param properties
+   */
+  public BatchParameters(Properties properties) {
+
+    this.properties = properties;
+  }
+
+  public static BatchParameters load(Path path) throws IOException {
+
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    return new BatchParameters(properties);
+  }
+
+  public String getExperiment() {
+
+    String experiment = getString(EXPERIMENT_KEY, null);
+    if (experiment == null || experiment.isEmpty()) {
+      throw new IllegalArgumentException("Missing parameter: " + EXPERIMENT_KEY);
+    }
+    return experiment;
+  }
+
+  /**
+   * @param overrides - values replacing those of this file, by key
+   * @return a copy of these parameters with the given values replaced
+   */
+  public BatchParameters with(Map<String, String> overrides) {
+
+    Properties merged = new Properties(properties);
+    for (Map.Entry<String, String> override : overrides.entrySet()) {
+      merged.setProperty(override.getKey(), override.getValue());
+    }
+    return new BatchParameters(merged);
+  }
+
+  /**
+   * @param prefix
+   * @return the keys starting with prefix, sorted
+   */
+  public Set<String> getKeys(String prefix) {
+
+    Set<String> keys = new TreeSet<>();
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(prefix)) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  public String getOutputDirectory() {
+
+    return getString(OUTPUT_DIRECTORY_KEY, OUTPUT_DIRECTORY_DEFAULT_VALUE);
+  }
+
+  /**
+   * @return the indices of the boards to run on, at least one and without duplicates
+   */
+  public List<Integer> getBoards() {
+
+    List<Integer> boards = new ArrayList<>();
+    for (String board : getString(BOARDS_KEY, BOARDS_DEFAULT_VALUE).split(",")) {
+      try {
+        int index = Integer.parseInt(board.trim());
+        if (index < 0 || boards.contains(index)) {
+          throw new NumberFormatException();
+        }
+        boards.add(index);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Parameter " + BOARDS_KEY + " is not a list of distinct board indices: " + getString(BOARDS_KEY, null));
+      }
+    }
+    return boards;
+  }
+
+  public String getString(String key, String defaultValue) {
+
+    String value = properties.getProperty(key);
+    return value == null ? defaultValue : value.trim();
+  }
+
+  public int getInt(String key, int defaultValue) {
+
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.replace("_", ""));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + key + " is not an integer: " + value);
+    }
+  }
+
+  public double getDouble(String key, double defaultValue) {
+
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value.replace("_", ""));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + key + " is not a number: " + value);
+    }
+  }
+
+  public boolean getBoolean(String key, boolean defaultValue) {
+
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value.equalsIgnoreCase("true")) {
+      return true;
+    }
+    if (value.equalsIgnoreCase("false")) {
+      return false;
+    }
+    throw new IllegalArgumentException("Parameter " + key + " is not true or false: " + value);
+  }
+
+  public <E extends Enum<E>> E getEnum(String key, Class<E> enumClass, E defaultValue) {
+
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    for (E constant : enumClass.getEnumConstants()) {
+      if (constant.name().equalsIgnoreCase(value)) {
+        return constant;
+      }
+    }
+    throw new IllegalArgumentException("Parameter " + key + " is not one of " + Arrays.toString(enumClass.getEnumConstants()) + ": " + value);
+  }
+
+  /**
+   * @param key
+   * @param defaultValue
+   * @param min - inclusive
+   * @return the value, checked to be at least min
+   */
+  public int getInt(String key, int defaultValue, int min) {
+
+    int value = getInt(key, defaultValue);
+    if (value < min) {
+      throw new IllegalArgumentException("Parameter " + key + " must be at least " + min + ": " + value);
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+
+    return "BatchParameters " + properties;
+  }
+}
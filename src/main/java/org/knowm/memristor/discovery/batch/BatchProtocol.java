@@ -0,0 +1,265 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.knowm.memristor.discovery.CapturePlanner;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.ResidentConfiguration;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.ConductanceUnits;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.CurrentUnits;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.TimeUnits;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.PulseSegmenter;
+import org.knowm.waveforms4j.DWF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One experiment protocol run without the GUI: the same device sequence as the experiment's capture worker, with the settings taken from a
+ * BatchParameters file and the results written to CSV files in the output directory. Nothing is throttled for display, so the protocol runs as
+ * fast as the device allows.
+ */
+public abstract class BatchProtocol {
+
+  protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final CapturePlanner capturePlanner = new CapturePlanner();
+
+  protected final DWFProxy dwfProxy;
+  protected final BatchParameters parameters;
+  protected final Path outputDirectory;
+
+  protected ResidentConfiguration residentConfiguration;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy - a started up proxy
+   * @param parameters
+   * @param outputDirectory - created by the caller
+   */
+  public BatchProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    this.dwfProxy = dwfProxy;
+    this.parameters = parameters;
+    this.outputDirectory = outputDirectory;
+    this.residentConfiguration = new ResidentConfiguration(dwfProxy);
+  }
+
+  /**
+   * Share the analog in and out configuration loaded by the protocol run before this one, so this run reprograms only what differs. Only the Pulse, DC and
+   * Hysteresis protocols configure the device through it.
+   *
+   * @param residentConfiguration
+   */
+  void setResidentConfiguration(ResidentConfiguration residentConfiguration) {
+
+    this.residentConfiguration = residentConfiguration;
+  }
+
+  /**
+   * Run the protocol to completion.
+   *
+   * @return true if the protocol ran to completion and, where the protocol has a pass criterion, the device passed
+   */
+  public abstract boolean run() throws Exception;
+
+  /////////////////////////////////////////////////////////////
+  // Device Helpers ///////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  protected boolean waitUntilArmed() {
+
+    return dwfProxy.getAcquisitionWatcher().waitUntilArmed();
+  }
+
+  /**
+   * @param plan - a single capture plan
+   * @return true if armed
+   */
+  protected boolean waitUntilArmed(CapturePlanner.Plan plan) {
+
+    return dwfProxy.getAcquisitionWatcher().waitUntilArmed(plan.getPreTriggerSeconds(0));
+  }
+
+  /**
+   * @return the plan for a level-triggered capture of periodCount periods, see CapturePlanner
+   */
+  protected CapturePlanner.Plan planCapture(double frequency, int periodCount, int minSamplesPerPeriod, int maxSamplesPerPeriod) {
+
+    CapturePlanner.Plan plan = capturePlanner.plan(frequency, periodCount, minSamplesPerPeriod, maxSamplesPerPeriod);
+    logger.debug("Capture plan: {}", plan);
+    return plan;
+  }
+
+  protected boolean capturePulseData(double frequency, int pulseNumber) {
+
+    boolean isDone = dwfProxy.getAcquisitionWatcher().waitUntilDone(1 / frequency * pulseNumber);
+    if (!isDone) {
+      logger.warn("Capture did not complete.");
+    }
+    return isDone;
+  }
+
+  /**
+   * Copy the captured samples of both channels into the given buffers.
+   *
+   * @return the number of samples copied
+   */
+  protected int readCapture(double[] v1, double[] v2) {
+
+    int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    validSamples = dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, v1, Math.min(validSamples, v1.length));
+    dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+    return validSamples;
+  }
+
+  protected void stopAnalogInAndOut() {
+
+    dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
+    dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Output Helpers ///////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  /**
+   * @return the header matching writeCapture, with the given leading columns
+   */
+  protected static String getCaptureHeader(String prefix, TimeUnits timeUnit, CurrentUnits currentUnit, ConductanceUnits conductanceUnit) {
+
+    return prefix + "time [" + timeUnit.getLabel() + "],V1 [V],V2 [V],V memristor [V],current [" + currentUnit.getLabel() + "],conductance [" + conductanceUnit
+        .getLabel() + "]";
+  }
+
+  /**
+   * Derive memristor voltage, current and conductance for a range of captured samples and write them with the raw data, one row per sample.
+   *
+   * @param writer
+   * @param prefix - leading columns including their trailing comma, or an empty string
+   * @param v1
+   * @param v2
+   * @param fromIndex - inclusive
+   * @param toIndex - exclusive
+   * @param timeStep - in the time unit of the header
+   * @param seriesResistance
+   * @param currentUnit
+   * @param conductanceUnit
+   */
+  protected void writeCapture(BufferedWriter writer, String prefix, double[] v1, double[] v2, int fromIndex, int toIndex, double timeStep, double seriesResistance,
+      CurrentUnits currentUnit, ConductanceUnits conductanceUnit) throws IOException {
+
+    double[] v1Range = Arrays.copyOfRange(v1, fromIndex, toIndex);
+    double[] v2Range = Arrays.copyOfRange(v2, fromIndex, toIndex);
+    int length = v1Range.length;
+    double[] time = new double[length];
+    for (int i = 0; i < length; i++) {
+      time[i] = i * timeStep;
+    }
+    double[] vMemristor = new double[length];
+    double[] current = new double[length];
+    double[] conductance = new double[length];
+    IVGVKernel.derive(v1Range, v2Range, length, seriesResistance, ExperimentPreferences.IS_SWITCH_CORRECTED, currentUnit.getDivisor(), conductanceUnit.getDivisor(),
+        vMemristor, current, conductance);
+    writeRows(writer, prefix, length, time, v1Range, v2Range, vMemristor, current, conductance);
+  }
+
+  /**
+   * @return the header matching writePulses
+   */
+  protected static String getPulseHeader(TimeUnits timeUnit, CurrentUnits currentUnit, ConductanceUnits conductanceUnit) {
+
+    return "pulse,capture,width [" + timeUnit.getLabel() + "],energy [nJ],peak current [" + currentUnit.getLabel() + "],conductance [" + conductanceUnit
+        .getLabel() + "]";
+  }
+
+  /**
+   * Write one row per pulse found in a capture, see BurstCapture.
+   *
+   * @param writer
+   * @param captureIndex
+   * @param firstPulseNumber - the number of the capture's first pulse
+   * @param pulses
+   * @param sampleFrequency
+   * @param timeUnit - the unit of the pulse width
+   */
+  protected void writePulses(BufferedWriter writer, int captureIndex, int firstPulseNumber, List<PulseSegmenter.Pulse> pulses, double sampleFrequency,
+      TimeUnits timeUnit) throws IOException {
+
+    for (int i = 0; i < pulses.size(); i++) {
+      PulseSegmenter.Pulse pulse = pulses.get(i);
+      double width = (pulse.getToIndex() - pulse.getFromIndex()) / sampleFrequency * timeUnit.getDivisor();
+      writer.write((firstPulseNumber + i) + "," + captureIndex + "," + width + "," + pulse.getEnergy() * 1_000_000_000 + "," + pulse.getPeakCurrent() + ","
+          + pulse.getConductance());
+      writer.newLine();
+    }
+  }
+
+  protected BufferedWriter newCSVWriter(String fileName, String header) throws IOException {
+
+    BufferedWriter writer = Files.newBufferedWriter(outputDirectory.resolve(fileName), StandardCharsets.UTF_8);
+    writer.write(header);
+    writer.newLine();
+    return writer;
+  }
+
+  /**
+   * Write one CSV row per sample, prefixed with the given leading columns, e.g. a capture index.
+   *
+   * @param writer
+   * @param prefix - leading columns including their trailing comma, or an empty string
+   * @param length
+   * @param columns - equal length data columns
+   */
+  protected void writeRows(BufferedWriter writer, String prefix, int length, double[]... columns) throws IOException {
+
+    StringBuilder sb = new StringBuilder(64);
+    for (int i = 0; i < length; i++) {
+      sb.setLength(0);
+      sb.append(prefix);
+      for (int j = 0; j < columns.length; j++) {
+        if (j > 0) {
+          sb.append(',');
+        }
+        sb.append(columns[j][i]);
+      }
+      writer.write(sb.toString());
+      writer.newLine();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.DWFDevice;
+import org.knowm.memristor.discovery.NativeDWFDevice;
+import org.knowm.memristor.discovery.capturelog.CaptureLogHeader;
+import org.knowm.memristor.discovery.simulation.ReplayDWFDevice;
+import org.knowm.memristor.discovery.simulation.SimulatedDWFDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs one experiment protocol from a parameter file without the GUI, e.g. <code>java -jar memristor-discovery.jar batch hysteresis.properties sim</code>. With <code>replay captures.mdcl</code> the protocol runs on the
+ * frames of a capture log instead of the AD2, e.g. to re-score an old QC lot with new thresholds.
+ * <p>
+ * The exit code tells a calling script how the run went, see the EXIT_* constants.
+ */
+public class BatchRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+  public static final String BATCH_ARG = "batch";
+
+  public static final int EXIT_SUCCESS = 0;
+  public static final int EXIT_PROTOCOL_FAILED = 1;
+  public static final int EXIT_USAGE = 2;
+  public static final int EXIT_DEVICE_NOT_OPENED = 3;
+  public static final int EXIT_ERROR = 4;
+
+  private static final String USAGE = "Usage: batch <parameter file> [sim | replay <capture log> [fast]] [v1]";
+
+  /**
+   * @param args - the command line, starting with "batch"
+   * @return the process exit code
+   */
+  public static int run(String[] args) {
+
+    Path parameterFile = null;
+    boolean isV1Board = false;
+    boolean isSimulated = false;
+    Path replayFile = null;
+    ReplayDWFDevice.Pacing replayPacing = ReplayDWFDevice.Pacing.Recorded;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("v1")) {
+        isV1Board = true;
+      }
+      else if (args[i].equalsIgnoreCase("sim")) {
+        isSimulated = true;
+      }
+      else if (args[i].equalsIgnoreCase("replay") && i + 1 < args.length) {
+        replayFile = Paths.get(args[++i]);
+      }
+      else if (args[i].equalsIgnoreCase("fast")) {
+        replayPacing = ReplayDWFDevice.Pacing.AsFastAsPossible;
+      }
+      else if (parameterFile == null) {
+        parameterFile = Paths.get(args[i]);
+      }
+      else {
+        System.err.println(USAGE);
+        return EXIT_USAGE;
+      }
+    }
+    if (parameterFile == null || (isSimulated && replayFile != null)) {
+      System.err.println(USAGE);
+      return EXIT_USAGE;
+    }
+
+    BatchParameters parameters;
+    String experiment;
+    List<Integer> boards;
+    try {
+      parameters = BatchParameters.load(parameterFile);
+      experiment = parameters.getExperiment();
+      boards = parameters.getBoards();
+    } catch (Exception e) {
+      System.err.println("Could not read parameter file " + parameterFile + ": " + e.getMessage());
+      return EXIT_USAGE;
+    }
+
+    if (boards.size() > 1 || boards.get(0) != 0) {
+      if (!experiment.equalsIgnoreCase("qc") || !isSimulated) {
+        // waveforms4j only opens the first AD2 it finds, so a bench of several boards can only be simulated for now
+        System.err.println("Parameter " + BatchParameters.BOARDS_KEY + " is only supported for simulated QC runs.");
+        return EXIT_USAGE;
+      }
+      return runQCBench(boards, isV1Board, parameters);
+    }
+
+    DWFDevice dwfDevice;
+    if (replayFile != null) {
+      dwfDevice = new ReplayDWFDevice(replayFile, replayPacing, false);
+    }
+    else {
+      dwfDevice = isSimulated ? new SimulatedDWFDevice() : new NativeDWFDevice();
+    }
+    DWFProxy dwfProxy = new DWFProxy(isV1Board, dwfDevice);
+    if (!dwfProxy.startupAD2Synchronously()) {
+      logger.error("Could not open the AD2.");
+      return EXIT_DEVICE_NOT_OPENED;
+    }
+    if (dwfDevice instanceof ReplayDWFDevice) {
+      parameters = applyCaptureLogHeader(parameters, ((ReplayDWFDevice) dwfDevice).getCaptureLogHeader());
+    }
+
+    try {
+      Path outputDirectory = Paths.get(parameters.getOutputDirectory());
+      Files.createDirectories(outputDirectory);
+
+      BatchProtocol protocol = createProtocol(experiment, dwfProxy, parameters, outputDirectory);
+      if (protocol == null) {
+        System.err.println("Unknown experiment: " + experiment + ". Expected one of Hysteresis, DC, Pulse, Conductance, QC, Synapse, Sweep.");
+        return EXIT_USAGE;
+      }
+
+      logger.info("Running {} with {}, writing to {}", experiment, parameterFile, outputDirectory.toAbsolutePath());
+      boolean isSuccess = protocol.run();
+      logger.info("{} {}", experiment, isSuccess ? "finished." : "failed.");
+      return isSuccess ? EXIT_SUCCESS : EXIT_PROTOCOL_FAILED;
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return EXIT_USAGE;
+    } catch (Exception e) {
+      logger.error("Batch run failed.", e);
+      return EXIT_ERROR;
+    } finally {
+      dwfProxy.shutdownAD2();
+    }
+  }
+
+  /**
+   * Replace the waveform, amplitude, offset, frequency and series resistance with the ones the replayed capture log was recorded with, so its frames are
+   * processed the way they were captured. Parameter file values that differ are logged.
+   *
+   * @param parameters
+   * @param header
+   * @return the parameters with the capture log's settings
+   */
+  static BatchParameters applyCaptureLogHeader(BatchParameters parameters, CaptureLogHeader header) {
+
+    Map<String, String> overrides = new LinkedHashMap<>();
+    overrides.put(BatchParameters.WAVEFORM_KEY, header.getWaveform());
+    overrides.put(BatchParameters.AMPLITUDE_KEY, Double.toString(header.getAmplitude()));
+    overrides.put(BatchParameters.OFFSET_KEY, Double.toString(header.getOffset()));
+    overrides.put(BatchParameters.FREQUENCY_KEY, Long.toString(Math.round(header.getFrequency())));
+    overrides.put(BatchParameters.SERIES_R_KEY, Double.toString(header.getSeriesResistance()));
+    for (Map.Entry<String, String> override : overrides.entrySet()) {
+      String value = parameters.getString(override.getKey(), null);
+      if (value != null && !isSameValue(value, override.getValue())) {
+        logger.warn("Parameter {}={} replaced by {}, the value the replayed capture log was recorded with.", override.getKey(), value, override.getValue());
+      }
+    }
+    logger.info("Replaying with the recorded settings: {}", header);
+    return parameters.with(overrides);
+  }
+
+  private static boolean isSameValue(String value, String recordedValue) {
+
+    try {
+      // the GUI models keep floats, so recorded values can be off in the last float digits
+      double number = Double.parseDouble(value.trim());
+      double recordedNumber = Double.parseDouble(recordedValue);
+      return Math.abs(number - recordedNumber) <= 1e-6 * Math.max(1, Math.abs(number));
+    } catch (NumberFormatException e) {
+      return value.trim().equalsIgnoreCase(recordedValue);
+    }
+  }
+
+  /**
+   * Run QC on several simulated boards at once, each simulating a different chip.
+   */
+  private static int runQCBench(List<Integer> boards, boolean isV1Board, BatchParameters parameters) {
+
+    Map<Integer, DWFProxy> dwfProxies = new LinkedHashMap<>();
+    for (int board : boards) {
+      dwfProxies.put(board, new DWFProxy(isV1Board, new SimulatedDWFDevice(SimulatedDWFDevice.SERIES_R_DEFAULT_VALUE, board)));
+    }
+
+    try {
+      Path outputDirectory = Paths.get(parameters.getOutputDirectory());
+      Files.createDirectories(outputDirectory);
+
+      logger.info("Running QC on boards {}, writing to {}", boards, outputDirectory.toAbsolutePath());
+      QCScheduler scheduler = new QCScheduler(dwfProxies, parameters, outputDirectory);
+      boolean isSuccess = scheduler.run();
+      if (!scheduler.getBoardResults().contains(QCScheduler.BoardResult.PASS) && !scheduler.getBoardResults().contains(QCScheduler.BoardResult.REJECT)) {
+        return scheduler.getBoardResults().contains(QCScheduler.BoardResult.ERROR) ? EXIT_ERROR : EXIT_DEVICE_NOT_OPENED;
+      }
+      return isSuccess ? EXIT_SUCCESS : EXIT_PROTOCOL_FAILED;
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return EXIT_USAGE;
+    } catch (Exception e) {
+      logger.error("Batch run failed.", e);
+      return EXIT_ERROR;
+    }
+  }
+
+  /**
+   * @return the protocol of the named experiment, or null if there is no such experiment
+   */
+  static BatchProtocol createProtocol(String experiment, DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    switch (experiment.toLowerCase()) {
+      case "hysteresis":
+        return new HysteresisProtocol(dwfProxy, parameters, outputDirectory);
+      case "dc":
+        return new DCProtocol(dwfProxy, parameters, outputDirectory);
+      case "pulse":
+        return new PulseProtocol(dwfProxy, parameters, outputDirectory);
+      case "conductance":
+        return new ConductanceProtocol(dwfProxy, parameters, outputDirectory);
+      case "qc":
+        return new QCProtocol(dwfProxy, parameters, outputDirectory);
+      case "synapse":
+        return new SynapseProtocol(dwfProxy, parameters, outputDirectory);
+      case "sweep":
+        return new SweepProtocol(dwfProxy, parameters, outputDirectory);
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.knowm.memristor.discovery.CapturePlanner;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.ConductancePreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.WriteVerifyController;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.memristor.discovery.utils.WaveformUtils;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Applies one reset pulse, writing its capture to conductance_reset.csv, and then setPulseCount square set pulses, writing the mean conductance
+ * during each to conductance_set.csv.
+ * <p>
+ * With a targetConductance the set pulses are replaced by a write-verify loop (see WriteVerifyController) that programs the memristor to the target: a 0.1 V
+ * read after every set or reset pulse decides the next one, until the conductance is within tolerance of the target or maxPulseCount pulses were applied. One
+ * row per pulse is written to conductance_program.csv and the run passes if the target was reached.
+ * <p>
+ * Parameters: resetPulseType, resetAmplitude, resetPulseWidth (ns), setAmplitude, setPulseWidth (ns), setPulseCount, seriesResistance, targetConductance
+ * (in ConductancePreferences.CONDUCTANCE_UNIT), tolerance (relative to the target), maxPulseCount.
+ */
+public class ConductanceProtocol extends BatchProtocol {
+
+  public static final String RESET_PULSE_TYPE_KEY = "resetPulseType";
+  public static final String RESET_AMPLITUDE_KEY = "resetAmplitude";
+  public static final String RESET_PULSE_WIDTH_KEY = "resetPulseWidth";
+  public static final String SET_AMPLITUDE_KEY = "setAmplitude";
+  public static final String SET_PULSE_WIDTH_KEY = "setPulseWidth";
+  public static final String SET_PULSE_COUNT_KEY = "setPulseCount";
+  public static final int SET_PULSE_COUNT_DEFAULT_VALUE = 10;
+  public static final String TARGET_CONDUCTANCE_KEY = "targetConductance";
+  public static final String TOLERANCE_KEY = "tolerance";
+  public static final String MAX_PULSE_COUNT_KEY = "maxPulseCount";
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public ConductanceProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    Waveform resetPulseType = parameters.getEnum(RESET_PULSE_TYPE_KEY, Waveform.class, Waveform.valueOf(ConductancePreferences.RESET_PULSE_TYPE_INIT_STRING_DEFAULT_VALUE));
+    double resetAmplitude = parameters.getDouble(RESET_AMPLITUDE_KEY, ConductancePreferences.RESET_AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    int resetPulseWidth = parameters.getInt(RESET_PULSE_WIDTH_KEY, ConductancePreferences.RESET_PERIOD_INIT_DEFAULT_VALUE, 1);
+    double setAmplitude = parameters.getDouble(SET_AMPLITUDE_KEY, ConductancePreferences.SET_AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    int setPulseWidth = parameters.getInt(SET_PULSE_WIDTH_KEY, ConductancePreferences.SET_PERIOD_INIT_DEFAULT_VALUE, 1);
+    int setPulseCount = parameters.getInt(SET_PULSE_COUNT_KEY, SET_PULSE_COUNT_DEFAULT_VALUE, 0);
+    double seriesResistance = parameters.getDouble(BatchParameters.SERIES_R_KEY, ConductancePreferences.SERIES_R_INIT_DEFAULT_VALUE);
+    double targetConductance = parameters.getDouble(TARGET_CONDUCTANCE_KEY, Double.NaN);
+    double tolerance = parameters.getDouble(TOLERANCE_KEY, ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_DEFAULT_VALUE);
+    int maxPulseCount = parameters.getInt(MAX_PULSE_COUNT_KEY, ConductancePreferences.MAX_PULSE_COUNT_INIT_DEFAULT_VALUE, 0);
+
+    double[] v1 = new double[ConductancePreferences.CAPTURE_BUFFER_SIZE];
+    double[] v2 = new double[ConductancePreferences.CAPTURE_BUFFER_SIZE];
+
+    //////////////////////////////////
+    // Reset Pulse ///////////////////
+    //////////////////////////////////
+
+    double resetFrequency = 1.0 / (2.0 * resetPulseWidth) * 1_000_000_000; // 50% duty cycle
+    CapturePlanner.Plan resetPlan = planPulse(resetFrequency);
+    if (!applyPulse(resetPulseType, resetAmplitude, resetPlan)) {
+      return false;
+    }
+    int validSamples = readCapture(v1, v2);
+    stopAnalogInAndOut();
+
+    int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, 0.02, 10);
+    try (BufferedWriter writer = newCSVWriter("conductance_reset.csv", getCaptureHeader("", ConductancePreferences.TIME_UNIT, ConductancePreferences.CURRENT_UNIT,
+        ConductancePreferences.CONDUCTANCE_UNIT))) {
+      writeCapture(writer, "", v1, v2, activeRange[0], activeRange[1], 1 / resetPlan.getSampleFrequency() * ConductancePreferences.TIME_UNIT.getDivisor(),
+          seriesResistance, ConductancePreferences.CURRENT_UNIT, ConductancePreferences.CONDUCTANCE_UNIT);
+    }
+
+    //////////////////////////////////
+    // Set Pulses ////////////////////
+    //////////////////////////////////
+
+    double setFrequency = 1.0 / (2.0 * setPulseWidth) * 1_000_000_000; // 50% duty cycle
+    CapturePlanner.Plan setPlan = planPulse(setFrequency);
+
+    if (!Double.isNaN(targetConductance)) {
+      WriteVerifyController controller = new WriteVerifyController(targetConductance, tolerance, setAmplitude, resetAmplitude, maxPulseCount);
+      return program(controller, resetPulseType, resetPlan, setPlan, seriesResistance, v1, v2);
+    }
+
+    try (BufferedWriter writer = newCSVWriter("conductance_set.csv", "pulse,conductance [" + ConductancePreferences.CONDUCTANCE_UNIT.getLabel() + "]")) {
+
+      for (int pulse = 0; pulse < setPulseCount; pulse++) {
+
+        if (!applyPulse(Waveform.Square, setAmplitude, setPlan)) {
+          return false;
+        }
+        validSamples = readCapture(v1, v2);
+        stopAnalogInAndOut();
+
+        // the mean conductance over the flat top of the pulse
+        activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, setAmplitude * .98, 0);
+        double conductance = IVGVKernel.averageConductance(v1, v2, activeRange[0] + 3, activeRange[1] - 3, seriesResistance,
+            ConductancePreferences.IS_SWITCH_CORRECTED, ConductancePreferences.CONDUCTANCE_UNIT.getDivisor());
+        writer.write(pulse + "," + conductance);
+        writer.newLine();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Program the memristor to the controller's target, verifying the conductance with a read pulse before the first and after every programming pulse.
+   *
+   * @return true if the target was reached
+   */
+  private boolean program(WriteVerifyController controller, Waveform resetPulseType, CapturePlanner.Plan resetPlan, CapturePlanner.Plan setPlan,
+      double seriesResistance, double[] v1, double[] v2) throws IOException {
+
+    double[] readPulseWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, ConductancePreferences.READ_AMPLITUDE,
+        ConductancePreferences.READ_FREQUENCY);
+    long startTime = System.nanoTime();
+
+    try (BufferedWriter writer = newCSVWriter("conductance_program.csv", "pulse,amplitude [V],conductance [" + ConductancePreferences.CONDUCTANCE_UNIT
+        .getLabel() + "]")) {
+
+      double conductance = readConductance(readPulseWaveform, seriesResistance, v1, v2);
+      writer.write("0,0," + conductance);
+      writer.newLine();
+      while (!Double.isNaN(conductance) && controller.update(conductance) == WriteVerifyController.State.PROGRAMMING) {
+
+        double amplitude = controller.getNextAmplitude();
+        boolean isSet = amplitude > 0;
+        if (!applyPulse(isSet ? Waveform.Square : resetPulseType, amplitude, isSet ? setPlan : resetPlan)) {
+          return false;
+        }
+        stopAnalogInAndOut();
+
+        conductance = readConductance(readPulseWaveform, seriesResistance, v1, v2);
+        writer.write(controller.getPulseCount() + "," + amplitude + "," + conductance);
+        writer.newLine();
+      }
+    }
+
+    logger.info("{} to G={} (target {}) after {} pulses and {} overshoots in {} s.", controller.getState() == WriteVerifyController.State.CONVERGED
+        ? "Converged" : "Did not converge", controller.getConductance(), controller.getTargetConductance(), controller.getPulseCount(), controller
+        .getOvershootCount(), (System.nanoTime() - startTime) / 1_000_000_000.0);
+    return controller.getState() == WriteVerifyController.State.CONVERGED;
+  }
+
+  /**
+   * Apply a read pulse and measure the conductance over its flat top.
+   *
+   * @return the conductance, or NaN if the capture did not complete
+   */
+  private double readConductance(double[] readPulseWaveform, double seriesResistance, double[] v1, double[] v2) {
+
+    // trigger on 20% the rising .1 V read pulse
+    dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(ConductancePreferences.READ_FREQUENCY * ConductancePreferences.READ_SAMPLES_PER_PULSE, 0.02,
+        ConductancePreferences.READ_SAMPLES_PER_PULSE);
+    waitUntilArmed();
+    dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, ConductancePreferences.READ_FREQUENCY, 0, 1, readPulseWaveform);
+
+    if (!capturePulseData(ConductancePreferences.READ_FREQUENCY, 1)) {
+      stopAnalogInAndOut();
+      return Double.NaN;
+    }
+    int validSamples = readCapture(v1, v2);
+    stopAnalogInAndOut();
+
+    int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, ConductancePreferences.READ_AMPLITUDE * .8, 0);
+    return IVGVKernel.averageConductance(v1, v2, activeRange[0] + 3, activeRange[1] - 3, seriesResistance, ConductancePreferences.IS_SWITCH_CORRECTED,
+        ConductancePreferences.CONDUCTANCE_UNIT.getDivisor());
+  }
+
+  /**
+   * @return the capture plan for one pulse of the given frequency
+   */
+  private CapturePlanner.Plan planPulse(double frequency) {
+
+    return planCapture(frequency, 1, ConductancePreferences.MIN_SAMPLES_PER_PULSE, ConductancePreferences.MAX_SAMPLES_PER_PULSE);
+  }
+
+  /**
+   * Arm a triggered capture, apply one pulse and wait for the capture to complete.
+   *
+   * @return false if the capture did not complete, in which case analog in and out are stopped
+   */
+  private boolean applyPulse(Waveform waveform, double amplitude, CapturePlanner.Plan plan) {
+
+    double frequency = plan.getFrequency();
+    dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(plan.getSampleFrequency(), 0.02 * (amplitude > 0 ? 1 : -1), plan.getBufferSize());
+    waitUntilArmed(plan);
+
+    double[] customWaveform = WaveformUtils.generateCustomWaveform(waveform, amplitude, frequency);
+    dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, frequency, 0, 1, customWaveform);
+
+    if (!capturePulseData(frequency, 1)) {
+      stopAnalogInAndOut();
+      return false;
+    }
+    return true;
+  }
+}
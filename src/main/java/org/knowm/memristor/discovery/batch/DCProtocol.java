@@ -0,0 +1,98 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.knowm.memristor.discovery.BurstCapture;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.dc.DCPreferences;
+import org.knowm.memristor.discovery.utils.PulseSegmenter;
+
+/**
+ * Applies pulseNumber custom waveform periods, captured in as many buffer-sized captures as it takes (see BurstCapture). The captures are written to dc.csv,
+ * with a leading capture column, and the energy, peak current and conductance of every period found in them to dc_pulses.csv.
+ * <p>
+ * Parameters: waveform, amplitude, period (in DCPreferences.TIME_UNIT), pulseNumber, seriesResistance.
+ */
+public class DCProtocol extends BatchProtocol {
+
+  public static final String PERIOD_KEY = "period";
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public DCProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    Waveform waveform = parameters.getEnum(BatchParameters.WAVEFORM_KEY, Waveform.class, Waveform.valueOf(DCPreferences.WAVEFORM_INIT_STRING_DEFAULT_VALUE));
+    double amplitude = parameters.getDouble(BatchParameters.AMPLITUDE_KEY, DCPreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    int period = parameters.getInt(PERIOD_KEY, DCPreferences.PERIOD_INIT_DEFAULT_VALUE, 1);
+    int pulseNumber = parameters.getInt(BatchParameters.PULSE_NUMBER_KEY, DCPreferences.NUM_PULSES_INIT_DEFAULT_VALUE, 1);
+    final double seriesResistance = parameters.getDouble(BatchParameters.SERIES_R_KEY, DCPreferences.SERIES_R_INIT_DEFAULT_VALUE);
+
+    double frequency = 1.0 / period * DCPreferences.TIME_UNIT.getDivisor();
+    BurstCapture burstCapture = new BurstCapture(dwfProxy, residentConfiguration, BurstCapture.Segmentation.PERIODS,
+        DCPreferences.MIN_SAMPLES_PER_PULSE, DCPreferences.MAX_SAMPLES_PER_PULSE, seriesResistance, DCPreferences.IS_SWITCH_CORRECTED,
+        DCPreferences.CURRENT_UNIT.getDivisor(), DCPreferences.CONDUCTANCE_UNIT.getDivisor());
+    boolean success;
+    try (final BufferedWriter captureWriter = newCSVWriter("dc.csv", getCaptureHeader("capture,", DCPreferences.TIME_UNIT, DCPreferences.CURRENT_UNIT,
+        DCPreferences.CONDUCTANCE_UNIT)); final BufferedWriter pulseWriter = newCSVWriter("dc_pulses.csv", getPulseHeader(DCPreferences.TIME_UNIT,
+        DCPreferences.CURRENT_UNIT, DCPreferences.CONDUCTANCE_UNIT))) {
+
+      success = burstCapture.run(waveform, amplitude, frequency, pulseNumber, new BurstCapture.CaptureListener() {
+
+        @Override
+        public void onCapture(int captureIndex, int firstPulseNumber, double[] v1, double[] v2, int validSamples, double sampleFrequency,
+            List<PulseSegmenter.Pulse> pulses) throws IOException {
+
+          writeCapture(captureWriter, captureIndex + ",", v1, v2, 0, validSamples, 1 / sampleFrequency * DCPreferences.TIME_UNIT.getDivisor(), seriesResistance,
+              DCPreferences.CURRENT_UNIT, DCPreferences.CONDUCTANCE_UNIT);
+          writePulses(pulseWriter, captureIndex, firstPulseNumber, pulses, sampleFrequency, DCPreferences.TIME_UNIT);
+        }
+      });
+    }
+    logger.info("Capture plan: {}", burstCapture.getPlan());
+    logger.info("Captured {} of {} periods in {} captures.", burstCapture.getCapturedPulseCount(), burstCapture.getAppliedPulseCount(), burstCapture
+        .getCaptureCount());
+    return success;
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.nio.file.Path;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.TimeUnits;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.HysteresisPreferences;
+import org.knowm.memristor.discovery.utils.WaveformUtils;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/**
+ * Drives a periodic waveform and records captureCount back-to-back captures of CAPTURE_PERIOD_COUNT periods each to hysteresis.csv.
+ * <p>
+ * Parameters: waveform, amplitude, offset, frequency, seriesResistance, captureCount.
+ */
+public class HysteresisProtocol extends BatchProtocol {
+
+  public static final int CAPTURE_COUNT_DEFAULT_VALUE = 100;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public HysteresisProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    Waveform waveform = parameters.getEnum(BatchParameters.WAVEFORM_KEY, Waveform.class, Waveform.valueOf(HysteresisPreferences.WAVEFORM_INIT_STRING_DEFAULT_VALUE));
+    double amplitude = parameters.getDouble(BatchParameters.AMPLITUDE_KEY, HysteresisPreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    double offset = parameters.getDouble(BatchParameters.OFFSET_KEY, HysteresisPreferences.OFFSET_INIT_FLOAT_DEFAULT_VALUE);
+    int frequency = parameters.getInt(BatchParameters.FREQUENCY_KEY, HysteresisPreferences.FREQUENCY_INIT_DEFAULT_VALUE, 1);
+    double seriesResistance = parameters.getDouble(BatchParameters.SERIES_R_KEY, HysteresisPreferences.SERIES_R_INIT_DEFAULT_VALUE);
+    int captureCount = parameters.getInt(BatchParameters.CAPTURE_COUNT_KEY, CAPTURE_COUNT_DEFAULT_VALUE, 1);
+
+    double sampleFrequency = (double) frequency * HysteresisPreferences.CAPTURE_BUFFER_SIZE / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
+    double[] v1 = new double[HysteresisPreferences.CAPTURE_BUFFER_SIZE];
+    double[] v2 = new double[HysteresisPreferences.CAPTURE_BUFFER_SIZE];
+
+    // Analog Out
+    residentConfiguration.startWave(WaveformUtils.getDWFWaveform(waveform), frequency, amplitude, offset, 50);
+
+    try (BufferedWriter writer = newCSVWriter("hysteresis.csv", getCaptureHeader("capture,", TimeUnits.Seconds, HysteresisPreferences.CURRENT_UNIT,
+        HysteresisPreferences.CONDUCTANCE_UNIT))) {
+
+      for (int capture = 0; capture < captureCount; capture++) {
+
+        // Analog In, one full buffer per capture
+        residentConfiguration.startCaptureImmediately(sampleFrequency, HysteresisPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.Single);
+        if (!capturePulseData(frequency, HysteresisPreferences.CAPTURE_PERIOD_COUNT)) {
+          residentConfiguration.stop();
+          return false;
+        }
+        int validSamples = readCapture(v1, v2);
+        writeCapture(writer, capture + ",", v1, v2, 0, validSamples, 1 / sampleFrequency, seriesResistance, HysteresisPreferences.CURRENT_UNIT,
+            HysteresisPreferences.CONDUCTANCE_UNIT);
+      }
+    } finally {
+      residentConfiguration.stop();
+    }
+    logger.info("Recorded {} captures.", captureCount);
+    return true;
+  }
+}
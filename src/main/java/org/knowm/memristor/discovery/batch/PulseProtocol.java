@@ -0,0 +1,143 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.knowm.memristor.discovery.BurstCapture;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.ReadPulseSequencer;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.PulsePreferences;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.memristor.discovery.utils.PulseSegmenter;
+
+/**
+ * Applies a pulse train and then reads the conductance readCount times with a 0.1 V read pulse every readInterval
+ * ms (back-to-back for 0, see ReadPulseSequencer), writing one row per read with its time since the first read to pulse_reads.csv.
+ * <p>
+ * The pulse train is captured in as many buffer-sized captures as it takes (see BurstCapture). The trimmed captures are written to pulse.csv, with a leading
+ * capture column, and the energy, peak current and conductance of every pulse found in them to pulse_pulses.csv.
+ * <p>
+ * Parameters: waveform, amplitude, pulseWidth (ns), pulseNumber, seriesResistance, readCount, readInterval (ms).
+ */
+public class PulseProtocol extends BatchProtocol {
+
+  public static final int READ_COUNT_DEFAULT_VALUE = 10;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public PulseProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    Waveform waveform = parameters.getEnum(BatchParameters.WAVEFORM_KEY, Waveform.class, Waveform.valueOf(PulsePreferences.WAVEFORM_INIT_STRING_DEFAULT_VALUE));
+    double amplitude = parameters.getDouble(BatchParameters.AMPLITUDE_KEY, PulsePreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    int pulseWidth = parameters.getInt(BatchParameters.PULSE_WIDTH_KEY, PulsePreferences.PULSE_WIDTH_INIT_DEFAULT_VALUE, 1);
+    int pulseNumber = parameters.getInt(BatchParameters.PULSE_NUMBER_KEY, PulsePreferences.NUM_PULSES_INIT_DEFAULT_VALUE, 1);
+    final double seriesResistance = parameters.getDouble(BatchParameters.SERIES_R_KEY, PulsePreferences.SERIES_R_INIT_DEFAULT_VALUE);
+    int readCount = parameters.getInt(BatchParameters.READ_COUNT_KEY, READ_COUNT_DEFAULT_VALUE, 0);
+    int readInterval = parameters.getInt(BatchParameters.READ_INTERVAL_KEY, 0, 0);
+
+    //////////////////////////////////
+    // Pulse Train ///////////////////
+    //////////////////////////////////
+
+    double frequency = 1.0 / (2.0 * pulseWidth) * 1_000_000_000; // 50% duty cycle
+    BurstCapture burstCapture = new BurstCapture(dwfProxy, residentConfiguration, BurstCapture.Segmentation.PULSES,
+        PulsePreferences.MIN_SAMPLES_PER_PULSE, PulsePreferences.MAX_SAMPLES_PER_PULSE, seriesResistance, PulsePreferences.IS_SWITCH_CORRECTED,
+        PulsePreferences.CURRENT_UNIT.getDivisor(), PulsePreferences.CONDUCTANCE_UNIT.getDivisor());
+    try (final BufferedWriter captureWriter = newCSVWriter("pulse.csv", getCaptureHeader("capture,", PulsePreferences.TIME_UNIT, PulsePreferences.CURRENT_UNIT,
+        PulsePreferences.CONDUCTANCE_UNIT)); final BufferedWriter pulseWriter = newCSVWriter("pulse_pulses.csv", getPulseHeader(PulsePreferences.TIME_UNIT,
+        PulsePreferences.CURRENT_UNIT, PulsePreferences.CONDUCTANCE_UNIT))) {
+
+      boolean isSuccess = burstCapture.run(waveform, amplitude, frequency, pulseNumber, new BurstCapture.CaptureListener() {
+
+        @Override
+        public void onCapture(int captureIndex, int firstPulseNumber, double[] v1, double[] v2, int validSamples, double sampleFrequency,
+            List<PulseSegmenter.Pulse> pulses) throws IOException {
+
+          int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, 0.05, 10);
+          writeCapture(captureWriter, captureIndex + ",", v1, v2, activeRange[0], activeRange[1], 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor(),
+              seriesResistance, PulsePreferences.CURRENT_UNIT, PulsePreferences.CONDUCTANCE_UNIT);
+          writePulses(pulseWriter, captureIndex, firstPulseNumber, pulses, sampleFrequency, PulsePreferences.TIME_UNIT);
+        }
+      });
+      if (!isSuccess) {
+        return false;
+      }
+    }
+    logger.info("Capture plan: {}", burstCapture.getPlan());
+    logger.info("Captured {} of {} pulses in {} captures.", burstCapture.getCapturedPulseCount(), burstCapture.getAppliedPulseCount(), burstCapture
+        .getCaptureCount());
+
+    //////////////////////////////////
+    // Read Pulses ///////////////////
+    //////////////////////////////////
+
+    if (readCount == 0) {
+      return true;
+    }
+    ReadPulseSequencer readPulseSequencer = new ReadPulseSequencer(dwfProxy, seriesResistance, PulsePreferences.IS_SWITCH_CORRECTED,
+        PulsePreferences.CONDUCTANCE_UNIT.getDivisor(), readInterval);
+    // the reads replace the pulse train configuration
+    residentConfiguration.invalidate();
+    readPulseSequencer.start();
+    long startTime = System.nanoTime();
+
+    try (BufferedWriter writer = newCSVWriter("pulse_reads.csv", "read,time [s],conductance [" + PulsePreferences.CONDUCTANCE_UNIT.getLabel() + "]")) {
+
+      for (int read = 0; read < readCount; read++) {
+
+        double conductance = readPulseSequencer.read();
+        if (Double.isNaN(conductance)) {
+          logger.warn("Read {} did not complete.", read);
+          return false;
+        }
+        writer.write(read + "," + readPulseSequencer.getLastReadTime() + "," + conductance);
+        writer.newLine();
+      }
+    } finally {
+      readPulseSequencer.stop();
+    }
+    logger.info("{} reads in {} s.", readCount, (System.nanoTime() - startTime) / 1_000_000_000.0);
+    return true;
+  }
+}
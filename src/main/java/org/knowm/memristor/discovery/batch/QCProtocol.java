@@ -0,0 +1,164 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.nio.file.Path;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.gui.mvc.experiments.qc.QCPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.qc.QCSequentialTest;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.RunningStatistics;
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/**
+ * Tests the 8 memristors of a chip as the QC experiment does and writes one row per memristor to qc.csv. The run passes unless the chip
+ * classifies as REJECT, i.e. fewer than 4 memristors pass.
+ * <p>
+ * Parameters: waveform (a DWF.Waveform), amplitude, offset, frequency, seriesResistance, adaptive and confidence (stop each memristor as soon as its result
+ * is settled, see QCSequentialTest) and boards, the indices of the boards to test on concurrently (see QCScheduler).
+ */
+public class QCProtocol extends BatchProtocol {
+
+  private static final int MEMRISTOR_COUNT = 8;
+  private static final int MIN_PASS_COUNT = 4;
+
+  private int passCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public QCProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    DWF.Waveform waveform = parameters.getEnum(BatchParameters.WAVEFORM_KEY, DWF.Waveform.class, DWF.Waveform.Sine);
+    double amplitude = parameters.getDouble(BatchParameters.AMPLITUDE_KEY, QCPreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    double offset = parameters.getDouble(BatchParameters.OFFSET_KEY, QCPreferences.OFFSET_INIT_FLOAT_DEFAULT_VALUE);
+    int frequency = parameters.getInt(BatchParameters.FREQUENCY_KEY, QCPreferences.FREQUENCY_INIT_DEFAULT_VALUE, 1);
+    double seriesResistance = parameters.getDouble(BatchParameters.SERIES_R_KEY, QCPreferences.SERIES_R_INIT_DEFAULT_VALUE);
+    boolean isAdaptive = parameters.getBoolean(BatchParameters.ADAPTIVE_KEY, QCPreferences.ADAPTIVE_INIT_BOOLEAN_DEFAULT_VALUE);
+    double confidence = parameters.getDouble(BatchParameters.CONFIDENCE_KEY, QCPreferences.CONFIDENCE_INIT_FLOAT_DEFAULT_VALUE);
+    int conditioningCaptureCount = isAdaptive ? QCPreferences.ADAPTIVE_CONDITIONING_CAPTURE_COUNT : QCPreferences.START_QC_CAPTURE_COUNT;
+
+    double sampleFrequency = (double) frequency * QCPreferences.CAPTURE_BUFFER_SIZE / QCPreferences.CAPTURE_PERIOD_COUNT;
+    double[] v1 = new double[QCPreferences.CAPTURE_BUFFER_SIZE];
+    double[] v2 = new double[QCPreferences.CAPTURE_BUFFER_SIZE];
+    double[] voltage = new double[QCPreferences.CAPTURE_BUFFER_SIZE];
+    RunningStatistics resistance = new RunningStatistics();
+
+    passCount = 0;
+
+    try (BufferedWriter writer = newCSVWriter("qc.csv", "device,LRS [Ohm],HRS [Ohm],Q,result")) {
+
+      for (int j = 0; j < MEMRISTOR_COUNT; j++) {
+
+        // switch memristor, deselecting the previous one in the same write
+        dwfProxy.beginDigitalIOTransaction().setAll(0b0000_0000).setIO(j, true).commit();
+
+        dwfProxy.getDwf().startWave(DWF.WAVEFORM_CHANNEL_1, waveform, frequency, amplitude, offset, 50);
+
+        // accumulates the HRS and LRS of every measured capture, and in adaptive mode decides when to stop
+        QCSequentialTest sequentialTest = new QCSequentialTest(QCPreferences.R_TARGET, QCPreferences.MIN_Q, confidence, QCPreferences.ADAPTIVE_MIN_MEASUREMENT_COUNT,
+            QCPreferences.MAX_CAPTURE_COUNT + 1 - conditioningCaptureCount);
+
+        for (int captureCount = 0; captureCount <= QCPreferences.MAX_CAPTURE_COUNT + 1; captureCount++) {
+
+          dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(sampleFrequency, QCPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.Single);
+          if (!capturePulseData(frequency, QCPreferences.CAPTURE_PERIOD_COUNT)) {
+            continue;
+          }
+          int validSamples = readCapture(v1, v2);
+
+          // the first captures only condition the memristor
+          if (captureCount > conditioningCaptureCount) {
+            IVGVKernel.derive(v1, v2, validSamples, seriesResistance, QCPreferences.IS_SWITCH_CORRECTED, 1.0, 1.0, voltage, null, null);
+
+            double maxV = 0;
+            double minV = 0;
+            for (int i = 0; i < validSamples; i++) {
+              maxV = voltage[i] > maxV ? voltage[i] : maxV;
+              minV = voltage[i] < minV ? voltage[i] : minV;
+            }
+
+            resistance.reset();
+            for (int i = 0; i < validSamples; i++) {
+              if (voltage[i] > maxV * QCPreferences.P_BELOW_MAX_MIN_V || voltage[i] < minV * QCPreferences.P_BELOW_MAX_MIN_V) {
+                resistance.add(Math.abs(voltage[i] / (v2[i] / seriesResistance)));
+              }
+            }
+            if (resistance.getCount() > 0) {
+              sequentialTest.add(resistance.getMax(), resistance.getMin());
+              if (isAdaptive && sequentialTest.getDecision() != QCSequentialTest.Decision.PENDING) {
+                logger.debug("Memristor {} settled after {} captures.", j, captureCount + 1);
+                break;
+              }
+            }
+          }
+        }
+        stopAnalogInAndOut();
+
+        if (sequentialTest.getCount() > 0) {
+          boolean pass = sequentialTest.isPassing();
+          if (pass) {
+            passCount++;
+          }
+          writer.write(j + "," + sequentialTest.getLrs().getMean() + "," + sequentialTest.getHrs().getMean() + "," + sequentialTest.getQ() + "," + (pass ? "PASS"
+              : "FAIL"));
+        }
+        else {
+          writer.write(j + ",,,,FAIL");
+        }
+        writer.newLine();
+      }
+    } finally {
+      dwfProxy.setAllIOStates(0b0000_0000);
+    }
+
+    logger.info("{} of {} memristors passed.", passCount, MEMRISTOR_COUNT);
+    return passCount >= MIN_PASS_COUNT;
+  }
+
+  /**
+   * @return the number of memristors that passed in the last run
+   */
+  public int getPassCount() {
+
+    return passCount;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the QC protocol on several boards at once, one thread per board. Each board is opened, tested and shut down on its own thread and writes its qc.csv to
+ * its own board_&lt;index&gt; directory, so a bench of boards tests as many chips in the time of one. The per-board outcomes are collected in qc_summary.csv.
+ */
+public class QCScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(QCScheduler.class);
+
+  public enum BoardResult {
+
+    PASS, REJECT, NOT_OPENED, ERROR
+  }
+
+  private final Map<Integer, DWFProxy> boards;
+  private final BatchParameters parameters;
+  private final Path outputDirectory;
+
+  private final List<BoardResult> boardResults = new ArrayList<>();
+
+  /**
+   * Constructor
+   *
+   * @param boards - the proxies of the boards by board index, not yet started up
+   * @param parameters
+   * @param outputDirectory - created by the caller
+   */
+  public QCScheduler(Map<Integer, DWFProxy> boards, BatchParameters parameters, Path outputDirectory) {
+
+    this.boards = boards;
+    this.parameters = parameters;
+    this.outputDirectory = outputDirectory;
+  }
+
+  /**
+   * Test the chips on all boards concurrently and wait for all of them to finish.
+   *
+   * @return true if every board was opened and its chip passed
+   */
+  public boolean run() throws Exception {
+
+    final AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executorService = Executors.newFixedThreadPool(boards.size(), new ThreadFactory() {
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+
+        return new Thread(runnable, "qc-worker-" + threadCount.getAndIncrement());
+      }
+    });
+
+    List<Integer> boardIndices = new ArrayList<>(boards.keySet());
+    List<Future<BoardOutcome>> futures = new ArrayList<>();
+    long startTime = System.nanoTime();
+    try {
+      for (final int boardIndex : boardIndices) {
+        futures.add(executorService.submit(new Callable<BoardOutcome>() {
+
+          @Override
+          public BoardOutcome call() {
+
+            return runBoard(boardIndex, boards.get(boardIndex));
+          }
+        }));
+      }
+
+      boardResults.clear();
+      boolean isAllPassed = true;
+      try (BufferedWriter writer = Files.newBufferedWriter(outputDirectory.resolve("qc_summary.csv"), StandardCharsets.UTF_8)) {
+        writer.write("board,result,memristors passed,seconds");
+        writer.newLine();
+        for (int i = 0; i < boardIndices.size(); i++) {
+          BoardOutcome outcome;
+          try {
+            outcome = futures.get(i).get();
+          } catch (ExecutionException e) {
+            logger.error("QC of board " + boardIndices.get(i) + " failed.", e.getCause());
+            outcome = new BoardOutcome(BoardResult.ERROR, 0, 0);
+          }
+          boardResults.add(outcome.result);
+          isAllPassed &= outcome.result == BoardResult.PASS;
+          writer.write(boardIndices.get(i) + "," + outcome.result + "," + outcome.passCount + "," + outcome.seconds);
+          writer.newLine();
+        }
+      }
+      logger.info("QC of {} boards took {} s.", boards.size(), (System.nanoTime() - startTime) / 1_000_000_000.0);
+      return isAllPassed;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private BoardOutcome runBoard(int boardIndex, DWFProxy dwfProxy) {
+
+    long startTime = System.nanoTime();
+    if (!dwfProxy.startupAD2Synchronously()) {
+      logger.error("Could not open board {}.", boardIndex);
+      return new BoardOutcome(BoardResult.NOT_OPENED, 0, 0);
+    }
+    try {
+      Path boardDirectory = outputDirectory.resolve("board_" + boardIndex);
+      Files.createDirectories(boardDirectory);
+      QCProtocol protocol = new QCProtocol(dwfProxy, parameters, boardDirectory);
+      boolean isPassed = protocol.run();
+      logger.info("Board {} {}.", boardIndex, isPassed ? "passed" : "rejected");
+      return new BoardOutcome(isPassed ? BoardResult.PASS : BoardResult.REJECT, protocol.getPassCount(), (System.nanoTime() - startTime) / 1_000_000_000.0);
+    } catch (Exception e) {
+      logger.error("QC of board " + boardIndex + " failed.", e);
+      return new BoardOutcome(BoardResult.ERROR, 0, (System.nanoTime() - startTime) / 1_000_000_000.0);
+    } finally {
+      dwfProxy.shutdownAD2();
+    }
+  }
+
+  /**
+   * @return the result of each board of the last run, in board order
+   */
+  public List<BoardResult> getBoardResults() {
+
+    return boardResults;
+  }
+
+  private static class BoardOutcome {
+
+    private final BoardResult result;
+    private final int passCount;
+    private final double seconds;
+
+    BoardOutcome(BoardResult result, int passCount, double seconds) {
+
+      this.result = result;
+      this.passCount = passCount;
+      this.seconds = seconds;
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.ResidentConfiguration;
+
+/**
+ * Runs the Pulse, DC or Hysteresis protocol once for every point of a parameter grid, back-to-back on the same open device. Each parameter to sweep is given
+ * as a comma separated list under its key prefixed with "sweep.", e.g. <code>sweep.amplitude=0.5,0.6,0.7</code> and <code>sweep.pulseWidth=5000,10000</code>
+ * for 6 points. All other parameters are shared by all points.
+ * <p>
+ * The points are visited in a serpentine order with the cheapest parameters innermost: the amplitude changes fastest and the waveform slowest, and every other
+ * pass over an inner parameter runs backwards, so consecutive points differ in exactly one parameter. The points share a ResidentConfiguration, so a point only
+ * reprograms the analog in or out settings that its changed parameter affects, e.g. a new amplitude reloads the output waveform but only re-arms the capture.
+ * Pulse reads (readCount) reconfigure both, so a Pulse point with reads reprograms everything for the next point. Each point writes its protocol's CSV files to
+ * point_&lt;n&gt; and a row with its parameter values, result and duration is appended to sweep.csv as soon as it finishes, so a sweep that is cut short keeps
+ * the points already run.
+ * <p>
+ * Parameters: sweepExperiment (Pulse, DC or Hysteresis), sweep.&lt;key&gt; for each swept parameter and any parameter of the swept experiment.
+ */
+public class SweepProtocol extends BatchProtocol {
+
+  /**
+   * The swept parameters from slowest to fastest changing, ordered by what changing them costs. Parameters not listed change slower still.
+   */
+  private static final List<String> AXIS_ORDER = Arrays.asList(BatchParameters.WAVEFORM_KEY, BatchParameters.PULSE_NUMBER_KEY, BatchParameters.PULSE_WIDTH_KEY,
+      DCProtocol.PERIOD_KEY, BatchParameters.FREQUENCY_KEY, BatchParameters.OFFSET_KEY, BatchParameters.AMPLITUDE_KEY);
+
+  private static final List<String> SWEEPABLE_EXPERIMENTS = Arrays.asList("Pulse", "DC", "Hysteresis");
+
+  private int failedPointCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public SweepProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    String experiment = parameters.getString(BatchParameters.SWEEP_EXPERIMENT_KEY, null);
+    if (experiment == null || !containsIgnoreCase(SWEEPABLE_EXPERIMENTS, experiment)) {
+      throw new IllegalArgumentException("Parameter " + BatchParameters.SWEEP_EXPERIMENT_KEY + " must be one of " + SWEEPABLE_EXPERIMENTS + ": " + experiment);
+    }
+    List<String> axisKeys = getAxisKeys();
+    List<List<String>> axisValues = new ArrayList<>();
+    for (String axisKey : axisKeys) {
+      axisValues.add(getAxisValues(axisKey));
+    }
+    List<int[]> points = getSerpentineOrder(axisValues);
+
+    logger.info("Sweeping {} over {} in {} points.", experiment, axisKeys, points.size());
+    failedPointCount = 0;
+    ResidentConfiguration residentConfiguration = new ResidentConfiguration(dwfProxy);
+    try (BufferedWriter writer = newCSVWriter("sweep.csv", "point," + join(axisKeys) + ",result,seconds")) {
+
+      int[] previousPoint = null;
+      for (int pointIndex = 0; pointIndex < points.size(); pointIndex++) {
+
+        int[] point = points.get(pointIndex);
+        Map<String, String> pointValues = new LinkedHashMap<>();
+        List<String> changedKeys = new ArrayList<>();
+        for (int axis = 0; axis < axisKeys.size(); axis++) {
+          pointValues.put(axisKeys.get(axis), axisValues.get(axis).get(point[axis]));
+          if (previousPoint == null || previousPoint[axis] != point[axis]) {
+            changedKeys.add(axisKeys.get(axis));
+          }
+        }
+        logger.info("Point {}/{}: {}, changed {}", pointIndex + 1, points.size(), pointValues, changedKeys);
+
+        Path pointDirectory = outputDirectory.resolve(String.format("point_%04d", pointIndex));
+        Files.createDirectories(pointDirectory);
+        BatchProtocol protocol = BatchRunner.createProtocol(experiment, dwfProxy, parameters.with(pointValues), pointDirectory);
+        protocol.setResidentConfiguration(residentConfiguration);
+
+        long startTime = System.nanoTime();
+        boolean isSuccess = protocol.run();
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        if (!isSuccess) {
+          failedPointCount++;
+          logger.warn("Point {} failed.", pointIndex);
+        }
+
+        writer.write(pointIndex + "," + join(new ArrayList<>(pointValues.values())) + "," + (isSuccess ? "OK" : "FAILED") + "," + seconds);
+        writer.newLine();
+        writer.flush();
+        previousPoint = point;
+      }
+    }
+    logger.info("Sweep finished, {} of {} points failed.", failedPointCount, points.size());
+    logger.info("Analog in and out configured {} times, re-armed or restarted {} times.", residentConfiguration.getLoadCount(), residentConfiguration
+        .getReuseCount());
+    return failedPointCount == 0;
+  }
+
+  /**
+   * @return the number of points of the last run whose protocol failed
+   */
+  public int getFailedPointCount() {
+
+    return failedPointCount;
+  }
+
+  /**
+   * @return the swept parameter keys without the prefix, from slowest to fastest changing
+   */
+  private List<String> getAxisKeys() {
+
+    List<String> unlistedKeys = new ArrayList<>();
+    List<String> listedKeys = new ArrayList<>();
+    for (String key : parameters.getKeys(BatchParameters.SWEEP_KEY_PREFIX)) {
+      String axisKey = key.substring(BatchParameters.SWEEP_KEY_PREFIX.length());
+      if (axisKey.isEmpty() || axisKey.equals(BatchParameters.EXPERIMENT_KEY) || axisKey.equals(BatchParameters.OUTPUT_DIRECTORY_KEY) || axisKey.equals(
+          BatchParameters.BOARDS_KEY)) {
+        throw new IllegalArgumentException("Parameter " + key + " cannot be swept.");
+      }
+      if (AXIS_ORDER.contains(axisKey)) {
+        listedKeys.add(axisKey);
+      }
+      else {
+        unlistedKeys.add(axisKey);
+      }
+    }
+    if (unlistedKeys.isEmpty() && listedKeys.isEmpty()) {
+      throw new IllegalArgumentException("No parameter to sweep, expected at least one " + BatchParameters.SWEEP_KEY_PREFIX + "<key> parameter.");
+    }
+    Collections.sort(listedKeys, new Comparator<String>() {
+
+      @Override
+      public int compare(String key1, String key2) {
+
+        return AXIS_ORDER.indexOf(key1) - AXIS_ORDER.indexOf(key2);
+      }
+    });
+    unlistedKeys.addAll(listedKeys);
+    return unlistedKeys;
+  }
+
+  private List<String> getAxisValues(String axisKey) {
+
+    String key = BatchParameters.SWEEP_KEY_PREFIX + axisKey;
+    List<String> values = new ArrayList<>();
+    for (String value : parameters.getString(key, "").split(",")) {
+      if (value.trim().isEmpty()) {
+        throw new IllegalArgumentException("Parameter " + key + " is not a comma separated list of values: " + parameters.getString(key, ""));
+      }
+      values.add(value.trim());
+    }
+    return values;
+  }
+
+  /**
+   * List the points of a grid so that consecutive points differ in one axis only: the last axis changes fastest and each pass over an axis runs in the
+   * opposite direction of the one before.
+   *
+   * @param axisValues - the values of each axis, slowest changing first
+   * @return the value indices of each point, in run order
+   */
+  static List<int[]> getSerpentineOrder(List<List<String>> axisValues) {
+
+    List<int[]> points = new ArrayList<>();
+    points.add(new int[axisValues.size()]);
+    for (int axis = axisValues.size() - 1; axis >= 0; axis--) {
+      List<int[]> innerPoints = points;
+      points = new ArrayList<>();
+      for (int value = 0; value < axisValues.get(axis).size(); value++) {
+        for (int i = 0; i < innerPoints.size(); i++) {
+          int[] point = innerPoints.get(value % 2 == 0 ? i : innerPoints.size() - 1 - i).clone();
+          point[axis] = value;
+          points.add(point);
+        }
+      }
+    }
+    return points;
+  }
+
+  private static boolean containsIgnoreCase(List<String> values, String value) {
+
+    for (String candidate : values) {
+      if (candidate.equalsIgnoreCase(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String join(List<String> values) {
+
+    StringBuilder sb = new StringBuilder();
+    for (String value : values) {
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(value);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,139 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.batch;
+
+import java.io.BufferedWriter;
+import java.nio.file.Path;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.synapse.AHaHController.Instruction;
+import org.knowm.memristor.discovery.gui.mvc.experiments.synapse.SynapsePreferences;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.memristor.discovery.utils.WaveformUtils;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Applies one AHaH instruction to the synapse and then reads its state readCount times with FFLV read pulses, writing y, the voltage divider value
+ * V_y / V_applied, to synapse_reads.csv.
+ * <p>
+ * Parameters: instruction, waveform, amplitude, pulseWidth (ns), pulseNumber, readCount, readInterval (ms).
+ */
+public class SynapseProtocol extends BatchProtocol {
+
+  public static final String INSTRUCTION_KEY = "instruction";
+  public static final int READ_COUNT_DEFAULT_VALUE = 10;
+
+  private static final int READ_SAMPLES_PER_PULSE = 300;
+  private static final double READ_FREQUENCY = 100_000; // 0.1 V, 5 us pulse width
+  private static final double READ_AMPLITUDE = 0.1;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxy
+   * @param parameters
+   * @param outputDirectory
+   */
+  public SynapseProtocol(DWFProxy dwfProxy, BatchParameters parameters, Path outputDirectory) {
+
+    super(dwfProxy, parameters, outputDirectory);
+  }
+
+  @Override
+  public boolean run() throws Exception {
+
+    Instruction instruction = parameters.getEnum(INSTRUCTION_KEY, Instruction.class, Instruction.FF);
+    Waveform waveform = parameters.getEnum(BatchParameters.WAVEFORM_KEY, Waveform.class, Waveform.valueOf(SynapsePreferences.WAVEFORM_INIT_STRING_DEFAULT_VALUE));
+    double amplitude = parameters.getDouble(BatchParameters.AMPLITUDE_KEY, SynapsePreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
+    int pulseWidth = parameters.getInt(BatchParameters.PULSE_WIDTH_KEY, SynapsePreferences.PULSE_WIDTH_INIT_DEFAULT_VALUE, 1);
+    int pulseNumber = parameters.getInt(BatchParameters.PULSE_NUMBER_KEY, SynapsePreferences.NUM_PULSES_INIT_DEFAULT_VALUE, 1);
+    int readCount = parameters.getInt(BatchParameters.READ_COUNT_KEY, READ_COUNT_DEFAULT_VALUE, 0);
+    int readInterval = parameters.getInt(BatchParameters.READ_INTERVAL_KEY, 0, 0);
+
+    //////////////////////////////////
+    // Instruction ///////////////////
+    //////////////////////////////////
+
+    double frequency = 1.0 / (2.0 * pulseWidth) * 1_000_000_000; // 50% duty cycle
+    dwfProxy.beginDigitalIOTransaction().setUpper8(instruction.getBits()).commit();
+    double[] customWaveformW2 = WaveformUtils.generateCustomWaveform(waveform, amplitude * instruction.getW2VoltageMultiplier(), frequency);
+    double[] customWaveformW1 = WaveformUtils.generateCustomWaveform(waveform, amplitude * instruction.getW1VoltageMultiplier(), frequency);
+    dwfProxy.getDwf().setCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, frequency, 0, pulseNumber, customWaveformW1);
+    dwfProxy.getDwf().setCustomPulseTrain(DWF.WAVEFORM_CHANNEL_2, frequency, 0, pulseNumber, customWaveformW2);
+    dwfProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_BOTH);
+
+    // nothing is captured for the instruction itself, just let it finish
+    Thread.sleep((long) Math.ceil(1000 / frequency * pulseNumber));
+    dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
+    dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_2);
+
+    //////////////////////////////////
+    // FFLV Read Pulses //////////////
+    //////////////////////////////////
+
+    dwfProxy.beginDigitalIOTransaction().setUpper8(Instruction.FF.getBits()).commit();
+    double[] fflvWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, READ_AMPLITUDE, READ_FREQUENCY);
+    double[] v1 = new double[DWF.AD2_MAX_BUFFER_SIZE];
+    double[] v2 = new double[DWF.AD2_MAX_BUFFER_SIZE];
+
+    try (BufferedWriter writer = newCSVWriter("synapse_reads.csv", "read,y")) {
+
+      for (int read = 0; read < readCount; read++) {
+
+        if (readInterval > 0) {
+          Thread.sleep(readInterval);
+        }
+
+        // trigger on 20% the rising .1 V read pulse
+        dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(READ_FREQUENCY * READ_SAMPLES_PER_PULSE, 0.02, READ_SAMPLES_PER_PULSE);
+        waitUntilArmed();
+        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, READ_FREQUENCY, 0, 1, fflvWaveform);
+
+        if (!capturePulseData(READ_FREQUENCY, 1)) {
+          stopAnalogInAndOut();
+          return false;
+        }
+        int validSamples = readCapture(v1, v2);
+        stopAnalogInAndOut();
+
+        // y is the mean of V_y / V_applied over the read pulse
+        int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, 0.08, 0);
+        double runningTotal = 0.0;
+        for (int i = activeRange[0] + 3; i < activeRange[1] - 3; i++) {
+          double y = v1[i] / READ_AMPLITUDE;
+          runningTotal += y < 0 ? 0 : y;
+        }
+        double yAve = runningTotal / (activeRange[1] - activeRange[0] - 6);
+        writer.write(read + "," + yAve);
+        writer.newLine();
+      }
+    }
+    return true;
+  }
+}
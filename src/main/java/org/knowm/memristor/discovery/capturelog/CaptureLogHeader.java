@@ -0,0 +1,255 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.capturelog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The fixed-size header at the start of a capture log. All values are little-endian.
+ *
+ * <pre>
+ *   0  int    magic "MDCL"
+ *   4  short  format version
+ *   6  byte   column type, the bytes per sample (4 = float32, 8 = float64)
+ *   7  byte   channel count (2: V1, V2)
+ *   8  long   creation time [ms since epoch]
+ *  16  double sample rate [Hz]
+ *  24  double series resistance [Ohm]
+ *  32  double amplitude [V]
+ *  40  double offset [V]
+ *  48  double frequency [Hz]
+ *  56  int    digital I/O state
+ *  64  long   frame count, updated after every frame
+ *  72  long   data end, the file position after the last complete frame
+ *  80  short  waveform name length, followed by the UTF-8 waveform name
+ * </pre>
+ *
+ * Each frame follows as: int sample count, int digital I/O state, long capture time [ns since the log was started], double sample rate [Hz], then the V1
+ * column and the V2 column.
+ */
+public class CaptureLogHeader {
+
+  public static final int MAGIC = 0x4C43444D; // "MDCL" read little-endian
+  public static final short VERSION = 1;
+
+  public static final int HEADER_SIZE = 128;
+  public static final int FRAME_HEADER_SIZE = 24;
+  public static final int CHANNEL_COUNT = 2;
+
+  static final int FRAME_COUNT_OFFSET = 64;
+  static final int DATA_END_OFFSET = 72;
+  private static final int WAVEFORM_OFFSET = 80;
+  private static final int MAX_WAVEFORM_NAME_LENGTH = HEADER_SIZE - WAVEFORM_OFFSET - Short.BYTES;
+
+  public enum ColumnType {
+
+    Float32(4), Float64(8);
+
+    private final int bytes;
+
+    private ColumnType(int bytes) {
+
+      this.bytes = bytes;
+    }
+
+    public int getBytes() {
+
+      return bytes;
+    }
+
+    static ColumnType fromBytes(int bytes) {
+
+      for (ColumnType columnType : values()) {
+        if (columnType.bytes == bytes) {
+          return columnType;
+        }
+      }
+      throw new IllegalArgumentException("Unknown column type: " + bytes + " bytes per sample");
+    }
+  }
+
+  private final ColumnType columnType;
+  private final long createdMillis;
+  private final double sampleRate;
+  private final double seriesResistance;
+  private final String waveform;
+  private final double amplitude;
+  private final double offset;
+  private final double frequency;
+  private final int dioState;
+
+  /**
+   * Constructor
+   *
+   * @param columnType
+   * @param sampleRate - the sample rate the log starts at, each frame records its own
+   * @param seriesResistance
+   * @param waveform - the drive waveform's name
+   * @param amplitude
+   * @param offset
+   * @param frequency
+   * @param dioState - the digital I/O state the log starts at, each frame records its own
+   */
+  public CaptureLogHeader(ColumnType columnType, double sampleRate, double seriesResistance, String waveform, double amplitude, double offset, double frequency,
+      int dioState) {
+
+    this(columnType, System.currentTimeMillis(), sampleRate, seriesResistance, waveform, amplitude, offset, frequency, dioState);
+  }
+
+  private CaptureLogHeader(ColumnType columnType, long createdMillis, double sampleRate, double seriesResistance, String waveform, double amplitude, double offset,
+      double frequency, int dioState) {
+
+    if (waveform.getBytes(StandardCharsets.UTF_8).length > MAX_WAVEFORM_NAME_LENGTH) {
+      throw new IllegalArgumentException("Waveform name too long: " + waveform);
+    }
+    this.columnType = columnType;
+    this.createdMillis = createdMillis;
+    this.sampleRate = sampleRate;
+    this.seriesResistance = seriesResistance;
+    this.waveform = waveform;
+    this.amplitude = amplitude;
+    this.offset = offset;
+    this.frequency = frequency;
+    this.dioState = dioState;
+  }
+
+  /**
+   * @param buffer - a little-endian buffer of at least HEADER_SIZE bytes, written from index 0
+   */
+  void write(ByteBuffer buffer) {
+
+    buffer.putInt(0, MAGIC);
+    buffer.putShort(4, VERSION);
+    buffer.put(6, (byte) columnType.getBytes());
+    buffer.put(7, (byte) CHANNEL_COUNT);
+    buffer.putLong(8, createdMillis);
+    buffer.putDouble(16, sampleRate);
+    buffer.putDouble(24, seriesResistance);
+    buffer.putDouble(32, amplitude);
+    buffer.putDouble(40, offset);
+    buffer.putDouble(48, frequency);
+    buffer.putInt(56, dioState);
+    buffer.putLong(FRAME_COUNT_OFFSET, 0);
+    buffer.putLong(DATA_END_OFFSET, HEADER_SIZE);
+    byte[] waveformBytes = waveform.getBytes(StandardCharsets.UTF_8);
+    buffer.putShort(WAVEFORM_OFFSET, (short) waveformBytes.length);
+    for (int i = 0; i < waveformBytes.length; i++) {
+      buffer.put(WAVEFORM_OFFSET + Short.BYTES + i, waveformBytes[i]);
+    }
+  }
+
+  /**
+   * @param buffer - a little-endian buffer holding at least HEADER_SIZE bytes, read from index 0
+   * @return the header
+   * @throws IllegalArgumentException if the buffer does not hold a capture log header of a known version
+   */
+  static CaptureLogHeader read(ByteBuffer buffer) {
+
+    if (buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a capture log");
+    }
+    if (buffer.getShort(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported capture log version: " + buffer.getShort(4));
+    }
+    if (buffer.get(7) != CHANNEL_COUNT) {
+      throw new IllegalArgumentException("Unsupported capture log channel count: " + buffer.get(7));
+    }
+    int waveformLength = buffer.getShort(WAVEFORM_OFFSET);
+    if (waveformLength < 0 || waveformLength > MAX_WAVEFORM_NAME_LENGTH) {
+      throw new IllegalArgumentException("Corrupt capture log header");
+    }
+    byte[] waveformBytes = new byte[waveformLength];
+    for (int i = 0; i < waveformLength; i++) {
+      waveformBytes[i] = buffer.get(WAVEFORM_OFFSET + Short.BYTES + i);
+    }
+    return new CaptureLogHeader(ColumnType.fromBytes(buffer.get(6)), buffer.getLong(8), buffer.getDouble(16), buffer.getDouble(24), new String(waveformBytes,
+        StandardCharsets.UTF_8), buffer.getDouble(32), buffer.getDouble(40), buffer.getDouble(48), buffer.getInt(56));
+  }
+
+  public ColumnType getColumnType() {
+
+    return columnType;
+  }
+
+  public long getCreatedMillis() {
+
+    return createdMillis;
+  }
+
+  public double getSampleRate() {
+
+    return sampleRate;
+  }
+
+  public double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public String getWaveform() {
+
+    return waveform;
+  }
+
+  public double getAmplitude() {
+
+    return amplitude;
+  }
+
+  public double getOffset() {
+
+    return offset;
+  }
+
+  public double getFrequency() {
+
+    return frequency;
+  }
+
+  public int getDioState() {
+
+    return dioState;
+  }
+
+  /**
+   * @param sampleCount
+   * @return the bytes a frame of the given length takes up in the file
+   */
+  public int getFrameSize(int sampleCount) {
+
+    return FRAME_HEADER_SIZE + CHANNEL_COUNT * sampleCount * columnType.getBytes();
+  }
+
+  @Override
+  public String toString() {
+
+    return "CaptureLogHeader [columnType=" + columnType + ", sampleRate=" + sampleRate + ", seriesResistance=" + seriesResistance + ", waveform=" + waveform
+        + ", amplitude=" + amplitude + ", offset=" + offset + ", frequency=" + frequency + ", dioState=" + Integer.toBinaryString(dioState) + "]";
+  }
+}
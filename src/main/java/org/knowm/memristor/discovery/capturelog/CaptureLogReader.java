@@ -0,0 +1,219 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.capturelog;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the frames of a {@link CaptureLogHeader capture log} in order, up to the last frame the writer completed.
+ */
+public class CaptureLogReader implements Closeable {
+
+  private final FileChannel fileChannel;
+  private final CaptureLogHeader header;
+  private final long frameCount;
+  private final long dataEnd;
+
+  private final Frame frame = new Frame();
+  private ByteBuffer frameBuffer = ByteBuffer.allocate(0);
+  private long position = CaptureLogHeader.HEADER_SIZE;
+  private long frameIndex = 0;
+
+  /**
+   * Constructor
+   *
+   * @param path
+   * @throws IOException
+   * @throws IllegalArgumentException if the file is not a capture log
+   */
+  public CaptureLogReader(Path path) throws IOException {
+
+    this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      ByteBuffer headerBuffer = ByteBuffer.allocate(CaptureLogHeader.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(headerBuffer, 0);
+      this.header = CaptureLogHeader.read(headerBuffer);
+      this.frameCount = headerBuffer.getLong(CaptureLogHeader.FRAME_COUNT_OFFSET);
+      this.dataEnd = Math.min(headerBuffer.getLong(CaptureLogHeader.DATA_END_OFFSET), fileChannel.size());
+    } catch (IOException | RuntimeException e) {
+      fileChannel.close();
+      throw e;
+    }
+  }
+
+  public CaptureLogHeader getHeader() {
+
+    return header;
+  }
+
+  /**
+   * @return the number of complete frames in the log
+   */
+  public long getFrameCount() {
+
+    return frameCount;
+  }
+
+  /**
+   * @return the next frame, valid until the next call, or null after the last frame
+   * @throws IOException
+   */
+  public Frame next() throws IOException {
+
+    if (frameIndex >= frameCount || position + CaptureLogHeader.FRAME_HEADER_SIZE > dataEnd) {
+      return null;
+    }
+
+    ByteBuffer frameHeaderBuffer = ensureFrameBuffer(CaptureLogHeader.FRAME_HEADER_SIZE);
+    readFully(frameHeaderBuffer, position);
+    int length = frameHeaderBuffer.getInt(0);
+    int dioState = frameHeaderBuffer.getInt(4);
+    long captureNanos = frameHeaderBuffer.getLong(8);
+    double sampleRate = frameHeaderBuffer.getDouble(16);
+
+    int frameSize = header.getFrameSize(length);
+    if (length < 0 || position + frameSize > dataEnd) {
+      throw new IOException("Corrupt capture log frame " + frameIndex + " at " + position);
+    }
+    ByteBuffer columnBuffer = ensureFrameBuffer(frameSize - CaptureLogHeader.FRAME_HEADER_SIZE);
+    readFully(columnBuffer, position + CaptureLogHeader.FRAME_HEADER_SIZE);
+
+    frame.set(length, dioState, captureNanos, sampleRate);
+    if (header.getColumnType() == CaptureLogHeader.ColumnType.Float32) {
+      for (int i = 0; i < length; i++) {
+        frame.v1[i] = columnBuffer.getFloat();
+      }
+      for (int i = 0; i < length; i++) {
+        frame.v2[i] = columnBuffer.getFloat();
+      }
+    }
+    else {
+      columnBuffer.asDoubleBuffer().get(frame.v1, 0, length);
+      columnBuffer.position(length * Double.BYTES);
+      columnBuffer.asDoubleBuffer().get(frame.v2, 0, length);
+    }
+
+    position += frameSize;
+    frameIndex++;
+    return frame;
+  }
+
+  private ByteBuffer ensureFrameBuffer(int size) {
+
+    if (frameBuffer.capacity() < size) {
+      frameBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    frameBuffer.clear();
+    frameBuffer.limit(size);
+    return frameBuffer;
+  }
+
+  private void readFully(ByteBuffer buffer, long filePosition) throws IOException {
+
+    long readPosition = filePosition;
+    while (buffer.hasRemaining()) {
+      int read = fileChannel.read(buffer, readPosition);
+      if (read < 0) {
+        throw new EOFException("Capture log ends early at " + readPosition);
+      }
+      readPosition += read;
+    }
+    buffer.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    fileChannel.close();
+  }
+
+  /**
+   * One frame of a capture log. The arrays may be longer than the frame, use getLength().
+   */
+  public static class Frame {
+
+    private double[] v1 = new double[0];
+    private double[] v2 = new double[0];
+    private int length;
+    private int dioState;
+    private long captureNanos;
+    private double sampleRate;
+
+    void set(int length, int dioState, long captureNanos, double sampleRate) {
+
+      if (v1.length < length) {
+        v1 = new double[length];
+        v2 = new double[length];
+      }
+      this.length = length;
+      this.dioState = dioState;
+      this.captureNanos = captureNanos;
+      this.sampleRate = sampleRate;
+    }
+
+    public double[] getV1() {
+
+      return v1;
+    }
+
+    public double[] getV2() {
+
+      return v2;
+    }
+
+    public int getLength() {
+
+      return length;
+    }
+
+    public int getDioState() {
+
+      return dioState;
+    }
+
+    /**
+     * @return when the frame was captured [ns after the log was started]
+     */
+    public long getCaptureNanos() {
+
+      return captureNanos;
+    }
+
+    public double getSampleRate() {
+
+      return sampleRate;
+    }
+  }
+}
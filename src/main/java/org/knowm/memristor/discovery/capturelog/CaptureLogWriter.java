@@ -0,0 +1,304 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.capturelog;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends capture frames to a {@link CaptureLogHeader capture log} through a memory-mapped file on its own daemon thread, so a CaptureWorker pays only for
+ * copying the raw V1, V2 samples. Frames wait in a bounded queue of recycled buffers; if the writer falls behind, append() blocks rather than dropping a
+ * frame and the stall is counted.
+ * <p>
+ * The header's frame count and data end are updated after every frame, so a log cut short by a crash still reads up to its last complete frame.
+ */
+public class CaptureLogWriter {
+
+  private final Logger logger = LoggerFactory.getLogger(CaptureLogWriter.class);
+
+  private static final int QUEUE_CAPACITY = 64;
+  private static final long MAP_REGION_SIZE = 16L << 20;
+  private static final long POLL_MILLIS = 20;
+
+  private final Path path;
+  private final CaptureLogHeader header;
+
+  private final BlockingQueue<PendingFrame> pendingFrames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final BlockingQueue<PendingFrame> freeFrames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+  private FileChannel fileChannel;
+  private MappedByteBuffer headerBuffer;
+  private MappedByteBuffer region;
+  private long regionStart;
+  private long dataEnd = CaptureLogHeader.HEADER_SIZE;
+  private long startNanos;
+
+  private volatile boolean isRunning = false;
+  private volatile long framesWritten = 0;
+  private volatile long stallCount = 0;
+  private Thread thread;
+
+  /**
+   * Constructor
+   *
+   * @param path - the log file, replaced if it exists
+   * @param header
+   */
+  public CaptureLogWriter(Path path, CaptureLogHeader header) {
+
+    this.path = path;
+    this.header = header;
+    for (int i = 0; i < QUEUE_CAPACITY; i++) {
+      freeFrames.add(new PendingFrame());
+    }
+  }
+
+  /**
+   * Create the file, write the header and start the writer thread.
+   *
+   * @throws IOException
+   */
+  public void start() throws IOException {
+
+    fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    headerBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, CaptureLogHeader.HEADER_SIZE);
+    headerBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    header.write(headerBuffer);
+    startNanos = System.nanoTime();
+
+    isRunning = true;
+    thread = new Thread(new Runnable() {
+
+      @Override
+      public void run() {
+
+        drain();
+      }
+    }, "capture-log-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Queue a copy of a frame for writing. Called from the CaptureWorker.
+   *
+   * @param v1
+   * @param v2
+   * @param length - the number of valid samples in v1 and v2
+   * @param sampleRate
+   * @param dioState
+   * @return false if the writer is not running and the frame was not queued
+   */
+  public boolean append(double[] v1, double[] v2, int length, double sampleRate, int dioState) {
+
+    if (!isRunning) {
+      return false;
+    }
+    long captureNanos = System.nanoTime() - startNanos;
+    PendingFrame pendingFrame = freeFrames.poll();
+    try {
+      if (pendingFrame == null) {
+        stallCount++;
+        pendingFrame = freeFrames.take();
+      }
+      pendingFrame.set(v1, v2, length, sampleRate, dioState, captureNanos);
+      pendingFrames.put(pendingFrame);
+    } catch (InterruptedException e) {
+      // caught when the CaptureWorker is cancelled, the frame is lost
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Write out the queued frames, then trim and close the file.
+   */
+  public void stop() {
+
+    isRunning = false;
+    if (thread != null) {
+      boolean wasInterrupted = false;
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          // a cancelled CaptureWorker stops the log with its interrupt flag set, finish writing anyway
+          wasInterrupted = true;
+        }
+      }
+      if (wasInterrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void drain() {
+
+    boolean isFailed = false;
+    try {
+      while (true) {
+        boolean wasRunning = isRunning;
+        PendingFrame pendingFrame = pendingFrames.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (pendingFrame == null) {
+          if (!wasRunning) {
+            break;
+          }
+          continue;
+        }
+        if (!isFailed) {
+          try {
+            write(pendingFrame);
+          } catch (IOException e) {
+            // keep recycling frames so append() never blocks on a dead writer
+            isFailed = true;
+            isRunning = false;
+            logger.error("Error writing capture log to " + path, e);
+          }
+        }
+        freeFrames.add(pendingFrame);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    close();
+    logger.debug("Wrote " + framesWritten + " frames (" + dataEnd + " bytes, " + stallCount + " stalls) to " + path);
+  }
+
+  private void write(PendingFrame pendingFrame) throws IOException {
+
+    int frameSize = header.getFrameSize(pendingFrame.length);
+    if (region == null || region.remaining() < frameSize) {
+      // map the next region at the end of the data, growing the file
+      regionStart = dataEnd;
+      region = fileChannel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(MAP_REGION_SIZE, frameSize));
+      region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    region.putInt(pendingFrame.length);
+    region.putInt(pendingFrame.dioState);
+    region.putLong(pendingFrame.captureNanos);
+    region.putDouble(pendingFrame.sampleRate);
+    if (header.getColumnType() == CaptureLogHeader.ColumnType.Float32) {
+      for (int i = 0; i < pendingFrame.length; i++) {
+        region.putFloat((float) pendingFrame.v1[i]);
+      }
+      for (int i = 0; i < pendingFrame.length; i++) {
+        region.putFloat((float) pendingFrame.v2[i]);
+      }
+    }
+    else {
+      region.asDoubleBuffer().put(pendingFrame.v1, 0, pendingFrame.length);
+      region.position(region.position() + pendingFrame.length * Double.BYTES);
+      region.asDoubleBuffer().put(pendingFrame.v2, 0, pendingFrame.length);
+      region.position(region.position() + pendingFrame.length * Double.BYTES);
+    }
+
+    dataEnd = regionStart + region.position();
+    framesWritten++;
+    headerBuffer.putLong(CaptureLogHeader.FRAME_COUNT_OFFSET, framesWritten);
+    headerBuffer.putLong(CaptureLogHeader.DATA_END_OFFSET, dataEnd);
+  }
+
+  private void close() {
+
+    try {
+      if (region != null) {
+        region.force();
+      }
+      headerBuffer.force();
+      region = null;
+      headerBuffer = null;
+      try {
+        fileChannel.truncate(dataEnd);
+      } catch (IOException e) {
+        // Windows refuses to truncate a file that is still mapped. The unused tail is ignored by readers.
+        logger.debug("Could not trim " + path + ": " + e.getMessage());
+      }
+      fileChannel.close();
+    } catch (IOException e) {
+      logger.error("Error closing capture log " + path, e);
+    }
+  }
+
+  public long getFramesWritten() {
+
+    return framesWritten;
+  }
+
+  /**
+   * @return how often append() had to wait for the writer thread
+   */
+  public long getStallCount() {
+
+    return stallCount;
+  }
+
+  public Path getPath() {
+
+    return path;
+  }
+
+  /**
+   * A recycled copy of one frame's samples, waiting to be written.
+   */
+  private static class PendingFrame {
+
+    private double[] v1 = new double[0];
+    private double[] v2 = new double[0];
+    private int length;
+    private double sampleRate;
+    private int dioState;
+    private long captureNanos;
+
+    void set(double[] v1, double[] v2, int length, double sampleRate, int dioState, long captureNanos) {
+
+      if (this.v1.length < length) {
+        this.v1 = new double[length];
+        this.v2 = new double[length];
+      }
+      System.arraycopy(v1, 0, this.v1, 0, length);
+      System.arraycopy(v2, 0, this.v2, 0, length);
+      this.length = length;
+      this.sampleRate = sampleRate;
+      this.dioState = dioState;
+      this.captureNanos = captureNanos;
+    }
+  }
+}
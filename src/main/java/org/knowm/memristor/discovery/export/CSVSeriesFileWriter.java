@@ -0,0 +1,75 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes a series as x,y lines without a header, the layout XChart's CSVExporter writes and CSVImporter reads.
+ */
+class CSVSeriesFileWriter extends SeriesFileWriter {
+
+  private static final int MAX_LINE_LENGTH = 2 * DoubleFormatter.MAX_LENGTH + 2;
+
+  /**
+   * Constructor
+   *
+   * @param directory
+   * @param seriesName
+   * @param maxFileBytes
+   * @param maxFileMillis
+   */
+  CSVSeriesFileWriter(Path directory, String seriesName, long maxFileBytes, long maxFileMillis) {
+
+    super(directory, seriesName, maxFileBytes, maxFileMillis);
+  }
+
+  @Override
+  String getExtension() {
+
+    return ".csv";
+  }
+
+  @Override
+  void putHeader(String seriesName) {
+
+  }
+
+  @Override
+  void putPoints(double[] x, double[] y, int length) throws IOException {
+
+    for (int i = 0; i < length; i++) {
+      ensureRemaining(MAX_LINE_LENGTH);
+      DoubleFormatter.format(buffer, x[i]);
+      buffer.put((byte) ',');
+      DoubleFormatter.format(buffer, y[i]);
+      buffer.put((byte) '\n');
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes a series as blocks of little-endian float64 columns, readable without any parsing.
+ *
+ * <pre>
+ * header: int magic "MDSC", short version, short series name length, UTF-8 series name
+ * block:  int point count n, n x values, n y values
+ * </pre>
+ */
+class ColumnarSeriesFileWriter extends SeriesFileWriter {
+
+  static final int MAGIC = 0x4353444D; // "MDSC" read little-endian
+  static final short VERSION = 1;
+
+  // the most points one block can take so it fits the buffer
+  private static final int MAX_BLOCK_LENGTH = (BUFFER_SIZE - Integer.BYTES) / (2 * Double.BYTES);
+
+  /**
+   * Constructor
+   *
+   * @param directory
+   * @param seriesName
+   * @param maxFileBytes
+   * @param maxFileMillis
+   */
+  ColumnarSeriesFileWriter(Path directory, String seriesName, long maxFileBytes, long maxFileMillis) {
+
+    super(directory, seriesName, maxFileBytes, maxFileMillis);
+  }
+
+  @Override
+  String getExtension() {
+
+    return ".mdsc";
+  }
+
+  @Override
+  void putHeader(String seriesName) {
+
+    byte[] nameBytes = seriesName.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(MAGIC);
+    buffer.putShort(VERSION);
+    buffer.putShort((short) nameBytes.length);
+    buffer.put(nameBytes);
+  }
+
+  @Override
+  void putPoints(double[] x, double[] y, int length) throws IOException {
+
+    for (int from = 0; from < length; from += MAX_BLOCK_LENGTH) {
+      int blockLength = Math.min(MAX_BLOCK_LENGTH, length - from);
+      ensureRemaining(Integer.BYTES + 2 * blockLength * Double.BYTES);
+      buffer.putInt(blockLength);
+      buffer.asDoubleBuffer().put(x, from, blockLength);
+      buffer.position(buffer.position() + blockLength * Double.BYTES);
+      buffer.asDoubleBuffer().put(y, from, blockLength);
+      buffer.position(buffer.position() + blockLength * Double.BYTES);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes doubles as ASCII straight into a ByteBuffer, without the String that Double.toString() allocates per value. Values are rounded to
+ * SIGNIFICANT_DIGITS significant digits, far beyond the AD2's resolution, and written in plain notation for moderate exponents and in E notation otherwise.
+ * Both parse back with Double.parseDouble().
+ */
+public final class DoubleFormatter {
+
+  public static final int SIGNIFICANT_DIGITS = 10;
+
+  // the largest number of bytes format() writes: sign, 10 digits, point, "E-", 3 exponent digits, or "0." and 3 zeros before 10 digits
+  public static final int MAX_LENGTH = 24;
+
+  private static final long MIN_MANTISSA = 1_000_000_000L; // 10^(SIGNIFICANT_DIGITS - 1)
+  private static final long MAX_MANTISSA = 10_000_000_000L; // 10^SIGNIFICANT_DIGITS
+
+  private static final double[] POW10 = new double[23]; // exactly representable powers of 10
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] INFINITY = "Infinity".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Constructor - static methods only
+   */
+  private DoubleFormatter() {
+
+  }
+
+  /**
+   * @param buffer - needs at least MAX_LENGTH bytes remaining
+   * @param value
+   */
+  public static void format(ByteBuffer buffer, double value) {
+
+    if (value != value) {
+      buffer.put(NAN);
+      return;
+    }
+    if (value < 0 || (value == 0 && 1 / value < 0)) {
+      buffer.put((byte) '-');
+      value = -value;
+    }
+    if (value == Double.POSITIVE_INFINITY) {
+      buffer.put(INFINITY);
+      return;
+    }
+    if (value == 0) {
+      buffer.put((byte) '0');
+      return;
+    }
+
+    int exponent = (int) Math.floor(Math.log10(value));
+    if (exponent < -300 || exponent > 300) {
+      // out of range of the scaling below, never seen in a measurement
+      buffer.put(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+      return;
+    }
+    long mantissa = scale(value, SIGNIFICANT_DIGITS - 1 - exponent);
+    // Math.log10 can be off by one next to a power of 10
+    if (mantissa >= MAX_MANTISSA) {
+      exponent++;
+      mantissa = scale(value, SIGNIFICANT_DIGITS - 1 - exponent);
+    }
+    else if (mantissa < MIN_MANTISSA) {
+      exponent--;
+      mantissa = scale(value, SIGNIFICANT_DIGITS - 1 - exponent);
+    }
+    if (mantissa >= MAX_MANTISSA) { // rounded up to the next power of 10
+      mantissa /= 10;
+      exponent++;
+    }
+
+    // strip trailing zeros
+    int digitCount = SIGNIFICANT_DIGITS;
+    while (digitCount > 1 && mantissa % 10 == 0) {
+      mantissa /= 10;
+      digitCount--;
+    }
+
+    if (exponent >= 0 && exponent < SIGNIFICANT_DIGITS) {
+      // plain, e.g. 123.45
+      int integerDigitCount = exponent + 1;
+      if (digitCount <= integerDigitCount) {
+        putDigits(buffer, mantissa, digitCount);
+        for (int i = digitCount; i < integerDigitCount; i++) {
+          buffer.put((byte) '0');
+        }
+      }
+      else {
+        long divisor = (long) POW10[digitCount - integerDigitCount];
+        putDigits(buffer, mantissa / divisor, integerDigitCount);
+        buffer.put((byte) '.');
+        putDigits(buffer, mantissa % divisor, digitCount - integerDigitCount);
+      }
+    }
+    else if (exponent < 0 && exponent >= -4) {
+      // plain, e.g. 0.0012345
+      buffer.put((byte) '0');
+      buffer.put((byte) '.');
+      for (int i = -1; i > exponent; i--) {
+        buffer.put((byte) '0');
+      }
+      putDigits(buffer, mantissa, digitCount);
+    }
+    else {
+      // E notation, e.g. 1.2345E-7
+      long divisor = (long) POW10[digitCount - 1];
+      putDigits(buffer, mantissa / divisor, 1);
+      if (digitCount > 1) {
+        buffer.put((byte) '.');
+        putDigits(buffer, mantissa % divisor, digitCount - 1);
+      }
+      buffer.put((byte) 'E');
+      if (exponent < 0) {
+        buffer.put((byte) '-');
+        exponent = -exponent;
+      }
+      putDigits(buffer, exponent, exponent >= 100 ? 3 : exponent >= 10 ? 2 : 1);
+    }
+  }
+
+  /**
+   * @return value * 10^shift, rounded
+   */
+  private static long scale(double value, int shift) {
+
+    if (shift >= 0) {
+      return Math.round(shift < POW10.length ? value * POW10[shift] : value * Math.pow(10, shift));
+    }
+    return Math.round(-shift < POW10.length ? value / POW10[-shift] : value / Math.pow(10, -shift));
+  }
+
+  /**
+   * Write the lowest digitCount decimal digits of a non-negative number, with leading zeros.
+   */
+  private static void putDigits(ByteBuffer buffer, long number, int digitCount) {
+
+    int end = buffer.position() + digitCount;
+    for (int i = end - 1; i >= end - digitCount; i--) {
+      buffer.put(i, (byte) ('0' + number % 10));
+      number /= 10;
+    }
+    buffer.position(end);
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.nio.file.Paths;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+
+/**
+ * Stores the series export settings, shared by all experiments.
+ */
+public class ExportPreferences extends ExperimentPreferences {
+
+  private static final String PREFIX = "EXPORT_";
+
+  public static final String ENABLED_BOOLEAN_KEY = PREFIX + "ENABLED_BOOLEAN_KEY";
+  public static final boolean ENABLED_BOOLEAN_DEFAULT_VALUE = false;
+
+  public static final String FORMAT_STRING_KEY = PREFIX + "FORMAT_STRING_KEY";
+  public static final String FORMAT_STRING_DEFAULT_VALUE = SeriesExporter.Format.CSV.name();
+
+  public static final String DIRECTORY_STRING_KEY = PREFIX + "DIRECTORY_STRING_KEY";
+  public static final String DIRECTORY_STRING_DEFAULT_VALUE = "./CSVExports";
+
+  // /////////////////////////////////////////////////////////////////////////////////////
+
+  public static final long MAX_FILE_BYTES = 64L << 20;
+  public static final long MAX_FILE_MILLIS = 15 * 60 * 1000;
+
+  /**
+   * Constructor
+   */
+  public ExportPreferences() {
+
+    super(ExportPreferences.class);
+  }
+
+  /**
+   * @return a new, unstarted exporter as set up in the preferences, or null if exporting is switched off
+   */
+  public SeriesExporter createSeriesExporter() {
+
+    if (!getBoolean(ENABLED_BOOLEAN_KEY, ENABLED_BOOLEAN_DEFAULT_VALUE)) {
+      return null;
+    }
+    SeriesExporter.Format format = SeriesExporter.Format.valueOf(getString(FORMAT_STRING_KEY, FORMAT_STRING_DEFAULT_VALUE));
+    return new SeriesExporter(Paths.get(getString(DIRECTORY_STRING_KEY, DIRECTORY_STRING_DEFAULT_VALUE)), format, MAX_FILE_BYTES, MAX_FILE_MILLIS);
+  }
+}
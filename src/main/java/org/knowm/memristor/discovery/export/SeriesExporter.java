@@ -0,0 +1,282 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams plot series to files on a dedicated I/O thread. Each series goes to its own file in a directory named after the chart, e.g.
+ * CSVExports/IV/IV_20180301-120000.csv, stamped with the time the exporter was started so runs never overwrite each other.
+ * <p>
+ * export() copies the points into a recycled block and never blocks: if the I/O thread has fallen so far behind that all blocks are queued, the points are
+ * dropped and counted, and export() returns false so a caller can back off.
+ */
+public class SeriesExporter {
+
+  private final Logger logger = LoggerFactory.getLogger(SeriesExporter.class);
+
+  // chart directories, named after the plot panels' chart buttons. A series holds the points its chart plots, under the chart's series name.
+  public static final String VT = "Vt"; // capture chart
+  public static final String IV = "IV";
+  public static final String GV = "GV";
+  public static final String G = "G"; // per-pulse conductance (or y) history vs. pulse number
+
+  public enum Format {
+
+    CSV, Columnar;
+  }
+
+  private static final int QUEUE_CAPACITY = 256;
+  private static final long IDLE_FLUSH_MILLIS = 500;
+
+  private final Path rootDirectory;
+  private final Format format;
+  private final long maxFileBytes;
+  private final long maxFileMillis;
+  private final String runStamp;
+
+  private final BlockingQueue<ExportBlock> pendingBlocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final BlockingQueue<ExportBlock> freeBlocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Map<String, SeriesFileWriter> seriesFileWriters = new HashMap<>(); // I/O thread only
+
+  private volatile boolean isRunning = false;
+  private final AtomicLong exportedPointCount = new AtomicLong();
+  private final AtomicLong droppedPointCount = new AtomicLong();
+  private Thread thread;
+
+  /**
+   * Constructor
+   *
+   * @param rootDirectory - where the chart directories are created
+   * @param format
+   * @param maxFileBytes - roll a series over to a new file at this size
+   * @param maxFileMillis - roll a series over to a new file after this long
+   */
+  public SeriesExporter(Path rootDirectory, Format format, long maxFileBytes, long maxFileMillis) {
+
+    this.rootDirectory = rootDirectory;
+    this.format = format;
+    this.maxFileBytes = maxFileBytes;
+    this.maxFileMillis = maxFileMillis;
+    this.runStamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+    for (int i = 0; i < QUEUE_CAPACITY; i++) {
+      freeBlocks.add(new ExportBlock());
+    }
+  }
+
+  public void start() {
+
+    isRunning = true;
+    thread = new Thread(new Runnable() {
+
+      @Override
+      public void run() {
+
+        drain();
+      }
+    }, "series-exporter");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stop accepting points. The I/O thread writes out what is queued, then closes the files, so this returns immediately and is safe to call on the EDT.
+   */
+  public void stop() {
+
+    isRunning = false;
+  }
+
+  /**
+   * Queue a copy of the points of a series for writing.
+   *
+   * @param chart - the chart directory, e.g. IV
+   * @param series - the series name, which names the file
+   * @param x
+   * @param y
+   * @param length - the number of points to take from x and y
+   * @return false if the points were dropped
+   */
+  public boolean export(String chart, String series, double[] x, double[] y, int length) {
+
+    ExportBlock block = isRunning ? freeBlocks.poll() : null;
+    if (block == null) {
+      droppedPointCount.addAndGet(length);
+      return false;
+    }
+    block.set(chart, series, x, y, length);
+    pendingBlocks.add(block); // never full, there are only as many blocks as queue slots
+    return true;
+  }
+
+  /**
+   * Queue a single point, e.g. one pulse's conductance.
+   */
+  public boolean export(String chart, String series, double x, double y) {
+
+    ExportBlock block = isRunning ? freeBlocks.poll() : null;
+    if (block == null) {
+      droppedPointCount.incrementAndGet();
+      return false;
+    }
+    block.set(chart, series, x, y);
+    pendingBlocks.add(block);
+    return true;
+  }
+
+  private void drain() {
+
+    try {
+      while (true) {
+        boolean wasRunning = isRunning;
+        ExportBlock block = pendingBlocks.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        if (block == null) {
+          if (!wasRunning) {
+            break;
+          }
+          flushAll(); // idle, so get what's buffered onto disk
+          continue;
+        }
+        write(block);
+        freeBlocks.add(block);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (Map.Entry<String, SeriesFileWriter> entry : seriesFileWriters.entrySet()) {
+      try {
+        entry.getValue().close();
+      } catch (IOException e) {
+        logger.error("Error closing export of " + entry.getKey(), e);
+      }
+    }
+    logger.debug("Exported " + exportedPointCount.get() + " points (" + droppedPointCount.get() + " dropped) of " + seriesFileWriters.size() + " series to "
+        + rootDirectory);
+  }
+
+  private void write(ExportBlock block) {
+
+    String key = block.chart + "/" + block.series;
+    SeriesFileWriter seriesFileWriter = seriesFileWriters.get(key);
+    if (seriesFileWriter == null) {
+      Path directory = rootDirectory.resolve(block.chart);
+      String fileName = block.series + "_" + runStamp;
+      seriesFileWriter = format == Format.CSV ? new CSVSeriesFileWriter(directory, fileName, maxFileBytes, maxFileMillis) : new ColumnarSeriesFileWriter(directory,
+          fileName, maxFileBytes, maxFileMillis);
+      seriesFileWriters.put(key, seriesFileWriter);
+    }
+    try {
+      seriesFileWriter.write(block.x, block.y, block.length);
+      exportedPointCount.addAndGet(block.length);
+    } catch (IOException e) {
+      droppedPointCount.addAndGet(block.length);
+      logger.error("Error exporting " + key, e);
+    }
+  }
+
+  private void flushAll() {
+
+    for (Map.Entry<String, SeriesFileWriter> entry : seriesFileWriters.entrySet()) {
+      try {
+        entry.getValue().flush();
+      } catch (IOException e) {
+        logger.error("Error flushing export of " + entry.getKey(), e);
+      }
+    }
+  }
+
+  public long getExportedPointCount() {
+
+    return exportedPointCount.get();
+  }
+
+  public long getDroppedPointCount() {
+
+    return droppedPointCount.get();
+  }
+
+  /**
+   * @return the number of blocks waiting for the I/O thread
+   */
+  public int getPendingBlockCount() {
+
+    return pendingBlocks.size();
+  }
+
+  public Path getRootDirectory() {
+
+    return rootDirectory;
+  }
+
+  /**
+   * A recycled copy of some points of one series, waiting to be written.
+   */
+  private static class ExportBlock {
+
+    private String chart;
+    private String series;
+    private double[] x = new double[1];
+    private double[] y = new double[1];
+    private int length;
+
+    void set(String chart, String series, double[] x, double[] y, int length) {
+
+      if (this.x.length < length) {
+        this.x = new double[length];
+        this.y = new double[length];
+      }
+      System.arraycopy(x, 0, this.x, 0, length);
+      System.arraycopy(y, 0, this.y, 0, length);
+      this.chart = chart;
+      this.series = series;
+      this.length = length;
+    }
+
+    void set(String chart, String series, double x, double y) {
+
+      this.x[0] = x;
+      this.y[0] = y;
+      this.chart = chart;
+      this.series = series;
+      this.length = 1;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the (x, y) points of one series to a file through a buffered channel, rolling over to a new file once the current one reaches a size or age limit.
+ * The first file is named after the series, later ones get a running index, e.g. V1_20261017-101500-123.csv, V1_20261017-101500-123_1.csv. Existing files are
+ * never overwritten, a name that is taken is skipped to the next index. Only used from the SeriesExporter's I/O thread.
+ */
+abstract class SeriesFileWriter {
+
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path directory;
+  private final String seriesName;
+  private final long maxFileBytes;
+  private final long maxFileMillis;
+
+  protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+  private FileChannel fileChannel;
+  private int fileIndex = 0;
+  private long fileBytes;
+  private long fileOpenedMillis;
+  private long pointsWritten = 0;
+
+  /**
+   * Constructor
+   *
+   * @param directory
+   * @param seriesName
+   * @param maxFileBytes - roll over once a file has grown to this size
+   * @param maxFileMillis - roll over once a file has been open this long
+   */
+  SeriesFileWriter(Path directory, String seriesName, long maxFileBytes, long maxFileMillis) {
+
+    this.directory = directory;
+    this.seriesName = seriesName;
+    this.maxFileBytes = maxFileBytes;
+    this.maxFileMillis = maxFileMillis;
+  }
+
+  abstract String getExtension();
+
+  /**
+   * Put the file header, if any, into the empty buffer.
+   */
+  abstract void putHeader(String seriesName);
+
+  /**
+   * Put points, flushing the buffer with flushBuffer() whenever it fills up.
+   */
+  abstract void putPoints(double[] x, double[] y, int length) throws IOException;
+
+  void write(double[] x, double[] y, int length) throws IOException {
+
+    if (fileChannel == null) {
+      open();
+    }
+    else if (fileBytes + buffer.position() >= maxFileBytes || System.currentTimeMillis() - fileOpenedMillis >= maxFileMillis) {
+      close();
+      fileIndex++;
+      open();
+    }
+    putPoints(x, y, length);
+    pointsWritten += length;
+  }
+
+  private void open() throws IOException {
+
+    Files.createDirectories(directory);
+    while (fileChannel == null) {
+      Path path = directory.resolve(seriesName + (fileIndex == 0 ? "" : "_" + fileIndex) + getExtension());
+      try {
+        fileChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      } catch (FileAlreadyExistsException e) {
+        fileIndex++;
+      }
+    }
+    fileBytes = 0;
+    fileOpenedMillis = System.currentTimeMillis();
+    buffer.clear();
+    putHeader(seriesName);
+  }
+
+  /**
+   * Make room in the buffer for at least the given number of bytes.
+   */
+  void ensureRemaining(int bytes) throws IOException {
+
+    if (buffer.remaining() < bytes) {
+      flushBuffer();
+    }
+  }
+
+  void flushBuffer() throws IOException {
+
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      fileBytes += fileChannel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Write out the buffer, so the file is complete up to the last point.
+   */
+  void flush() throws IOException {
+
+    if (fileChannel != null && buffer.position() > 0) {
+      flushBuffer();
+    }
+  }
+
+  void close() throws IOException {
+
+    if (fileChannel != null) {
+      flush();
+      fileChannel.close();
+      fileChannel = null;
+    }
+  }
+
+  long getPointsWritten() {
+
+    return pointsWritten;
+  }
+
+  int getFileCount() {
+
+    return fileIndex + 1;
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * A set of equal-length primitive channels holding one capture on its way from a CaptureWorker to the plots. Frames come from a {@link CaptureFramePool}
+ * and are filled in place rather than allocated per capture.
+ */
+public class CaptureFrame {
+
+  private final double[][] channels;
+
+  private int kind;
+  private double[] timeData;
+  private double value;
+  private double sampleFrequency;
+
+  /**
+   * Constructor
+   *
+   * @param channelCount
+   * @param length
+   */
+  CaptureFrame(int channelCount, int length) {
+
+    this.channels = new double[channelCount][length];
+  }
+
+  /**
+   * @param kind
+   * @param value
+   * @return a frame without samples that only carries a scalar result. It doesn't come from a {@link CaptureFramePool} and needn't be released to one.
+   */
+  public static CaptureFrame newValueFrame(int kind, double value) {
+
+    CaptureFrame frame = new CaptureFrame(1, 0);
+    frame.kind = kind;
+    frame.value = value;
+    return frame;
+  }
+
+  public double[] get(int channel) {
+
+    return channels[channel];
+  }
+
+  public int getLength() {
+
+    return channels[0].length;
+  }
+
+  public int getChannelCount() {
+
+    return channels.length;
+  }
+
+  /**
+   * @return what the frame holds, as defined by the worker that filled it
+   */
+  public int getKind() {
+
+    return kind;
+  }
+
+  public void setKind(int kind) {
+
+    this.kind = kind;
+  }
+
+  /**
+   * @return the time axis, shared from a {@link TimeAxisCache} and so never to be modified
+   */
+  public double[] getTimeData() {
+
+    return timeData;
+  }
+
+  public void setTimeData(double[] timeData) {
+
+    this.timeData = timeData;
+  }
+
+  /**
+   * @return a scalar result derived from the channels, such as an averaged conductance
+   */
+  public double getValue() {
+
+    return value;
+  }
+
+  public void setValue(double value) {
+
+    this.value = value;
+  }
+
+  /**
+   * @return the sample rate the channels were captured at
+   */
+  public double getSampleFrequency() {
+
+    return sampleFrequency;
+  }
+
+  public void setSampleFrequency(double sampleFrequency) {
+
+    this.sampleFrequency = sampleFrequency;
+  }
+
+  /**
+   * Copy everything but the channels from another frame, for a processing stage that replaces a frame with one of another length.
+   *
+   * @param frame
+   */
+  void copyProperties(CaptureFrame frame) {
+
+    this.kind = frame.kind;
+    this.timeData = frame.timeData;
+    this.value = frame.value;
+    this.sampleFrequency = frame.sampleFrequency;
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycles {@link CaptureFrame}s between a CaptureWorker and the EDT. XChart keeps a reference to the arrays it is given, so a frame handed to a chart must
+ * not be released until the chart has been given the next frame.
+ */
+public class CaptureFramePool {
+
+  private final int channelCount;
+  private final int maxFreeFrames;
+  private final List<CaptureFrame> freeFrames = new ArrayList<>();
+
+  private long allocatedFrameCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param channelCount
+   * @param length the frame length to preallocate, usually the experiment's CAPTURE_BUFFER_SIZE
+   * @param frameCount the number of frames to preallocate and keep around
+   */
+  public CaptureFramePool(int channelCount, int length, int frameCount) {
+
+    this.channelCount = channelCount;
+    this.maxFreeFrames = frameCount;
+    for (int i = 0; i < frameCount; i++) {
+      freeFrames.add(allocate(length));
+    }
+  }
+
+  /**
+   * @param length
+   * @return a free frame of exactly the given length, allocating one only if none is free
+   */
+  public synchronized CaptureFrame acquire(int length) {
+
+    for (int i = freeFrames.size() - 1; i >= 0; i--) {
+      if (freeFrames.get(i).getLength() == length) {
+        return freeFrames.remove(i);
+      }
+    }
+    return allocate(length);
+  }
+
+  /**
+   * Return a frame to the pool. Null and frames without samples are ignored, so value frames never take the place of a preallocated frame. If the pool is
+   * full, the oldest free frame is dropped, so a change of capture length settles on frames of the new length.
+   *
+   * @param frame
+   */
+  public synchronized void release(CaptureFrame frame) {
+
+    if (frame == null || frame.getLength() == 0) {
+      return;
+    }
+    if (freeFrames.size() >= maxFreeFrames) {
+      freeFrames.remove(0);
+    }
+    freeFrames.add(frame);
+  }
+
+  /**
+   * Fill the pool with free frames of the given length, dropping the free frames of other lengths. Called when a capture setting changes, so the captures
+   * that follow find their frames in the pool.
+   *
+   * @param length
+   */
+  public synchronized void preallocate(int length) {
+
+    for (int i = freeFrames.size() - 1; i >= 0; i--) {
+      if (freeFrames.get(i).getLength() != length) {
+        freeFrames.remove(i);
+      }
+    }
+    while (freeFrames.size() < maxFreeFrames) {
+      freeFrames.add(allocate(length));
+    }
+  }
+
+  /**
+   * Release all but the last of the given frames.
+   *
+   * @param frames the chunks passed to SwingWorker.process()
+   * @return the newest frame
+   */
+  public CaptureFrame releaseAllButNewest(List<CaptureFrame> frames) {
+
+    for (int i = 0; i < frames.size() - 1; i++) {
+      release(frames.get(i));
+    }
+    return frames.get(frames.size() - 1);
+  }
+
+  private CaptureFrame allocate(int length) {
+
+    allocatedFrameCount++;
+    return new CaptureFrame(channelCount, length);
+  }
+
+  /**
+   * @return the number of frames ever allocated, which stops growing once the pool has warmed up
+   */
+  public synchronized long getAllocatedFrameCount() {
+
+    return allocatedFrameCount;
+  }
+}
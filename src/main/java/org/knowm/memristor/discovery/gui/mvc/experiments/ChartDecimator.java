@@ -0,0 +1,274 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.XYChart;
+
+/**
+ * Sits between the plot controllers and an XYChart and reduces each series to about two points per horizontal pixel before handing it to
+ * XChart, so rendering cost follows the chart width rather than the capture size. The full-resolution data of the last update is kept, and all
+ * series are decimated again when the chart panel is resized.
+ * <p>
+ * Samples are bucketed by index, which keeps the shape of both time series and I-V loops whose x data is not monotonic. Data short enough to draw
+ * directly is passed through untouched.
+ * <p>
+ * EDT only.
+ */
+public class ChartDecimator {
+
+  public enum Method {
+
+    /**
+     * The minimum and maximum of every bucket, in sample order. Keeps every peak.
+     */
+    MinMax,
+
+    /**
+     * Largest-Triangle-Three-Buckets, one point per bucket. Smoother, may clip narrow spikes.
+     */
+    LTTB
+  }
+
+  private final XChartPanel<XYChart> chartPanel;
+  private final Method method;
+
+  // full-resolution {xData, yData} of the last update, per series
+  private final Map<String, double[][]> rawSeries = new LinkedHashMap<>();
+
+  private int bucketCount;
+
+  /**
+   * Constructor
+   *
+   * @param chartPanel
+   */
+  public ChartDecimator(XChartPanel<XYChart> chartPanel) {
+
+    this(chartPanel, Method.MinMax);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param chartPanel
+   * @param method
+   */
+  public ChartDecimator(XChartPanel<XYChart> chartPanel, Method method) {
+
+    this.chartPanel = chartPanel;
+    this.method = method;
+    this.bucketCount = getBucketCount();
+
+    chartPanel.addComponentListener(new ComponentAdapter() {
+
+      @Override
+      public void componentResized(ComponentEvent e) {
+
+        int newBucketCount = getBucketCount();
+        if (newBucketCount != bucketCount) {
+          bucketCount = newBucketCount;
+          for (Map.Entry<String, double[][]> entry : rawSeries.entrySet()) {
+            updateChart(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+          }
+          chartPanel.repaint();
+        }
+      }
+    });
+  }
+
+  /**
+   * @param seriesName
+   * @param xData - may be null, in which case the sample number starting at 1 is used as with XYChart.updateXYSeries
+   * @param yData
+   */
+  public void updateXYSeries(String seriesName, double[] xData, double[] yData) {
+
+    rawSeries.put(seriesName, new double[][]{xData, yData});
+    updateChart(seriesName, xData, yData);
+  }
+
+  public XYChart getChart() {
+
+    return chartPanel.getChart();
+  }
+
+  private void updateChart(String seriesName, double[] xData, double[] yData) {
+
+    int length = yData.length;
+    int maxPoints = method == Method.MinMax ? 2 * bucketCount : bucketCount;
+    if (length <= maxPoints) {
+      chartPanel.getChart().updateXYSeries(seriesName, xData, yData, null);
+      return;
+    }
+
+    double[] xOut = new double[maxPoints];
+    double[] yOut = new double[maxPoints];
+    int points;
+    if (method == Method.MinMax) {
+      points = decimateMinMax(xData, yData, length, bucketCount, xOut, yOut);
+    }
+    else {
+      points = decimateLTTB(xData, yData, length, bucketCount, xOut, yOut);
+    }
+    if (points < maxPoints) {
+      xOut = Arrays.copyOf(xOut, points);
+      yOut = Arrays.copyOf(yOut, points);
+    }
+    chartPanel.getChart().updateXYSeries(seriesName, xOut, yOut, null);
+  }
+
+  private int getBucketCount() {
+
+    int width = chartPanel.getWidth();
+    if (width <= 0) {
+      // not laid out yet
+      width = chartPanel.getChart().getWidth();
+    }
+    return Math.max(width, 16);
+  }
+
+  /**
+   * Reduce to the minimum and maximum of each of bucketCount equal index ranges, in sample order.
+   *
+   * @param xData - null for the sample number starting at 1
+   * @param yData
+   * @param length
+   * @param bucketCount
+   * @param xOut - at least 2 * bucketCount long
+   * @param yOut - at least 2 * bucketCount long
+   * @return the number of points written
+   */
+  public static int decimateMinMax(double[] xData, double[] yData, int length, int bucketCount, double[] xOut, double[] yOut) {
+
+    int points = 0;
+    for (int bucket = 0; bucket < bucketCount; bucket++) {
+
+      int from = (int) ((long) bucket * length / bucketCount);
+      int to = (int) ((long) (bucket + 1) * length / bucketCount);
+      if (from == to) {
+        continue;
+      }
+      int minIndex = from;
+      int maxIndex = from;
+      for (int i = from + 1; i < to; i++) {
+        double y = yData[i];
+        if (y < yData[minIndex]) {
+          minIndex = i;
+        }
+        else if (y > yData[maxIndex]) {
+          maxIndex = i;
+        }
+      }
+      int first = Math.min(minIndex, maxIndex);
+      int second = Math.max(minIndex, maxIndex);
+      xOut[points] = xData == null ? first + 1 : xData[first];
+      yOut[points++] = yData[first];
+      if (second != first) {
+        xOut[points] = xData == null ? second + 1 : xData[second];
+        yOut[points++] = yData[second];
+      }
+    }
+    return points;
+  }
+
+  /**
+   * Largest-Triangle-Three-Buckets: keep the first and last samples and, from each bucket in between, the sample forming the largest triangle with
+   * the previously kept sample and the average of the next bucket.
+   *
+   * @param xData - null for the sample number starting at 1
+   * @param yData
+   * @param length
+   * @param pointCount - the number of points to keep, at least 3
+   * @param xOut - at least pointCount long
+   * @param yOut - at least pointCount long
+   * @return the number of points written
+   */
+  public static int decimateLTTB(double[] xData, double[] yData, int length, int pointCount, double[] xOut, double[] yOut) {
+
+    if (pointCount >= length || pointCount < 3) {
+      int points = Math.min(length, pointCount);
+      for (int i = 0; i < points; i++) {
+        xOut[i] = xData == null ? i + 1 : xData[i];
+        yOut[i] = yData[i];
+      }
+      return points;
+    }
+
+    double bucketSize = (double) (length - 2) / (pointCount - 2);
+    int points = 0;
+    int kept = 0;
+    xOut[points] = xData == null ? 1 : xData[0];
+    yOut[points++] = yData[0];
+
+    for (int bucket = 0; bucket < pointCount - 2; bucket++) {
+
+      // average of the next bucket
+      int nextFrom = (int) ((bucket + 1) * bucketSize) + 1;
+      int nextTo = Math.min((int) ((bucket + 2) * bucketSize) + 1, length);
+      double averageX = 0;
+      double averageY = 0;
+      for (int i = nextFrom; i < nextTo; i++) {
+        averageX += xData == null ? i + 1 : xData[i];
+        averageY += yData[i];
+      }
+      int nextLength = nextTo - nextFrom;
+      averageX /= nextLength;
+      averageY /= nextLength;
+
+      // the sample in this bucket with the largest triangle
+      int from = (int) (bucket * bucketSize) + 1;
+      int to = (int) ((bucket + 1) * bucketSize) + 1;
+      double keptX = xData == null ? kept + 1 : xData[kept];
+      double keptY = yData[kept];
+      double maxArea = -1;
+      int maxIndex = from;
+      for (int i = from; i < to; i++) {
+        double x = xData == null ? i + 1 : xData[i];
+        double area = Math.abs((keptX - averageX) * (yData[i] - keptY) - (keptX - x) * (averageY - keptY));
+        if (area > maxArea) {
+          maxArea = area;
+          maxIndex = i;
+        }
+      }
+      xOut[points] = xData == null ? maxIndex + 1 : xData[maxIndex];
+      yOut[points++] = yData[maxIndex];
+      kept = maxIndex;
+    }
+
+    xOut[points] = xData == null ? length : xData[length - 1];
+    yOut[points++] = yData[length - 1];
+    return points;
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+
+/**
+ * Derives the memristor voltage, current and conductance channels from V1 and V2 with IVGVKernel, using the control model's series resistance at the time of
+ * the frame. Any output channel can be left out with NO_CHANNEL.
+ */
+public class DeriveStage implements ProcessingStage {
+
+  public static final int NO_CHANNEL = -1;
+
+  private final ExperimentControlModel controlModel;
+  private final boolean isSwitchCorrected;
+  private final double currentDivisor;
+  private final double conductanceDivisor;
+  private final int v1Channel;
+  private final int v2Channel;
+  private final int vMemristorChannel;
+  private final int currentChannel;
+  private final int conductanceChannel;
+
+  /**
+   * Constructor
+   *
+   * @param controlModel - for the series resistance
+   * @param isSwitchCorrected
+   * @param currentDivisor
+   * @param conductanceDivisor
+   * @param v1Channel
+   * @param v2Channel
+   * @param vMemristorChannel
+   * @param currentChannel
+   * @param conductanceChannel
+   */
+  public DeriveStage(ExperimentControlModel controlModel, boolean isSwitchCorrected, double currentDivisor, double conductanceDivisor, int v1Channel,
+      int v2Channel, int vMemristorChannel, int currentChannel, int conductanceChannel) {
+
+    this.controlModel = controlModel;
+    this.isSwitchCorrected = isSwitchCorrected;
+    this.currentDivisor = currentDivisor;
+    this.conductanceDivisor = conductanceDivisor;
+    this.v1Channel = v1Channel;
+    this.v2Channel = v2Channel;
+    this.vMemristorChannel = vMemristorChannel;
+    this.currentChannel = currentChannel;
+    this.conductanceChannel = conductanceChannel;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    IVGVKernel.derive(frame.get(v1Channel), frame.get(v2Channel), frame.getLength(), controlModel.getSeriesResistance(), isSwitchCorrected, currentDivisor,
+        conductanceDivisor, getChannel(frame, vMemristorChannel), getChannel(frame, currentChannel), getChannel(frame, conductanceChannel));
+    return frame;
+  }
+
+  private static double[] getChannel(CaptureFrame frame, int channel) {
+
+    return channel == NO_CHANNEL ? null : frame.get(channel);
+  }
+
+  @Override
+  public String getName() {
+
+    return "derive";
+  }
+}
@@ -39,12 +39,21 @@ import java.beans.PropertyChangeListener;
 import javax.swing.JScrollPane;
 import javax.swing.SwingWorker;
 
+import org.knowm.memristor.discovery.CapturePlanner;
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.capturelog.CaptureLogHeader;
+import org.knowm.memristor.discovery.export.ExportPreferences;
+import org.knowm.memristor.discovery.export.SeriesExporter;
 import org.knowm.memristor.discovery.gui.mvc.rightbar.RightBarController;
 import org.knowm.memristor.discovery.gui.mvc.rightbar.RightBarPanel;
+import org.knowm.memristor.discovery.simulation.ReplayDWFDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class Experiment implements PropertyChangeListener {
 
+  private final Logger logger = LoggerFactory.getLogger(Experiment.class);
+
   public final DWFProxy dwfProxy;
 
   public final Container mainFrameContainer;
@@ -53,6 +62,11 @@ public abstract class Experiment implements PropertyChangeListener {
 
   private SwingWorker experimentCaptureWorker;
 
+  private final CapturePlanner capturePlanner = new CapturePlanner();
+
+  // set while a run with series export switched on is going
+  private volatile SeriesExporter seriesExporter;
+
   public abstract ExperimentControlModel getControlModel();
 
   public abstract ExperimentControlPanel getControlPanel();
@@ -103,6 +117,8 @@ public abstract class Experiment implements PropertyChangeListener {
           getControlModel().setStartToggled(true);
           getControlPanel().getStartStopButton().setText("Stop");
 
+          startSeriesExport();
+
           // start AD2 waveform 1 and start AD2 capture on channel 1 and 2
           experimentCaptureWorker = getCaptureWorker();
           experimentCaptureWorker.execute();
@@ -114,6 +130,8 @@ public abstract class Experiment implements PropertyChangeListener {
 
           // stop AD2 waveform 1 and stop AD2 capture on channel 1 and 2
           experimentCaptureWorker.cancel(true);
+
+          stopSeriesExport();
         }
       }
     });
@@ -135,6 +153,67 @@ public abstract class Experiment implements PropertyChangeListener {
     }
   }
 
+  /**
+   * Start exporting series for a run if it is switched on in the Export menu.
+   */
+  protected void startSeriesExport() {
+
+    seriesExporter = new ExportPreferences().createSeriesExporter();
+    if (seriesExporter != null) {
+      seriesExporter.start();
+    }
+  }
+
+  /**
+   * Stop exporting series. What is already queued is still written.
+   */
+  protected void stopSeriesExport() {
+
+    if (seriesExporter != null) {
+      seriesExporter.stop();
+      seriesExporter = null;
+    }
+  }
+
+  /**
+   * Export some points of a plot series if series export is running. Never blocks, so it can be called from a CaptureWorker.
+   *
+   * @param chart - one of the SeriesExporter chart directories
+   * @param series
+   * @param x
+   * @param y
+   * @param length
+   */
+  protected void exportSeries(String chart, String series, double[] x, double[] y, int length) {
+
+    SeriesExporter exporter = seriesExporter;
+    if (exporter != null) {
+      exporter.export(chart, series, x, y, length);
+    }
+  }
+
+  /**
+   * Export a single point, e.g. a per-pulse conductance, if series export is running.
+   */
+  protected void exportPoint(String chart, String series, double x, double y) {
+
+    SeriesExporter exporter = seriesExporter;
+    if (exporter != null) {
+      exporter.export(chart, series, x, y);
+    }
+  }
+
+  /**
+   * @return the header of the capture log being played back, with the settings its frames were recorded with, or null if the device isn't a replay
+   */
+  protected CaptureLogHeader getReplayHeader() {
+
+    if (dwfProxy.getDwf() instanceof ReplayDWFDevice) {
+      return ((ReplayDWFDevice) dwfProxy.getDwf()).getCaptureLogHeader();
+    }
+    return null;
+  }
+
   public void refreshModelFromPreferences() {
 
     getControlModel().loadModelFromPrefs();
@@ -143,40 +222,38 @@ public abstract class Experiment implements PropertyChangeListener {
   public boolean capturePulseData(double frequency, int pulseNumber) {
 
     // Read In Data
-    int bailCount = 0;
-    while (true) {
-      try {
-        long sleepTime = (long) (1 / frequency * pulseNumber * 1000);
-        // System.out.println("sleepTime = " + sleepTime);
-        Thread.sleep(sleepTime);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
-      byte status = dwfProxy.getDwf().FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 2) { // done capturing
-        // System.out.println("bailCount = " + bailCount);
-        return true;
-      }
-      if (bailCount++ > 1000) {
-        System.out.println("Bailed!!!");
-        return false;
-      }
+    boolean isDone = dwfProxy.getAcquisitionWatcher().waitUntilDone(1 / frequency * pulseNumber);
+    if (!isDone) {
+      logger.warn("Capture did not complete.");
     }
+    return isDone;
   }
 
-  public void waitUntilArmed() {
+  public boolean waitUntilArmed() {
 
-    // long startTime = System.currentTimeMillis();
-    while (true) {
-      byte status = dwfProxy.getDwf().FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 1) { // armed
-        // System.out.println("armed.");
-        break;
-      }
-    }
-    // System.out.println("time = " + (System.currentTimeMillis() - startTime));
+    return dwfProxy.getAcquisitionWatcher().waitUntilArmed();
+  }
+
+  /**
+   * @param plan - a single capture plan
+   * @return true if armed
+   */
+  public boolean waitUntilArmed(CapturePlanner.Plan plan) {
+
+    return dwfProxy.getAcquisitionWatcher().waitUntilArmed(plan.getPreTriggerSeconds(0));
+  }
+
+  /**
+   * @param frequency
+   * @param periodCount
+   * @param minSamplesPerPeriod
+   * @param maxSamplesPerPeriod
+   * @return the plan for a level-triggered capture of periodCount periods, see CapturePlanner
+   */
+  public CapturePlanner.Plan planCapture(double frequency, int periodCount, int minSamplesPerPeriod, int maxSamplesPerPeriod) {
 
+    CapturePlanner.Plan plan = capturePlanner.plan(frequency, periodCount, minSamplesPerPeriod, maxSamplesPerPeriod);
+    logger.debug("Capture plan: {}", plan);
+    return plan;
   }
 }
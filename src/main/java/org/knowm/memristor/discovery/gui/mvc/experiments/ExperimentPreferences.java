@@ -31,6 +31,14 @@ import java.util.prefs.Preferences;
 
 public abstract class ExperimentPreferences {
 
+  // whether derived memristor voltage and conductance account for the voltage dropped across the board's analog switches
+  public static final boolean IS_SWITCH_CORRECTED = false;
+
+  // per-pulse history charts (G and Y vs. pulse number) keep this many recent points at full resolution...
+  public static final int PULSE_HISTORY_SIZE = 10_000;
+  // ...and this many min/max buckets for everything older
+  public static final int PULSE_HISTORY_BUCKET_COUNT = 1_000;
+
   protected Preferences preferences;
 
   /**
@@ -0,0 +1,142 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.knowm.memristor.discovery.utils.RunningStatistics;
+
+/**
+ * A chain of {@link ProcessingStage}s a CaptureWorker hands its raw V1, V2 frames to, instead of trimming and deriving them inline. The time each stage takes
+ * per frame is recorded. A pipeline is a stage itself, so chains compose. Like its stages it is not thread safe, but the whole chain can be run on an executor
+ * of its own with processAsync() to keep the processing off the acquisition thread.
+ */
+public class ProcessingPipeline implements ProcessingStage {
+
+  private final String name;
+  private final List<ProcessingStage> stages = new ArrayList<>();
+  private final List<RunningStatistics> stageNanos = new ArrayList<>();
+
+  /**
+   * Constructor
+   *
+   * @param name
+   */
+  public ProcessingPipeline(String name) {
+
+    this.name = name;
+  }
+
+  /**
+   * @param stage
+   * @return this pipeline, for chaining
+   */
+  public ProcessingPipeline add(ProcessingStage stage) {
+
+    stages.add(stage);
+    stageNanos.add(new RunningStatistics());
+    return this;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    for (int i = 0; i < stages.size(); i++) {
+      long startTime = System.nanoTime();
+      frame = stages.get(i).process(frame, framePool);
+      stageNanos.get(i).add(System.nanoTime() - startTime);
+    }
+    return frame;
+  }
+
+  /**
+   * Run the pipeline on the given executor. The executor must not run two frames of the same pipeline at once, e.g. a single thread executor.
+   *
+   * @param frame
+   * @param framePool
+   * @param executor
+   * @return a future completing with the processed frame
+   */
+  public CompletableFuture<CaptureFrame> processAsync(final CaptureFrame frame, final CaptureFramePool framePool, Executor executor) {
+
+    return CompletableFuture.supplyAsync(new Supplier<CaptureFrame>() {
+
+      @Override
+      public CaptureFrame get() {
+
+        return process(frame, framePool);
+      }
+    }, executor);
+  }
+
+  @Override
+  public String getName() {
+
+    return name;
+  }
+
+  public int getStageCount() {
+
+    return stages.size();
+  }
+
+  public ProcessingStage getStage(int index) {
+
+    return stages.get(index);
+  }
+
+  /**
+   * @param index
+   * @return the time the stage took per frame, in ns
+   */
+  public RunningStatistics getStageNanos(int index) {
+
+    return stageNanos.get(index);
+  }
+
+  public void resetTiming() {
+
+    for (RunningStatistics statistics : stageNanos) {
+      statistics.reset();
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder("ProcessingPipeline [").append(name).append(", frames=").append(stages.isEmpty() ? 0 : stageNanos.get(0).getCount());
+    for (int i = 0; i < stages.size(); i++) {
+      sb.append(", ").append(stages.get(i).getName()).append("=").append(String.format("%.1f", stageNanos.get(i).getMean() / 1000)).append(" µs");
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * One step of a {@link ProcessingPipeline}: trimming, deriving, smoothing, ... A stage works on the frame's primitive channels in place, or, if it changes
+ * the frame's length, fills a frame of the new length from the pool and gives the old one back. Stages may keep state from frame to frame and are not thread
+ * safe.
+ */
+public interface ProcessingStage {
+
+  /**
+   * @param frame
+   * @param framePool - the pool the frame came from
+   * @return the frame for the next stage, the given one or its replacement
+   */
+  CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool);
+
+  /**
+   * @return a short name for timing reports
+   */
+  String getName();
+}
@@ -0,0 +1,191 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.Timer;
+
+/**
+ * Decouples a CaptureWorker from chart repaints. The worker offers each new frame into a single latest-value slot and returns straight to acquiring; a
+ * Swing Timer takes whatever frame is in the slot at a fixed frame rate and hands it to the renderer on the EDT. A frame replaced in the slot before it was
+ * rendered is coalesced and goes back to the pool, so a slow repaint costs frames, never acquisition time.
+ */
+public class RenderScheduler {
+
+  /**
+   * Draws a frame on the EDT. The renderer owns the frame from then on and must release it to the pool once the charts no longer reference it.
+   */
+  public interface FrameRenderer {
+
+    void render(CaptureFrame frame);
+  }
+
+  private final CaptureFramePool framePool;
+  private final FrameRenderer frameRenderer;
+  private final Timer timer;
+
+  private final AtomicReference<CaptureFrame> latestFrame = new AtomicReference<>();
+  private volatile boolean isRunning = false;
+
+  private final AtomicLong offeredFrameCount = new AtomicLong();
+  private final AtomicLong coalescedFrameCount = new AtomicLong();
+  private final AtomicLong droppedFrameCount = new AtomicLong();
+  private long renderedFrameCount = 0; // EDT only
+
+  /**
+   * Constructor
+   *
+   * @param framePool - where frames that are never rendered are returned
+   * @param fps - the maximum rate at which frames are rendered
+   * @param frameRenderer
+   */
+  public RenderScheduler(CaptureFramePool framePool, int fps, FrameRenderer frameRenderer) {
+
+    this.framePool = framePool;
+    this.frameRenderer = frameRenderer;
+    this.timer = new Timer(getDelay(fps), new ActionListener() {
+
+      @Override
+      public void actionPerformed(ActionEvent e) {
+
+        renderLatestFrame();
+      }
+    });
+    this.timer.setCoalesce(true);
+  }
+
+  /**
+   * Start rendering offered frames and reset the counters. Safe to call from the CaptureWorker.
+   */
+  public void start() {
+
+    offeredFrameCount.set(0);
+    coalescedFrameCount.set(0);
+    droppedFrameCount.set(0);
+    renderedFrameCount = 0;
+    framePool.release(latestFrame.getAndSet(null)); // left behind by an offer racing the last stop()
+    isRunning = true;
+    timer.start();
+  }
+
+  /**
+   * Stop rendering. A frame still waiting in the slot is dropped. Call from the EDT, e.g. in SwingWorker.done().
+   */
+  public void stop() {
+
+    isRunning = false;
+    timer.stop();
+    CaptureFrame frame = latestFrame.getAndSet(null);
+    if (frame != null) {
+      droppedFrameCount.incrementAndGet();
+      framePool.release(frame);
+    }
+  }
+
+  /**
+   * Hand over a frame for rendering, replacing any frame not yet rendered. Never blocks.
+   *
+   * @param frame
+   */
+  public void offer(CaptureFrame frame) {
+
+    offeredFrameCount.incrementAndGet();
+    if (!isRunning) {
+      droppedFrameCount.incrementAndGet();
+      framePool.release(frame);
+      return;
+    }
+    CaptureFrame replacedFrame = latestFrame.getAndSet(frame);
+    if (replacedFrame != null) {
+      coalescedFrameCount.incrementAndGet();
+      framePool.release(replacedFrame);
+    }
+  }
+
+  private void renderLatestFrame() {
+
+    CaptureFrame frame = latestFrame.getAndSet(null);
+    if (frame != null) {
+      renderedFrameCount++;
+      frameRenderer.render(frame);
+    }
+  }
+
+  /**
+   * @param fps - the new maximum frame rate, taking effect with the next frame
+   */
+  public void setFps(int fps) {
+
+    timer.setDelay(getDelay(fps));
+  }
+
+  private static int getDelay(int fps) {
+
+    return 1000 / Math.max(1, fps);
+  }
+
+  public long getOfferedFrameCount() {
+
+    return offeredFrameCount.get();
+  }
+
+  /**
+   * @return the frames replaced in the slot by a newer frame before the timer got to them
+   */
+  public long getCoalescedFrameCount() {
+
+    return coalescedFrameCount.get();
+  }
+
+  /**
+   * @return the frames offered while stopped or still waiting when stopped
+   */
+  public long getDroppedFrameCount() {
+
+    return droppedFrameCount.get();
+  }
+
+  /**
+   * @return the frames rendered since start(), read on the EDT
+   */
+  public long getRenderedFrameCount() {
+
+    return renderedFrameCount;
+  }
+
+  @Override
+  public String toString() {
+
+    return "RenderScheduler [offered=" + getOfferedFrameCount() + ", rendered=" + renderedFrameCount + ", coalesced=" + getCoalescedFrameCount() + ", dropped="
+        + getDroppedFrameCount() + "]";
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * Smooths a channel in place with an exponential moving average. The average carries over from one frame to the next, so a stream of frames is smoothed as
+ * one.
+ */
+public class SmoothingStage implements ProcessingStage {
+
+  private final int channel;
+
+  private volatile double k;
+  private double ave;
+
+  /**
+   * Constructor
+   *
+   * @param channel
+   * @param k - the weight of each new sample, in (0, 1], 1 for no smoothing
+   */
+  public SmoothingStage(int channel, double k) {
+
+    this.channel = channel;
+    this.k = k;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    double[] data = frame.get(channel);
+    double k = this.k;
+    double ave = this.ave;
+    for (int i = 0; i < frame.getLength(); i++) {
+      ave = (1 - k) * ave + k * data[i];
+      data[i] = ave;
+    }
+    this.ave = ave;
+    return frame;
+  }
+
+  public double getK() {
+
+    return k;
+  }
+
+  /**
+   * @param k - the weight of each new sample, may be changed while frames are processed
+   */
+  public void setK(double k) {
+
+    this.k = k;
+  }
+
+  public void reset() {
+
+    ave = 0;
+  }
+
+  @Override
+  public String getName() {
+
+    return "smooth";
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import org.knowm.memristor.discovery.utils.RunningStatistics;
+
+/**
+ * Computes the statistics of a channel, leaving edgeSamples samples at either end out, e.g. the rising and falling edges of a trimmed pulse. The mean is also
+ * set as the frame's value.
+ */
+public class StatisticsStage implements ProcessingStage {
+
+  private final int channel;
+  private final int edgeSamples;
+  private final RunningStatistics statistics = new RunningStatistics();
+
+  /**
+   * Constructor
+   *
+   * @param channel
+   * @param edgeSamples
+   */
+  public StatisticsStage(int channel, int edgeSamples) {
+
+    this.channel = channel;
+    this.edgeSamples = edgeSamples;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    double[] data = frame.get(channel);
+    statistics.reset();
+    for (int i = edgeSamples; i < frame.getLength() - edgeSamples; i++) {
+      statistics.add(data[i]);
+    }
+    frame.setValue(statistics.getCount() > 0 ? statistics.getMean() : Double.NaN);
+    return frame;
+  }
+
+  /**
+   * @return the statistics of the last frame, reused for the next one
+   */
+  public RunningStatistics getStatistics() {
+
+    return statistics;
+  }
+
+  @Override
+  public String getName() {
+
+    return "statistics";
+  }
+}
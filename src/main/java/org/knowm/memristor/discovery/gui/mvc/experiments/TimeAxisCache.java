@@ -0,0 +1,75 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * Caches time axes ({0, dt, 2dt, ...}) by time step and length, since they are otherwise rebuilt identically for every capture. The returned arrays are
+ * shared and must not be modified.
+ */
+public class TimeAxisCache {
+
+  private final double[] timeSteps;
+  private final double[][] timeAxes;
+  private int nextSlot = 0;
+
+  /**
+   * Constructor
+   *
+   * @param size the number of distinct axes to keep, e.g. one per sample rate in use
+   */
+  public TimeAxisCache(int size) {
+
+    this.timeSteps = new double[size];
+    this.timeAxes = new double[size][];
+  }
+
+  /**
+   * @param timeStep time between samples, in whatever unit the chart shows
+   * @param length
+   * @return the time axis, from the cache if possible
+   */
+  public synchronized double[] get(double timeStep, int length) {
+
+    for (int i = 0; i < timeAxes.length; i++) {
+      if (timeAxes[i] != null && timeSteps[i] == timeStep && timeAxes[i].length == length) {
+        return timeAxes[i];
+      }
+    }
+
+    double[] timeData = new double[length];
+    for (int i = 0; i < length; i++) {
+      timeData[i] = i * timeStep;
+    }
+
+    // replace round-robin
+    timeSteps[nextSlot] = timeStep;
+    timeAxes[nextSlot] = timeData;
+    nextSlot = (nextSlot + 1) % timeAxes.length;
+    return timeData;
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * Sets a frame's time axis from its sample rate, shared from a {@link TimeAxisCache}.
+ */
+public class TimeAxisStage implements ProcessingStage {
+
+  private final TimeAxisCache timeAxisCache;
+  private final double timeUnitDivisor;
+
+  /**
+   * Constructor
+   *
+   * @param timeAxisCache
+   * @param timeUnitDivisor - e.g. TimeUnits.getDivisor()
+   */
+  public TimeAxisStage(TimeAxisCache timeAxisCache, double timeUnitDivisor) {
+
+    this.timeAxisCache = timeAxisCache;
+    this.timeUnitDivisor = timeUnitDivisor;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    frame.setTimeData(timeAxisCache.get(1 / frame.getSampleFrequency() * timeUnitDivisor, frame.getLength()));
+    return frame;
+  }
+
+  @Override
+  public String getName() {
+
+    return "timeAxis";
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+/**
+ * A fixed-capacity history of one value per pulse, e.g. the conductance read after each pulse, for plotting against pulse number.
+ * <p>
+ * The newest samples are kept at full resolution in a primitive ring buffer. Samples falling out of the ring are folded into min/max buckets, two
+ * points per bucket, so the start of a long run stays visible. When the buckets are full, neighbouring buckets are merged and the bucket size
+ * doubles. Memory use is fixed no matter how long the experiment runs.
+ * <p>
+ * Not thread safe. It is meant to be used on the EDT by the plot controllers.
+ */
+public class TimeSeriesRingBuffer {
+
+  private final double[] values;
+  private int head; // index of the next write
+  private int size;
+  private long count; // all values ever appended
+
+  // decimated history, in pulse number order. Each complete bucket holds two points.
+  private final int maxBucketCount;
+  private final double[] historyX;
+  private final double[] historyY;
+  private int bucketCount;
+  private int bucketSize = 1;
+
+  // the bucket currently being filled
+  private int pendingCount;
+  private double pendingMin;
+  private double pendingMinX;
+  private double pendingMax;
+  private double pendingMaxX;
+
+  /**
+   * Constructor
+   *
+   * @param capacity - the number of recent values kept at full resolution
+   * @param maxBucketCount - the number of min/max buckets kept for older values. 0 discards older values.
+   */
+  public TimeSeriesRingBuffer(int capacity, int maxBucketCount) {
+
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+    }
+    if (maxBucketCount < 0 || maxBucketCount % 2 != 0) {
+      throw new IllegalArgumentException("maxBucketCount must be a non-negative even number: " + maxBucketCount);
+    }
+    this.values = new double[capacity];
+    this.maxBucketCount = maxBucketCount;
+    this.historyX = new double[2 * maxBucketCount];
+    this.historyY = new double[2 * maxBucketCount];
+  }
+
+  public void add(double value) {
+
+    if (size == values.length) {
+      // the oldest value is overwritten below, fold it into the decimated history first
+      if (maxBucketCount > 0) {
+        fold(count - size + 1, values[head]);
+      }
+    }
+    else {
+      size++;
+    }
+    values[head] = value;
+    head = (head + 1) % values.length;
+    count++;
+  }
+
+  private void fold(double x, double y) {
+
+    if (pendingCount == 0) {
+      pendingMin = pendingMax = y;
+      pendingMinX = pendingMaxX = x;
+    }
+    else if (y < pendingMin) {
+      pendingMin = y;
+      pendingMinX = x;
+    }
+    else if (y > pendingMax) {
+      pendingMax = y;
+      pendingMaxX = x;
+    }
+    if (++pendingCount < bucketSize) {
+      return;
+    }
+
+    if (bucketCount == maxBucketCount) {
+      compact();
+    }
+    int i = 2 * bucketCount;
+    boolean isMinFirst = pendingMinX <= pendingMaxX;
+    historyX[i] = isMinFirst ? pendingMinX : pendingMaxX;
+    historyY[i] = isMinFirst ? pendingMin : pendingMax;
+    historyX[i + 1] = isMinFirst ? pendingMaxX : pendingMinX;
+    historyY[i + 1] = isMinFirst ? pendingMax : pendingMin;
+    bucketCount++;
+    pendingCount = 0;
+  }
+
+  /**
+   * Merge neighbouring buckets, halving the bucket count and doubling the bucket size.
+   */
+  private void compact() {
+
+    for (int bucket = 0; bucket < bucketCount / 2; bucket++) {
+
+      int from = 4 * bucket;
+      int minIndex = from;
+      int maxIndex = from;
+      for (int i = from + 1; i < from + 4; i++) {
+        if (historyY[i] < historyY[minIndex]) {
+          minIndex = i;
+        }
+        if (historyY[i] > historyY[maxIndex]) {
+          maxIndex = i;
+        }
+      }
+      int firstIndex = Math.min(minIndex, maxIndex);
+      int secondIndex = Math.max(minIndex, maxIndex);
+      double firstX = historyX[firstIndex];
+      double firstY = historyY[firstIndex];
+      double secondX = historyX[secondIndex];
+      double secondY = historyY[secondIndex];
+      historyX[2 * bucket] = firstX;
+      historyY[2 * bucket] = firstY;
+      historyX[2 * bucket + 1] = secondX;
+      historyY[2 * bucket + 1] = secondY;
+    }
+    bucketCount /= 2;
+    bucketSize *= 2;
+  }
+
+  /**
+   * @return the number of points returned by getXData and getYData
+   */
+  public int getPointCount() {
+
+    return 2 * bucketCount + (pendingCount > 0 ? 2 : 0) + size;
+  }
+
+  /**
+   * @return a new array of pulse numbers, starting from 1 for the first value ever added
+   */
+  public double[] getXData() {
+
+    double[] xData = new double[getPointCount()];
+    int i = copyHistory(historyX, pendingMinX, pendingMaxX, xData);
+    long firstX = count - size + 1;
+    for (int j = 0; j < size; j++) {
+      xData[i++] = firstX + j;
+    }
+    return xData;
+  }
+
+  /**
+   * @return a new array of values, matching getXData
+   */
+  public double[] getYData() {
+
+    double[] yData = new double[getPointCount()];
+    int i = copyHistory(historyY, pendingMin, pendingMax, yData);
+    int tail = (head - size + values.length) % values.length;
+    int firstChunk = Math.min(size, values.length - tail);
+    System.arraycopy(values, tail, yData, i, firstChunk);
+    System.arraycopy(values, 0, yData, i + firstChunk, size - firstChunk);
+    return yData;
+  }
+
+  private int copyHistory(double[] history, double pendingAtMin, double pendingAtMax, double[] destination) {
+
+    int i = 2 * bucketCount;
+    System.arraycopy(history, 0, destination, 0, i);
+    if (pendingCount > 0) {
+      boolean isMinFirst = pendingMinX <= pendingMaxX;
+      destination[i++] = isMinFirst ? pendingAtMin : pendingAtMax;
+      destination[i++] = isMinFirst ? pendingAtMax : pendingAtMin;
+    }
+    return i;
+  }
+
+  /**
+   * @return the pulse number of the oldest point still held, 0 if empty
+   */
+  public double getFirstX() {
+
+    if (bucketCount > 0) {
+      return historyX[0];
+    }
+    if (pendingCount > 0) {
+      return Math.min(pendingMinX, pendingMaxX);
+    }
+    return size > 0 ? count - size + 1 : 0;
+  }
+
+  /**
+   * @return the pulse number of the newest value, 0 if empty
+   */
+  public long getLastX() {
+
+    return count;
+  }
+
+  public double getLast() {
+
+    if (size == 0) {
+      throw new IllegalStateException("empty");
+    }
+    return values[(head - 1 + values.length) % values.length];
+  }
+
+  public int getSize() {
+
+    return size;
+  }
+
+  public long getCount() {
+
+    return count;
+  }
+
+  public int getCapacity() {
+
+    return values.length;
+  }
+
+  public void clear() {
+
+    head = 0;
+    size = 0;
+    count = 0;
+    bucketCount = 0;
+    bucketSize = 1;
+    pendingCount = 0;
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import org.knowm.memristor.discovery.CapturePlanner;
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+
+/**
+ * Trims the idle data off both ends of a frame, see PostProcessDataUtils.getActiveRange(). The kept range of the given channels is copied into a frame of the
+ * trimmed length and the untrimmed frame goes back to the pool. With a window set from the capture plan, every frame is trimmed to the same length from the
+ * start of its active range instead, so the trimmed frames and their time axes come from the pool and cache rather than being allocated for each capture.
+ */
+public class TrimStage implements ProcessingStage {
+
+  private final int v1Channel;
+  private final double v1Threshold;
+  private final int windowBuffer;
+  private final int[] channels;
+
+  private volatile int windowLength = 0;
+
+  /**
+   * Constructor
+   *
+   * @param v1Channel
+   * @param v1Threshold
+   * @param windowBuffer - how many data points outside the window should be included
+   * @param channels - the channels to keep, usually the raw ones since the others are derived after trimming
+   */
+  public TrimStage(int v1Channel, double v1Threshold, int windowBuffer, int... channels) {
+
+    this.v1Channel = v1Channel;
+    this.v1Threshold = v1Threshold;
+    this.windowBuffer = windowBuffer;
+    this.channels = channels;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    int windowLength = this.windowLength;
+    if (windowLength >= frame.getLength()) {
+      return frame;
+    }
+
+    int[] activeRange = PostProcessDataUtils.getActiveRange(frame.get(v1Channel), frame.getLength(), v1Threshold, windowBuffer);
+    int startIndex = activeRange[0];
+    int length = activeRange[1] - activeRange[0];
+    if (windowLength > 0) {
+      startIndex = Math.min(startIndex, frame.getLength() - windowLength);
+      length = windowLength;
+    }
+    if (length == frame.getLength()) {
+      return frame;
+    }
+
+    CaptureFrame trimmed = framePool.acquire(length);
+    for (int channel : channels) {
+      System.arraycopy(frame.get(channel), startIndex, trimmed.get(channel), 0, length);
+    }
+    trimmed.copyProperties(frame);
+    framePool.release(frame);
+    return trimmed;
+  }
+
+  /**
+   * Trim to the applied periods of the plan's first capture plus the window buffer on both sides, rather than to each frame's active range.
+   *
+   * @param plan - the plan of the captures to come, null to go back to trimming to the active range
+   */
+  public void setWindow(CapturePlanner.Plan plan) {
+
+    windowLength = plan == null ? 0 : plan.getPeriodSamples(0) + 2 * windowBuffer;
+  }
+
+  @Override
+  public String getName() {
+
+    return "trim";
+  }
+}
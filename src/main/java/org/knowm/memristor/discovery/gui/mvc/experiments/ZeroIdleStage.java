@@ -0,0 +1,73 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+
+/**
+ * Copies V2 into another channel with the samples where V1 is idle set to zero, see PostProcessDataUtils.zeroIdleData().
+ */
+public class ZeroIdleStage implements ProcessingStage {
+
+  private final int v1Channel;
+  private final int v2Channel;
+  private final int outChannel;
+  private final double v1Threshold;
+
+  /**
+   * Constructor
+   *
+   * @param v1Channel
+   * @param v2Channel
+   * @param outChannel - must not be v2Channel
+   * @param v1Threshold
+   */
+  public ZeroIdleStage(int v1Channel, int v2Channel, int outChannel, double v1Threshold) {
+
+    if (outChannel == v2Channel) {
+      throw new IllegalArgumentException("The output channel must not be the V2 channel: " + outChannel);
+    }
+    this.v1Channel = v1Channel;
+    this.v2Channel = v2Channel;
+    this.outChannel = outChannel;
+    this.v1Threshold = v1Threshold;
+  }
+
+  @Override
+  public CaptureFrame process(CaptureFrame frame, CaptureFramePool framePool) {
+
+    PostProcessDataUtils.zeroIdleData(frame.get(v1Channel), frame.get(v2Channel), frame.get(outChannel), frame.getLength(), v1Threshold);
+    return frame;
+  }
+
+  @Override
+  public String getName() {
+
+    return "zeroIdle";
+  }
+}
@@ -31,26 +31,41 @@ import java.awt.Container;
 import java.beans.PropertyChangeEvent;
 import java.util.List;
 
+import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 
+import org.knowm.memristor.discovery.CapturePlanner;
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.export.SeriesExporter;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFrame;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFramePool;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DeriveStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPlotPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ProcessingPipeline;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisCache;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisStage;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TrimStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.control.ControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.control.ControlPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.plot.PlotControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.plot.PlotController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.plot.PlotPanel;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
 import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
 import org.knowm.memristor.discovery.utils.WaveformUtils;
 import org.knowm.waveforms4j.DWF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ConductanceExperiment extends Experiment {
 
+  private final Logger logger = LoggerFactory.getLogger(ConductanceExperiment.class);
+
   private final ControlModel controlModel = new ControlModel();
   private ControlPanel controlPanel;
 
@@ -60,6 +75,19 @@ public class ConductanceExperiment extends Experiment {
 
   private ResetCaptureWorker resetCaptureWorker;
 
+  // CaptureFrame channels
+  private static final int FRAME_V1 = 0;
+  private static final int FRAME_V2 = 1;
+  private static final int FRAME_CURRENT = 2;
+  private static final int FRAME_CONDUCTANCE = 3;
+
+  private final CaptureFramePool framePool = new CaptureFramePool(4, ConductancePreferences.CAPTURE_BUFFER_SIZE, 4);
+  private final TimeAxisCache timeAxisCache = new TimeAxisCache(4);
+  private final TrimStage trimStage = new TrimStage(FRAME_V1, 0.02, 10, FRAME_V1, FRAME_V2);
+  private final ProcessingPipeline resetPipeline = createPipeline("reset", FRAME_CONDUCTANCE);
+  private final ProcessingPipeline setPipeline = createPipeline("set", DeriveStage.NO_CHANNEL);
+  private CaptureFrame displayedFrame; // EDT only
+
   /**
    * Constructor
    *
@@ -81,7 +109,73 @@ public class ConductanceExperiment extends Experiment {
 
   }
 
-  private class ResetCaptureWorker extends SwingWorker<Boolean, double[][]> {
+  /**
+   * @param name
+   * @param conductanceChannel - FRAME_CONDUCTANCE or DeriveStage.NO_CHANNEL
+   * @return a pipeline trimming the idle data off a capture and deriving the current, and the conductance if wanted
+   */
+  private ProcessingPipeline createPipeline(String name, int conductanceChannel) {
+
+    return new ProcessingPipeline(name).add(trimStage).add(new TimeAxisStage(timeAxisCache,
+        ConductancePreferences.TIME_UNIT.getDivisor())).add(new DeriveStage(controlModel, ConductancePreferences.IS_SWITCH_CORRECTED,
+            ConductancePreferences.CURRENT_UNIT.getDivisor(), ConductancePreferences.CONDUCTANCE_UNIT.getDivisor(), FRAME_V1, FRAME_V2, DeriveStage.NO_CHANNEL,
+            FRAME_CURRENT, conductanceChannel));
+  }
+
+  /**
+   * Read both oscilloscope channels into a pooled frame, to be handed to a pipeline.
+   *
+   * @param sampleFrequency
+   * @return the raw frame
+   */
+  private CaptureFrame readFrame(double sampleFrequency) {
+
+    int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    CaptureFrame frame = framePool.acquire(Math.min(validSamples, ConductancePreferences.CAPTURE_BUFFER_SIZE));
+    dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, frame.get(FRAME_V1), frame.getLength());
+    dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, frame.get(FRAME_V2), frame.getLength());
+    frame.setSampleFrequency(sampleFrequency);
+    return frame;
+  }
+
+  /**
+   * Read both oscilloscope channels into the given buffers.
+   *
+   * @return the number of samples read
+   */
+  private int readCapture(double[] v1, double[] v2) {
+
+    int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    validSamples = dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, v1, Math.min(validSamples, v1.length));
+    dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+    // System.out.println("validSamples: " + validSamples);
+    return validSamples;
+  }
+
+  /**
+   * The charts now hold the new frame's arrays, so the one they held before can be reused.
+   *
+   * @param frame
+   */
+  private void setDisplayedFrame(CaptureFrame frame) {
+
+    framePool.release(displayedFrame);
+    displayedFrame = frame;
+  }
+
+  /**
+   * Export the Vt and IV series of a processed frame.
+   *
+   * @param frame
+   */
+  private void exportFrame(CaptureFrame frame) {
+
+    exportSeries(SeriesExporter.VT, "V1", frame.getTimeData(), frame.get(FRAME_V1), frame.getLength());
+    exportSeries(SeriesExporter.VT, "V2", frame.getTimeData(), frame.get(FRAME_V2), frame.getLength());
+    exportSeries(SeriesExporter.IV, "iv", frame.get(FRAME_V1), frame.get(FRAME_CURRENT), frame.getLength());
+  }
+
+  private class ResetCaptureWorker extends SwingWorker<Boolean, CaptureFrame> {
 
     @Override
     protected Boolean doInBackground() throws Exception {
@@ -92,10 +186,14 @@ public class ConductanceExperiment extends Experiment {
       // Analog In /////////////////
       //////////////////////////////////
 
-      int sampleFrequencyMultiplier = 200; // adjust this down if you want to capture more pulses as the buffer size is limited.
-      double sampleFrequency = controlModel.getCalculatedFrequency() * sampleFrequencyMultiplier; // adjust this down if you want to capture more pulses as the buffer size is limited.
-      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getResetAmplitude() > 0 ? 1 : -1), 8000);
-      Thread.sleep(10); // Attempt to allow Analog In to get fired up for the next set of pulses
+      CapturePlanner.Plan plan = planCapture(controlModel.getCalculatedFrequency(), 1, ConductancePreferences.MIN_SAMPLES_PER_PULSE,
+          ConductancePreferences.MAX_SAMPLES_PER_PULSE);
+      double sampleFrequency = plan.getSampleFrequency();
+      framePool.preallocate(plan.getBufferSize());
+      trimStage.setWindow(plan);
+      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getResetAmplitude() > 0 ? 1 : -1), plan
+          .getBufferSize());
+      waitUntilArmed(plan);
 
       //////////////////////////////////
       // Pulse Out /////////////////
@@ -116,59 +214,33 @@ public class ConductanceExperiment extends Experiment {
       }
 
       // Get Raw Data from Oscilloscope
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
-      // System.out.println("validSamples: " + validSamples);
+      CaptureFrame frame = readFrame(sampleFrequency);
 
       ///////////////////////////
       // Create Chart Data //////
       ///////////////////////////
 
-      double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0.02, 10);
-      double[] V1Trimmed = trimmedRawData[0];
-      double[] V2Trimmed = trimmedRawData[1];
-      int bufferLength = V1Trimmed.length;
-
-      // create time data
-      double[] timeData = new double[bufferLength];
-      double timeStep = 1 / sampleFrequency * ConductancePreferences.TIME_UNIT.getDivisor();
-      for (int i = 0; i < bufferLength; i++) {
-        timeData[i] = i * timeStep;
-      }
-
-      // create current data
-      double[] current = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-        current[i] = V2Trimmed[i] / controlModel.getSeriesResistance() * ConductancePreferences.CURRENT_UNIT.getDivisor();
-      }
-
-      // create conductance data
-      double[] conductance = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-
-        double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-        double G = I / (V1Trimmed[i] - V2Trimmed[i]) * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor();
-        G = G < 0 ? 0 : G;
-        conductance[i] = G;
-      }
+      frame = resetPipeline.process(frame, framePool);
+      exportFrame(frame);
+      exportSeries(SeriesExporter.GV, "gv", frame.get(FRAME_V1), frame.get(FRAME_CONDUCTANCE), frame.getLength());
 
-      publish(new double[][]{timeData, V1Trimmed, V2Trimmed, current, conductance});
+      publish(frame);
 
       return true;
     }
 
     @Override
-    protected void process(List<double[][]> chunks) {
+    protected void process(List<CaptureFrame> chunks) {
 
-      double[][] newestChunk = chunks.get(chunks.size() - 1);
+      CaptureFrame newestFrame = framePool.releaseAllButNewest(chunks);
       // System.out.println("" + chunks.size());
 
-      plotController.udpateVtChart(newestChunk[0], newestChunk[1], newestChunk[2], controlModel.getResetPulseWidth(), controlModel
+      plotController.udpateVtChart(newestFrame.getTimeData(), newestFrame.get(FRAME_V1), newestFrame.get(FRAME_V2), controlModel.getResetPulseWidth(), controlModel
           .getResetAmplitude());
-      plotController.udpateIVChart(newestChunk[1], newestChunk[3], controlModel.getResetPulseWidth(), controlModel.getResetAmplitude());
-      plotController.updateGVChartReset(newestChunk[1], newestChunk[4], controlModel.getResetPulseWidth(), controlModel
+      plotController.udpateIVChart(newestFrame.get(FRAME_V1), newestFrame.get(FRAME_CURRENT), controlModel.getResetPulseWidth(), controlModel.getResetAmplitude());
+      plotController.updateGVChartReset(newestFrame.get(FRAME_V1), newestFrame.get(FRAME_CONDUCTANCE), controlModel.getResetPulseWidth(), controlModel
           .getResetAmplitude());
+      setDisplayedFrame(newestFrame);
 
       if (plotPanel.getCaptureButton().isSelected()) {
         plotController.repaintVtChart();
@@ -186,98 +258,154 @@ public class ConductanceExperiment extends Experiment {
     }
   }
 
-  private class SetCaptureWorker extends SwingWorker<Boolean, double[][]> {
+  /**
+   * Programs the memristor to the set conductance with a write-verify loop: a small read pulse measures the conductance, WriteVerifyController decides the
+   * amplitude and polarity of the next set or reset pulse, and this repeats until the conductance is within tolerance or the pulse budget is spent. Each
+   * programming pulse is plotted with the conductance read after it.
+   */
+  private class SetCaptureWorker extends SwingWorker<Boolean, CaptureFrame> {
+
+    // raw oscilloscope data, reused for every capture
+    private final double[] v1 = new double[ConductancePreferences.CAPTURE_BUFFER_SIZE];
+    private final double[] v2 = new double[ConductancePreferences.CAPTURE_BUFFER_SIZE];
+
+    private final double[] readPulseWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, ConductancePreferences.READ_AMPLITUDE,
+        ConductancePreferences.READ_FREQUENCY);
+
+    // the outcome shown by done(), set at the end of doInBackground()
+    private volatile String resultMessage;
 
     @Override
     protected Boolean doInBackground() throws Exception {
 
-      while (!isCancelled()) {
+      WriteVerifyController controller = new WriteVerifyController(controlModel.getSetConductance(), controlModel.getConductanceTolerance(), controlModel
+          .getSetAmplitude(), controlModel.getResetAmplitude(), controlModel.getMaxPulseCount());
+      long startTime = System.nanoTime();
 
-        try {
-          Thread.sleep(100); // TODO change this to a small amount after debugged and working app
-        } catch (InterruptedException e) {
-          // eat it. caught when interrupt is called
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
-        }
+      // set and reset pulses each have their own width, so their own frequency and capture plan
+      double setFrequency = controlModel.getSetFrequency();
+      double resetFrequency = controlModel.getCalculatedFrequency();
+      CapturePlanner.Plan setPlan = planCapture(setFrequency, 1, ConductancePreferences.MIN_SAMPLES_PER_PULSE, ConductancePreferences.MAX_SAMPLES_PER_PULSE);
+      CapturePlanner.Plan resetPlan = planCapture(resetFrequency, 1, ConductancePreferences.MIN_SAMPLES_PER_PULSE,
+          ConductancePreferences.MAX_SAMPLES_PER_PULSE);
+      framePool.preallocate(setPlan.getBufferSize());
 
-        // 1. set pulse
+      double conductance = readConductance();
+      while (!isCancelled() && !Double.isNaN(conductance) && controller.update(conductance) == WriteVerifyController.State.PROGRAMMING) {
 
         //////////////////////////////////
         // Analog In /////////////////
         //////////////////////////////////
 
-        int sampleFrequencyMultiplier = 200; // adjust this down if you want to capture more pulses as the buffer size is limited.
-        double sampleFrequency = controlModel.getCalculatedFrequency() * sampleFrequencyMultiplier; // adjust this down if you want to capture more pulses as the buffer size is limited.
-        dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getSetAmplitude() > 0 ? 1 : -1), 8000);
-        Thread.sleep(20); // Attempt to allow Analog In to get fired up for the next set of pulses
+        double amplitude = controller.getNextAmplitude();
+        boolean isSet = amplitude > 0;
+        double frequency = isSet ? setFrequency : resetFrequency;
+        CapturePlanner.Plan plan = isSet ? setPlan : resetPlan;
+        double sampleFrequency = plan.getSampleFrequency();
+        trimStage.setWindow(plan);
+        dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (isSet ? 1 : -1), plan.getBufferSize());
+        waitUntilArmed(plan);
 
         //////////////////////////////////
         // Pulse Out /////////////////
         //////////////////////////////////
 
-        // custom waveform
-        double[] customWaveform = WaveformUtils.generateCustomWaveform(Waveform.Square, controlModel.getSetAmplitude(), controlModel.getCalculatedFrequency());
-        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, customWaveform);
+        // a square set pulse or a reset pulse of the configured type
+        double[] customWaveform = WaveformUtils.generateCustomWaveform(isSet ? Waveform.Square : controlModel.getResetPulseType(), amplitude, frequency);
+        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, frequency, 0, 1, customWaveform);
 
-        // Get Raw Data from Oscilloscope
-        int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-        double[] v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-        double[] v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
-        // System.out.println("validSamples: " + validSamples);
+        if (!capturePulseData(frequency, 1)) {
+          break;
+        }
+        CaptureFrame frame = readFrame(sampleFrequency);
+        stopAnalogInAndOut();
 
         ///////////////////////////
         // Create Chart Data //////
         ///////////////////////////
 
-        double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, controlModel.getSetAmplitude() * .98, 0);
-        double[] V1Trimmed = trimmedRawData[0];
-        double[] V2Trimmed = trimmedRawData[1];
-        int bufferLength = V1Trimmed.length;
+        frame = setPipeline.process(frame, framePool);
 
-        // create time data
-        double[] timeData = new double[bufferLength];
-        double timeStep = 1 / sampleFrequency * ConductancePreferences.TIME_UNIT.getDivisor();
-        for (int i = 0; i < bufferLength; i++) {
-          timeData[i] = i * timeStep;
-        }
+        // verify
+        conductance = readConductance();
+        frame.setValue(conductance);
+        exportFrame(frame);
+        exportPoint(SeriesExporter.G, "g", controller.getPulseCount(), conductance);
 
-        // create current data
-        double[] current = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-          current[i] = V2Trimmed[i] / controlModel.getSeriesResistance() * ConductancePreferences.CURRENT_UNIT.getDivisor();
-        }
+        publish(frame);
+      }
+      stopAnalogInAndOut();
 
-        // create conductance data - a single number equal to the average of all points in the trimmed data
-        double runningTotal = 0.0;
-        for (int i = 3; i < bufferLength - 3; i++) {
-          double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-          double G = I / (V1Trimmed[i] - V2Trimmed[i]);
-          G = G < 0 ? 0 : G;
-          runningTotal += G;
-        }
-        // conductance value packed in a one-element array
-        double[] conductance = new double[]{runningTotal / (bufferLength - 6) * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor()};
+      double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+      String result;
+      if (controller.getState() == WriteVerifyController.State.PROGRAMMING) {
+        result = isCancelled() ? "Programming stopped" : "Capture did not complete";
+      }
+      else {
+        result = controller.getState() == WriteVerifyController.State.CONVERGED ? "Converged" : "Did not converge";
+      }
+      logger.info("{} to G={} (target {}) after {} pulses and {} overshoots in {} s.", result, controller.getConductance(), controller.getTargetConductance(),
+          controller.getPulseCount(), controller.getOvershootCount(), seconds);
+      logger.debug(setPipeline.toString());
+      resultMessage = String.format("%s: G = %.4f %s (target %.4f) after %d pulses in %.2f s.", result, controller.getConductance(),
+          ConductancePreferences.CONDUCTANCE_UNIT.getLabel(), controller.getTargetConductance(), controller.getPulseCount(), seconds);
+      return controller.getState() == WriteVerifyController.State.CONVERGED;
+    }
+
+    @Override
+    protected void done() {
 
-        publish(new double[][]{timeData, V1Trimmed, V2Trimmed, current, conductance});
+      // on the EDT, after the last published frame was processed
+      if (!isCancelled() && resultMessage != null) {
+        JOptionPane.showMessageDialog(null, resultMessage);
+        controlPanel.getStartStopButton().doClick();
       }
+    }
 
-      controlPanel.getStartStopButton().doClick();
-      return true;
+    /**
+     * Apply a read pulse and measure the conductance over its flat top.
+     *
+     * @return the conductance, or NaN if the capture did not complete
+     */
+    private double readConductance() {
+
+      // trigger on 20% the rising .1 V read pulse
+      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(ConductancePreferences.READ_FREQUENCY * ConductancePreferences.READ_SAMPLES_PER_PULSE, 0.02,
+          ConductancePreferences.READ_SAMPLES_PER_PULSE);
+      waitUntilArmed();
+      dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, ConductancePreferences.READ_FREQUENCY, 0, 1, readPulseWaveform);
+
+      if (!capturePulseData(ConductancePreferences.READ_FREQUENCY, 1)) {
+        stopAnalogInAndOut();
+        return Double.NaN;
+      }
+      int validSamples = readCapture(v1, v2);
+      stopAnalogInAndOut();
+
+      int[] activeRange = PostProcessDataUtils.getActiveRange(v1, validSamples, ConductancePreferences.READ_AMPLITUDE * .8, 0);
+      return IVGVKernel.averageConductance(v1, v2, activeRange[0] + 3, activeRange[1] - 3, controlModel.getSeriesResistance(),
+          ConductancePreferences.IS_SWITCH_CORRECTED, ConductancePreferences.CONDUCTANCE_UNIT.getDivisor());
+    }
+
+    private void stopAnalogInAndOut() {
+
+      dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
+      dwfProxy.getDwf().stopAnalogCaptureBothChannels();
     }
 
     @Override
-    protected void process(List<double[][]> chunks) {
+    protected void process(List<CaptureFrame> chunks) {
 
-      double[][] newestChunk = chunks.get(chunks.size() - 1);
+      CaptureFrame newestFrame = framePool.releaseAllButNewest(chunks);
 
       // System.out.println("" + chunks.size());
 
-      plotController.udpateVtChart(newestChunk[0], newestChunk[1], newestChunk[2], controlModel.getSetPulseWidth(), controlModel
+      plotController.udpateVtChart(newestFrame.getTimeData(), newestFrame.get(FRAME_V1), newestFrame.get(FRAME_V2), controlModel.getSetPulseWidth(), controlModel
           .getSetAmplitude());
-      plotController.udpateIVChart(newestChunk[1], newestChunk[3], controlModel.getSetPulseWidth(), controlModel
+      plotController.udpateIVChart(newestFrame.get(FRAME_V1), newestFrame.get(FRAME_CURRENT), controlModel.getSetPulseWidth(), controlModel
           .getSetAmplitude());
-      plotController.updateGVChart(newestChunk[4], controlModel.getSetPulseWidth(), controlModel.getSetAmplitude());
+      plotController.updateGVChart(newestFrame.getValue(), controlModel.getSetPulseWidth(), controlModel.getSetAmplitude());
+      setDisplayedFrame(newestFrame);
 
       if (plotPanel.getCaptureButton().isSelected()) {
         plotController.repaintVtChart();
@@ -302,12 +430,8 @@ public class ConductanceExperiment extends Experiment {
 
       case ExperimentControlModel.EVENT_WAVEFORM_UPDATE:
 
-        if (controlModel.isStartToggled()) {
-
-          double[] customWaveform = WaveformUtils.generateCustomWaveform(Waveform.Square, controlModel.getSetAmplitude(), controlModel.getCalculatedFrequency());
-          dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, customWaveform);
-        }
-        else {
+        // while programming the SetCaptureWorker owns the pulses, a stray one would throw off the write-verify loop
+        if (!controlModel.isStartToggled()) {
 
           plotPanel.switch2WaveformChart();
           plotController.udpateWaveformChart(controlModel.getWaveformTimeData(), controlModel.getWaveformAmplitudeData(), controlModel.getResetAmplitude(), controlModel.getResetPulseWidth());
@@ -56,6 +56,11 @@ public class ConductancePreferences extends ExperimentPreferences {
   public static final String SET_CONDUCTANCE_INIT_KEY = PREFIX + "SET_CONDUCTANCE_INIT_KEY";
   public static final float SET_CONDUCTANCE_INIT_DEFAULT_VALUE = 1.0f;
 
+  public static final String CONDUCTANCE_TOLERANCE_INIT_FLOAT_KEY = PREFIX + "CONDUCTANCE_TOLERANCE_INIT_FLOAT_KEY";
+  public static final float CONDUCTANCE_TOLERANCE_INIT_FLOAT_DEFAULT_VALUE = 0.05f; // relative to the set conductance
+
+  public static final String MAX_PULSE_COUNT_INIT_KEY = PREFIX + "MAX_PULSE_COUNT_INIT_KEY";
+  public static final int MAX_PULSE_COUNT_INIT_DEFAULT_VALUE = 100;
 
   public static final String SET_AMPLITUDE_INIT_FLOAT_KEY = PREFIX + "SET_AMPLITUDE_INIT_FLOAT_KEY";
   public static final float SET_AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE = 1.0f;
@@ -72,6 +77,15 @@ public class ConductancePreferences extends ExperimentPreferences {
 
   public static final int CAPTURE_BUFFER_SIZE = DWF.AD2_MAX_BUFFER_SIZE;
 
+  // samples per set or reset pulse period, see CapturePlanner
+  public static final int MIN_SAMPLES_PER_PULSE = 200;
+  public static final int MAX_SAMPLES_PER_PULSE = 1000;
+
+  // the verify read between programming pulses, small enough not to disturb the memristor
+  public static final double READ_AMPLITUDE = 0.1;
+  public static final double READ_FREQUENCY = 100_000; // 5 us pulse width
+  public static final int READ_SAMPLES_PER_PULSE = 300;
+
   /**
    * Constructor
    */
@@ -58,6 +58,12 @@ public class ConductancePreferencesPanel extends ExperimentPreferencesPanel {
   private JLabel setConductanceLabel;
   private JTextField setConductanceTextField;
 
+  private JLabel conductanceToleranceLabel;
+  private JTextField conductanceToleranceTextField;
+
+  private JLabel maxPulseCountLabel;
+  private JTextField maxPulseCountTextField;
+
   private JLabel setAmplitudeLabel;
   private JTextField setAmplitudeTextField;
 
@@ -132,6 +138,28 @@ public class ConductancePreferencesPanel extends ExperimentPreferencesPanel {
     this.setConductanceTextField.setText(String.valueOf(experimentPreferences.getFloat(ConductancePreferences.SET_CONDUCTANCE_INIT_KEY, ConductancePreferences.SET_CONDUCTANCE_INIT_DEFAULT_VALUE)));
     preferencesPanel.add(setConductanceTextField, gc);
 
+    gc.gridy++;
+    gc.gridx = 0;
+    this.conductanceToleranceLabel = new JLabel("Set Conductance Tolerance:");
+    preferencesPanel.add(conductanceToleranceLabel, gc);
+
+    gc.gridx = 1;
+    this.conductanceToleranceTextField = new JTextField(12);
+    this.conductanceToleranceTextField.setText(String.valueOf(experimentPreferences.getFloat(ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_KEY,
+        ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_DEFAULT_VALUE)));
+    preferencesPanel.add(conductanceToleranceTextField, gc);
+
+    gc.gridy++;
+    gc.gridx = 0;
+    this.maxPulseCountLabel = new JLabel("Max Programming Pulses:");
+    preferencesPanel.add(maxPulseCountLabel, gc);
+
+    gc.gridx = 1;
+    this.maxPulseCountTextField = new JTextField(12);
+    this.maxPulseCountTextField.setText(String.valueOf(experimentPreferences.getInteger(ConductancePreferences.MAX_PULSE_COUNT_INIT_KEY,
+        ConductancePreferences.MAX_PULSE_COUNT_INIT_DEFAULT_VALUE)));
+    preferencesPanel.add(maxPulseCountTextField, gc);
+
     gc.gridy++;
     gc.gridx = 0;
     this.setAmplitudeLabel = new JLabel("Set Amplitude [V]:");
@@ -173,6 +201,8 @@ public class ConductancePreferencesPanel extends ExperimentPreferencesPanel {
     // SET
 
     experimentPreferences.setFloat(ConductancePreferences.SET_CONDUCTANCE_INIT_KEY, Float.parseFloat(setConductanceTextField.getText()));
+    experimentPreferences.setFloat(ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_KEY, Float.parseFloat(conductanceToleranceTextField.getText()));
+    experimentPreferences.setInteger(ConductancePreferences.MAX_PULSE_COUNT_INIT_KEY, Integer.parseInt(maxPulseCountTextField.getText()));
     experimentPreferences.setInteger(ConductancePreferences.SERIES_R_INIT_KEY, Integer.parseInt(seriesResistorTextField.getText()));
   }
 
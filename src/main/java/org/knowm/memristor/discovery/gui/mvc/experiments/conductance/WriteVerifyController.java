@@ -0,0 +1,163 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments.conductance;
+
+/**
+ * Decides the pulses that program a memristor to a target conductance, given a verify read of its conductance after each pulse. Below the target it asks for
+ * a set pulse and above it for a reset pulse, with an amplitude that is a fraction of the configured set or reset amplitude. The fraction starts at
+ * INITIAL_STEP. It is halved whenever the conductance overshoots the target, bisecting the amplitude that just reaches it. It grows by GROWTH when a pulse
+ * closed less than half the remaining gap, so a stubborn device is not pulsed at an amplitude too weak to move it.
+ * <p>
+ * Programming stops once a read is within the tolerance of the target, or after maxPulseCount pulses without getting there.
+ */
+public class WriteVerifyController {
+
+  public enum State {
+
+    PROGRAMMING, CONVERGED, FAILED
+  }
+
+  static final double INITIAL_STEP = 0.5;
+  static final double MIN_STEP = 1.0 / 32;
+  static final double GROWTH = 1.5;
+
+  private final double targetConductance;
+  private final double tolerance;
+  private final double setAmplitude;
+  private final double resetAmplitude;
+  private final int maxPulseCount;
+
+  private State state = State.PROGRAMMING;
+  private double step = INITIAL_STEP;
+  private double conductance = Double.NaN;
+  private double previousError = Double.NaN;
+  private double nextAmplitude = 0;
+  private int pulseCount = 0;
+  private int overshootCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param targetConductance
+   * @param tolerance - the accepted deviation from the target, relative to the target, e.g. 0.05 for 5%
+   * @param setAmplitude - the largest amplitude of a set pulse, positive
+   * @param resetAmplitude - the largest amplitude of a reset pulse, negative
+   * @param maxPulseCount
+   */
+  public WriteVerifyController(double targetConductance, double tolerance, double setAmplitude, double resetAmplitude, int maxPulseCount) {
+
+    if (targetConductance <= 0 || tolerance <= 0 || setAmplitude <= 0 || resetAmplitude >= 0 || maxPulseCount < 0) {
+      throw new IllegalArgumentException("Invalid write-verify settings: target " + targetConductance + ", tolerance " + tolerance + ", set amplitude "
+          + setAmplitude + ", reset amplitude " + resetAmplitude + ", max pulses " + maxPulseCount);
+    }
+    this.targetConductance = targetConductance;
+    this.tolerance = tolerance;
+    this.setAmplitude = setAmplitude;
+    this.resetAmplitude = resetAmplitude;
+    this.maxPulseCount = maxPulseCount;
+  }
+
+  /**
+   * Take the verify read made before the first pulse or after the last one and decide the next pulse, see getNextAmplitude().
+   *
+   * @param conductance - in the unit of the target
+   * @return PROGRAMMING if another pulse is needed, otherwise whether the target was reached
+   */
+  public State update(double conductance) {
+
+    if (state != State.PROGRAMMING) {
+      return state;
+    }
+    this.conductance = conductance;
+    double error = conductance - targetConductance;
+    if (Math.abs(error) <= tolerance * targetConductance) {
+      state = State.CONVERGED;
+      return state;
+    }
+    if (pulseCount >= maxPulseCount) {
+      state = State.FAILED;
+      return state;
+    }
+
+    if (!Double.isNaN(previousError)) {
+      if (Math.signum(error) != Math.signum(previousError)) {
+        overshootCount++;
+        step = Math.max(MIN_STEP, step / 2);
+      }
+      else if (Math.abs(error) > Math.abs(previousError) / 2) {
+        step = Math.min(1, step * GROWTH);
+      }
+    }
+    previousError = error;
+    nextAmplitude = step * (error < 0 ? setAmplitude : resetAmplitude);
+    pulseCount++;
+    return state;
+  }
+
+  /**
+   * @return the amplitude of the pulse to apply next, positive for a set and negative for a reset pulse. Only valid while the state is PROGRAMMING.
+   */
+  public double getNextAmplitude() {
+
+    return nextAmplitude;
+  }
+
+  public State getState() {
+
+    return state;
+  }
+
+  /**
+   * @return the number of pulses asked for so far
+   */
+  public int getPulseCount() {
+
+    return pulseCount;
+  }
+
+  /**
+   * @return the number of times the conductance crossed the target
+   */
+  public int getOvershootCount() {
+
+    return overshootCount;
+  }
+
+  /**
+   * @return the last verified conductance
+   */
+  public double getConductance() {
+
+    return conductance;
+  }
+
+  public double getTargetConductance() {
+
+    return targetConductance;
+  }
+}
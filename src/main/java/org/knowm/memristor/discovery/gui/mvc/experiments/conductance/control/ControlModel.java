@@ -46,6 +46,8 @@ public class ControlModel extends ExperimentControlModel {
 
   // SET
   private float setConductance;
+  private float conductanceTolerance;
+  private int maxPulseCount;
   private float setAmplitude;
   private int setPulseWidth; // model store resetPulseWidth in nanoseconds
 
@@ -70,6 +72,9 @@ public class ControlModel extends ExperimentControlModel {
 
     // SET
     setConductance = experimentPreferences.getFloat(ConductancePreferences.SET_CONDUCTANCE_INIT_KEY, ConductancePreferences.SET_CONDUCTANCE_INIT_DEFAULT_VALUE);
+    conductanceTolerance = experimentPreferences.getFloat(ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_KEY,
+        ConductancePreferences.CONDUCTANCE_TOLERANCE_INIT_FLOAT_DEFAULT_VALUE);
+    maxPulseCount = experimentPreferences.getInteger(ConductancePreferences.MAX_PULSE_COUNT_INIT_KEY, ConductancePreferences.MAX_PULSE_COUNT_INIT_DEFAULT_VALUE);
     setAmplitude = experimentPreferences.getFloat(ConductancePreferences.SET_AMPLITUDE_INIT_FLOAT_KEY, ConductancePreferences.SET_AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
     setPulseWidth = experimentPreferences.getInteger(ConductancePreferences.SET_PULSE_WIDTH_INIT_KEY, ConductancePreferences.SET_PERIOD_INIT_DEFAULT_VALUE);
 
@@ -174,6 +179,19 @@ public class ControlModel extends ExperimentControlModel {
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_WAVEFORM_UPDATE, true, false);
   }
 
+  /**
+   * @return the accepted deviation from the set conductance when programming, relative to it
+   */
+  public float getConductanceTolerance() {
+
+    return conductanceTolerance;
+  }
+
+  public int getMaxPulseCount() {
+
+    return maxPulseCount;
+  }
+
   public float getSetAmplitude() {
 
     return setAmplitude;
@@ -218,4 +236,12 @@ public class ControlModel extends ExperimentControlModel {
     return (1.0 / (2.0 * (double) resetPulseWidth) * 1_000_000_000); // 50% duty cycle
     // return (1.0 / ((double) resetPulseWidth) * 1_000_000_000); // 50% duty cycle
   }
+
+  /**
+   * @return the frequency of the set pulses, the reset pulses use getCalculatedFrequency()
+   */
+  public double getSetFrequency() {
+
+    return (1.0 / (2.0 * (double) setPulseWidth) * 1_000_000_000); // 50% duty cycle
+  }
 }
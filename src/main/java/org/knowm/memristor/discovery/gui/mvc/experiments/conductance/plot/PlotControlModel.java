@@ -28,11 +28,10 @@
 package org.knowm.memristor.discovery.gui.mvc.experiments.conductance.plot;
 
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeSeriesRingBuffer;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.ConductancePreferences;
 
 public class PlotControlModel extends ExperimentControlModel {
@@ -46,7 +45,7 @@ public class PlotControlModel extends ExperimentControlModel {
   Double yMaxGV = null;
   Double yMinGV = null;
 
-  List<Number> gvData = new ArrayList<>();
+  TimeSeriesRingBuffer gvData = new TimeSeriesRingBuffer(ExperimentPreferences.PULSE_HISTORY_SIZE, ExperimentPreferences.PULSE_HISTORY_BUCKET_COUNT);
 
   /**
    * Here is where the Controller registers itself as a listener to model changes.
@@ -98,7 +97,7 @@ public class PlotControlModel extends ExperimentControlModel {
     this.yMinGV = yMinGV;
   }
 
-  public List<Number> getGvData() {
+  public TimeSeriesRingBuffer getGvData() {
 
     return gvData;
   }
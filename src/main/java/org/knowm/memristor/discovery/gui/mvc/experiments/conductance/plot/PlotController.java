@@ -32,7 +32,9 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeSeriesRingBuffer;
 import org.knowm.memristor.discovery.utils.Util;
 
 public class PlotController implements PropertyChangeListener {
@@ -40,6 +42,11 @@ public class PlotController implements PropertyChangeListener {
   private final PlotPanel plotPanel;
   private final PlotControlModel plotModel;
 
+  private final ChartDecimator waveformChartDecimator;
+  private final ChartDecimator captureChartDecimator;
+  private final ChartDecimator ivChartDecimator;
+  private final ChartDecimator gvChartDecimator;
+
   /**
    * Constructor
    *
@@ -50,6 +57,10 @@ public class PlotController implements PropertyChangeListener {
 
     this.plotPanel = plotPanel;
     this.plotModel = plotModel;
+    this.waveformChartDecimator = new ChartDecimator(plotPanel.getWaveformChartPanel());
+    this.captureChartDecimator = new ChartDecimator(plotPanel.getCaptureChartPanel());
+    this.ivChartDecimator = new ChartDecimator(plotPanel.getIvChartPanel());
+    this.gvChartDecimator = new ChartDecimator(plotPanel.getGvChartPanel());
 
     initGUIComponents();
     setUpViewEvents();
@@ -131,7 +142,7 @@ public class PlotController implements PropertyChangeListener {
   public void udpateWaveformChart(double[] timeData, double[] waveformAmplitudeData, double amplitude, int pulseWidth) {
 
     plotPanel.getWaveformChart().setTitle(getWaveformChartTitle(amplitude, pulseWidth));
-    plotPanel.getWaveformChart().updateXYSeries("waveform", timeData, waveformAmplitudeData, null);
+    waveformChartDecimator.updateXYSeries("waveform", timeData, waveformAmplitudeData);
     plotPanel.getWaveformChartPanel().revalidate();
     plotPanel.getWaveformChartPanel().repaint();
   }
@@ -139,8 +150,8 @@ public class PlotController implements PropertyChangeListener {
   public void udpateVtChart(double[] timeData, double[] v1, double[] v2, int pulseWidth, double amplitude) {
 
     plotPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    plotPanel.getCaptureChart().updateXYSeries("V1", timeData, v1, null);
-    plotPanel.getCaptureChart().updateXYSeries("V2", timeData, v2, null);
+    captureChartDecimator.updateXYSeries("V1", timeData, v1);
+    captureChartDecimator.updateXYSeries("V2", timeData, v2);
   }
 
   public void udpateIVChart(double[] v1, double[] current, int pulseWidth, double amplitude) {
@@ -149,16 +160,17 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getIvChart().getStyler().setYAxisMin(plotModel.getyMinIV());
 
     plotPanel.getIvChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    plotPanel.getIvChart().updateXYSeries("iv", v1, current, null);
+    ivChartDecimator.updateXYSeries("iv", v1, current);
   }
 
-  public void updateGVChart(double[] conductance, int pulseWidth, double amplitude) {
+  public void updateGVChart(double conductance, int pulseWidth, double amplitude) {
 
-    plotModel.getGvData().add(conductance[0]);
+    TimeSeriesRingBuffer gvData = plotModel.getGvData();
+    gvData.add(conductance);
     plotPanel.getGvChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGvChart().getStyler().setYAxisMin(0.0);
     plotPanel.getGvChart().setTitle(getGVChartTitle(amplitude, pulseWidth));
-    plotPanel.getGvChart().updateXYSeries("gv", null, plotModel.getGvData(), null);
+    gvChartDecimator.updateXYSeries("gv", gvData.getXData(), gvData.getYData());
     plotPanel.getGvChart().setXAxisTitle("Pulse Number");
   }
 
@@ -167,7 +179,7 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getGvChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGvChart().getStyler().setYAxisMin(0.0);
     plotPanel.getGvChart().setTitle(getGVChartTitle(amplitude, pulseWidth));
-    plotPanel.getGvChart().updateXYSeries("gv", v1, conductance, null);
+    gvChartDecimator.updateXYSeries("gv", v1, conductance);
     plotPanel.getGvChart().setXAxisTitle("Volatge [V]");
   }
 
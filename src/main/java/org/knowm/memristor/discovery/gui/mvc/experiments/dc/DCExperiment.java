@@ -33,7 +33,9 @@ import java.util.List;
 
 import javax.swing.SwingWorker;
 
+import org.knowm.memristor.discovery.CapturePlanner;
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.export.SeriesExporter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
@@ -44,7 +46,7 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.dc.control.ControlPanel
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.plot.PlotControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.plot.PlotController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.plot.PlotPanel;
-import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
 import org.knowm.memristor.discovery.utils.WaveformUtils;
 import org.knowm.waveforms4j.DWF;
 
@@ -87,11 +89,12 @@ public class DCExperiment extends Experiment {
       // Analog In /////////////////
       //////////////////////////////////
 
-      int samplesPerPulse = 200; // adjust this down if you want to capture more pulses as the buffer size is limited.
-      double sampleFrequency = controlModel.getCalculatedFrequency() * samplesPerPulse; // adjust this down if you want to capture more pulses as the buffer size is limited.
-      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1), samplesPerPulse * controlModel.getPulseNumber());
+      CapturePlanner.Plan plan = planCapture(controlModel.getCalculatedFrequency(), controlModel.getPulseNumber(), DCPreferences.MIN_SAMPLES_PER_PULSE,
+          DCPreferences.MAX_SAMPLES_PER_PULSE);
+      double sampleFrequency = plan.getSampleFrequency();
+      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1), plan.getBufferSize());
 
-      waitUntilArmed();
+      waitUntilArmed(plan);
 
       //////////////////////////////////
       // Pulse Out /////////////////
@@ -154,8 +157,6 @@ public class DCExperiment extends Experiment {
       //
       // publish(new double[][]{timeData, V1Trimmed, V2Trimmed, V2MinusV1, current, conductance});
 
-      double[] V2MinusV1 = PostProcessDataUtils.getV1MinusV2(v1, v2);
-
       int bufferLength = v1.length;
 
       // create time data
@@ -165,21 +166,18 @@ public class DCExperiment extends Experiment {
         timeData[i] = i * timeStep;
       }
 
-      // create current data
+      // create V1-V2, current and conductance data
+      double[] V2MinusV1 = new double[bufferLength];
       double[] current = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-        current[i] = v2[i] / controlModel.getSeriesResistance() * DCPreferences.CURRENT_UNIT.getDivisor();
-      }
-
-      // create conductance data
       double[] conductance = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-
-        double I = v2[i] / controlModel.getSeriesResistance();
-        double G = I / (v1[i] - v2[i]) * DCPreferences.CONDUCTANCE_UNIT.getDivisor();
-        G = G < 0 ? 0 : G;
-        conductance[i] = G;
-      }
+      IVGVKernel.derive(v1, v2, bufferLength, controlModel.getSeriesResistance(), DCPreferences.IS_SWITCH_CORRECTED, DCPreferences.CURRENT_UNIT.getDivisor(),
+          DCPreferences.CONDUCTANCE_UNIT.getDivisor(), V2MinusV1, current, conductance);
+
+      exportSeries(SeriesExporter.VT, "V1", timeData, v1, bufferLength);
+      exportSeries(SeriesExporter.VT, "V2", timeData, v2, bufferLength);
+      exportSeries(SeriesExporter.VT, "V1-V2", timeData, V2MinusV1, bufferLength);
+      exportSeries(SeriesExporter.IV, "iv", v1, current, bufferLength);
+      exportSeries(SeriesExporter.GV, "gv", v1, conductance, bufferLength);
 
       publish(new double[][]{timeData, v1, v2, V2MinusV1, current, conductance});
 
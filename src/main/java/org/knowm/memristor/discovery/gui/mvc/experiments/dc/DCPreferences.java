@@ -60,6 +60,10 @@ public class DCPreferences extends ExperimentPreferences {
   public static final ConductanceUnits CONDUCTANCE_UNIT = ConductanceUnits.MilliSiemens;
   public static final TimeUnits TIME_UNIT = TimeUnits.MilliSeconds;
 
+  // samples per waveform period, see CapturePlanner
+  public static final int MIN_SAMPLES_PER_PULSE = 200;
+  public static final int MAX_SAMPLES_PER_PULSE = 1000;
+
   /**
    * Constructor
    */
@@ -32,6 +32,7 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.DCPreferences;
 import org.knowm.memristor.discovery.utils.Util;
@@ -41,6 +42,11 @@ public class PlotController implements PropertyChangeListener {
   private final PlotPanel plotPanel;
   private final PlotControlModel plotModel;
 
+  private final ChartDecimator waveformChartDecimator;
+  private final ChartDecimator captureChartDecimator;
+  private final ChartDecimator ivChartDecimator;
+  private final ChartDecimator gvChartDecimator;
+
   /**
    * Constructor
    *
@@ -51,6 +57,10 @@ public class PlotController implements PropertyChangeListener {
 
     this.plotPanel = plotPanel;
     this.plotModel = plotModel;
+    this.waveformChartDecimator = new ChartDecimator(plotPanel.getWaveformChartPanel());
+    this.captureChartDecimator = new ChartDecimator(plotPanel.getCaptureChartPanel());
+    this.ivChartDecimator = new ChartDecimator(plotPanel.getIvChartPanel());
+    this.gvChartDecimator = new ChartDecimator(plotPanel.getGvChartPanel());
 
     initGUIComponents();
     setUpViewEvents();
@@ -132,7 +142,7 @@ public class PlotController implements PropertyChangeListener {
   public void updateWaveformChart(double[] timeData, double[] waveformAmplitudeData, double amplitude, int pulseWidth) {
 
     plotPanel.getWaveformChart().setTitle(getWaveformChartTitle(amplitude, pulseWidth));
-    plotPanel.getWaveformChart().updateXYSeries("waveform", timeData, waveformAmplitudeData, null);
+    waveformChartDecimator.updateXYSeries("waveform", timeData, waveformAmplitudeData);
     plotPanel.getWaveformChartPanel().revalidate();
     plotPanel.getWaveformChartPanel().repaint();
   }
@@ -140,9 +150,9 @@ public class PlotController implements PropertyChangeListener {
   public void updateCaptureChartData(double[] timeData, double[] v1, double[] v2, double[] v1Minusv2, int pulseWidth, double amplitude) {
 
     plotPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    plotPanel.getCaptureChart().updateXYSeries("V1", timeData, v1, null);
-    plotPanel.getCaptureChart().updateXYSeries("V2", timeData, v2, null);
-    plotPanel.getCaptureChart().updateXYSeries("V1-V2", timeData, v1Minusv2, null);
+    captureChartDecimator.updateXYSeries("V1", timeData, v1);
+    captureChartDecimator.updateXYSeries("V2", timeData, v2);
+    captureChartDecimator.updateXYSeries("V1-V2", timeData, v1Minusv2);
   }
 
   public void updateIVChartData(double[] v1, double[] current, int pulseWidth, double amplitude) {
@@ -151,7 +161,7 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getIvChart().getStyler().setYAxisMin(plotModel.getyMinIV());
 
     plotPanel.getIvChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    plotPanel.getIvChart().updateXYSeries("iv", v1, current, null);
+    ivChartDecimator.updateXYSeries("iv", v1, current);
   }
 
   public void updateGVChartData(double[] v1, double[] conductance, int pulseWidth, double amplitude) {
@@ -159,7 +169,7 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getGvChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGvChart().getStyler().setYAxisMin(0.0);
     plotPanel.getGvChart().setTitle(getGVChartTitle(amplitude, pulseWidth));
-    plotPanel.getGvChart().updateXYSeries("gv", v1, conductance, null);
+    gvChartDecimator.updateXYSeries("gv", v1, conductance);
   }
 
   public void repaintCaptureChart() {
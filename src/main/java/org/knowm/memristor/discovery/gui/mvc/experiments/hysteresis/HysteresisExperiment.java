@@ -29,27 +29,45 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis;
 
 import java.awt.Container;
 import java.beans.PropertyChangeEvent;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 import javax.swing.SwingWorker;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.capturelog.CaptureLogHeader;
+import org.knowm.memristor.discovery.capturelog.CaptureLogWriter;
+import org.knowm.memristor.discovery.export.SeriesExporter;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFrame;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFramePool;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DeriveStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPlotPanel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ProcessingPipeline;
+import org.knowm.memristor.discovery.gui.mvc.experiments.RenderScheduler;
+import org.knowm.memristor.discovery.gui.mvc.experiments.SmoothingStage;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisCache;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.control.ControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.control.ControlPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.plot.PlotControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.plot.PlotController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.plot.PlotPanel;
+import org.knowm.memristor.discovery.streaming.StreamFileSink;
+import org.knowm.memristor.discovery.streaming.StreamingAcquisition;
 import org.knowm.memristor.discovery.utils.WaveformUtils;
 import org.knowm.waveforms4j.DWF;
 import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class HysteresisExperiment extends Experiment {
 
+  private final Logger logger = LoggerFactory.getLogger(HysteresisExperiment.class);
+
   private final ControlModel controlModel = new ControlModel();
   private final ControlPanel controlPanel;
 
@@ -57,6 +75,33 @@ public class HysteresisExperiment extends Experiment {
   private final PlotControlModel plotModel = new PlotControlModel();
   private final PlotController plotController;
 
+  // CaptureFrame channels and kinds
+  private static final int FRAME_V1 = 0;
+  private static final int FRAME_V2 = 1;
+  private static final int FRAME_VOLTAGE = 2;
+  private static final int FRAME_Y = 3; // current or conductance
+  private static final int PLOT_VT = 0;
+  private static final int PLOT_IV = 1;
+  private static final int PLOT_GV = 2;
+
+  private final CaptureFramePool framePool = new CaptureFramePool(4, HysteresisPreferences.CAPTURE_BUFFER_SIZE, 6);
+  private final TimeAxisCache timeAxisCache = new TimeAxisCache(4);
+
+  // one pipeline per chart, picked by the selected chart: the time axis, the current or the exponential moving average of the conductance
+  private final ProcessingPipeline vtPipeline = new ProcessingPipeline("vt").add(new TimeAxisStage(timeAxisCache, 1));
+  private final ProcessingPipeline ivPipeline = new ProcessingPipeline("iv").add(new DeriveStage(controlModel, HysteresisPreferences.IS_SWITCH_CORRECTED,
+      HysteresisPreferences.CURRENT_UNIT.getDivisor(), HysteresisPreferences.CONDUCTANCE_UNIT.getDivisor(), FRAME_V1, FRAME_V2, HysteresisPreferences.IS_VIN
+          ? DeriveStage.NO_CHANNEL : FRAME_VOLTAGE, FRAME_Y, DeriveStage.NO_CHANNEL));
+  private final SmoothingStage gvSmoothingStage = new SmoothingStage(FRAME_Y, 1);
+  private final ProcessingPipeline gvPipeline = new ProcessingPipeline("gv").add(new DeriveStage(controlModel, HysteresisPreferences.IS_SWITCH_CORRECTED,
+      HysteresisPreferences.CURRENT_UNIT.getDivisor(), HysteresisPreferences.CONDUCTANCE_UNIT.getDivisor(), FRAME_V1, FRAME_V2, FRAME_VOLTAGE,
+      DeriveStage.NO_CHANNEL, FRAME_Y)).add(gvSmoothingStage);
+  private final CaptureFrame[] displayedFrames = new CaptureFrame[3]; // EDT only, indexed by kind
+  private final RenderScheduler renderScheduler;
+
+  // set while a StreamingCaptureWorker is running, so a frequency change can restart the record at the new rate
+  private volatile StreamingAcquisition streamingAcquisition;
+
   /**
    * Constructor
    *
@@ -71,6 +116,14 @@ public class HysteresisExperiment extends Experiment {
     plotPanel = new PlotPanel();
     plotController = new PlotController(plotPanel, plotModel);
     new ControlController(controlPanel, controlModel, dwfProxy);
+    renderScheduler = new RenderScheduler(framePool, HysteresisPreferences.RENDER_FPS_INIT_DEFAULT_VALUE, new RenderScheduler.FrameRenderer() {
+
+      @Override
+      public void render(CaptureFrame frame) {
+
+        renderFrame(frame);
+      }
+    });
   }
 
   @Override
@@ -78,18 +131,63 @@ public class HysteresisExperiment extends Experiment {
 
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  /**
+   * @return the analog in sample rate giving CAPTURE_BUFFER_SIZE samples over CAPTURE_PERIOD_COUNT periods of the drive waveform
+   */
+  private double getSampleFrequency() {
+
+    return (double) controlModel.getFrequency() * HysteresisPreferences.CAPTURE_BUFFER_SIZE / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
+  }
+
+  /**
+   * Draw a frame from the CaptureWorker on the chart it was derived for. Called on the EDT by the renderScheduler.
+   *
+   * @param frame
+   */
+  private void renderFrame(CaptureFrame frame) {
+
+    if (controlModel.isStartToggled()) {
+
+      if (frame.getKind() == PLOT_VT) {
+        plotController.udpateVtChartData(frame.get(FRAME_V1), frame.get(FRAME_V2), frame.getTimeData(), controlModel.getFrequency(), controlModel.getAmplitude(),
+            controlModel.getOffset());
+        plotPanel.switch2CaptureChart();
+      }
+      else if (frame.getKind() == PLOT_IV) {
+        plotController.udpateIVChartData(frame.get(FRAME_V1), frame.get(FRAME_VOLTAGE), frame.get(FRAME_Y), controlModel.getFrequency(), controlModel.getAmplitude(),
+            controlModel.getOffset());
+        plotPanel.switch2IVChart();
+      }
+      else {
+        plotController.updateGVChartData(frame.get(FRAME_V1), frame.get(FRAME_VOLTAGE), frame.get(FRAME_Y), controlModel.getFrequency(), controlModel.getAmplitude(),
+            controlModel.getOffset());
+        plotPanel.switch2GVChart();
+      }
+
+      // the chart now holds the new frame's arrays, so the one it held before can be reused
+      framePool.release(displayedFrames[frame.getKind()]);
+      displayedFrames[frame.getKind()] = frame;
+    }
+    else {
+      framePool.release(frame);
+    }
+  }
+
+  private class CaptureWorker extends SwingWorker<Boolean, Void> {
 
     @Override
     protected Boolean doInBackground() throws Exception {
 
+      startRendering();
+
       // AnalogOut
       DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
       dwfProxy.getDwf().startWave(DWF.WAVEFORM_CHANNEL_1, dwfWaveform, controlModel.getFrequency(), controlModel.getAmplitude(), controlModel.getOffset(), 50);
 
       // Analog In
-      double sampleFrequency = (double) controlModel.getFrequency() * HysteresisPreferences.CAPTURE_BUFFER_SIZE / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
-      dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(sampleFrequency, HysteresisPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.ScanShift);
+      dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(getSampleFrequency(), HysteresisPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.ScanShift);
+
+      CaptureLogWriter captureLogWriter = openCaptureLog();
 
       while (!isCancelled()) {
 
@@ -110,94 +208,156 @@ public class HysteresisExperiment extends Experiment {
 
         if (validSamples > 0) {
 
-          double[] rawdata1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-          double[] rawdata2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
-
-          if (plotPanel.getCaptureButton().isSelected()) { // Capture
-
-            // Calculate time data
-            double[] timeData = new double[rawdata1.length];
-            double timeStep = 1 / (double) controlModel.getFrequency() * HysteresisPreferences.CAPTURE_PERIOD_COUNT / HysteresisPreferences.CAPTURE_BUFFER_SIZE;
-            for (int i = 0; i < timeData.length; i++) {
-              timeData[i] = i * timeStep;
-            }
-            publish(new double[][]{rawdata1, rawdata2, timeData});
+          CaptureFrame frame = framePool.acquire(validSamples);
+          dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, frame.get(FRAME_V1), validSamples);
+          dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, frame.get(FRAME_V2), validSamples);
+          if (captureLogWriter != null) {
+            captureLogWriter.append(frame.get(FRAME_V1), frame.get(FRAME_V2), validSamples, getSampleFrequency(), dwfProxy.getDigitalIOStates());
           }
-          else if (plotPanel.getIVButton().isSelected()) { // IV
-
-            // create current data
-            double[] current = new double[rawdata2.length];
-            double[] voltage = new double[rawdata1.length];
-            for (int i = 0; i < current.length; i++) {
-              current[i] = rawdata2[i] / controlModel.getSeriesResistance() * HysteresisPreferences.CURRENT_UNIT.getDivisor();
-            }
-            if (!HysteresisPreferences.IS_VIN) {
-              for (int i = 0; i < current.length; i++) {
-                voltage[i] = rawdata1[i] - rawdata2[i];
-              }
-            }
-            publish(new double[][]{rawdata1, voltage, current});
-          }
-          else {// GV
+          publishFrame(frame);
+        }
+      }
 
-            double[] conductance = new double[rawdata2.length];
-            double[] voltage = new double[rawdata1.length];
+      if (captureLogWriter != null) {
+        captureLogWriter.stop();
+      }
+      return true;
+    }
 
-            for (int i = 0; i < conductance.length; i++) {
+    /**
+     * @return a started writer logging the raw captures to the capture log file set in the preferences, or null if none is set or it can't be created
+     */
+    CaptureLogWriter openCaptureLog() {
 
-              double I = rawdata2[i] / controlModel.getSeriesResistance();
+      if (controlModel.getCaptureLogFile().isEmpty()) {
+        return null;
+      }
+      CaptureLogHeader captureLogHeader = new CaptureLogHeader(CaptureLogHeader.ColumnType.Float32, getSampleFrequency(), controlModel.getSeriesResistance(),
+          controlModel.getWaveform().name(), controlModel.getAmplitude(), controlModel.getOffset(), controlModel.getFrequency(), dwfProxy.getDigitalIOStates());
+      CaptureLogWriter captureLogWriter = new CaptureLogWriter(Paths.get(controlModel.getCaptureLogFile()), captureLogHeader);
+      try {
+        captureLogWriter.start();
+      } catch (IOException e) {
+        logger.error("Could not create capture log " + controlModel.getCaptureLogFile(), e);
+        return null;
+      }
+      return captureLogWriter;
+    }
 
-              double G = I / (rawdata1[i] - rawdata2[i]) * HysteresisPreferences.CONDUCTANCE_UNIT.getDivisor();
+    /**
+     * Run the raw V1, V2 frame through the pipeline of whichever chart is selected and offer it to the renderScheduler.
+     *
+     * @param frame
+     */
+    void publishFrame(CaptureFrame frame) {
 
-              G = G < 0 ? 0 : G;
+      frame.setSampleFrequency(getSampleFrequency());
 
-              double ave = (1 - plotModel.getK()) * (plotModel.getAve()) + plotModel.getK() * (G);
-              plotModel.setAve(ave);
+      if (plotPanel.getCaptureButton().isSelected()) { // Capture
 
-              conductance[i] = ave;
-              voltage[i] = rawdata1[i] - rawdata2[i];
-            }
+        frame = vtPipeline.process(frame, framePool);
+        frame.setKind(PLOT_VT);
+        exportSeries(SeriesExporter.VT, "V1", frame.getTimeData(), frame.get(FRAME_V1), frame.getLength());
+        exportSeries(SeriesExporter.VT, "V2", frame.getTimeData(), frame.get(FRAME_V2), frame.getLength());
+      }
+      else if (plotPanel.getIVButton().isSelected()) { // IV
 
-            publish(new double[][]{rawdata1, voltage, conductance});
-          }
-        }
+        frame = ivPipeline.process(frame, framePool);
+        frame.setKind(PLOT_IV);
+        exportSeries(SeriesExporter.IV, "iv", frame.get(HysteresisPreferences.IS_VIN ? FRAME_V1 : FRAME_VOLTAGE), frame.get(FRAME_Y), frame.getLength());
       }
-      return true;
+      else {// GV
+
+        gvSmoothingStage.setK(plotModel.getK());
+        frame = gvPipeline.process(frame, framePool);
+        frame.setKind(PLOT_GV);
+        exportSeries(SeriesExporter.GV, "gv", frame.get(FRAME_V1), frame.get(FRAME_Y), frame.getLength());
+        exportSeries(SeriesExporter.GV, "gv_m", frame.get(FRAME_VOLTAGE), frame.get(FRAME_Y), frame.getLength());
+      }
+      renderScheduler.offer(frame);
+    }
+
+    /**
+     * Start the renderScheduler at the rate set in the preferences.
+     */
+    void startRendering() {
+
+      renderScheduler.setFps(controlModel.getRenderFps());
+      renderScheduler.start();
     }
 
     @Override
-    protected void process(List<double[][]> chunks) {
+    protected void done() {
 
-      long start = System.currentTimeMillis();
+      renderScheduler.stop();
+      logger.debug(renderScheduler.toString());
+      logger.debug(vtPipeline.toString());
+      logger.debug(ivPipeline.toString());
+      logger.debug(gvPipeline.toString());
+    }
+  }
 
-      if (controlModel.isStartToggled()) {
+  /**
+   * Acquires in record mode instead of re-reading a ScanShift buffer. Each poll moves only the new samples into a ring buffer, which feeds the plots (a
+   * sliding window of the newest samples) and, if a stream file is set, a disk sink that sees every sample.
+   */
+  private class StreamingCaptureWorker extends CaptureWorker {
 
-        double[][] newestChunk = chunks.get(chunks.size() - 1);
+    @Override
+    protected Boolean doInBackground() throws Exception {
 
-        if (plotPanel.getCaptureButton().isSelected()) {
-          plotController.udpateVtChartData(newestChunk[0], newestChunk[1], newestChunk[2], controlModel.getFrequency(), controlModel
-              .getAmplitude(), controlModel.getOffset());
-          plotPanel.switch2CaptureChart();
-        }
-        else if (plotPanel.getIVButton().isSelected()) {
-          plotController.udpateIVChartData(newestChunk[0], newestChunk[1], newestChunk[2], controlModel.getFrequency(), controlModel
-              .getAmplitude(), controlModel.getOffset());
-          plotPanel.switch2IVChart();
+      startRendering();
+
+      // AnalogOut
+      DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
+      dwfProxy.getDwf().startWave(DWF.WAVEFORM_CHANNEL_1, dwfWaveform, controlModel.getFrequency(), controlModel.getAmplitude(), controlModel.getOffset(), 50);
+
+      // Analog In
+      StreamingAcquisition acquisition = new StreamingAcquisition(dwfProxy.getDwf(), HysteresisPreferences.STREAMING_RING_BUFFER_SIZE);
+      StreamFileSink streamFileSink = null;
+      if (!controlModel.getStreamFile().isEmpty()) {
+        streamFileSink = new StreamFileSink(acquisition.getRingBuffer(), Paths.get(controlModel.getStreamFile()));
+        streamFileSink.start();
+      }
+      acquisition.start(getSampleFrequency());
+      streamingAcquisition = acquisition;
+
+      long lastPlotTime = 0;
+      long lastPlotSequence = 0;
+
+      while (!isCancelled()) {
+
+        try {
+          Thread.sleep(HysteresisPreferences.STREAMING_POLL_PERIOD);
+        } catch (InterruptedException e) {
+          // caught when interrupt is called
+          break;
         }
-        else {
-          plotController.updateGVChartData(newestChunk[0], newestChunk[1], newestChunk[2], controlModel.getFrequency(), controlModel
-              .getAmplitude(), controlModel.getOffset());
-          plotPanel.switch2GVChart();
+
+        acquisition.poll();
+
+        // plot a sliding window of the newest samples
+        long now = System.currentTimeMillis();
+        long writeSequence = acquisition.getRingBuffer().getWriteSequence();
+        if (now - lastPlotTime >= HysteresisPreferences.STREAMING_PLOT_PERIOD && writeSequence > lastPlotSequence) {
+          lastPlotTime = now;
+          lastPlotSequence = writeSequence;
+          int length = (int) Math.min(writeSequence, HysteresisPreferences.STREAMING_PLOT_FRAME_SIZE);
+          CaptureFrame frame = framePool.acquire(length);
+          acquisition.getRingBuffer().copyLatest(frame.get(FRAME_V1), frame.get(FRAME_V2), length);
+          publishFrame(frame);
         }
       }
 
-      // Throttle GUI updates at some FPS rate.
-      long duration = System.currentTimeMillis() - start;
-      try {
-        // Thread.sleep(40 - duration); // 40 ms ==> 25fps
-        Thread.sleep(50 - duration); // 50 ms ==> 20fps
-      } catch (InterruptedException e) {
+      streamingAcquisition = null;
+      dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
+      acquisition.stop();
+      if (streamFileSink != null) {
+        streamFileSink.stop();
       }
+      logger.info("Streamed " + acquisition.getSamplesAcquired() + " samples (" + acquisition.getSamplesLost() + " lost, " + acquisition.getSamplesCorrupt()
+          + " corrupt).");
+      return true;
     }
   }
 
@@ -230,8 +390,13 @@ public class HysteresisExperiment extends Experiment {
         if (controlModel.isStartToggled()) {
 
           // Analog In
-          double sampleFrequency = (double) controlModel.getFrequency() * HysteresisPreferences.CAPTURE_BUFFER_SIZE / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
-          dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(sampleFrequency, HysteresisPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.ScanShift);
+          StreamingAcquisition acquisition = streamingAcquisition;
+          if (acquisition != null) {
+            acquisition.start(getSampleFrequency());
+          }
+          else {
+            dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(getSampleFrequency(), HysteresisPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.ScanShift);
+          }
         }
         break;
       default:
@@ -259,6 +424,20 @@ public class HysteresisExperiment extends Experiment {
   @Override
   public SwingWorker getCaptureWorker() {
 
-    return new CaptureWorker();
+    // replayed frames are processed with the settings they were recorded with
+    CaptureLogHeader replayHeader = getReplayHeader();
+    if (replayHeader != null) {
+      try {
+        controlModel.setWaveform(replayHeader.getWaveform());
+      } catch (IllegalArgumentException e) {
+        logger.warn("Unknown recorded waveform {}, keeping {}.", replayHeader.getWaveform(), controlModel.getWaveform());
+      }
+      controlModel.setAmplitude((float) replayHeader.getAmplitude());
+      controlModel.setOffset((float) replayHeader.getOffset());
+      controlModel.setFrequency((int) Math.round(replayHeader.getFrequency()));
+      controlModel.setSeriesResistance((int) Math.round(replayHeader.getSeriesResistance()));
+      logger.info("Replaying with the recorded settings: {}", replayHeader);
+    }
+    return controlModel.isStreaming() ? new StreamingCaptureWorker() : new CaptureWorker();
   }
 }
@@ -56,6 +56,21 @@ public class HysteresisPreferences extends ExperimentPreferences {
   public static final String K_INIT_DOUBLE_KEY = PREFIX + "K_INIT_DOUBLE_KEY";
   public static final double K_INIT_DOUBLE_DEFAULT_VALUE = 1.0;
 
+  public static final String STREAMING_INIT_BOOLEAN_KEY = PREFIX + "STREAMING_INIT_BOOLEAN_KEY";
+  public static final boolean STREAMING_INIT_BOOLEAN_DEFAULT_VALUE = false;
+
+  // empty means don't write the stream to disk
+  public static final String STREAM_FILE_INIT_STRING_KEY = PREFIX + "STREAM_FILE_INIT_STRING_KEY";
+  public static final String STREAM_FILE_INIT_STRING_DEFAULT_VALUE = "";
+
+  // empty means don't log the raw captures of a (non-streaming) run, see CaptureLogWriter
+  public static final String CAPTURE_LOG_FILE_INIT_STRING_KEY = PREFIX + "CAPTURE_LOG_FILE_INIT_STRING_KEY";
+  public static final String CAPTURE_LOG_FILE_INIT_STRING_DEFAULT_VALUE = "";
+
+  // maximum plot updates per second, acquisition runs independently of it
+  public static final String RENDER_FPS_INIT_KEY = PREFIX + "RENDER_FPS_INIT_KEY";
+  public static final int RENDER_FPS_INIT_DEFAULT_VALUE = 20;
+
   // /////////////////////////////////////////////////////////////////////////////////////
 
   public static final CurrentUnits CURRENT_UNIT = CurrentUnits.MicroAmps;
@@ -66,6 +81,12 @@ public class HysteresisPreferences extends ExperimentPreferences {
   public static final int CAPTURE_BUFFER_SIZE = 100;
   public static final int CAPTURE_PERIOD_COUNT = 1;
 
+  // streaming (record mode) acquisition
+  public static final int STREAMING_POLL_PERIOD = 5; // ms, must stay below AD2_MAX_BUFFER_SIZE / sample rate
+  public static final int STREAMING_PLOT_PERIOD = 50; // ms
+  public static final int STREAMING_PLOT_FRAME_SIZE = 20 * CAPTURE_BUFFER_SIZE; // newest samples shown per plot update
+  public static final int STREAMING_RING_BUFFER_SIZE = 1 << 20;
+
   /**
    * Constructor
    */
@@ -31,6 +31,7 @@ import java.awt.GridBagConstraints;
 import java.awt.Insets;
 
 import javax.swing.DefaultComboBoxModel;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -61,6 +62,18 @@ public class HysteresisPreferencesPanel extends ExperimentPreferencesPanel {
   private JLabel kLabel;
   private JTextField kTextField;
 
+  private JLabel streamingLabel;
+  private JCheckBox streamingCheckBox;
+
+  private JLabel streamFileLabel;
+  private JTextField streamFileTextField;
+
+  private JLabel captureLogFileLabel;
+  private JTextField captureLogFileTextField;
+
+  private JLabel renderFpsLabel;
+  private JTextField renderFpsTextField;
+
   /**
    * Constructor
    *
@@ -150,6 +163,55 @@ public class HysteresisPreferencesPanel extends ExperimentPreferencesPanel {
     this.kTextField = new JTextField(12);
     this.kTextField.setText(String.valueOf(experimentPreferences.getDouble(HysteresisPreferences.K_INIT_DOUBLE_KEY, HysteresisPreferences.K_INIT_DOUBLE_DEFAULT_VALUE)));
     preferencesPanel.add(kTextField, gc);
+
+    /////////////////////////////////////////////////////////
+
+    gc.gridy++;
+    gc.gridx = 0;
+    this.streamingLabel = new JLabel("Streaming (Record Mode):");
+    preferencesPanel.add(streamingLabel, gc);
+
+    gc.gridx = 1;
+    this.streamingCheckBox = new JCheckBox();
+    this.streamingCheckBox.setSelected(experimentPreferences.getBoolean(HysteresisPreferences.STREAMING_INIT_BOOLEAN_KEY, HysteresisPreferences.STREAMING_INIT_BOOLEAN_DEFAULT_VALUE));
+    preferencesPanel.add(streamingCheckBox, gc);
+
+    /////////////////////////////////////////////////////////
+
+    gc.gridy++;
+    gc.gridx = 0;
+    this.streamFileLabel = new JLabel("Stream File (optional):");
+    preferencesPanel.add(streamFileLabel, gc);
+
+    gc.gridx = 1;
+    this.streamFileTextField = new JTextField(12);
+    this.streamFileTextField.setText(experimentPreferences.getString(HysteresisPreferences.STREAM_FILE_INIT_STRING_KEY, HysteresisPreferences.STREAM_FILE_INIT_STRING_DEFAULT_VALUE));
+    preferencesPanel.add(streamFileTextField, gc);
+
+    /////////////////////////////////////////////////////////
+
+    gc.gridy++;
+    gc.gridx = 0;
+    this.captureLogFileLabel = new JLabel("Capture Log File (optional):");
+    preferencesPanel.add(captureLogFileLabel, gc);
+
+    gc.gridx = 1;
+    this.captureLogFileTextField = new JTextField(12);
+    this.captureLogFileTextField.setText(experimentPreferences.getString(HysteresisPreferences.CAPTURE_LOG_FILE_INIT_STRING_KEY,
+        HysteresisPreferences.CAPTURE_LOG_FILE_INIT_STRING_DEFAULT_VALUE));
+    preferencesPanel.add(captureLogFileTextField, gc);
+
+    /////////////////////////////////////////////////////////
+
+    gc.gridy++;
+    gc.gridx = 0;
+    this.renderFpsLabel = new JLabel("Plot Rate [FPS]:");
+    preferencesPanel.add(renderFpsLabel, gc);
+
+    gc.gridx = 1;
+    this.renderFpsTextField = new JTextField(12);
+    this.renderFpsTextField.setText(String.valueOf(experimentPreferences.getInteger(HysteresisPreferences.RENDER_FPS_INIT_KEY, HysteresisPreferences.RENDER_FPS_INIT_DEFAULT_VALUE)));
+    preferencesPanel.add(renderFpsTextField, gc);
   }
 
   @Override
@@ -161,6 +223,10 @@ public class HysteresisPreferencesPanel extends ExperimentPreferencesPanel {
     experimentPreferences.setInteger(HysteresisPreferences.FREQUENCY_INIT_KEY, Integer.parseInt(frequencyTextField.getText()));
     experimentPreferences.setInteger(HysteresisPreferences.SERIES_R_INIT_KEY, Integer.parseInt(seriesResistorTextField.getText()));
     experimentPreferences.setDouble(HysteresisPreferences.K_INIT_DOUBLE_KEY, Double.parseDouble(kTextField.getText()));
+    experimentPreferences.setBoolean(HysteresisPreferences.STREAMING_INIT_BOOLEAN_KEY, streamingCheckBox.isSelected());
+    experimentPreferences.setString(HysteresisPreferences.STREAM_FILE_INIT_STRING_KEY, streamFileTextField.getText().trim());
+    experimentPreferences.setString(HysteresisPreferences.CAPTURE_LOG_FILE_INIT_STRING_KEY, captureLogFileTextField.getText().trim());
+    experimentPreferences.setInteger(HysteresisPreferences.RENDER_FPS_INIT_KEY, Integer.parseInt(renderFpsTextField.getText()));
   }
 
   @Override
@@ -50,6 +50,10 @@ public class ControlModel extends ExperimentControlModel {
   float offset;
   private float amplitude;
   private int frequency;
+  private boolean isStreaming;
+  private String streamFile;
+  private String captureLogFile;
+  private int renderFps;
   private final double[] waveformTimeData = new double[HysteresisPreferences.CAPTURE_BUFFER_SIZE];
   private final double[] waveformAmplitudeData = new double[HysteresisPreferences.CAPTURE_BUFFER_SIZE];
 
@@ -70,6 +74,10 @@ public class ControlModel extends ExperimentControlModel {
     offset = experimentPreferences.getFloat(HysteresisPreferences.OFFSET_INIT_FLOAT_KEY, HysteresisPreferences.OFFSET_INIT_FLOAT_DEFAULT_VALUE);
     amplitude = experimentPreferences.getFloat(HysteresisPreferences.AMPLITUDE_INIT_FLOAT_KEY, HysteresisPreferences.AMPLITUDE_INIT_FLOAT_DEFAULT_VALUE);
     frequency = experimentPreferences.getInteger(HysteresisPreferences.FREQUENCY_INIT_KEY, HysteresisPreferences.FREQUENCY_INIT_DEFAULT_VALUE);
+    isStreaming = experimentPreferences.getBoolean(HysteresisPreferences.STREAMING_INIT_BOOLEAN_KEY, HysteresisPreferences.STREAMING_INIT_BOOLEAN_DEFAULT_VALUE);
+    streamFile = experimentPreferences.getString(HysteresisPreferences.STREAM_FILE_INIT_STRING_KEY, HysteresisPreferences.STREAM_FILE_INIT_STRING_DEFAULT_VALUE);
+    captureLogFile = experimentPreferences.getString(HysteresisPreferences.CAPTURE_LOG_FILE_INIT_STRING_KEY, HysteresisPreferences.CAPTURE_LOG_FILE_INIT_STRING_DEFAULT_VALUE);
+    renderFps = experimentPreferences.getInteger(HysteresisPreferences.RENDER_FPS_INIT_KEY, HysteresisPreferences.RENDER_FPS_INIT_DEFAULT_VALUE);
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_PREFERENCES_UPDATE, true, false);
   }
 
@@ -174,6 +182,26 @@ public class ControlModel extends ExperimentControlModel {
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_FREQUENCY_UPDATE, oldFreq, frequency);
   }
 
+  public boolean isStreaming() {
+
+    return isStreaming;
+  }
+
+  public String getStreamFile() {
+
+    return streamFile;
+  }
+
+  public String getCaptureLogFile() {
+
+    return captureLogFile;
+  }
+
+  public int getRenderFps() {
+
+    return renderFps;
+  }
+
   public double[] getWaveformTimeData() {
 
     return waveformTimeData;
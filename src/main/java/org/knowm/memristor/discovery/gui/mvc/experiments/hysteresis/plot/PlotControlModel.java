@@ -36,7 +36,6 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.HysteresisPr
 public class PlotControlModel extends ExperimentControlModel {
 
   /** Averaging params */
-  private double ave = 0;
   private double k;
 
   /** Min Max params */
@@ -56,16 +55,6 @@ public class PlotControlModel extends ExperimentControlModel {
     swingPropertyChangeSupport.addPropertyChangeListener(listener);
   }
 
-  public double getAve() {
-
-    return ave;
-  }
-
-  public void setAve(double ave) {
-
-    this.ave = ave;
-  }
-
   public double getK() {
 
     return k;
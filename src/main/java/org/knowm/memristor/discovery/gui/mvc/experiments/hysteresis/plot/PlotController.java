@@ -36,6 +36,7 @@ import java.beans.PropertyChangeListener;
 
 import javax.swing.JTextField;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.HysteresisPreferences;
 import org.knowm.memristor.discovery.utils.Util;
@@ -45,6 +46,11 @@ public class PlotController implements PropertyChangeListener {
   private final PlotPanel plotPanel;
   private final PlotControlModel plotModel;
 
+  private final ChartDecimator waveformChartDecimator;
+  private final ChartDecimator captureChartDecimator;
+  private final ChartDecimator ivChartDecimator;
+  private final ChartDecimator gvChartDecimator;
+
   /**
    * Constructor
    *
@@ -55,6 +61,10 @@ public class PlotController implements PropertyChangeListener {
 
     this.plotPanel = plotPanel;
     this.plotModel = plotModel;
+    this.waveformChartDecimator = new ChartDecimator(plotPanel.getWaveformChartPanel());
+    this.captureChartDecimator = new ChartDecimator(plotPanel.getCaptureChartPanel());
+    this.ivChartDecimator = new ChartDecimator(plotPanel.getIvChartPanel());
+    this.gvChartDecimator = new ChartDecimator(plotPanel.getGvChartPanel());
 
     initGUIComponents();
     setUpViewEvents();
@@ -155,7 +165,7 @@ public class PlotController implements PropertyChangeListener {
   public void udpateWaveformChart(double[] waveformTimeData, double[] waveformAmplitudeData, double amplitude, int frequency, double offset) {
 
     plotPanel.getWaveformChart().setTitle(getWaveformChartTitle(amplitude, frequency, offset));
-    plotPanel.getWaveformChart().updateXYSeries("waveform", waveformTimeData, waveformAmplitudeData, null);
+    waveformChartDecimator.updateXYSeries("waveform", waveformTimeData, waveformAmplitudeData);
     plotPanel.getWaveformChartPanel().revalidate();
     plotPanel.getWaveformChartPanel().repaint();
   }
@@ -163,8 +173,8 @@ public class PlotController implements PropertyChangeListener {
   public void udpateVtChartData(double[] captureAmplitudeData1, double[] captureAmplitudeData2, double[] timeData, int frequency, double amplitude, double offset) {
 
     plotPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, frequency, offset));
-    plotPanel.getCaptureChart().updateXYSeries("V1", timeData, captureAmplitudeData1, null);
-    plotPanel.getCaptureChart().updateXYSeries("V2", timeData, captureAmplitudeData2, null);
+    captureChartDecimator.updateXYSeries("V1", timeData, captureAmplitudeData1);
+    captureChartDecimator.updateXYSeries("V2", timeData, captureAmplitudeData2);
     plotPanel.getCaptureChartPanel().revalidate();
     plotPanel.getCaptureChartPanel().repaint();
   }
@@ -176,10 +186,10 @@ public class PlotController implements PropertyChangeListener {
 
     plotPanel.getIvChart().setTitle(getIVChartTitle(amplitude, frequency, offset));
     if (!HysteresisPreferences.IS_VIN) {
-      plotPanel.getIvChart().updateXYSeries("iv", vMemristor, current, null);
+      ivChartDecimator.updateXYSeries("iv", vMemristor, current);
     }
     else {
-      plotPanel.getIvChart().updateXYSeries("iv", captureAmplitudeData1, current, null);
+      ivChartDecimator.updateXYSeries("iv", captureAmplitudeData1, current);
     }
     plotPanel.getIvChartPanel().revalidate();
     plotPanel.getIvChartPanel().repaint();
@@ -189,8 +199,8 @@ public class PlotController implements PropertyChangeListener {
 
     plotPanel.getGvChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGvChart().setTitle(getGVChartTitle(amplitude, frequency, offset));
-    plotPanel.getGvChart().updateXYSeries("gv", captureAmplitudeData1, conductance, null);
-    plotPanel.getGvChart().updateXYSeries("gv_m", vMemristor, conductance, null);
+    gvChartDecimator.updateXYSeries("gv", captureAmplitudeData1, conductance);
+    gvChartDecimator.updateXYSeries("gv_m", vMemristor, conductance);
     plotPanel.getGvChartPanel().revalidate();
     plotPanel.getGvChartPanel().repaint();
   }
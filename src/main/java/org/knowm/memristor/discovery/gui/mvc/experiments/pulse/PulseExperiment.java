@@ -33,12 +33,21 @@ import java.util.List;
 
 import javax.swing.SwingWorker;
 
+import org.knowm.memristor.discovery.CapturePlanner;
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.ReadPulseSequencer;
+import org.knowm.memristor.discovery.export.SeriesExporter;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFrame;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFramePool;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DeriveStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPlotPanel;
-import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ProcessingPipeline;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisCache;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeAxisStage;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TrimStage;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.ConductancePreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.control.ControlModel;
@@ -46,7 +55,6 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.control.ControlPa
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.plot.PlotControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.plot.PlotController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.plot.PlotPanel;
-import org.knowm.memristor.discovery.utils.PostProcessDataUtils;
 import org.knowm.memristor.discovery.utils.WaveformUtils;
 import org.knowm.waveforms4j.DWF;
 
@@ -82,7 +90,25 @@ public class PulseExperiment extends Experiment {
 
   boolean initialPulseTrainCaptured = false;
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  // CaptureFrame channels and kinds
+  private static final int FRAME_V1 = 0;
+  private static final int FRAME_V2 = 1;
+  private static final int FRAME_V1_MINUS_V2 = 2;
+  private static final int FRAME_CURRENT = 3;
+  private static final int FRAME_CONDUCTANCE = 4;
+  private static final int PULSE_TRAIN = 0;
+  private static final int READ_PULSE = 1;
+
+  private final CaptureFramePool framePool = new CaptureFramePool(5, PulsePreferences.CAPTURE_BUFFER_SIZE, 4);
+  private final TimeAxisCache timeAxisCache = new TimeAxisCache(4);
+  private final TrimStage pulseTrainTrimStage = new TrimStage(FRAME_V1, 0.05, 10, FRAME_V1, FRAME_V2);
+  private final ProcessingPipeline pulseTrainPipeline = new ProcessingPipeline("pulse train").add(pulseTrainTrimStage).add(
+      new TimeAxisStage(timeAxisCache, PulsePreferences.TIME_UNIT.getDivisor())).add(new DeriveStage(controlModel, PulsePreferences.IS_SWITCH_CORRECTED,
+          PulsePreferences.CURRENT_UNIT.getDivisor(), PulsePreferences.CONDUCTANCE_UNIT.getDivisor(), FRAME_V1, FRAME_V2, FRAME_V1_MINUS_V2, FRAME_CURRENT,
+          FRAME_CONDUCTANCE));
+  private CaptureFrame displayedFrame; // EDT only
+
+  private class CaptureWorker extends SwingWorker<Boolean, CaptureFrame> {
 
     @Override
     protected Boolean doInBackground() throws Exception {
@@ -91,11 +117,14 @@ public class PulseExperiment extends Experiment {
       // Analog In /////////////////
       //////////////////////////////////
 
-      int samplesPerPulse = 100;
-      double sampleFrequency = controlModel.getCalculatedFrequency() * samplesPerPulse;
-      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1), samplesPerPulse * controlModel.getPulseNumber());
+      CapturePlanner.Plan plan = planCapture(controlModel.getCalculatedFrequency(), controlModel.getPulseNumber(), PulsePreferences.MIN_SAMPLES_PER_PULSE,
+          PulsePreferences.MAX_SAMPLES_PER_PULSE);
+      double sampleFrequency = plan.getSampleFrequency();
+      framePool.preallocate(plan.getBufferSize());
+      pulseTrainTrimStage.setWindow(plan);
+      dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1), plan.getBufferSize());
 
-      waitUntilArmed();
+      waitUntilArmed(plan);
 
       //////////////////////////////////
       // Pulse Out /////////////////
@@ -119,8 +148,9 @@ public class PulseExperiment extends Experiment {
 
       // Get Raw Data from Oscilloscope
       int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+      CaptureFrame frame = framePool.acquire(Math.min(validSamples, DWF.AD2_MAX_BUFFER_SIZE));
+      dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, frame.get(FRAME_V1), frame.getLength());
+      dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, frame.get(FRAME_V2), frame.getLength());
       // System.out.println("validSamples: " + validSamples);
 
       // Stop Analog In and Out
@@ -131,37 +161,18 @@ public class PulseExperiment extends Experiment {
       // Create Chart Data //////
       ///////////////////////////
 
-      double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0.05, 10);
-      double[] V1Trimmed = trimmedRawData[0];
-      double[] V2Trimmed = trimmedRawData[1];
-      double[] V2MinusV1 = PostProcessDataUtils.getV1MinusV2(V1Trimmed, V2Trimmed);
+      // trim, time axis, V1-V2, current and conductance data
+      frame.setSampleFrequency(sampleFrequency);
+      frame = pulseTrainPipeline.process(frame, framePool);
+      int bufferLength = frame.getLength();
 
-      int bufferLength = V1Trimmed.length;
-
-      // create time data
-      double[] timeData = new double[bufferLength];
-      double timeStep = 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor();
-      for (int i = 0; i < bufferLength; i++) {
-        timeData[i] = i * timeStep;
-      }
-
-      // create current data
-      double[] current = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-        current[i] = V2Trimmed[i] / controlModel.getSeriesResistance() * PulsePreferences.CURRENT_UNIT.getDivisor();
-      }
-
-      // create conductance data
-      double[] conductance = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-
-        double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-        double G = I / (V1Trimmed[i] - V2Trimmed[i]) * PulsePreferences.CONDUCTANCE_UNIT.getDivisor();
-        G = G < 0 ? 0 : G;
-        conductance[i] = G;
-      }
-
-      publish(new double[][]{timeData, V1Trimmed, V2Trimmed, V2MinusV1, current, conductance, null});
+      frame.setKind(PULSE_TRAIN);
+      exportSeries(SeriesExporter.VT, "V1", frame.getTimeData(), frame.get(FRAME_V1), bufferLength);
+      exportSeries(SeriesExporter.VT, "V2", frame.getTimeData(), frame.get(FRAME_V2), bufferLength);
+      exportSeries(SeriesExporter.VT, "V1-V2", frame.getTimeData(), frame.get(FRAME_V1_MINUS_V2), bufferLength);
+      exportSeries(SeriesExporter.IV, "iv", frame.getTimeData(), frame.get(FRAME_CURRENT), bufferLength);
+      exportSeries(SeriesExporter.GV, "gv", frame.getTimeData(), frame.get(FRAME_CONDUCTANCE), bufferLength);
+      publish(frame);
 
       while (!initialPulseTrainCaptured) {
         // System.out.println("Waiting...");
@@ -172,93 +183,52 @@ public class PulseExperiment extends Experiment {
       // READ PULSES /////////////////
       //////////////////////////////////
 
-      while (!isCancelled()) {
-
-        try {
-          Thread.sleep(500);
-        } catch (InterruptedException e) {
-          // eat it. caught when interrupt is called
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
-        }
-
-        //////////////////////////////////
-        // Analog In /////////////////
-        //////////////////////////////////
-
-        // trigger on 20% the rising .1 V read pulse
-        samplesPerPulse = 300;
-        sampleFrequency = 100_000 * samplesPerPulse;
-        dwfProxy.getDwf().startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, 0.02, samplesPerPulse * 1);
-        waitUntilArmed();
-
-        //////////////////////////////////
-        // Pulse Out /////////////////
-        //////////////////////////////////
-
-        // read pulse: 0.1 V, 5 us pulse width
-        customWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, 0.1, 100_000);
-        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, 100_000, 0, 1, customWaveform);
-
-        // Read In Data
-        success = capturePulseData(100_000, 1);
-        if (!success) {
-          // Stop Analog In and Out
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
-          controlPanel.getStartStopButton().doClick();
-          return false;
-        }
-        else {
-
-          // Get Raw Data from Oscilloscope
-          validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-          v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-          v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
-
-          ///////////////////////////
-          // Create Chart Data //////
-          ///////////////////////////
-
-          trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0.08, 0);
-          V1Trimmed = trimmedRawData[0];
-          V2Trimmed = trimmedRawData[1];
-          bufferLength = V1Trimmed.length;
-
-          // create conductance data - a single number equal to the average of all points in the trimmed data
-          double runningTotal = 0.0;
-          for (int i = 3; i < bufferLength - 3; i++) {
-            double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-            double G = I / (V1Trimmed[i] - V2Trimmed[i]);
-            G = G < 0 ? 0 : G;
-            runningTotal += G;
+      // read pulses: 0.1 V, 5 us pulse width, configured once and re-fired at the read interval
+      ReadPulseSequencer readPulseSequencer = new ReadPulseSequencer(dwfProxy, controlModel.getSeriesResistance(), PulsePreferences.IS_SWITCH_CORRECTED,
+          ConductancePreferences.CONDUCTANCE_UNIT.getDivisor(), controlModel.getReadInterval());
+      readPulseSequencer.start();
+      try {
+        while (!isCancelled()) {
+
+          double conductanceAve = readPulseSequencer.read();
+          if (Double.isNaN(conductanceAve)) {
+            if (!isCancelled()) {
+              controlPanel.getStartStopButton().doClick();
+            }
+            return false;
           }
-          double[] conductanceAve = new double[]{runningTotal / (bufferLength - 6) * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor()};
 
-          publish(new double[][]{null, null, null, null, null, null, conductanceAve});
+          // no plot data, just the conductance
+          CaptureFrame readFrame = CaptureFrame.newValueFrame(READ_PULSE, conductanceAve);
+          exportPoint(SeriesExporter.G, "g", readPulseSequencer.getReadCount(), conductanceAve);
+          publish(readFrame);
         }
-        // Stop Analog In and Out
-        dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-        dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+      } finally {
+        readPulseSequencer.stop();
       }
       return true;
     }
 
     @Override
-    protected void process(List<double[][]> chunks) {
+    protected void process(List<CaptureFrame> chunks) {
 
-      double[][] newestChunk = chunks.get(chunks.size() - 1);
+      CaptureFrame newestFrame = chunks.get(chunks.size() - 1);
 
-      if (newestChunk[6] == null) {
+      if (newestFrame.getKind() == PULSE_TRAIN) {
         initialPulseTrainCaptured = true;
 
-        plotController.updateCaptureChartData(newestChunk[0], newestChunk[1], newestChunk[2], newestChunk[3], controlModel.getPulseWidth(), controlModel
-            .getAmplitude());
-        plotController.updateIVChartData(newestChunk[0], newestChunk[4], controlModel.getPulseWidth(), controlModel
+        double[] timeData = newestFrame.getTimeData();
+        plotController.updateCaptureChartData(timeData, newestFrame.get(FRAME_V1), newestFrame.get(FRAME_V2), newestFrame.get(FRAME_V1_MINUS_V2), controlModel
+            .getPulseWidth(), controlModel.getAmplitude());
+        plotController.updateIVChartData(timeData, newestFrame.get(FRAME_CURRENT), controlModel.getPulseWidth(), controlModel
             .getAmplitude());
-        plotController.updateGVChartData(newestChunk[0], newestChunk[5], controlModel.getPulseWidth(), controlModel
+        plotController.updateGVChartData(timeData, newestFrame.get(FRAME_CONDUCTANCE), controlModel.getPulseWidth(), controlModel
             .getAmplitude());
 
+        // the charts now hold the new frame's arrays, so the one they held before can be reused
+        framePool.release(displayedFrame);
+        displayedFrame = newestFrame;
+
         if (plotPanel.getCaptureButton().isSelected()) {
           plotPanel.switch2CaptureChart();
           plotController.repaintVtChart();
@@ -274,8 +244,13 @@ public class PulseExperiment extends Experiment {
       }
       else {
 
-        // update G chart
-        controlModel.setLastG(newestChunk[6][0]);
+        // at short read intervals several reads arrive per chunk, add them all to the history and rebuild the G chart once
+        for (CaptureFrame frame : chunks) {
+          if (frame.getKind() == READ_PULSE) {
+            controlModel.setLastG(frame.getValue());
+            plotController.addGData(controlModel.getLastG());
+          }
+        }
         plotController.updateGChartData(controlModel.getLastG(), controlModel.getLastRAsString());
         plotController.repaintGChart();
 
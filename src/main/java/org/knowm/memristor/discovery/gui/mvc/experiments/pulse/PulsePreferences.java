@@ -53,6 +53,9 @@ public class PulsePreferences extends ExperimentPreferences {
   public static final String PULSE_WIDTH_INIT_KEY = PREFIX + "PERIOD_INIT_KEY";
   public static final int PULSE_WIDTH_INIT_DEFAULT_VALUE = 5_000;
 
+  public static final String READ_INTERVAL_INIT_KEY = PREFIX + "READ_INTERVAL_INIT_KEY";
+  public static final int READ_INTERVAL_INIT_DEFAULT_VALUE = 500; // ms, 0 for back-to-back reads
+
   ///////////////////////////////////////////////////////////////////////////////////////
 
   public static final CurrentUnits CURRENT_UNIT = CurrentUnits.MicroAmps;
@@ -64,6 +67,10 @@ public class PulsePreferences extends ExperimentPreferences {
   public static final int CAPTURE_BUFFER_SIZE = 8000;
   // public static final int CAPTURE_BUFFER_SIZE = 8192 / 11; // AD2 buffer size / most pulses allowed.
 
+  // samples per pulse period, see CapturePlanner
+  public static final int MIN_SAMPLES_PER_PULSE = 100;
+  public static final int MAX_SAMPLES_PER_PULSE = 1000;
+
   /**
    * Constructor
    */
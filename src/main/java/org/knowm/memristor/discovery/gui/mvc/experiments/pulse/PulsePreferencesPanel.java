@@ -49,6 +49,9 @@ public class PulsePreferencesPanel extends ExperimentPreferencesPanel {
   private JLabel pulseWidthLabel;
   private JTextField pulseWidthTextField;
 
+  private JLabel readIntervalLabel;
+  private JTextField readIntervalTextField;
+
   /**
    * Constructor
    *
@@ -97,6 +100,17 @@ public class PulsePreferencesPanel extends ExperimentPreferencesPanel {
     this.pulseWidthTextField = new JTextField(12);
     this.pulseWidthTextField.setText(String.valueOf(experimentPreferences.getInteger(PulsePreferences.PULSE_WIDTH_INIT_KEY, PulsePreferences.PULSE_WIDTH_INIT_DEFAULT_VALUE)));
     preferencesPanel.add(pulseWidthTextField, gc);
+
+    gc.gridy++;
+
+    gc.gridx = 0;
+    this.readIntervalLabel = new JLabel("Read Interval [ms]:");
+    preferencesPanel.add(readIntervalLabel, gc);
+
+    gc.gridx = 1;
+    this.readIntervalTextField = new JTextField(12);
+    this.readIntervalTextField.setText(String.valueOf(experimentPreferences.getInteger(PulsePreferences.READ_INTERVAL_INIT_KEY, PulsePreferences.READ_INTERVAL_INIT_DEFAULT_VALUE)));
+    preferencesPanel.add(readIntervalTextField, gc);
   }
 
   @Override
@@ -107,6 +121,7 @@ public class PulsePreferencesPanel extends ExperimentPreferencesPanel {
     experimentPreferences.setInteger(PulsePreferences.SERIES_R_INIT_KEY, Integer.parseInt(shuntResistorTextField.getText()));
     experimentPreferences.setFloat(PulsePreferences.AMPLITUDE_INIT_FLOAT_KEY, Float.parseFloat(amplitudeTextField.getText()));
     experimentPreferences.setInteger(PulsePreferences.PULSE_WIDTH_INIT_KEY, Integer.parseInt(pulseWidthTextField.getText()));
+    experimentPreferences.setInteger(PulsePreferences.READ_INTERVAL_INIT_KEY, Integer.parseInt(readIntervalTextField.getText()));
   }
 
   @Override
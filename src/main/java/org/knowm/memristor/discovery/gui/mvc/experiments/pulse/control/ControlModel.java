@@ -52,6 +52,7 @@ public class ControlModel extends ExperimentControlModel {
   private float amplitude;
   private int pulseWidth; // model store pulse width in nanoseconds
   private int pulseNumber;
+  private int readInterval; // ms
   private double appliedAmplitude;
   private double appliedCurrent;
   private double appliedEnergy;
@@ -80,6 +81,7 @@ public class ControlModel extends ExperimentControlModel {
     appliedAmplitude = amplitude;
     pulseWidth = experimentPreferences.getInteger(PulsePreferences.PULSE_WIDTH_INIT_KEY, PulsePreferences.PULSE_WIDTH_INIT_DEFAULT_VALUE);
     pulseNumber = experimentPreferences.getInteger(PulsePreferences.NUM_PULSES_INIT_KEY, PulsePreferences.NUM_PULSES_INIT_DEFAULT_VALUE);
+    readInterval = experimentPreferences.getInteger(PulsePreferences.READ_INTERVAL_INIT_KEY, PulsePreferences.READ_INTERVAL_INIT_DEFAULT_VALUE);
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_PREFERENCES_UPDATE, true, false);
   }
 
@@ -176,6 +178,14 @@ public class ControlModel extends ExperimentControlModel {
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_WAVEFORM_UPDATE, true, false);
   }
 
+  /**
+   * @return the time between read pulses in ms, 0 for back-to-back reads
+   */
+  public int getReadInterval() {
+
+    return readInterval;
+  }
+
   public boolean isMemristorVoltageDropSelected() {
 
     return isMemristorVoltageDropSelected;
@@ -32,7 +32,9 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeSeriesRingBuffer;
 import org.knowm.memristor.discovery.utils.Util;
 
 public class PlotController implements PropertyChangeListener {
@@ -40,6 +42,12 @@ public class PlotController implements PropertyChangeListener {
   private final PlotPanel plotPanel;
   private final PlotControlModel plotModel;
 
+  private final ChartDecimator waveformChartDecimator;
+  private final ChartDecimator captureChartDecimator;
+  private final ChartDecimator ivChartDecimator;
+  private final ChartDecimator gvChartDecimator;
+  private final ChartDecimator gChartDecimator;
+
   /**
    * Constructor
    *
@@ -50,6 +58,11 @@ public class PlotController implements PropertyChangeListener {
 
     this.plotPanel = plotPanel;
     this.plotModel = plotModel;
+    this.waveformChartDecimator = new ChartDecimator(plotPanel.getWaveformChartPanel());
+    this.captureChartDecimator = new ChartDecimator(plotPanel.getCaptureChartPanel());
+    this.ivChartDecimator = new ChartDecimator(plotPanel.getIvChartPanel());
+    this.gvChartDecimator = new ChartDecimator(plotPanel.getGvChartPanel());
+    this.gChartDecimator = new ChartDecimator(plotPanel.getGChartPanel());
 
     initGUIComponents();
     setUpViewEvents();
@@ -132,7 +145,7 @@ public class PlotController implements PropertyChangeListener {
   public void updateWaveformChart(double[] timeData, double[] waveformAmplitudeData, double amplitude, int pulseWidth) {
 
     plotPanel.getWaveformChart().setTitle(getWaveformChartTitle(amplitude, pulseWidth));
-    plotPanel.getWaveformChart().updateXYSeries("waveform", timeData, waveformAmplitudeData, null);
+    waveformChartDecimator.updateXYSeries("waveform", timeData, waveformAmplitudeData);
     plotPanel.getWaveformChartPanel().revalidate();
     plotPanel.getWaveformChartPanel().repaint();
   }
@@ -140,9 +153,9 @@ public class PlotController implements PropertyChangeListener {
   public void updateCaptureChartData(double[] timeData, double[] v1, double[] v2, double[] v1Minusv2, int pulseWidth, double amplitude) {
 
     plotPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    plotPanel.getCaptureChart().updateXYSeries("V1", timeData, v1, null);
-    plotPanel.getCaptureChart().updateXYSeries("V2", timeData, v2, null);
-    plotPanel.getCaptureChart().updateXYSeries("V1-V2", timeData, v1Minusv2, null);
+    captureChartDecimator.updateXYSeries("V1", timeData, v1);
+    captureChartDecimator.updateXYSeries("V2", timeData, v2);
+    captureChartDecimator.updateXYSeries("V1-V2", timeData, v1Minusv2);
   }
 
   public void updateIVChartData(double[] timeData, double[] current, int pulseWidth, double amplitude) {
@@ -151,7 +164,7 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getIvChart().getStyler().setYAxisMin(plotModel.getyMinIV());
 
     plotPanel.getIvChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    plotPanel.getIvChart().updateXYSeries("iv", timeData, current, null);
+    ivChartDecimator.updateXYSeries("iv", timeData, current);
   }
 
   public void updateGVChartData(double[] timeData, double[] conductance, int pulseWidth, double amplitude) {
@@ -159,17 +172,33 @@ public class PlotController implements PropertyChangeListener {
     plotPanel.getGvChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGvChart().getStyler().setYAxisMin(0.0);
     plotPanel.getGvChart().setTitle(getGVChartTitle(amplitude, pulseWidth));
-    plotPanel.getGvChart().updateXYSeries("gv", timeData, conductance, null);
+    gvChartDecimator.updateXYSeries("gv", timeData, conductance);
   }
 
-  public void updateGChartData(double conductance, String resistance) {
+  /**
+   * Add a read to the G history. The chart only shows it after the next updateGChartData().
+   *
+   * @param conductance
+   */
+  public void addGData(double conductance) {
 
     plotModel.getGData().add(conductance);
+  }
+
+  /**
+   * Rebuild the G chart from the history. This copies and decimates the whole history, so call it once per batch of reads.
+   *
+   * @param conductance - the newest read, already added with addGData()
+   * @param resistance
+   */
+  public void updateGChartData(double conductance, String resistance) {
+
+    TimeSeriesRingBuffer gData = plotModel.getGData();
     plotPanel.getGChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGChart().getStyler().setYAxisMin(0.0);
     plotPanel.getGChart().setTitle("G (R = " + resistance + ")");
-    plotPanel.getGChart().updateXYSeries("g", null, plotModel.getGData(), null);
-    plotPanel.getGChart().updateXYSeries("glast", new double[]{1, plotModel.getGData().size()}, new double[]{conductance, conductance}, null);
+    gChartDecimator.updateXYSeries("g", gData.getXData(), gData.getYData());
+    gChartDecimator.updateXYSeries("glast", new double[]{gData.getFirstX(), gData.getLastX()}, new double[]{conductance, conductance});
   }
 
   public void repaintVtChart() {
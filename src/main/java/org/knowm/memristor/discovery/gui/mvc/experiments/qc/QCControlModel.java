@@ -64,6 +64,10 @@ public class QCControlModel extends ExperimentControlModel {
   /** Series R */
   private int seriesR;
 
+  /** Adaptive measurement */
+  private boolean isAdaptive;
+  private float confidence;
+
   /**
    * Constructor
    */
@@ -81,6 +85,8 @@ public class QCControlModel extends ExperimentControlModel {
     offset = experimentPreferences.getFloat(QCPreferences.OFFSET_INIT_FLOAT_KEY, QCPreferences.OFFSET_INIT_FLOAT_DEFAULT_VALUE);
     frequency = experimentPreferences.getInteger(QCPreferences.FREQUENCY_INIT_KEY, QCPreferences.FREQUENCY_INIT_DEFAULT_VALUE);
     savePath = experimentPreferences.getString(QCPreferences.REPORT_DIRECTORY_PATH_KEY, QCPreferences.REPORT_DIRECTORY_PATH_DEFAULT_VALUE);
+    isAdaptive = experimentPreferences.getBoolean(QCPreferences.ADAPTIVE_INIT_BOOLEAN_KEY, QCPreferences.ADAPTIVE_INIT_BOOLEAN_DEFAULT_VALUE);
+    confidence = experimentPreferences.getFloat(QCPreferences.CONFIDENCE_INIT_FLOAT_KEY, QCPreferences.CONFIDENCE_INIT_FLOAT_DEFAULT_VALUE);
     swingPropertyChangeSupport.firePropertyChange(ExperimentControlModel.EVENT_PREFERENCES_UPDATE, true, false);
   }
 
@@ -182,6 +188,16 @@ public class QCControlModel extends ExperimentControlModel {
     this.seriesR = seriesR;
   }
 
+  public boolean isAdaptive() {
+
+    return isAdaptive;
+  }
+
+  public float getConfidence() {
+
+    return confidence;
+  }
+
   public String getSavePath() {
 
     return savePath;
@@ -50,22 +50,50 @@ import javax.swing.JScrollPane;
 import javax.swing.SwingWorker;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.capturelog.CaptureLogHeader;
+import org.knowm.memristor.discovery.capturelog.CaptureLogWriter;
+import org.knowm.memristor.discovery.export.SeriesExporter;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFrame;
+import org.knowm.memristor.discovery.gui.mvc.experiments.CaptureFramePool;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPlotPanel;
-import org.knowm.memristor.discovery.utils.AveMaxMinVar;
+import org.knowm.memristor.discovery.gui.mvc.experiments.RenderScheduler;
+import org.knowm.memristor.discovery.simulation.ReplayDWFDevice;
+import org.knowm.memristor.discovery.utils.IVGVKernel;
+import org.knowm.memristor.discovery.utils.RunningStatistics;
 import org.knowm.waveforms4j.DWF;
 import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class QCExperiment extends Experiment implements PropertyChangeListener {
 
+  private final Logger logger = LoggerFactory.getLogger(QCExperiment.class);
+
   private final QCControlModel model = new QCControlModel();
   private QCControlPanel controlPanel;
   private QCMainPanel mainPanel;
 
   private QCCaptureWorker captureWorker;
 
+  // V1, V2, voltage, current
+  private final CaptureFramePool framePool = new CaptureFramePool(4, QCPreferences.CAPTURE_BUFFER_SIZE, 6);
+  private CaptureFrame displayedFrame; // EDT only
+  private final RenderScheduler renderScheduler = new RenderScheduler(framePool, QCPreferences.RENDER_FPS, new RenderScheduler.FrameRenderer() {
+
+    @Override
+    public void render(CaptureFrame frame) {
+
+      mainPanel.udpateIVChart(frame.get(0), frame.get(2), frame.get(3), model.getFrequency(), model.getAmplitude());
+
+      // the chart now holds the new frame's arrays, so the one it held before can be reused
+      framePool.release(displayedFrame);
+      displayedFrame = frame;
+    }
+  });
+
   private List<String> reportLines = new ArrayList<>();
 
   private DecimalFormat f = new DecimalFormat("#,###.## kΩ");
@@ -132,6 +160,8 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
         mainPanel.switch2IVChart();
 
         // start AD2 waveform 1 and start AD2 capture on channel 1 and 2
+        startSeriesExport();
+        applyReplaySettings();
         captureWorker = new QCCaptureWorker();
         captureWorker.execute();
       }
@@ -153,6 +183,7 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
 
         // stop AD2 waveform 1 and stop AD2 capture on channel 1 and 2
         captureWorker.cancel(true);
+        stopSeriesExport();
       }
     });
 
@@ -165,12 +196,26 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
     model.addListener(this);
   }
 
-  private class QCCaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class QCCaptureWorker extends SwingWorker<Boolean, Void> {
 
     @Override
     protected Boolean doInBackground() throws Exception {
 
+      renderScheduler.start();
+
+      // every raw capture of the run goes next to the report, without overwriting the log being re-scored in a replay
+      double sampleFrequency = model.getFrequency() * QCPreferences.CAPTURE_BUFFER_SIZE / QCPreferences.CAPTURE_PERIOD_COUNT;
+      Path captureLogPath = Paths.get(model.getBasePath() + "captures.mdcl");
+      if (dwfProxy.getDwf() instanceof ReplayDWFDevice && ((ReplayDWFDevice) dwfProxy.getDwf()).isReplaying(captureLogPath)) {
+        captureLogPath = Paths.get(model.getBasePath() + "captures_replay.mdcl");
+      }
+      CaptureLogWriter captureLogWriter = new CaptureLogWriter(captureLogPath, new CaptureLogHeader(CaptureLogHeader.ColumnType.Float32,
+          sampleFrequency, model.getSeriesResistance(), model.getWaveform().name(), model.getAmplitude(), model.getOffset(), model.getFrequency(), dwfProxy
+              .getDigitalIOStates()));
+
       try {
+        captureLogWriter.start();
+
         reportLines.add("# Knowm Memristor Quality Control Test");
 
         reportLines.add("## Chip Information");
@@ -192,37 +237,36 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
         dwfProxy.setAllIOStates(0b0000_0000);
 
         int numpass = 0;
+        RunningStatistics resistance = new RunningStatistics();
 
         // for each memristor
         for (int j = 0; j < 8; j++) {
 
-          // switch memristor
-          dwfProxy.update2DigitalIOStatesAtOnce(j, true);
+          // switch memristor, deselecting the previous one in the same write
+          dwfProxy.beginDigitalIOTransaction().setAll(0b0000_0000).setIO(j, true).commit();
 
-          // start capture
+          // start the wave
           dwfProxy.getDwf().startWave(DWF.WAVEFORM_CHANNEL_1, model.getWaveform(), model.getFrequency(), model.getAmplitude(), model.getOffset(), 50);
-          dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(model.getFrequency() * QCPreferences.CAPTURE_BUFFER_SIZE / QCPreferences.CAPTURE_PERIOD_COUNT, QCPreferences.CAPTURE_BUFFER_SIZE,
-              AcquisitionMode.ScanShift);
 
           int captureCount = 0;
 
-          List<Double> high_resistance_measurments = new ArrayList<Double>();
-          List<Double> low_resistance_measurments = new ArrayList<Double>();
+          // in adaptive mode every capture after a short conditioning is measured until the decision is settled
+          int conditioningCaptureCount = model.isAdaptive() ? QCPreferences.ADAPTIVE_CONDITIONING_CAPTURE_COUNT : QCPreferences.START_QC_CAPTURE_COUNT;
+          // accumulates the HRS and LRS of every measured capture, and in adaptive mode decides when to stop
+          QCSequentialTest sequentialTest = new QCSequentialTest(QCPreferences.R_TARGET, QCPreferences.MIN_Q, model.getConfidence(),
+              QCPreferences.ADAPTIVE_MIN_MEASUREMENT_COUNT, QCPreferences.MAX_CAPTURE_COUNT + 1 - conditioningCaptureCount);
 
           while (!isCancelled()) {
 
-            try {
-              Thread.sleep(50);
-            } catch (InterruptedException e) {
-              // eat it. caught when interrupt is called
-              dwfProxy.setAllIOStates(0b0000_0000);
-              dwfProxy.getDwf().FDwfAnalogInConfigure(false, false);
-              dwfProxy.getDwf().FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
-            }
-
-            // Read In Data
-            boolean success = capturePulseData(model.getFrequency(), 1);
+            // Read In Data, each capture a Single acquisition of its own periods, so consecutive measurements don't overlap
+            dwfProxy.getDwf().startAnalogCaptureBothChannelsImmediately(sampleFrequency, QCPreferences.CAPTURE_BUFFER_SIZE, AcquisitionMode.Single);
+            boolean success = capturePulseData(model.getFrequency(), QCPreferences.CAPTURE_PERIOD_COUNT);
             if (!success) {
+              if (isCancelled()) {
+                dwfProxy.setAllIOStates(0b0000_0000);
+                dwfProxy.getDwf().FDwfAnalogInConfigure(false, false);
+                dwfProxy.getDwf().FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
+              }
               continue;
             }
 
@@ -232,36 +276,36 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
             if (validSamples > 0) {
 
               // captureAmplitudeData = dwf.FDwfAnalogInStatusData(OSCILLOSCOPE_CHANNEL_1, validSamples);
-              double[] rawdata1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-              double[] rawdata2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+              CaptureFrame frame = framePool.acquire(validSamples);
+              double[] rawdata1 = frame.get(0);
+              double[] rawdata2 = frame.get(1);
+              dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, rawdata1, validSamples);
+              dwfProxy.getDwf().readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, rawdata2, validSamples);
+              captureLogWriter.append(rawdata1, rawdata2, validSamples, sampleFrequency, dwfProxy.getDigitalIOStates());
 
               // create current data
-              double[] current = new double[rawdata2.length];
-              double[] voltage = new double[rawdata1.length];
+              double[] voltage = frame.get(2);
+              double[] current = frame.get(3);
 
-              for (int i = 0; i < current.length; i++) {
-                current[i] = rawdata2[i] / model.getSeriesResistance() * QCPreferences.CURRENT_UNIT_DEFAULT_VALUE.getDivisor();
-              }
+              IVGVKernel.derive(rawdata1, rawdata2, validSamples, model.getSeriesResistance(), QCPreferences.IS_SWITCH_CORRECTED, QCPreferences.CURRENT_UNIT_DEFAULT_VALUE
+                  .getDivisor(), 1.0, QCPreferences.IS_VIN ? null : voltage, current, null);
 
               double maxV = 0;
               double minV = 0;
 
               if (!QCPreferences.IS_VIN) {
                 for (int i = 0; i < current.length; i++) {
-                  voltage[i] = rawdata1[i] - rawdata2[i];
                   maxV = voltage[i] > maxV ? voltage[i] : maxV;
                   minV = voltage[i] < minV ? voltage[i] : minV;
                 }
               }
 
-              publish(new double[][]{rawdata1, voltage, current});
-
               // System.out.println("voltage: " + Arrays.toString(voltage));
               // System.out.println("current: " + Arrays.toString(current));
               // System.out.println("resistance: " + Arrays.toString(resistance));
 
-              if (captureCount > QCPreferences.START_QC_CAPTURE_COUNT) {
-                List<Double> resistance = new ArrayList<Double>();
+              if (captureCount > conditioningCaptureCount) {
+                resistance.reset();
                 for (int i = 0; i < current.length; i++) {
 
                   if (voltage[i] > maxV * QCPreferences.P_BELOW_MAX_MIN_V) {
@@ -272,35 +316,34 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
                   }
                 }
 
-                if (resistance.size() > 0) {
-                  AveMaxMinVar maxMinVar = new AveMaxMinVar(resistance);
-                  high_resistance_measurments.add((double) maxMinVar.getMax());
-                  low_resistance_measurments.add((double) maxMinVar.getMin());
+                if (resistance.getCount() > 0) {
+                  sequentialTest.add(resistance.getMax(), resistance.getMin());
                 }
               }
+
+              exportSeries(SeriesExporter.IV, "memristor_" + j, QCPreferences.IS_VIN ? rawdata1 : voltage, current, validSamples);
+              renderScheduler.offer(frame);
             }
 
             // go to next memristor
-            if (captureCount++ > QCPreferences.MAX_CAPTURE_COUNT) {
+            boolean isSettled = model.isAdaptive() && sequentialTest.getDecision() != QCSequentialTest.Decision.PENDING;
+            if (captureCount++ > QCPreferences.MAX_CAPTURE_COUNT || isSettled) {
+
+              logger.debug("Memristor {} done after {} captures.", j, captureCount);
 
               // stop capture
               dwfProxy.getDwf().FDwfAnalogInConfigure(false, false);
               dwfProxy.getDwf().FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
 
-              if (high_resistance_measurments.size() > 0 && low_resistance_measurments.size() > 0) {
-                AveMaxMinVar hrs = new AveMaxMinVar(high_resistance_measurments);
-                AveMaxMinVar lrs = new AveMaxMinVar(low_resistance_measurments);
-                double q = hrs.getAve() / lrs.getAve();
-                boolean pass = false;
-                if (lrs.getAve() < QCPreferences.R_TARGET && hrs.getAve() > QCPreferences.R_TARGET && q > QCPreferences.MIN_Q) {
-                  pass = true;
-                }
+              if (sequentialTest.getCount() > 0) {
+                boolean pass = sequentialTest.isPassing();
 
                 if (pass) {
                   numpass++;
                 }
 
-                reportLines.add("|" + (j) + "|" + f.format(lrs.getAve() / 1000.0) + "|" + f.format(hrs.getAve() / 1000.0) + "|" + q + "|" + (pass ? "PASS" : "FAIL") + "|");
+                reportLines.add("|" + (j) + "|" + f.format(sequentialTest.getLrs().getMean() / 1000.0) + "|" + f.format(sequentialTest.getHrs().getMean() / 1000.0) + "|"
+                    + sequentialTest.getQ() + "|" + (pass ? "PASS" : "FAIL") + "|");
               }
               else {
                 reportLines.add("|" + (j) + "| null | null | null | null |");
@@ -312,12 +355,12 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
               } catch (IOException e) {
                 JOptionPane.showMessageDialog(null, "Problem saving chart", "Error", JOptionPane.ERROR_MESSAGE);
               }
-              dwfProxy.setAllIOStates(0b0000_0000);
 
               break;
             }
           }
         }
+        dwfProxy.setAllIOStates(0b0000_0000);
         controlPanel.getStopButton().doClick();
 
         String classification = "";
@@ -349,6 +392,10 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
         reportLines.add(" ");
         reportLines.add("## Notes");
         reportLines.add(" Device passes QC IFF: Q > " + QCPreferences.MIN_Q + " & HRS>r & LRS<r, where r=" + f.format(QCPreferences.R_TARGET));
+        if (model.isAdaptive()) {
+          reportLines.add(" Each device was measured until the result was settled at " + model.getConfidence() + " confidence, after "
+              + QCPreferences.ADAPTIVE_CONDITIONING_CAPTURE_COUNT + " conditioning captures.");
+        }
 
         // must save report on its own thread or it will get an interupt exceptions
         class SaveReportThread extends Thread {
@@ -372,30 +419,16 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
         JOptionPane.showMessageDialog(null, "Classification: " + classification);
       } catch (Exception e) {
         e.printStackTrace();
+      } finally {
+        captureLogWriter.stop();
       }
       return true;
     }
 
     @Override
-    protected void process(List<double[][]> chunks) {
-
-      long start = System.currentTimeMillis();
-
-      // System.out.println("" + chunks.size());
-
-      // Messages received from the doInBackground() (when invoking the publish() method). See: http://www.javacreed.com/swing-worker-example/
-
-      mainPanel.udpateIVChart(chunks.get(chunks.size() - 1)[0], chunks.get(chunks.size() - 1)[1], chunks.get(chunks.size() - 1)[2], model.getFrequency(), model.getAmplitude());
-
-      long duration = System.currentTimeMillis() - start;
-      // System.out.println("duration" + duration);
+    protected void done() {
 
-      // System.out.println("capturedData: " + Arrays.toString(captureAmplitudeData));
-      // swingPropertyChangeSupport.firePropertyChange(Events.CAPTURE_UPDATE, true, false);
-      try {
-        Thread.sleep(40 - duration); // 40 ms ==> 25fps
-      } catch (InterruptedException e) {
-      }
+      renderScheduler.stop();
     }
   }
 
@@ -426,6 +459,7 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
           }
 
           // start AD2 waveform 1 and start AD2 capture on channel 1 and 2
+          applyReplaySettings();
           captureWorker = new QCCaptureWorker();
           captureWorker.execute();
 
@@ -449,6 +483,25 @@ public class QCExperiment extends Experiment implements PropertyChangeListener {
     return controlPanel;
   }
 
+  /**
+   * Process replayed frames with the settings they were recorded with, a lot recorded at another series resistance would otherwise be scored wrong.
+   */
+  private void applyReplaySettings() {
+
+    CaptureLogHeader replayHeader = getReplayHeader();
+    if (replayHeader == null) {
+      return;
+    }
+    if (!replayHeader.getWaveform().equalsIgnoreCase(model.getWaveform().name())) {
+      logger.warn("The capture log was recorded with a {} waveform, QC assumes {}.", replayHeader.getWaveform(), model.getWaveform());
+    }
+    model.setAmplitude((float) replayHeader.getAmplitude());
+    model.setOffset((float) replayHeader.getOffset());
+    model.setFrequency((int) Math.round(replayHeader.getFrequency()));
+    model.setSeriesResistance((int) Math.round(replayHeader.getSeriesResistance()));
+    logger.info("Replaying with the recorded settings: {}", replayHeader);
+  }
+
   @Override
   public SwingWorker getCaptureWorker() {
 
@@ -34,6 +34,7 @@ import java.io.IOException;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.xchart.BitmapEncoder;
 import org.knowm.xchart.BitmapEncoder.BitmapFormat;
 import org.knowm.xchart.XChartPanel;
@@ -51,6 +52,9 @@ public class QCMainPanel extends JPanel {
   XYChart ivChart;
   XChartPanel<XYChart> ivChartPanel;
 
+  ChartDecimator waveformChartDecimator;
+  ChartDecimator ivChartDecimator;
+
   /**
    * Constructor
    */
@@ -82,6 +86,8 @@ public class QCMainPanel extends JPanel {
 
     ivChartPanel = new XChartPanel<>(ivChart);
 
+    waveformChartDecimator = new ChartDecimator(waveformChartPanel);
+    ivChartDecimator = new ChartDecimator(ivChartPanel);
   }
 
   public void switch2WaveformChart() {
@@ -107,7 +113,7 @@ public class QCMainPanel extends JPanel {
   public void udpateWaveformChart(double[] waveformTimeData, double[] waveformAmplitudeData, double amplitude, int frequency) {
 
     waveformChart.setTitle(getWaveformChartTitle(amplitude, frequency));
-    waveformChart.updateXYSeries("waveform", waveformTimeData, waveformAmplitudeData, null);
+    waveformChartDecimator.updateXYSeries("waveform", waveformTimeData, waveformAmplitudeData);
     waveformChartPanel.revalidate();
     waveformChartPanel.repaint();
   }
@@ -116,10 +122,10 @@ public class QCMainPanel extends JPanel {
 
     ivChart.setTitle(getIVChartTitle(amplitude, frequency));
     if (!QCPreferences.IS_VIN) {
-      ivChart.updateXYSeries("iv", vMemristor, current, null);
+      ivChartDecimator.updateXYSeries("iv", vMemristor, current);
     }
     else {
-      ivChart.updateXYSeries("iv", captureAmplitudeData1, current, null);
+      ivChartDecimator.updateXYSeries("iv", captureAmplitudeData1, current);
     }
     ivChartPanel.revalidate();
     ivChartPanel.repaint();
@@ -50,6 +50,12 @@ public class QCPreferences extends ExperimentPreferences {
   public static final String FREQUENCY_INIT_KEY = PREFIX + "FREQUENCY_INIT_KEY";
   public static final int FREQUENCY_INIT_DEFAULT_VALUE = 10;
 
+  public static final String ADAPTIVE_INIT_BOOLEAN_KEY = PREFIX + "ADAPTIVE_INIT_BOOLEAN_KEY";
+  public static final boolean ADAPTIVE_INIT_BOOLEAN_DEFAULT_VALUE = false;
+
+  public static final String CONFIDENCE_INIT_FLOAT_KEY = PREFIX + "CONFIDENCE_INIT_FLOAT_KEY";
+  public static final float CONFIDENCE_INIT_FLOAT_DEFAULT_VALUE = .99f;
+
   public static final String REPORT_DIRECTORY_PATH_KEY = "REPORT_DIRECTORY_PATH_KEY";
   public static final String REPORT_DIRECTORY_PATH_DEFAULT_VALUE = "~/Documents/Knowm/MemristorDiscovery/QC";
 
@@ -63,9 +69,15 @@ public class QCPreferences extends ExperimentPreferences {
   public static final int CAPTURE_BUFFER_SIZE = 400;
   public static final int CAPTURE_PERIOD_COUNT = 2;
 
+  public static final int RENDER_FPS = 25; // maximum IV chart updates per second
+
   public static final int MAX_CAPTURE_COUNT = 50;
   public static final int START_QC_CAPTURE_COUNT = 50;// this many to condition before tests
 
+  // adaptive mode: measure every capture after a short conditioning and stop as soon as the QCSequentialTest settles, still at most MAX_CAPTURE_COUNT + 1
+  public static final int ADAPTIVE_CONDITIONING_CAPTURE_COUNT = 5;
+  public static final int ADAPTIVE_MIN_MEASUREMENT_COUNT = 5;
+
   public static final float P_BELOW_MAX_MIN_V = .5f;// will only measure resistance if voltage is this percentage below the max or min v.
 
   // public static final float MIN_Q = 3;
@@ -30,6 +30,7 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.qc;
 import java.awt.GridBagConstraints;
 import java.awt.Insets;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -49,6 +50,12 @@ public class QCPreferencesPanel extends ExperimentPreferencesPanel {
   private JLabel frequencyLabel;
   private JTextField frequencyTextField;
 
+  private JLabel adaptiveLabel;
+  private JCheckBox adaptiveCheckBox;
+
+  private JLabel confidenceLabel;
+  private JTextField confidenceTextField;
+
   private JLabel savePathLabel;
   private JTextField savePathTextField;
 
@@ -103,6 +110,28 @@ public class QCPreferencesPanel extends ExperimentPreferencesPanel {
 
     gc.gridy++;
 
+    gc.gridx = 0;
+    this.adaptiveLabel = new JLabel("Stop Each Device When Settled:");
+    preferencesPanel.add(adaptiveLabel, gc);
+
+    gc.gridx = 1;
+    this.adaptiveCheckBox = new JCheckBox();
+    this.adaptiveCheckBox.setSelected(experimentPreferences.getBoolean(QCPreferences.ADAPTIVE_INIT_BOOLEAN_KEY, QCPreferences.ADAPTIVE_INIT_BOOLEAN_DEFAULT_VALUE));
+    preferencesPanel.add(adaptiveCheckBox, gc);
+
+    gc.gridy++;
+
+    gc.gridx = 0;
+    this.confidenceLabel = new JLabel("Decision Confidence:");
+    preferencesPanel.add(confidenceLabel, gc);
+
+    gc.gridx = 1;
+    this.confidenceTextField = new JTextField(12);
+    this.confidenceTextField.setText(String.valueOf(experimentPreferences.getFloat(QCPreferences.CONFIDENCE_INIT_FLOAT_KEY, QCPreferences.CONFIDENCE_INIT_FLOAT_DEFAULT_VALUE)));
+    preferencesPanel.add(confidenceTextField, gc);
+
+    gc.gridy++;
+
     gc.gridx = 0;
     this.savePathLabel = new JLabel("Report Save Path:");
     preferencesPanel.add(savePathLabel, gc);
@@ -120,6 +149,8 @@ public class QCPreferencesPanel extends ExperimentPreferencesPanel {
     experimentPreferences.setInteger(QCPreferences.SERIES_R_INIT_KEY, Integer.parseInt(shuntResistorTextField.getText()));
     experimentPreferences.setFloat(QCPreferences.AMPLITUDE_INIT_FLOAT_KEY, Float.parseFloat(amplitudeTextField.getText()));
     experimentPreferences.setInteger(QCPreferences.FREQUENCY_INIT_KEY, Integer.parseInt(frequencyTextField.getText()));
+    experimentPreferences.setBoolean(QCPreferences.ADAPTIVE_INIT_BOOLEAN_KEY, adaptiveCheckBox.isSelected());
+    experimentPreferences.setFloat(QCPreferences.CONFIDENCE_INIT_FLOAT_KEY, Float.parseFloat(confidenceTextField.getText()));
     experimentPreferences.setString(QCPreferences.REPORT_DIRECTORY_PATH_KEY, savePathTextField.getText());
   }
 
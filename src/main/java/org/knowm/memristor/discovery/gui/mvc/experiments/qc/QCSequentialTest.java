@@ -0,0 +1,260 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments.qc;
+
+import org.knowm.memristor.discovery.utils.RunningStatistics;
+
+/**
+ * Decides the QC PASS/FAIL of one memristor from as few captures as possible with a group sequential test. Each capture adds one HRS and one LRS measurement
+ * and after each one the running means are tested against R_TARGET and MIN_Q. Testing after every capture at the full 1 - confidence would make a wrong
+ * decision far more likely than 1 - confidence over all the looks, so that error rate is spent over the looks up to maxCount instead: by the power spending
+ * function alpha * (n / maxCount)^SPENDING_POWER, which like O'Brien-Fleming spends little on the early looks and keeps most of it for the last ones. Each look
+ * tests at the alpha spent since the look before, so by the union bound the error rate over all looks stays below alpha. The bounds are Student t bounds,
+ * since the variances are estimated from the same few measurements.
+ * <p>
+ * The memristor passes once LRS &lt; R_TARGET, HRS &gt; R_TARGET and HRS/LRS &gt; MIN_Q all hold at the level of the look and fails as soon as one of them is
+ * violated at that level, with the alpha of FAIL split over the three criteria since any one of them fails the memristor. Until then the decision is pending
+ * and the caller keeps capturing, up to maxCount measurements, after which isPassing() decides on the means.
+ * <p>
+ * The measurements must come from separate captures that don't overlap in time, otherwise they are correlated and the bounds are too narrow.
+ */
+public class QCSequentialTest {
+
+  public enum Decision {
+
+    PENDING, PASS, FAIL
+  }
+
+  static final double SPENDING_POWER = 3;
+  private static final int CRITERION_COUNT = 3;
+
+  private final double rTarget;
+  private final double minQ;
+  private final double alpha;
+  private final int minCount;
+  private final int maxCount;
+
+  private final RunningStatistics hrs = new RunningStatistics();
+  private final RunningStatistics lrs = new RunningStatistics();
+
+  /**
+   * Constructor
+   *
+   * @param rTarget - LRS must be below and HRS above this
+   * @param minQ - HRS/LRS must exceed this
+   * @param confidence - the probability that a settled decision is right, in (0.5, 1)
+   * @param minCount - the first look is after this many measurements, so the variances can be estimated
+   * @param maxCount - the most measurements the caller takes, the alpha is spent by then
+   */
+  public QCSequentialTest(double rTarget, double minQ, double confidence, int minCount, int maxCount) {
+
+    if (!(confidence > 0.5 && confidence < 1)) {
+      throw new IllegalArgumentException("Confidence must be between 0.5 and 1: " + confidence);
+    }
+    this.rTarget = rTarget;
+    this.minQ = minQ;
+    this.alpha = 1 - confidence;
+    this.minCount = Math.max(2, minCount);
+    this.maxCount = Math.max(this.minCount, maxCount);
+  }
+
+  /**
+   * Add the measurements of one capture.
+   *
+   * @param hrs - the high resistance state measured in the capture
+   * @param lrs - the low resistance state measured in the capture
+   */
+  public void add(double hrs, double lrs) {
+
+    this.hrs.add(hrs);
+    this.lrs.add(lrs);
+  }
+
+  /**
+   * Look at the measurements so far. Call once per added capture, each look spends part of the alpha.
+   *
+   * @return PASS or FAIL if the measurements so far settle the decision at the level of this look, PENDING otherwise
+   */
+  public Decision getDecision() {
+
+    int count = hrs.getCount();
+    if (count < minCount || count > maxCount) {
+      return Decision.PENDING;
+    }
+
+    // the alpha spent on this look: all that accumulated up to the first look, then the increment since the previous one
+    double lookAlpha = getSpentAlpha(count) - (count > minCount ? getSpentAlpha(count - 1) : 0);
+    int degreesOfFreedom = count - 1;
+    double passBound = studentQuantile(1 - lookAlpha, degreesOfFreedom);
+    double failBound = studentQuantile(1 - lookAlpha / CRITERION_COUNT, degreesOfFreedom);
+
+    double hrsMean = hrs.getMean();
+    double lrsMean = lrs.getMean();
+    double hrsError = Math.sqrt(hrs.getSampleVariance() / count);
+    double lrsError = Math.sqrt(lrs.getSampleVariance() / count);
+
+    // Q = HRS/LRS, through the relative errors of both means (delta method on log Q)
+    double logQError = Math.sqrt(hrs.getSampleVariance() / count / (hrsMean * hrsMean) + lrs.getSampleVariance() / count / (lrsMean * lrsMean));
+    double logQ = Math.log(getQ());
+    double logMinQ = Math.log(minQ);
+
+    if (lrsMean - failBound * lrsError >= rTarget || hrsMean + failBound * hrsError <= rTarget || logQ + failBound * logQError <= logMinQ) {
+      return Decision.FAIL;
+    }
+    if (lrsMean + passBound * lrsError < rTarget && hrsMean - passBound * hrsError > rTarget && logQ - passBound * logQError > logMinQ) {
+      return Decision.PASS;
+    }
+    return Decision.PENDING;
+  }
+
+  /**
+   * @return true if the means pass, whether or not that is settled, which is the decision once the caller runs out of captures
+   */
+  public boolean isPassing() {
+
+    return hrs.getCount() > 0 && lrs.getMean() < rTarget && hrs.getMean() > rTarget && getQ() > minQ;
+  }
+
+  /**
+   * @param count - the number of measurements
+   * @return the alpha spent on all looks up to count measurements
+   */
+  double getSpentAlpha(int count) {
+
+    return alpha * Math.pow(Math.min(1.0, (double) count / maxCount), SPENDING_POWER);
+  }
+
+  /**
+   * @param p - in (0.5, 1)
+   * @param degreesOfFreedom - at least 1
+   * @return t such that P(T &lt; t) = p for Student's t distribution, by bisection of studentUpperTail()
+   */
+  static double studentQuantile(double p, int degreesOfFreedom) {
+
+    double tail = 1 - p;
+    // the t quantile is above the normal one
+    double low = normalQuantile(p);
+    double high = 2 * low;
+    while (studentUpperTail(high, degreesOfFreedom) > tail) {
+      low = high;
+      high *= 2;
+    }
+    for (int i = 0; i < 60; i++) {
+      double t = (low + high) / 2;
+      if (studentUpperTail(t, degreesOfFreedom) > tail) {
+        low = t;
+      }
+      else {
+        high = t;
+      }
+    }
+    return high;
+  }
+
+  /**
+   * The finite series of the Student t CDF for whole degrees of freedom, Abramowitz and Stegun 26.7.3 and 26.7.4.
+   *
+   * @param t - positive
+   * @param degreesOfFreedom - at least 1
+   * @return P(T &gt; t)
+   */
+  static double studentUpperTail(double t, int degreesOfFreedom) {
+
+    double theta = Math.atan(t / Math.sqrt(degreesOfFreedom));
+    double cos2 = Math.cos(theta) * Math.cos(theta);
+    double sum;
+    double term;
+    double probabilityInside; // P(|T| < t)
+    if (degreesOfFreedom % 2 == 1) {
+      sum = 0;
+      if (degreesOfFreedom > 1) {
+        term = 1;
+        sum = 1;
+        for (int k = 3; k <= degreesOfFreedom - 2; k += 2) {
+          term *= cos2 * (k - 1) / k;
+          sum += term;
+        }
+      }
+      probabilityInside = 2 / Math.PI * (theta + Math.sin(theta) * Math.cos(theta) * sum);
+    }
+    else {
+      term = 1;
+      sum = 1;
+      for (int k = 2; k <= degreesOfFreedom - 2; k += 2) {
+        term *= cos2 * (k - 1) / k;
+        sum += term;
+      }
+      probabilityInside = Math.sin(theta) * sum;
+    }
+    return (1 - probabilityInside) / 2;
+  }
+
+  /**
+   * Acklam's rational approximation of the inverse standard normal CDF, relative error below 1.2E-9.
+   *
+   * @param p - in (0.5, 1)
+   * @return z such that P(Z &lt; z) = p
+   */
+  static double normalQuantile(double p) {
+
+    if (p <= 0.97575) {
+      double q = p - 0.5;
+      double r = q * q;
+      return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r
+          + 2.506628277459239e+00) * q / (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r + 6.680131188771972e+01) * r
+              - 1.328068155288572e+01) * r + 1);
+    }
+    double q = Math.sqrt(-2 * Math.log(1 - p));
+    return -(((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q
+        + 2.938163982698783e+00) / ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q + 3.754408661907416e+00) * q + 1);
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  public int getCount() {
+
+    return hrs.getCount();
+  }
+
+  public RunningStatistics getHrs() {
+
+    return hrs;
+  }
+
+  public RunningStatistics getLrs() {
+
+    return lrs;
+  }
+
+  public double getQ() {
+
+    return hrs.getMean() / lrs.getMean();
+  }
+}
@@ -36,6 +36,7 @@ import java.util.List;
 import javax.swing.SwingWorker;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.export.SeriesExporter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlPanel;
@@ -75,7 +76,7 @@ public class SynapseExperiment extends Experiment {
     plotController = new PlotController(plotPanel, plotModel);
     new ControlController(controlPanel, controlModel, dwfProxy);
     System.out.println(controlModel.getInstruction());
-    dwfProxy.setUpper8IOStates(controlModel.getInstruction().getBits());
+    dwfProxy.beginDigitalIOTransaction().setUpper8(controlModel.getInstruction().getBits()).commit();
   }
 
   @Override
@@ -111,7 +112,7 @@ public class SynapseExperiment extends Experiment {
 
       // Here, we have the desired instruction, now...
       // 1. the IO-bits are set (change things so they are set here),
-      dwfProxy.setUpper8IOStates(controlModel.getInstruction().getBits());
+      dwfProxy.beginDigitalIOTransaction().setUpper8(controlModel.getInstruction().getBits()).commit();
 
       // 2. set the waveforms ( change this to correct amplitude and sign based on instruction)
       // Get the waveform for the selected instruction
@@ -198,8 +199,12 @@ public class SynapseExperiment extends Experiment {
       //////////////////////////////////
 
       // set the FFLV instruction
-      dwfProxy.setUpper8IOStates(AHaHController.Instruction.FF.getBits());
+      dwfProxy.beginDigitalIOTransaction().setUpper8(AHaHController.Instruction.FF.getBits()).commit();
 
+      // TODO decide on the FFLV voltage ampl. and width. It's hardcoded here. Should be added to GUI as configurable?
+      // FFLV pulse: 0.1 V, 5 us pulse width
+      double[] fflvWaveform = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, 0.1, 100_000);
+      int readNumber = 0;
 
       while (!isCancelled()) {
 
@@ -225,10 +230,7 @@ public class SynapseExperiment extends Experiment {
         // Pulse Out /////////////////
         //////////////////////////////////
 
-        // TODO decide on the FFLV voltage ampl. and width. It's hardcoded here. Should be added to GUI as configurable?
-        // FFLV pulse: 0.1 V, 5 us pulse width
-        customWaveformW1 = WaveformUtils.generateCustomWaveform(Waveform.SquareSmooth, 0.1, 100_000);
-        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, 100_000, 0, 1, customWaveformW1);
+        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, 100_000, 0, 1, fflvWaveform);
 
         ////////////////////////////////
         // Read In /////////////////////
@@ -265,6 +267,7 @@ public class SynapseExperiment extends Experiment {
           }
           double yAve = runningTotal / (bufferLength - 6); // an array with one value: `y`
 
+          exportPoint(SeriesExporter.G, "y", ++readNumber, yAve);
           publish(yAve);
         }
         // Stop Analog In and Out
@@ -300,7 +303,7 @@ public class SynapseExperiment extends Experiment {
       case EVENT_INSTRUCTION_UPDATE:
 
         // System.out.println(controlModel.getInstruction());
-        // dwfProxy.setUpper8IOStates(controlModel.getInstruction().getBits());
+        // dwfProxy.beginDigitalIOTransaction().setUpper8(controlModel.getInstruction().getBits()).commit();
 
         break;
 
@@ -28,11 +28,10 @@
 package org.knowm.memristor.discovery.gui.mvc.experiments.synapse.plot;
 
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeSeriesRingBuffer;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse.SynapsePreferences;
 
 public class PlotControlModel extends ExperimentControlModel {
@@ -46,7 +45,7 @@ public class PlotControlModel extends ExperimentControlModel {
   Double yMaxGV = null;
   Double yMinGV = null;
 
-  List<Double> gData = new ArrayList<>();
+  TimeSeriesRingBuffer gData = new TimeSeriesRingBuffer(ExperimentPreferences.PULSE_HISTORY_SIZE, ExperimentPreferences.PULSE_HISTORY_BUCKET_COUNT);
 
   /**
    * Here is where the Controller registers itself as a listener to model changes.
@@ -109,7 +108,7 @@ public class PlotControlModel extends ExperimentControlModel {
 
   }
 
-  public List<Double> getGData() {
+  public TimeSeriesRingBuffer getGData() {
 
     return gData;
   }
@@ -32,13 +32,17 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import org.knowm.memristor.discovery.gui.mvc.experiments.ChartDecimator;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentControlModel;
+import org.knowm.memristor.discovery.gui.mvc.experiments.TimeSeriesRingBuffer;
 
 public class PlotController implements PropertyChangeListener {
 
   private final PlotPanel plotPanel;
   private final PlotControlModel plotModel;
 
+  private final ChartDecimator gChartDecimator;
+
   /**
    * Constructor
    *
@@ -49,6 +53,7 @@ public class PlotController implements PropertyChangeListener {
 
     this.plotPanel = plotPanel;
     this.plotModel = plotModel;
+    this.gChartDecimator = new ChartDecimator(plotPanel.getGChartPanel());
 
     initGUIComponents();
     setUpViewEvents();
@@ -85,11 +90,12 @@ public class PlotController implements PropertyChangeListener {
 
   public void updateYChartData(double conductance) {
 
-    plotModel.getGData().add(conductance);
+    TimeSeriesRingBuffer gData = plotModel.getGData();
+    gData.add(conductance);
     plotPanel.getGChart().getStyler().setYAxisMax(plotModel.getyMaxGV());
     plotPanel.getGChart().getStyler().setYAxisMin(0.0);
-    plotPanel.getGChart().updateXYSeries("y", null, plotModel.getGData(), null);
-    plotPanel.getGChart().updateXYSeries("ylast", new double[]{1, plotModel.getGData().size()}, new double[]{conductance, conductance}, null);
+    gChartDecimator.updateXYSeries("y", gData.getXData(), gData.getYData());
+    gChartDecimator.updateXYSeries("ylast", new double[]{gData.getFirstX(), gData.getLastX()}, new double[]{conductance, conductance});
   }
 
   public void repaintYChart() {
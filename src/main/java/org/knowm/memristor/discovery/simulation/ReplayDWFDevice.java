@@ -0,0 +1,486 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.simulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.knowm.memristor.discovery.DWFDevice;
+import org.knowm.memristor.discovery.capturelog.CaptureLogHeader;
+import org.knowm.memristor.discovery.capturelog.CaptureLogReader;
+import org.knowm.waveforms4j.DWF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A stand-in for an Analog Discovery 2 that plays back the V1/V2 frames of a {@link CaptureLogHeader capture log} instead of measuring. Each analog in status
+ * read with readData set delivers the next recorded frame, so the unchanged CaptureWorkers and batch protocols run their processing and plotting on old data.
+ * This gives a reproducible workload for profiling and lets old QC lots be re-scored with new thresholds without the hardware. Frames are either delivered with
+ * the recorded spacing or as fast as they are asked for. Analog out and the power supplies are accepted and ignored, the digital I/O is remembered.
+ */
+public class ReplayDWFDevice implements DWFDevice {
+
+  private final Logger logger = LoggerFactory.getLogger(ReplayDWFDevice.class);
+
+  public enum Pacing {
+
+    Recorded, AsFastAsPossible
+  }
+
+  private final Path captureLogPath;
+  private final Pacing pacing;
+  private final boolean isLooping;
+
+  private CaptureLogReader captureLogReader;
+  private CaptureLogReader.Frame pendingFrame;
+  private long previousCaptureNanos;
+  private long lastDeliveryNanos;
+  private boolean isExhausted;
+
+  private boolean isOpen = false;
+  private String lastErrorMsg = "";
+
+  private int digitalIOOutputEnableMask = 0;
+  private int digitalIOOutputSet = 0;
+  private int digitalIOStates = 0;
+
+  // Analog In
+  private boolean isAcquiring = false;
+  private DWF.AcquisitionMode acquisitionMode = DWF.AcquisitionMode.Single;
+  private byte acquisitionStatus = SimulatedDWFDevice.STATUS_READY;
+  private double[] ch1StatusData = new double[0];
+  private double[] ch2StatusData = new double[0];
+  private int samplesValid;
+
+  private long framesDelivered;
+  private long loopCount;
+
+  /**
+   * Constructor
+   *
+   * @param captureLogPath - the capture log to play back
+   * @param pacing - whether to keep the recorded time between frames
+   * @param isLooping - true to start over at the first frame after the last, false to stop delivering frames
+   */
+  public ReplayDWFDevice(Path captureLogPath, Pacing pacing, boolean isLooping) {
+
+    this.captureLogPath = captureLogPath;
+    this.pacing = pacing;
+    this.isLooping = isLooping;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDeviceOpen() {
+
+    closeCaptureLog();
+    try {
+      openCaptureLog();
+    } catch (IOException | IllegalArgumentException e) {
+      lastErrorMsg = "Could not open capture log " + captureLogPath + ": " + e.getMessage();
+      logger.error(lastErrorMsg);
+      return false;
+    }
+    logger.info("Replaying {} frames from {}", captureLogReader.getFrameCount(), captureLogPath);
+    framesDelivered = 0;
+    loopCount = 0;
+    isOpen = true;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceCloseAll() {
+
+    closeCaptureLog();
+    isAcquiring = false;
+    acquisitionStatus = SimulatedDWFDevice.STATUS_READY;
+    if (isOpen) {
+      logger.info("Replay of {} closed after {} frames and {} loops.", captureLogPath, framesDelivered, loopCount);
+    }
+    isOpen = false;
+    return true;
+  }
+
+  @Override
+  public synchronized String FDwfGetLastErrorMsg() {
+
+    return lastErrorMsg;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean setPowerSupply(int idxChannel, double value) {
+
+    return isOpen;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    digitalIOOutputEnableMask = outputEnableMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    digitalIOOutputSet = outputSetMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOConfigure() {
+
+    digitalIOStates = digitalIOOutputSet & digitalIOOutputEnableMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOReset() {
+
+    digitalIOOutputEnableMask = 0;
+    digitalIOOutputSet = 0;
+    digitalIOStates = 0;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalOutReset() {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized int getDigitalIOStatus() {
+
+    return digitalIOStates;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startWave(int idxChannel, DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean stopWave(int idxChannel) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean setCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startPulseTrain(int idxChannel) {
+
+    return isOpen;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    if (start) {
+      arm(acquisitionMode);
+    }
+    else {
+      isAcquiring = false;
+      acquisitionStatus = SimulatedDWFDevice.STATUS_READY;
+    }
+    return isOpen;
+  }
+
+  /**
+   * Deliver the next recorded frame if one is due. In Single mode the delivered frame stays until the next acquisition is started. In the continuous modes every
+   * read delivers a new frame and reads in between frames report no valid samples, so the same frame is never processed twice.
+   */
+  @Override
+  public synchronized byte FDwfAnalogInStatus(boolean readData) {
+
+    if (!isAcquiring || !readData) {
+      return acquisitionStatus;
+    }
+    if (acquisitionMode == DWF.AcquisitionMode.Single && acquisitionStatus == SimulatedDWFDevice.STATUS_DONE) {
+      return acquisitionStatus;
+    }
+
+    if (deliverNextFrame()) {
+      acquisitionStatus = SimulatedDWFDevice.STATUS_DONE;
+    }
+    else if (acquisitionMode != DWF.AcquisitionMode.Single) {
+      samplesValid = 0;
+      acquisitionStatus = SimulatedDWFDevice.STATUS_TRIGGERED;
+    }
+    return acquisitionStatus;
+  }
+
+  @Override
+  public synchronized int FDwfAnalogInStatusSamplesValid() {
+
+    return samplesValid;
+  }
+
+  @Override
+  public synchronized double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    double[] statusData = new double[Math.min(bufferSize, samplesValid)];
+    readAnalogInStatusData(idxChannel, statusData, statusData.length);
+    return statusData;
+  }
+
+  @Override
+  public synchronized int[] FDwfAnalogInStatusRecord() {
+
+    return new int[]{samplesValid, 0, 0};
+  }
+
+  @Override
+  public synchronized int readAnalogInStatusData(int idxChannel, double[] buffer, int length) {
+
+    double[] statusData = idxChannel == DWF.OSCILLOSCOPE_CHANNEL_1 ? ch1StatusData : ch2StatusData;
+    int samples = Math.min(length, samplesValid);
+    System.arraycopy(statusData, 0, buffer, 0, samples);
+    return samples;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsImmediately(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode) {
+
+    arm(acquisitionMode);
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsLevelTrigger(double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    arm(DWF.AcquisitionMode.Single);
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean stopAnalogCaptureBothChannels() {
+
+    return FDwfAnalogInConfigure(false, false);
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Replay ///////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  private void arm(DWF.AcquisitionMode acquisitionMode) {
+
+    this.acquisitionMode = acquisitionMode;
+    isAcquiring = isOpen;
+    samplesValid = 0;
+    acquisitionStatus = SimulatedDWFDevice.STATUS_ARMED;
+  }
+
+  /**
+   * @return true if a frame was copied into the status data, false if the next one isn't due yet or the log is exhausted
+   */
+  private boolean deliverNextFrame() {
+
+    if (pendingFrame == null && !readNextFrame()) {
+      return false;
+    }
+
+    long now = System.nanoTime();
+    if (pacing == Pacing.Recorded && framesDelivered > 0 && now - lastDeliveryNanos < pendingFrame.getCaptureNanos() - previousCaptureNanos) {
+      return false;
+    }
+
+    int length = pendingFrame.getLength();
+    if (ch1StatusData.length < length) {
+      ch1StatusData = new double[length];
+      ch2StatusData = new double[length];
+    }
+    System.arraycopy(pendingFrame.getV1(), 0, ch1StatusData, 0, length);
+    System.arraycopy(pendingFrame.getV2(), 0, ch2StatusData, 0, length);
+    samplesValid = length;
+
+    previousCaptureNanos = pendingFrame.getCaptureNanos();
+    lastDeliveryNanos = now;
+    pendingFrame = null;
+    framesDelivered++;
+    return true;
+  }
+
+  /**
+   * @return true if pendingFrame holds the next frame of the log, starting over at the first one if looping
+   */
+  private boolean readNextFrame() {
+
+    if (isExhausted) {
+      return false;
+    }
+    try {
+      pendingFrame = captureLogReader.next();
+      if (pendingFrame == null && isLooping && captureLogReader.getFrameCount() > 0) {
+        closeCaptureLog();
+        openCaptureLog();
+        loopCount++;
+        pendingFrame = captureLogReader.next();
+        // the first frame of the next loop follows the last one right away
+        previousCaptureNanos = pendingFrame == null ? 0 : pendingFrame.getCaptureNanos();
+      }
+    } catch (IOException e) {
+      lastErrorMsg = "Could not read capture log " + captureLogPath + ": " + e.getMessage();
+      logger.error(lastErrorMsg);
+      pendingFrame = null;
+    }
+    if (pendingFrame == null) {
+      isExhausted = true;
+      logger.info("Replay of {} finished after {} frames.", captureLogPath, framesDelivered);
+      return false;
+    }
+    return true;
+  }
+
+  private void openCaptureLog() throws IOException {
+
+    captureLogReader = new CaptureLogReader(captureLogPath);
+    pendingFrame = null;
+    isExhausted = false;
+  }
+
+  private void closeCaptureLog() {
+
+    if (captureLogReader != null) {
+      try {
+        captureLogReader.close();
+      } catch (IOException e) {
+        logger.warn("Could not close capture log " + captureLogPath, e);
+      }
+      captureLogReader = null;
+    }
+    pendingFrame = null;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  /**
+   * @return the header of the capture log being played back, or null if the device isn't open
+   */
+  public synchronized CaptureLogHeader getCaptureLogHeader() {
+
+    return captureLogReader == null ? null : captureLogReader.getHeader();
+  }
+
+  public Pacing getPacing() {
+
+    return pacing;
+  }
+
+  /**
+   * @param path
+   * @return true if path is the capture log being played back, which must not be written to
+   */
+  public boolean isReplaying(Path path) {
+
+    return path.toAbsolutePath().normalize().equals(captureLogPath.toAbsolutePath().normalize());
+  }
+
+  /**
+   * @return the number of frames delivered since the device was opened
+   */
+  public synchronized long getFramesDelivered() {
+
+    return framesDelivered;
+  }
+
+  /**
+   * @return the number of times the log was started over
+   */
+  public synchronized long getLoopCount() {
+
+    return loopCount;
+  }
+
+  /**
+   * @return true once the last frame was delivered and the device is not looping
+   */
+  public synchronized boolean isExhausted() {
+
+    return isExhausted;
+  }
+}
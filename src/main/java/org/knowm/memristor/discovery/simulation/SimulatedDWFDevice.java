@@ -0,0 +1,680 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knowm.memristor.discovery.DWFDevice;
+import org.knowm.memristor.discovery.utils.Util;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * A pure-Java stand-in for an Analog Discovery 2 wired to a Memristor Discovery board. Waveform generator channel 1 drives the memristor selected by the lower 8
+ * digital I/O bits in series with a fixed series resistor (plus the analog switch resistance). Oscilloscope channel 1 sees the applied voltage (V1) and channel
+ * 2 sees the voltage across the series resistor (V2). Samples are generated lazily at the requested sample rate against the wall clock, so status polling,
+ * triggering and buffer fill times behave like the real hardware and the CaptureWorkers can be run and profiled without a device attached.
+ */
+public class SimulatedDWFDevice implements DWFDevice {
+
+  public static final byte STATUS_READY = 0;
+  public static final byte STATUS_ARMED = 1;
+  public static final byte STATUS_DONE = 2;
+  public static final byte STATUS_TRIGGERED = 3;
+  public static final byte STATUS_PREFILL = 5;
+
+  public static final int NUM_MEMRISTORS = 8;
+  public static final double SERIES_R_DEFAULT_VALUE = 5_000;
+
+  private static final double CUSTOM_WAVEFORM_AMPLITUDE = 5.0;
+  private static final double NOISE_RMS = 0.0005;
+  private static final int MAX_CATCH_UP_STEPS = 2_000_000;
+  private static final int IDLE_STEPS_PER_PERIOD = 64;
+
+  private final SimulatedMemristor[] memristors = new SimulatedMemristor[NUM_MEMRISTORS];
+  private final Random random;
+  private final long epochNanos = System.nanoTime();
+
+  private double seriesResistance;
+
+  private boolean isOpen = false;
+  private String lastErrorMsg = "";
+
+  private int digitalIOOutputEnableMask = 0;
+  private int digitalIOOutputSet = 0;
+  private int digitalIOStates = 0;
+
+  private final AnalogOut[] analogOuts = new AnalogOut[]{new AnalogOut(), new AnalogOut()};
+
+  private double simulatedTime = 0;
+
+  // Analog In
+  private double sampleFrequency;
+  private int bufferSize;
+  private DWF.AcquisitionMode acquisitionMode = DWF.AcquisitionMode.Single;
+  private boolean isLevelTriggered;
+  private double triggerLevel;
+  private byte acquisitionStatus = STATUS_READY;
+  private double[] ch1Buffer = new double[0];
+  private double[] ch2Buffer = new double[0];
+  private int writeIndex;
+  private long samplesAcquired;
+  private int preTriggerSamples;
+  private int postTriggerSamplesRemaining;
+  private double lastV1;
+
+  private double[] ch1StatusData = new double[0];
+  private double[] ch2StatusData = new double[0];
+  private int samplesValid;
+  private long recordReadSequence;
+  private int recordSamplesLost;
+
+  /**
+   * Constructor
+   *
+   * @param seriesResistance - the series resistor in Ohms, should match the series resistance set in the experiment
+   * @param seed - seed for device-to-device variation and measurement noise, for reproducible runs
+   */
+  public SimulatedDWFDevice(double seriesResistance, long seed) {
+
+    this.seriesResistance = seriesResistance;
+    this.random = new Random(seed);
+    for (int i = 0; i < NUM_MEMRISTORS; i++) {
+      double variation = 1 + 0.2 * (random.nextDouble() - 0.5);
+      memristors[i] = new SimulatedMemristor(SimulatedMemristor.R_ON_DEFAULT_VALUE * variation, SimulatedMemristor.R_OFF_DEFAULT_VALUE * variation, 0);
+    }
+  }
+
+  /**
+   * Constructor
+   */
+  public SimulatedDWFDevice() {
+
+    this(SERIES_R_DEFAULT_VALUE, 0L);
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDeviceOpen() {
+
+    isOpen = true;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceCloseAll() {
+
+    advanceTo(now());
+    analogOuts[0].isRunning = false;
+    analogOuts[1].isRunning = false;
+    acquisitionStatus = STATUS_READY;
+    isOpen = false;
+    return true;
+  }
+
+  @Override
+  public synchronized String FDwfGetLastErrorMsg() {
+
+    return lastErrorMsg;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean setPowerSupply(int idxChannel, double value) {
+
+    return isOpen;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    digitalIOOutputEnableMask = outputEnableMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    digitalIOOutputSet = outputSetMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOConfigure() {
+
+    // finish driving the currently selected memristor before switching to the new one
+    advanceTo(now());
+    digitalIOStates = digitalIOOutputSet & digitalIOOutputEnableMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOReset() {
+
+    advanceTo(now());
+    digitalIOOutputEnableMask = 0;
+    digitalIOOutputSet = 0;
+    digitalIOStates = 0;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalOutReset() {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized int getDigitalIOStatus() {
+
+    return digitalIOStates;
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    for (AnalogOut analogOut : getAnalogOuts(idxChannel)) {
+      analogOut.offset = offset;
+    }
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    advanceTo(now());
+    for (AnalogOut analogOut : getAnalogOuts(idxChannel)) {
+      analogOut.isRunning = start;
+      analogOut.startTime = simulatedTime;
+    }
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startWave(int idxChannel, DWF.Waveform waveform, double frequency, double amplitude, double offset, double dutyCycle) {
+
+    advanceTo(now());
+    for (AnalogOut analogOut : getAnalogOuts(idxChannel)) {
+      analogOut.waveform = waveform;
+      analogOut.frequency = frequency;
+      analogOut.amplitude = amplitude;
+      analogOut.offset = offset;
+      analogOut.dutyCycle = dutyCycle;
+      analogOut.customData = null;
+      analogOut.numPulses = 0;
+      analogOut.isRunning = true;
+      analogOut.startTime = simulatedTime;
+    }
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean stopWave(int idxChannel) {
+
+    return FDwfAnalogOutConfigure(idxChannel, false);
+  }
+
+  @Override
+  public synchronized boolean setCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    for (AnalogOut analogOut : getAnalogOuts(idxChannel)) {
+      analogOut.waveform = DWF.Waveform.Custom;
+      analogOut.frequency = frequency;
+      analogOut.amplitude = CUSTOM_WAVEFORM_AMPLITUDE;
+      analogOut.offset = offset;
+      analogOut.customData = rgdData;
+      analogOut.numPulses = numPulses;
+    }
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startCustomPulseTrain(int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    setCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    return startPulseTrain(idxChannel);
+  }
+
+  @Override
+  public synchronized boolean startPulseTrain(int idxChannel) {
+
+    return FDwfAnalogOutConfigure(idxChannel, true);
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    advanceTo(now());
+    if (start) {
+      arm();
+    }
+    else {
+      acquisitionStatus = STATUS_READY;
+    }
+    return isOpen;
+  }
+
+  @Override
+  public synchronized byte FDwfAnalogInStatus(boolean readData) {
+
+    advanceTo(now());
+    if (readData) {
+      readStatusData();
+    }
+    return acquisitionStatus;
+  }
+
+  @Override
+  public synchronized int FDwfAnalogInStatusSamplesValid() {
+
+    return samplesValid;
+  }
+
+  @Override
+  public synchronized double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    double[] statusData = idxChannel == DWF.OSCILLOSCOPE_CHANNEL_1 ? ch1StatusData : ch2StatusData;
+    return Arrays.copyOf(statusData, Math.min(bufferSize, samplesValid));
+  }
+
+  @Override
+  public synchronized int[] FDwfAnalogInStatusRecord() {
+
+    return new int[]{samplesValid, recordSamplesLost, 0};
+  }
+
+  @Override
+  public synchronized int readAnalogInStatusData(int idxChannel, double[] buffer, int length) {
+
+    double[] statusData = idxChannel == DWF.OSCILLOSCOPE_CHANNEL_1 ? ch1StatusData : ch2StatusData;
+    int samples = Math.min(length, samplesValid);
+    System.arraycopy(statusData, 0, buffer, 0, samples);
+    return samples;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsImmediately(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode) {
+
+    advanceTo(now());
+    configureAcquisition(sampleFrequency, bufferSize, acquisitionMode, false, 0);
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsLevelTrigger(double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    advanceTo(now());
+    configureAcquisition(sampleFrequency, bufferSize, DWF.AcquisitionMode.Single, true, triggerLevel);
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean stopAnalogCaptureBothChannels() {
+
+    return FDwfAnalogInConfigure(false, false);
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Simulation ///////////////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  private void configureAcquisition(double sampleFrequency, int bufferSize, DWF.AcquisitionMode acquisitionMode, boolean isLevelTriggered, double triggerLevel) {
+
+    // like the real hardware, requests larger than the device buffer are silently clipped
+    this.bufferSize = Math.max(1, Math.min(bufferSize, DWF.AD2_MAX_BUFFER_SIZE));
+    this.sampleFrequency = sampleFrequency;
+    this.acquisitionMode = acquisitionMode;
+    this.isLevelTriggered = isLevelTriggered;
+    this.triggerLevel = triggerLevel;
+    if (ch1Buffer.length != this.bufferSize) {
+      ch1Buffer = new double[this.bufferSize];
+      ch2Buffer = new double[this.bufferSize];
+    }
+    arm();
+  }
+
+  private void arm() {
+
+    writeIndex = 0;
+    samplesAcquired = 0;
+    samplesValid = 0;
+    recordReadSequence = 0;
+    recordSamplesLost = 0;
+    lastV1 = analogOuts[0].getValue(simulatedTime);
+    if (isLevelTriggered) {
+      // the same trigger position as the DWF binding
+      preTriggerSamples = (int) (bufferSize * LEVEL_TRIGGER_PRE_TRIGGER_FRACTION);
+      postTriggerSamplesRemaining = bufferSize - preTriggerSamples;
+      acquisitionStatus = preTriggerSamples > 0 ? STATUS_PREFILL : STATUS_ARMED;
+    }
+    else {
+      preTriggerSamples = 0;
+      postTriggerSamplesRemaining = bufferSize;
+      acquisitionStatus = STATUS_TRIGGERED;
+    }
+  }
+
+  private boolean isAcquiring() {
+
+    if (acquisitionStatus == STATUS_DONE) {
+      // the scan modes keep shifting new samples in after reporting done
+      return acquisitionMode != DWF.AcquisitionMode.Single;
+    }
+    return acquisitionStatus == STATUS_PREFILL || acquisitionStatus == STATUS_ARMED || acquisitionStatus == STATUS_TRIGGERED;
+  }
+
+  private double now() {
+
+    return (System.nanoTime() - epochNanos) / 1e9;
+  }
+
+  /**
+   * Integrate the circuit from the current simulated time up to the given time, producing samples for an active acquisition along the way.
+   *
+   * @param time
+   */
+  private void advanceTo(double time) {
+
+    if (time <= simulatedTime) {
+      return;
+    }
+
+    if (isAcquiring()) {
+      double dt = 1.0 / sampleFrequency;
+      long steps = (long) ((time - simulatedTime) / dt);
+      if (steps > MAX_CATCH_UP_STEPS) {
+        // a stalled poller: skip ahead rather than spend seconds catching up
+        simulatedTime = time - MAX_CATCH_UP_STEPS * dt;
+        steps = MAX_CATCH_UP_STEPS;
+      }
+      boolean isWaiting = acquisitionStatus != STATUS_TRIGGERED || acquisitionMode != DWF.AcquisitionMode.Single;
+      if (isWaiting && steps > bufferSize && analogOuts[0].isIdle(simulatedTime)) {
+        // nothing is driving the circuit, so no trigger can occur and only the newest buffer's worth of samples can ever be read back
+        long skipped = steps - bufferSize;
+        simulatedTime += skipped * dt;
+        samplesAcquired += skipped;
+        writeIndex = (int) ((writeIndex + skipped) % bufferSize);
+        steps = bufferSize;
+      }
+      while (steps-- > 0 && isAcquiring()) {
+        simulatedTime += dt;
+        acquireSample(dt);
+      }
+      if (isAcquiring()) {
+        return;
+      }
+    }
+
+    double idleStep = getIdleStep();
+    if (idleStep > 0) {
+      long steps = Math.min((long) ((time - simulatedTime) / idleStep), MAX_CATCH_UP_STEPS);
+      while (steps-- > 0) {
+        simulatedTime += idleStep;
+        drive(analogOuts[0].getValue(simulatedTime), idleStep);
+      }
+    }
+    simulatedTime = time;
+  }
+
+  /**
+   * @return the integration step to use while no acquisition is running, or 0 if nothing is driving the memristor
+   */
+  private double getIdleStep() {
+
+    AnalogOut analogOut = analogOuts[0];
+    if (analogOut.isIdle(simulatedTime) || analogOut.frequency <= 0) {
+      return 0;
+    }
+    return 1.0 / analogOut.frequency / IDLE_STEPS_PER_PERIOD;
+  }
+
+  /**
+   * Apply V1 to the memristor/series resistor divider for dt seconds.
+   *
+   * @param v1
+   * @param dt
+   * @return V2, the voltage across the series resistor
+   */
+  private double drive(double v1, double dt) {
+
+    SimulatedMemristor memristor = getSelectedMemristor();
+    double totalResistance = memristor.getResistance() + seriesResistance + Util.getSwitchesSeriesResistance();
+    double current = v1 / totalResistance;
+    memristor.step(current * memristor.getResistance(), dt);
+    return current * seriesResistance;
+  }
+
+  private void acquireSample(double dt) {
+
+    double v1 = analogOuts[0].getValue(simulatedTime);
+    double v2 = drive(v1, dt);
+
+    ch1Buffer[writeIndex] = v1 + NOISE_RMS * random.nextGaussian();
+    ch2Buffer[writeIndex] = v2 + NOISE_RMS * random.nextGaussian();
+    writeIndex = (writeIndex + 1) % bufferSize;
+    samplesAcquired++;
+
+    switch (acquisitionStatus) {
+      case STATUS_PREFILL:
+        if (samplesAcquired >= preTriggerSamples) {
+          acquisitionStatus = STATUS_ARMED;
+        }
+        break;
+      case STATUS_ARMED:
+        boolean isRising = triggerLevel >= 0 && lastV1 < triggerLevel && v1 >= triggerLevel;
+        boolean isFalling = triggerLevel < 0 && lastV1 > triggerLevel && v1 <= triggerLevel;
+        if (isRising || isFalling) {
+          acquisitionStatus = STATUS_TRIGGERED;
+          postTriggerSamplesRemaining--;
+        }
+        break;
+      case STATUS_TRIGGERED:
+        if (acquisitionMode == DWF.AcquisitionMode.Single) {
+          if (--postTriggerSamplesRemaining <= 0) {
+            acquisitionStatus = STATUS_DONE;
+          }
+        }
+        else if (acquisitionMode != DWF.AcquisitionMode.Record && samplesAcquired >= bufferSize) {
+          // a record runs indefinitely and never reports done
+          acquisitionStatus = STATUS_DONE;
+        }
+        break;
+      default:
+        break;
+    }
+    lastV1 = v1;
+  }
+
+  /**
+   * Copy the acquisition buffer into the status data arrays in chronological order, as FDwfAnalogInStatus(true) does on the real device.
+   */
+  private void readStatusData() {
+
+    if (acquisitionMode == DWF.AcquisitionMode.Record) {
+      readRecordData();
+      return;
+    }
+    samplesValid = (int) Math.min(samplesAcquired, bufferSize);
+    if (ch1StatusData.length < samplesValid) {
+      ch1StatusData = new double[bufferSize];
+      ch2StatusData = new double[bufferSize];
+    }
+    int oldestIndex = samplesAcquired > bufferSize ? writeIndex : 0;
+    for (int i = 0; i < samplesValid; i++) {
+      int index = (oldestIndex + i) % bufferSize;
+      ch1StatusData[i] = ch1Buffer[index];
+      ch2StatusData[i] = ch2Buffer[index];
+    }
+  }
+
+  /**
+   * Copy only the samples acquired since the previous status read. Anything older than one device buffer has been overwritten and is reported as lost.
+   */
+  private void readRecordData() {
+
+    long available = samplesAcquired - recordReadSequence;
+    recordSamplesLost = (int) Math.max(0, available - bufferSize);
+    samplesValid = (int) Math.min(available, bufferSize);
+    recordReadSequence = samplesAcquired;
+    if (ch1StatusData.length < samplesValid) {
+      ch1StatusData = new double[bufferSize];
+      ch2StatusData = new double[bufferSize];
+    }
+    int oldestIndex = (writeIndex - samplesValid + bufferSize) % bufferSize;
+    for (int i = 0; i < samplesValid; i++) {
+      int index = (oldestIndex + i) % bufferSize;
+      ch1StatusData[i] = ch1Buffer[index];
+      ch2StatusData[i] = ch2Buffer[index];
+    }
+  }
+
+  private AnalogOut[] getAnalogOuts(int idxChannel) {
+
+    if (idxChannel == DWF.WAVEFORM_CHANNEL_BOTH) {
+      return analogOuts;
+    }
+    return new AnalogOut[]{analogOuts[idxChannel]};
+  }
+
+  /**
+   * The lowest set bit of the lower 8 digital I/O lines selects the memristor. With no bit set memristor 0 is driven.
+   *
+   * @return
+   */
+  private SimulatedMemristor getSelectedMemristor() {
+
+    int lower8 = digitalIOStates & 0b1111_1111;
+    int index = lower8 == 0 ? 0 : Integer.numberOfTrailingZeros(lower8);
+    return memristors[index];
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  public synchronized void setSeriesResistance(double seriesResistance) {
+
+    this.seriesResistance = seriesResistance;
+  }
+
+  public synchronized double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public SimulatedMemristor getMemristor(int index) {
+
+    return memristors[index];
+  }
+
+  /**
+   * One waveform generator channel.
+   */
+  private static class AnalogOut {
+
+    private boolean isRunning = false;
+    private double startTime;
+    private DWF.Waveform waveform = DWF.Waveform.DC;
+    private double frequency;
+    private double amplitude;
+    private double offset;
+    private double dutyCycle = 50;
+    private double[] customData;
+    private int numPulses;
+
+    private boolean isIdle(double time) {
+
+      return !isRunning || (numPulses > 0 && (time - startTime) * frequency >= numPulses);
+    }
+
+    private double getValue(double time) {
+
+      if (!isRunning) {
+        return 0;
+      }
+      double elapsedPeriods = (time - startTime) * frequency;
+      if (elapsedPeriods < 0 || (numPulses > 0 && elapsedPeriods >= numPulses)) {
+        return offset;
+      }
+      double phase = elapsedPeriods - Math.floor(elapsedPeriods);
+
+      if (customData != null && customData.length > 0) {
+        return offset + amplitude * customData[(int) (phase * customData.length)];
+      }
+      switch (waveform) {
+        case DC:
+          return offset;
+        case Sine:
+          return offset + amplitude * Math.sin(2 * Math.PI * phase);
+        case Square:
+          return offset + (phase < dutyCycle / 100 ? amplitude : -amplitude);
+        default:
+          // Triangle, and custom shapes started without data
+          if (phase < 0.25) {
+            return offset + amplitude * 4 * phase;
+          }
+          else if (phase < 0.75) {
+            return offset + amplitude * (2 - 4 * phase);
+          }
+          return offset + amplitude * (4 * phase - 4);
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.simulation;
+
+/**
+ * A simple threshold-switching memristor model used by the SimulatedDWFDevice. The state variable x runs from 0 (high resistance state) to 1 (low resistance
+ * state) and the conductance is linearly interpolated between 1/R_OFF and 1/R_ON. Above the set threshold (or below the reset threshold) x moves towards 1 (or
+ * 0) at a rate that grows exponentially with the over-drive voltage, which gives pinched hysteresis loops for sine drives and incremental, pulse-width
+ * dependent conductance changes for short pulses.
+ */
+public class SimulatedMemristor {
+
+  public static final double R_ON_DEFAULT_VALUE = 20_000;
+  public static final double R_OFF_DEFAULT_VALUE = 500_000;
+
+  private static final double V_ON = 0.27;
+  private static final double V_OFF = -0.15;
+  private static final double V_SCALE = 0.15;
+  private static final double TAU_ON = 1e-3;
+  private static final double TAU_OFF = 1e-3;
+
+  private final double rOn;
+  private final double rOff;
+
+  private double x;
+
+  /**
+   * Constructor
+   *
+   * @param rOn - the resistance in Ohms when fully switched on (x=1)
+   * @param rOff - the resistance in Ohms when fully switched off (x=0)
+   * @param x - the initial state between 0 and 1
+   */
+  public SimulatedMemristor(double rOn, double rOff, double x) {
+
+    this.rOn = rOn;
+    this.rOff = rOff;
+    this.x = Math.max(0, Math.min(1, x));
+  }
+
+  /**
+   * Advance the internal state given the voltage across the device held constant for dt seconds. The exact solution of the first-order rate equation is used so
+   * the step is stable for any dt.
+   *
+   * @param voltage
+   * @param dt
+   */
+  public void step(double voltage, double dt) {
+
+    if (voltage > V_ON) {
+      double rate = (Math.exp((voltage - V_ON) / V_SCALE) - 1) / TAU_ON;
+      x = 1 - (1 - x) * Math.exp(-rate * dt);
+    }
+    else if (voltage < V_OFF) {
+      double rate = (Math.exp((V_OFF - voltage) / V_SCALE) - 1) / TAU_OFF;
+      x = x * Math.exp(-rate * dt);
+    }
+  }
+
+  public double getConductance() {
+
+    return 1 / rOff + x * (1 / rOn - 1 / rOff);
+  }
+
+  public double getResistance() {
+
+    return 1 / getConductance();
+  }
+
+  public double getState() {
+
+    return x;
+  }
+
+  public void setState(double x) {
+
+    this.x = Math.max(0, Math.min(1, x));
+  }
+}
@@ -0,0 +1,247 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.streaming;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A single-producer, multi-consumer ring buffer of two-channel (V1, V2) samples. The producer never blocks or waits for readers: each reader owns a
+ * {@link Cursor} and detects for itself when it has fallen more than one buffer behind, in which case the overwritten samples are counted as overrun and
+ * skipped.
+ * <p>
+ * The producer writes under a StampedLock write lock and readers copy under an optimistic read, which they validate after the copy. A copy that overlapped
+ * a write is discarded and retried. validate() orders the plain array reads of the copy before its check, which a re-read of a volatile sequence alone
+ * doesn't, and since readers never take the lock the producer never waits for them.
+ */
+public class SampleRingBuffer {
+
+  private final int capacity;
+  private final int mask;
+  private final double[] ch1Buffer;
+  private final double[] ch2Buffer;
+
+  /**
+   * total number of samples ever written. Written only by the producer, after the sample data, so a reader that sees a sequence also sees its data.
+   */
+  private volatile long writeSequence = 0;
+
+  /**
+   * held by the producer while it overwrites sample data, readers only validate optimistic reads against it
+   */
+  private final StampedLock lock = new StampedLock();
+
+  /**
+   * Constructor
+   *
+   * @param minCapacity the capacity is rounded up to the next power of two
+   */
+  public SampleRingBuffer(int minCapacity) {
+
+    int capacity = Integer.highestOneBit(Math.max(2, minCapacity));
+    if (capacity < minCapacity) {
+      capacity <<= 1;
+    }
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+    this.ch1Buffer = new double[capacity];
+    this.ch2Buffer = new double[capacity];
+  }
+
+  /**
+   * Append samples. Must only be called from the single producer thread.
+   *
+   * @param ch1Data
+   * @param ch2Data
+   * @param length
+   */
+  public void write(double[] ch1Data, double[] ch2Data, int length) {
+
+    long sequence = writeSequence;
+    int offset = 0;
+    if (length > capacity) {
+      // only the newest capacity samples can survive anyway
+      offset = length - capacity;
+      sequence += offset;
+    }
+    long stamp = lock.writeLock();
+    try {
+      while (offset < length) {
+        int index = (int) (sequence & mask);
+        int count = Math.min(length - offset, capacity - index);
+        System.arraycopy(ch1Data, offset, ch1Buffer, index, count);
+        System.arraycopy(ch2Data, offset, ch2Buffer, index, count);
+        offset += count;
+        sequence += count;
+      }
+      writeSequence = sequence;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Copy the newest samples without consuming anything, for sliding-window displays. Safe to call from any thread.
+   *
+   * @param ch1Data
+   * @param ch2Data
+   * @param length
+   * @return the number of samples copied, less than length only until that many have been written
+   */
+  public int copyLatest(double[] ch1Data, double[] ch2Data, int length) {
+
+    while (true) {
+      long stamp = lock.tryOptimisticRead();
+      long end = writeSequence;
+      int count = (int) Math.min(Math.min(end, length), capacity);
+      copy(end - count, ch1Data, ch2Data, count);
+      if (lock.validate(stamp)) {
+        return count;
+      }
+      // the producer wrote during the copy, try again with newer data
+    }
+  }
+
+  private void copy(long fromSequence, double[] ch1Data, double[] ch2Data, int length) {
+
+    int offset = 0;
+    while (offset < length) {
+      int index = (int) ((fromSequence + offset) & mask);
+      int count = Math.min(length - offset, capacity - index);
+      System.arraycopy(ch1Buffer, index, ch1Data, offset, count);
+      System.arraycopy(ch2Buffer, index, ch2Data, offset, count);
+      offset += count;
+    }
+  }
+
+  /**
+   * @return a new reader positioned at the current end of the stream
+   */
+  public Cursor newCursor() {
+
+    return new Cursor(writeSequence);
+  }
+
+  public long getWriteSequence() {
+
+    return writeSequence;
+  }
+
+  public int getCapacity() {
+
+    return capacity;
+  }
+
+  /**
+   * A reader's position in the stream. A Cursor must only be used from one thread.
+   */
+  public class Cursor {
+
+    private long sequence;
+    private long overrunSamples = 0;
+    private long skippedSamples = 0;
+
+    private Cursor(long sequence) {
+
+      this.sequence = sequence;
+    }
+
+    /**
+     * Copy up to maxLength of the oldest unread samples.
+     *
+     * @param ch1Data
+     * @param ch2Data
+     * @param maxLength
+     * @return the number of samples copied
+     */
+    public int read(double[] ch1Data, double[] ch2Data, int maxLength) {
+
+      while (true) {
+
+        long stamp = lock.tryOptimisticRead();
+        long available = writeSequence - sequence;
+        if (available <= 0) {
+          return 0;
+        }
+        long overrun = Math.max(0, available - capacity);
+        int length = (int) Math.min(available - overrun, maxLength);
+        copy(sequence + overrun, ch1Data, ch2Data, length);
+
+        // if the producer wrote during the copy, some of what was copied may already be newer data. Drop it and try again, counting what was lapped then.
+        if (!lock.validate(stamp)) {
+          continue;
+        }
+        overrunSamples += overrun;
+        sequence += overrun + length;
+        return length;
+      }
+    }
+
+    /**
+     * Copy up to maxLength of the newest samples, skipping anything older. Intended for displays, which only ever need the most recent window. Skipped
+     * samples are counted separately from overruns since they are dropped on purpose.
+     *
+     * @param ch1Data
+     * @param ch2Data
+     * @param maxLength
+     * @return the number of samples copied
+     */
+    public int readLatest(double[] ch1Data, double[] ch2Data, int maxLength) {
+
+      long available = writeSequence - sequence;
+      if (available > maxLength) {
+        long skip = available - maxLength;
+        skippedSamples += skip;
+        sequence += skip;
+      }
+      return read(ch1Data, ch2Data, maxLength);
+    }
+
+    /**
+     * @return the number of unread samples, which may exceed the capacity if this reader has been overrun
+     */
+    public long available() {
+
+      return writeSequence - sequence;
+    }
+
+    public long getSequence() {
+
+      return sequence;
+    }
+
+    public long getOverrunSamples() {
+
+      return overrunSamples;
+    }
+
+    public long getSkippedSamples() {
+
+      return skippedSamples;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drains a {@link SampleRingBuffer} to disk on its own daemon thread so file I/O never stalls acquisition or plotting. Samples are written as interleaved
+ * little-endian float64 (V1, V2) pairs.
+ */
+public class StreamFileSink {
+
+  private final Logger logger = LoggerFactory.getLogger(StreamFileSink.class);
+
+  private static final int CHUNK_SIZE = 4096;
+  private static final long IDLE_SLEEP_MILLIS = 20;
+
+  private final SampleRingBuffer.Cursor cursor;
+  private final Path path;
+
+  private volatile boolean isRunning = false;
+  private volatile long samplesWritten = 0;
+  private Thread thread;
+
+  /**
+   * Constructor
+   *
+   * @param ringBuffer
+   * @param path
+   */
+  public StreamFileSink(SampleRingBuffer ringBuffer, Path path) {
+
+    this.cursor = ringBuffer.newCursor();
+    this.path = path;
+  }
+
+  public void start() {
+
+    isRunning = true;
+    thread = new Thread(new Runnable() {
+
+      @Override
+      public void run() {
+
+        drain();
+      }
+    }, "stream-file-sink");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Write out whatever is left in the ring buffer, then close the file.
+   */
+  public void stop() {
+
+    isRunning = false;
+    if (thread != null) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void drain() {
+
+    double[] ch1Data = new double[CHUNK_SIZE];
+    double[] ch2Data = new double[CHUNK_SIZE];
+    ByteBuffer byteBuffer = ByteBuffer.allocateDirect(CHUNK_SIZE * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+      while (true) {
+        boolean wasRunning = isRunning;
+        int length = cursor.read(ch1Data, ch2Data, CHUNK_SIZE);
+        if (length == 0) {
+          if (!wasRunning) {
+            break;
+          }
+          Thread.sleep(IDLE_SLEEP_MILLIS);
+          continue;
+        }
+        byteBuffer.clear();
+        for (int i = 0; i < length; i++) {
+          byteBuffer.putDouble(ch1Data[i]);
+          byteBuffer.putDouble(ch2Data[i]);
+        }
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+          fileChannel.write(byteBuffer);
+        }
+        samplesWritten += length;
+      }
+    } catch (IOException e) {
+      logger.error("Error writing stream to " + path, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (cursor.getOverrunSamples() > 0) {
+      logger.warn("Stream file sink fell behind and dropped " + cursor.getOverrunSamples() + " samples.");
+    }
+    logger.debug("Wrote " + samplesWritten + " samples to " + path);
+  }
+
+  public long getSamplesWritten() {
+
+    return samplesWritten;
+  }
+
+  public long getOverrunSamples() {
+
+    return cursor.getOverrunSamples();
+  }
+
+  public Path getPath() {
+
+    return path;
+  }
+}
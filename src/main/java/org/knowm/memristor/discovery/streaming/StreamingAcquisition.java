@@ -0,0 +1,140 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.streaming;
+
+import org.knowm.memristor.discovery.DWFDevice;
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs both oscilloscope channels in AcquisitionMode.Record and moves only the samples acquired since the previous poll into a {@link SampleRingBuffer}.
+ * Unlike repeatedly reading a ScanShift buffer, nothing is read twice, and any gap in the stream is reported by the device and counted here rather than
+ * silently papered over.
+ */
+public class StreamingAcquisition {
+
+  private final Logger logger = LoggerFactory.getLogger(StreamingAcquisition.class);
+
+  private final DWFDevice dwf;
+  private final SampleRingBuffer ringBuffer;
+
+  // the samples of one poll, reused so polling doesn't allocate
+  private final double[] ch1Data = new double[DWF.AD2_MAX_BUFFER_SIZE];
+  private final double[] ch2Data = new double[DWF.AD2_MAX_BUFFER_SIZE];
+
+  private volatile double sampleFrequency;
+  private volatile long samplesAcquired = 0;
+  private volatile long samplesLost = 0;
+  private volatile long samplesCorrupt = 0;
+
+  /**
+   * Constructor
+   *
+   * @param dwf
+   * @param ringBufferCapacity
+   */
+  public StreamingAcquisition(DWFDevice dwf, int ringBufferCapacity) {
+
+    this.dwf = dwf;
+    this.ringBuffer = new SampleRingBuffer(ringBufferCapacity);
+  }
+
+  /**
+   * Start (or restart at a new rate) an indefinite record. The ring buffer and its readers are kept, so a rate change does not disturb the consumers.
+   *
+   * @param sampleFrequency
+   * @return true if the device accepted the configuration
+   */
+  public boolean start(double sampleFrequency) {
+
+    this.sampleFrequency = sampleFrequency;
+    return dwf.startAnalogCaptureBothChannelsImmediately(sampleFrequency, DWF.AD2_MAX_BUFFER_SIZE, AcquisitionMode.Record);
+  }
+
+  public boolean stop() {
+
+    return dwf.stopAnalogCaptureBothChannels();
+  }
+
+  /**
+   * Fetch whatever the device has acquired since the last poll and append it to the ring buffer. Must only be called from one thread. The device buffer
+   * holds DWF.AD2_MAX_BUFFER_SIZE samples, so the poll period must stay well below DWF.AD2_MAX_BUFFER_SIZE / sampleFrequency to avoid losing samples.
+   *
+   * @return the number of new samples
+   */
+  public int poll() {
+
+    dwf.FDwfAnalogInStatus(true);
+    int[] record = dwf.FDwfAnalogInStatusRecord();
+    int available = record[0];
+    int lost = record[1];
+    int corrupt = record[2];
+
+    if (lost > 0 || corrupt > 0) {
+      samplesLost += lost;
+      samplesCorrupt += corrupt;
+      logger.warn("Record stream gap: " + lost + " samples lost, " + corrupt + " samples corrupt. Poll more often or lower the sample rate.");
+    }
+
+    if (available > 0) {
+      int length = dwf.readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, ch1Data, Math.min(available, ch1Data.length));
+      length = Math.min(length, dwf.readAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, ch2Data, length));
+      ringBuffer.write(ch1Data, ch2Data, length);
+      samplesAcquired += length;
+      return length;
+    }
+    return 0;
+  }
+
+  public SampleRingBuffer getRingBuffer() {
+
+    return ringBuffer;
+  }
+
+  public double getSampleFrequency() {
+
+    return sampleFrequency;
+  }
+
+  public long getSamplesAcquired() {
+
+    return samplesAcquired;
+  }
+
+  public long getSamplesLost() {
+
+    return samplesLost;
+  }
+
+  public long getSamplesCorrupt() {
+
+    return samplesCorrupt;
+  }
+}
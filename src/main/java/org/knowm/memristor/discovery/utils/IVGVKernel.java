@@ -0,0 +1,109 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.utils;
+
+/**
+ * Derives memristor voltage, current and conductance from raw oscilloscope data in a single pass. V1 is the voltage applied to the memristor and series
+ * resistor and V2 the voltage across the series resistor, so I = V2 / R_series and G = I / (V1 - V2). Negative conductances are clamped to zero.
+ * <p>
+ * With switch correction, the voltage dropped across the board's analog switches (I * Util.getSwitchesSeriesResistance()) is taken off the memristor
+ * voltage as well.
+ */
+public class IVGVKernel {
+
+  /**
+   * Fill any of the given output buffers. A null output is skipped.
+   *
+   * @param v1
+   * @param v2
+   * @param length - the number of samples to process
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param currentDivisor - unit divisor for the current output, e.g. CurrentUnits.getDivisor()
+   * @param conductanceDivisor - unit divisor for the conductance output, e.g. ConductanceUnits.getDivisor()
+   * @param vMemristor - the voltage across the memristor, in V
+   * @param current
+   * @param conductance
+   */
+  public static void derive(double[] v1, double[] v2, int length, double seriesResistance, boolean isSwitchCorrected, double currentDivisor,
+      double conductanceDivisor, double[] vMemristor, double[] current, double[] conductance) {
+
+    double switchesResistance = isSwitchCorrected ? Util.getSwitchesSeriesResistance() : 0.0;
+    double inverseSeriesResistance = 1.0 / seriesResistance;
+    boolean isVMemristor = vMemristor != null;
+    boolean isCurrent = current != null;
+    boolean isConductance = conductance != null;
+
+    for (int i = 0; i < length; i++) {
+
+      double I = v2[i] * inverseSeriesResistance;
+      double V = v1[i] - v2[i] - I * switchesResistance;
+
+      if (isVMemristor) {
+        vMemristor[i] = V;
+      }
+      if (isCurrent) {
+        current[i] = I * currentDivisor;
+      }
+      if (isConductance) {
+        double G = I / V * conductanceDivisor;
+        conductance[i] = G < 0 ? 0 : G;
+      }
+    }
+  }
+
+  /**
+   * The mean conductance over a range of samples, as used to read a memristor's state from a read pulse.
+   *
+   * @param v1
+   * @param v2
+   * @param fromIndex - inclusive
+   * @param toIndex - exclusive
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param conductanceDivisor
+   * @return the mean conductance, NaN if the range is empty
+   */
+  public static double averageConductance(double[] v1, double[] v2, int fromIndex, int toIndex, double seriesResistance, boolean isSwitchCorrected,
+      double conductanceDivisor) {
+
+    double switchesResistance = isSwitchCorrected ? Util.getSwitchesSeriesResistance() : 0.0;
+    double inverseSeriesResistance = 1.0 / seriesResistance;
+    if (UnrolledKernels.IS_ENABLED) {
+      return UnrolledKernels.averageConductance(v1, v2, fromIndex, toIndex, inverseSeriesResistance, switchesResistance, conductanceDivisor);
+    }
+
+    double runningTotal = 0.0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      double I = v2[i] * inverseSeriesResistance;
+      double G = I / (v1[i] - v2[i] - I * switchesResistance);
+      runningTotal += G < 0 ? 0 : G;
+    }
+    return runningTotal / (toIndex - fromIndex) * conductanceDivisor;
+  }
+}
@@ -16,17 +16,47 @@ public class PostProcessDataUtils {
    */
   public static double[][] trimIdleData(double[] v1, double[] v2, double v1Threshold, int windowBuffer) {
 
+    int[] activeRange = getActiveRange(v1, v1.length, v1Threshold, windowBuffer);
+    int startIndex = activeRange[0];
+    int bufferLength = activeRange[1] - startIndex;
+
+    double[] V1Cleaned = new double[bufferLength];
+    double[] V2Cleaned = new double[bufferLength];
+    System.arraycopy(v1, startIndex, V1Cleaned, 0, bufferLength);
+    System.arraycopy(v2, startIndex, V2Cleaned, 0, bufferLength);
+    return new double[][]{V1Cleaned, V2Cleaned};
+  }
+
+  /**
+   * The range of samples trimIdleData keeps, for callers that copy the trimmed data into buffers of their own.
+   *
+   * @param v1
+   * @param length - the number of valid samples in v1
+   * @param v1Threshold
+   * @param windowBuffer - how many data points outside the window should be included
+   * @return {startIndex, endIndex}, endIndex exclusive
+   */
+  public static int[] getActiveRange(double[] v1, int length, double v1Threshold, int windowBuffer) {
+
     double vThresholdAbs = Math.abs(v1Threshold);
+    if (UnrolledKernels.IS_ENABLED) {
+      int first = UnrolledKernels.indexOfAbsAbove(v1, 0, length, vThresholdAbs);
+      int last = UnrolledKernels.lastIndexOfAbsAbove(v1, 1, length, vThresholdAbs);
+      int startIndex = first < 0 ? 0 : Math.max(0, first - windowBuffer);
+      int endIndex = last < 0 ? length - 1 : Math.min(length - 1, last + windowBuffer);
+      return new int[]{startIndex, Math.max(startIndex, endIndex)};
+    }
+
     int startIndex = 0;
-    for (int i = 0; i < v1.length; i++) {
+    for (int i = 0; i < length; i++) {
       if (Math.abs(v1[i]) > vThresholdAbs) {
         startIndex = Math.max(startIndex, i - windowBuffer);
         break;
       }
     }
     // System.out.println("startIndex = " + startIndex);
-    int endIndex = v1.length - 1;
-    for (int i = v1.length - 1; i > 0; i--) {
+    int endIndex = length - 1;
+    for (int i = length - 1; i > 0; i--) {
       if (Math.abs(v1[i]) > vThresholdAbs) {
         endIndex = Math.min(endIndex, i + windowBuffer);
         break;
@@ -34,15 +64,7 @@ public class PostProcessDataUtils {
     }
     // System.out.println("endIndex = " + endIndex);
 
-    int bufferLength = endIndex - startIndex;
-
-    double[] V1Cleaned = new double[bufferLength];
-    double[] V2Cleaned = new double[bufferLength];
-    for (int i = 0; i < bufferLength; i++) {
-      V1Cleaned[i] = v1[i + startIndex];
-      V2Cleaned[i] = v2[i + startIndex];
-    }
-    return new double[][]{V1Cleaned, V2Cleaned};
+    return new int[]{startIndex, Math.max(startIndex, endIndex)};
   }
 
   /**
@@ -54,27 +76,52 @@ public class PostProcessDataUtils {
    */
   public static double[] zeroIdleData(double[] v1, double[] v2, double v1Threshold) {
 
+    double[] V2Zeroed = new double[v1.length];
+    zeroIdleData(v1, v2, V2Zeroed, v1.length, v1Threshold);
+    return V2Zeroed;
+  }
+
+  /**
+   * Set all V2 data to zero where V1 is less than a given threshold, into a buffer of the caller's
+   *
+   * @param v1
+   * @param v2
+   * @param out - must not be v2
+   * @param length - the number of samples to process
+   * @param v1Threshold
+   */
+  public static void zeroIdleData(double[] v1, double[] v2, double[] out, int length, double v1Threshold) {
+
     double vThresholdAbs = Math.abs(v1Threshold);
 
-    double[] V2Zeroed = new double[v1.length];
-    V2Zeroed[0] = 0;
-    V2Zeroed[V2Zeroed.length - 1] = 0;
-    for (int i = 1; i < V2Zeroed.length - 1; i++) {
+    if (UnrolledKernels.IS_ENABLED) {
+      UnrolledKernels.zeroIdle(v1, v2, out, length, vThresholdAbs);
+      return;
+    }
+    if (length == 0) {
+      return;
+    }
+    out[0] = 0;
+    out[length - 1] = 0;
+    for (int i = 1; i < length - 1; i++) {
       if (Math.abs(v1[i]) > vThresholdAbs) {
-        V2Zeroed[i] = v2[i];
+        out[i] = v2[i];
       }
       else {
-        V2Zeroed[i - 1] = 0;
-        V2Zeroed[i] = 0;
-        V2Zeroed[i + 1] = 0;
+        out[i - 1] = 0;
+        out[i] = 0;
+        out[i + 1] = 0;
       }
     }
-    return V2Zeroed;
   }
 
   public static double[] getV1MinusV2(double[] v1, double[] v2) {
 
     double[] V2MinusV1 = new double[v1.length];
+    if (UnrolledKernels.IS_ENABLED) {
+      UnrolledKernels.subtract(v1, v2, V2MinusV1, v1.length);
+      return V2MinusV1;
+    }
     for (int i = 0; i < V2MinusV1.length; i++) {
       V2MinusV1[i] = v1[i] - v2[i];
     }
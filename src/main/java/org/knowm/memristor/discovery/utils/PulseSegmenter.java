@@ -0,0 +1,253 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a capture of a pulse train into its individual pulses and measures each one. A pulse starts where |V1| rises above the threshold and ends at the
+ * last sample above it before at least minGap samples below it, so ripple on a pulse's flat top or noise around the threshold doesn't split it. A
+ * continuous waveform like the DC sweeps has no gaps to split on, so its captures are split into whole periods from the trigger instead, and a pulse train
+ * whose pulses may follow each other without a gap is split into periods that are then trimmed to their pulse.
+ * <p>
+ * Per pulse, with V the memristor voltage and I the current as in IVGVKernel: the energy delivered to the memristor (the sum of V * I * dt), the peak |I| and
+ * the conductance as the least-squares slope of I over V (the sum of I * V over the sum of V * V), which weights the samples by voltage so a pulse's rising
+ * and falling edges, where I / V is mostly noise, barely count.
+ */
+public class PulseSegmenter {
+
+  /**
+   * One pulse of a capture.
+   */
+  public static class Pulse {
+
+    private final int fromIndex;
+    private final int toIndex;
+    private final double energy;
+    private final double peakCurrent;
+    private final double conductance;
+
+    /**
+     * Constructor
+     *
+     * @param fromIndex
+     * @param toIndex
+     * @param energy
+     * @param peakCurrent
+     * @param conductance
+     */
+    public Pulse(int fromIndex, int toIndex, double energy, double peakCurrent, double conductance) {
+
+      this.fromIndex = fromIndex;
+      this.toIndex = toIndex;
+      this.energy = energy;
+      this.peakCurrent = peakCurrent;
+      this.conductance = conductance;
+    }
+
+    /**
+     * @return the index of the first sample of the pulse
+     */
+    public int getFromIndex() {
+
+      return fromIndex;
+    }
+
+    /**
+     * @return the index after the last sample of the pulse
+     */
+    public int getToIndex() {
+
+      return toIndex;
+    }
+
+    /**
+     * @return the energy delivered to the memristor, in J
+     */
+    public double getEnergy() {
+
+      return energy;
+    }
+
+    /**
+     * @return the peak absolute current, in the unit of the current divisor
+     */
+    public double getPeakCurrent() {
+
+      return peakCurrent;
+    }
+
+    /**
+     * @return the conductance, in the unit of the conductance divisor, NaN if the pulse has no voltage across the memristor
+     */
+    public double getConductance() {
+
+      return conductance;
+    }
+  }
+
+  /**
+   * @param v1
+   * @param length - the number of samples to search
+   * @param threshold - compared against |V1|, must be positive
+   * @param minGap - the number of samples below the threshold that end a pulse
+   * @return the [fromIndex, toIndex) ranges of the pulses, in order
+   */
+  public static List<int[]> findPulses(double[] v1, int length, double threshold, int minGap) {
+
+    List<int[]> pulses = new ArrayList<>();
+    int fromIndex = -1;
+    int lastAboveIndex = -1;
+    for (int i = 0; i < length; i++) {
+      if (Math.abs(v1[i]) > threshold) {
+        if (fromIndex < 0) {
+          fromIndex = i;
+        }
+        lastAboveIndex = i;
+      }
+      else if (fromIndex >= 0 && i - lastAboveIndex >= minGap) {
+        pulses.add(new int[]{fromIndex, lastAboveIndex + 1});
+        fromIndex = -1;
+      }
+    }
+    if (fromIndex >= 0) {
+      pulses.add(new int[]{fromIndex, lastAboveIndex + 1});
+    }
+    return pulses;
+  }
+
+  /**
+   * @param length - the number of samples
+   * @param samplesPerPeriod
+   * @param periodCount - the most periods to return
+   * @return the [fromIndex, toIndex) ranges of the whole periods from the start of the capture, in order
+   */
+  public static List<int[]> findPeriods(int length, int samplesPerPeriod, int periodCount) {
+
+    List<int[]> periods = new ArrayList<>();
+    for (int fromIndex = 0; periods.size() < periodCount && fromIndex + samplesPerPeriod <= length; fromIndex += samplesPerPeriod) {
+      periods.add(new int[]{fromIndex, fromIndex + samplesPerPeriod});
+    }
+    return periods;
+  }
+
+  /**
+   * Trim each range to its pulse, e.g. each period found by findPeriods(): from the first sample with |V1| above the threshold to the last one before at
+   * least minGap samples below it, as in findPulses(). Samples of the next pulse at the end of a range, when the trigger fired a little late, are cut off
+   * with the gap before them. Unlike findPulses() this needs no gap between the pulses, so waveforms that drop straight into the next pulse, like Sawtooth,
+   * are split as reliably as ones with a gap.
+   *
+   * @param v1
+   * @param ranges - the [fromIndex, toIndex) ranges to trim
+   * @param threshold - compared against |V1|, must be positive
+   * @param minGap - the number of samples below the threshold that end a pulse
+   * @return the trimmed ranges, in order, without the ones that never rise above the threshold
+   */
+  public static List<int[]> trimToThreshold(double[] v1, List<int[]> ranges, double threshold, int minGap) {
+
+    List<int[]> trimmedRanges = new ArrayList<>();
+    for (int[] range : ranges) {
+      int fromIndex = range[0];
+      while (fromIndex < range[1] && Math.abs(v1[fromIndex]) <= threshold) {
+        fromIndex++;
+      }
+      if (fromIndex == range[1]) {
+        continue;
+      }
+      int lastAboveIndex = fromIndex;
+      for (int i = fromIndex + 1; i < range[1] && i - lastAboveIndex < minGap; i++) {
+        if (Math.abs(v1[i]) > threshold) {
+          lastAboveIndex = i;
+        }
+      }
+      trimmedRanges.add(new int[]{fromIndex, lastAboveIndex + 1});
+    }
+    return trimmedRanges;
+  }
+
+  /**
+   * Find the pulses of a capture and measure each one.
+   *
+   * @param v1
+   * @param v2
+   * @param length - the number of samples to search
+   * @param threshold - compared against |V1|, must be positive
+   * @param minGap - the number of samples below the threshold that end a pulse
+   * @param sampleFrequency
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param currentDivisor - unit divisor for the peak current, e.g. CurrentUnits.getDivisor()
+   * @param conductanceDivisor - unit divisor for the conductance, e.g. ConductanceUnits.getDivisor()
+   * @return the pulses, in order
+   */
+  public static List<Pulse> segment(double[] v1, double[] v2, int length, double threshold, int minGap, double sampleFrequency, double seriesResistance,
+      boolean isSwitchCorrected, double currentDivisor, double conductanceDivisor) {
+
+    return measure(v1, v2, findPulses(v1, length, threshold, minGap), sampleFrequency, seriesResistance, isSwitchCorrected, currentDivisor,
+        conductanceDivisor);
+  }
+
+  /**
+   * Measure the given ranges of a capture, see findPulses() and findPeriods().
+   *
+   * @param v1
+   * @param v2
+   * @param ranges - the [fromIndex, toIndex) ranges to measure
+   * @param sampleFrequency
+   * @param seriesResistance
+   * @param isSwitchCorrected
+   * @param currentDivisor - unit divisor for the peak current, e.g. CurrentUnits.getDivisor()
+   * @param conductanceDivisor - unit divisor for the conductance, e.g. ConductanceUnits.getDivisor()
+   * @return a pulse per range, in order
+   */
+  public static List<Pulse> measure(double[] v1, double[] v2, List<int[]> ranges, double sampleFrequency, double seriesResistance, boolean isSwitchCorrected,
+      double currentDivisor, double conductanceDivisor) {
+
+    double switchesResistance = isSwitchCorrected ? Util.getSwitchesSeriesResistance() : 0.0;
+    double inverseSeriesResistance = 1.0 / seriesResistance;
+    double dt = 1.0 / sampleFrequency;
+
+    List<Pulse> pulses = new ArrayList<>();
+    for (int[] range : ranges) {
+      double power = 0.0;
+      double voltageSquared = 0.0;
+      double peakCurrent = 0.0;
+      for (int i = range[0]; i < range[1]; i++) {
+        double I = v2[i] * inverseSeriesResistance;
+        double V = v1[i] - v2[i] - I * switchesResistance;
+        power += V * I;
+        voltageSquared += V * V;
+        peakCurrent = Math.max(peakCurrent, Math.abs(I));
+      }
+      double conductance = voltageSquared > 0 ? Math.max(0, power / voltageSquared) * conductanceDivisor : Double.NaN;
+      pulses.add(new Pulse(range[0], range[1], power * dt, peakCurrent * currentDivisor, conductance));
+    }
+    return pulses;
+  }
+}
@@ -0,0 +1,282 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.utils;
+
+/**
+ * Single-pass statistics of a stream of values: count, mean and variance (Welford's algorithm), min and max with the index at which they were first seen, and
+ * optionally quantiles estimated with the P² algorithm. Adding a value allocates nothing, so an instance can be fed sample by sample from a capture loop and
+ * read at any time, and reset() makes it reusable from frame to frame. Not thread safe.
+ */
+public class RunningStatistics {
+
+  private final P2Quantile[] quantiles;
+
+  private int count;
+  private double mean;
+  private double m2;
+  private double min;
+  private double max;
+  private int minIndex;
+  private int maxIndex;
+
+  /**
+   * Constructor
+   *
+   * @param quantiles - the quantiles to estimate, e.g. 0.5 for the median, each in (0, 1)
+   */
+  public RunningStatistics(double... quantiles) {
+
+    this.quantiles = new P2Quantile[quantiles.length];
+    for (int i = 0; i < quantiles.length; i++) {
+      if (!(quantiles[i] > 0 && quantiles[i] < 1)) {
+        throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantiles[i]);
+      }
+      this.quantiles[i] = new P2Quantile(quantiles[i]);
+    }
+  }
+
+  public void add(double value) {
+
+    if (count == 0 || value < min) {
+      min = value;
+      minIndex = count;
+    }
+    if (count == 0 || value > max) {
+      max = value;
+      maxIndex = count;
+    }
+
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+
+    for (P2Quantile quantile : quantiles) {
+      quantile.add(value);
+    }
+  }
+
+  public void reset() {
+
+    count = 0;
+    mean = 0;
+    m2 = 0;
+    min = 0;
+    max = 0;
+    minIndex = 0;
+    maxIndex = 0;
+    for (P2Quantile quantile : quantiles) {
+      quantile.count = 0;
+    }
+  }
+
+  /////////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  /////////////////////////////////////////////////////////////
+
+  public int getCount() {
+
+    return count;
+  }
+
+  /**
+   * @return the mean, or 0 if nothing was added
+   */
+  public double getMean() {
+
+    return mean;
+  }
+
+  /**
+   * @return the population variance, i.e. divided by the count
+   */
+  public double getVariance() {
+
+    return count > 0 ? m2 / count : 0;
+  }
+
+  /**
+   * @return the sample variance, i.e. divided by the count - 1
+   */
+  public double getSampleVariance() {
+
+    return count > 1 ? m2 / (count - 1) : 0;
+  }
+
+  /**
+   * @return the population standard deviation
+   */
+  public double getStd() {
+
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * @return the smallest value, or 0 if nothing was added
+   */
+  public double getMin() {
+
+    return min;
+  }
+
+  /**
+   * @return the largest value, or 0 if nothing was added
+   */
+  public double getMax() {
+
+    return max;
+  }
+
+  /**
+   * @return the index of the first occurrence of the smallest value
+   */
+  public int getMinIndex() {
+
+    return minIndex;
+  }
+
+  /**
+   * @return the index of the first occurrence of the largest value
+   */
+  public int getMaxIndex() {
+
+    return maxIndex;
+  }
+
+  /**
+   * @param p - one of the quantiles given to the constructor
+   * @return the estimate of the p-quantile, exact for up to 5 values, or NaN if nothing was added
+   */
+  public double getQuantile(double p) {
+
+    for (P2Quantile quantile : quantiles) {
+      if (quantile.p == p) {
+        return quantile.get();
+      }
+    }
+    throw new IllegalArgumentException("Quantile " + p + " is not estimated.");
+  }
+
+  @Override
+  public String toString() {
+
+    return "RunningStatistics [count=" + count + ", mean=" + mean + ", std=" + getStd() + ", min=" + min + ", max=" + max + "]";
+  }
+
+  /**
+   * The P² estimate of one quantile (Jain and Chlamtac, 1985): five markers whose heights track the minimum, the p/2, p, (1+p)/2 quantiles and the maximum,
+   * adjusted with a piecewise-parabolic fit as values arrive.
+   */
+  private static class P2Quantile {
+
+    private final double p;
+    private final double[] heights = new double[5];
+    private final int[] positions = new int[5];
+    private final double[] desiredPositions = new double[5];
+    private final double[] increments;
+
+    private int count;
+
+    P2Quantile(double p) {
+
+      this.p = p;
+      this.increments = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+    }
+
+    void add(double value) {
+
+      if (count < 5) {
+        // keep the first values sorted, they become the initial marker heights
+        int i = count++;
+        while (i > 0 && heights[i - 1] > value) {
+          heights[i] = heights[i - 1];
+          i--;
+        }
+        heights[i] = value;
+        if (count == 5) {
+          for (int j = 0; j < 5; j++) {
+            positions[j] = j;
+            desiredPositions[j] = 4 * increments[j];
+          }
+        }
+        return;
+      }
+      count++;
+
+      int k;
+      if (value < heights[0]) {
+        heights[0] = value;
+        k = 0;
+      }
+      else if (value >= heights[4]) {
+        heights[4] = value;
+        k = 3;
+      }
+      else {
+        k = 0;
+        while (value >= heights[k + 1]) {
+          k++;
+        }
+      }
+      for (int i = k + 1; i < 5; i++) {
+        positions[i]++;
+      }
+      for (int i = 0; i < 5; i++) {
+        desiredPositions[i] += increments[i];
+      }
+
+      for (int i = 1; i < 4; i++) {
+        double d = desiredPositions[i] - positions[i];
+        if ((d >= 1 && positions[i + 1] - positions[i] > 1) || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+          int step = d > 0 ? 1 : -1;
+          double parabolic = heights[i] + step / (double) (positions[i + 1] - positions[i - 1]) * ((positions[i] - positions[i - 1] + step) * (heights[i + 1]
+              - heights[i]) / (positions[i + 1] - positions[i]) + (positions[i + 1] - positions[i] - step) * (heights[i] - heights[i - 1]) / (positions[i]
+                  - positions[i - 1]));
+          if (heights[i - 1] < parabolic && parabolic < heights[i + 1]) {
+            heights[i] = parabolic;
+          }
+          else {
+            heights[i] += step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+          }
+          positions[i] += step;
+        }
+      }
+    }
+
+    double get() {
+
+      if (count == 0) {
+        return Double.NaN;
+      }
+      if (count <= 5) {
+        return heights[(int) Math.round(p * (count - 1))];
+      }
+      return heights[2];
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.utils;
+
+/**
+ * Branch-light versions of the per-capture post-processing loops in PostProcessDataUtils and IVGVKernel. The threshold scans test 4 samples per branch with
+ * non-short-circuit ORs, the idle zeroing is a single select per sample, and the conductance average keeps 4 independent sums so consecutive additions don't
+ * wait on each other.
+ * <p>
+ * They are off by default: on a recent C2 the original scalar loops already run at a few microseconds per 8192-sample capture and the unrolled forms measured
+ * no faster (see UnrolledKernelsBenchmark). Start the JVM with -Dmemristor.unrolledKernels=true to have PostProcessDataUtils and IVGVKernel use them, e.g. on
+ * an older JIT that doesn't unroll the scalar loops itself. Results are identical except for the summation order of averageConductance.
+ */
+public class UnrolledKernels {
+
+  public static final boolean IS_ENABLED = Boolean.getBoolean("memristor.unrolledKernels");
+
+  private static final int LANES = 4;
+
+  /**
+   * @param values
+   * @param fromIndex - inclusive
+   * @param toIndex - exclusive
+   * @param threshold - compared against the absolute values, must not be negative
+   * @return the index of the first value with an absolute value above threshold, or -1 if there is none
+   */
+  public static int indexOfAbsAbove(double[] values, int fromIndex, int toIndex, double threshold) {
+
+    int i = fromIndex;
+    for (; i <= toIndex - LANES; i += LANES) {
+      if (Math.abs(values[i]) > threshold | Math.abs(values[i + 1]) > threshold | Math.abs(values[i + 2]) > threshold | Math.abs(values[i + 3]) > threshold) {
+        break;
+      }
+    }
+    for (; i < toIndex; i++) {
+      if (Math.abs(values[i]) > threshold) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param values
+   * @param fromIndex - inclusive
+   * @param toIndex - exclusive
+   * @param threshold - compared against the absolute values, must not be negative
+   * @return the index of the last value with an absolute value above threshold, or -1 if there is none
+   */
+  public static int lastIndexOfAbsAbove(double[] values, int fromIndex, int toIndex, double threshold) {
+
+    int i = toIndex - 1;
+    for (; i >= fromIndex + LANES - 1; i -= LANES) {
+      if (Math.abs(values[i]) > threshold | Math.abs(values[i - 1]) > threshold | Math.abs(values[i - 2]) > threshold | Math.abs(values[i - 3]) > threshold) {
+        break;
+      }
+    }
+    for (; i >= fromIndex; i--) {
+      if (Math.abs(values[i]) > threshold) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * out[i] = a[i] - b[i]
+   *
+   * @param a
+   * @param b
+   * @param out - may be a or b
+   * @param length
+   */
+  public static void subtract(double[] a, double[] b, double[] out, int length) {
+
+    for (int i = 0; i < length; i++) {
+      out[i] = a[i] - b[i];
+    }
+  }
+
+  /**
+   * The result of PostProcessDataUtils.zeroIdleData in one select per sample: V2 is kept where V1 and the next V1 sample are both above the threshold (the
+   * last sample before the end only needs its own V1 above it) and zeroed elsewhere, including the first and last sample.
+   *
+   * @param v1
+   * @param v2
+   * @param out - must not be v2
+   * @param length
+   * @param threshold - compared against the absolute V1 values, must not be negative
+   */
+  public static void zeroIdle(double[] v1, double[] v2, double[] out, int length, double threshold) {
+
+    if (length == 0) {
+      return;
+    }
+    out[0] = 0;
+    boolean isNextActive = length > 1 && Math.abs(v1[1]) > threshold;
+    for (int i = 1; i < length - 2; i++) {
+      boolean isActive = isNextActive;
+      isNextActive = Math.abs(v1[i + 1]) > threshold;
+      out[i] = isActive & isNextActive ? v2[i] : 0.0;
+    }
+    if (length > 2) {
+      out[length - 2] = Math.abs(v1[length - 2]) > threshold ? v2[length - 2] : 0.0;
+    }
+    out[length - 1] = 0;
+  }
+
+  /**
+   * IVGVKernel.averageConductance with 4 partial sums.
+   */
+  public static double averageConductance(double[] v1, double[] v2, int fromIndex, int toIndex, double inverseSeriesResistance, double switchesResistance,
+      double conductanceDivisor) {
+
+    double sum0 = 0.0;
+    double sum1 = 0.0;
+    double sum2 = 0.0;
+    double sum3 = 0.0;
+    int i = fromIndex;
+    for (; i <= toIndex - LANES; i += LANES) {
+      sum0 += conductance(v1[i], v2[i], inverseSeriesResistance, switchesResistance);
+      sum1 += conductance(v1[i + 1], v2[i + 1], inverseSeriesResistance, switchesResistance);
+      sum2 += conductance(v1[i + 2], v2[i + 2], inverseSeriesResistance, switchesResistance);
+      sum3 += conductance(v1[i + 3], v2[i + 3], inverseSeriesResistance, switchesResistance);
+    }
+    for (; i < toIndex; i++) {
+      sum0 += conductance(v1[i], v2[i], inverseSeriesResistance, switchesResistance);
+    }
+    return ((sum0 + sum1) + (sum2 + sum3)) / (toIndex - fromIndex) * conductanceDivisor;
+  }
+
+  private static double conductance(double v1, double v2, double inverseSeriesResistance, double switchesResistance) {
+
+    double I = v2 * inverseSeriesResistance;
+    double G = I / (v1 - v2 - I * switchesResistance);
+    return G < 0 ? 0 : G;
+  }
+}
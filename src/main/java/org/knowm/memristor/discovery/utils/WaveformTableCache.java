@@ -0,0 +1,170 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3
+ * and is also available under alternative licenses negotiated directly
+ * with Knowm, Inc.
+ *
+ * Copyright (c) 2016-2017 Knowm Inc. www.knowm.org
+ *
+ * This package also includes various components that are not part of
+ * Memristor-Discovery itself:
+ *
+ * * `Multibit`: Copyright 2011 multibit.org, MIT License
+ * * `SteelCheckBox`: Copyright 2012 Gerrit, BSD license
+ *
+ * Knowm, Inc. holds copyright
+ * and/or sufficient licenses to all components of the Memristor-Discovery
+ * package, and therefore can grant, at its sole discretion, the ability
+ * for companies, individuals, or organizations to create proprietary or
+ * open source (even if not GPL) modules which may be dynamically linked at
+ * runtime with the portions of Memristor-Discovery which fall under our
+ * copyright/license umbrella, or are distributed under more flexible
+ * licenses than GPL.
+ *
+ * The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * If you have any questions regarding our licensing policy, please
+ * contact us at `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+
+/**
+ * A bounded, least-recently-used cache of unit-amplitude waveform tables keyed by (Waveform, sample count). Every custom waveform is a function of
+ * phase only and scales linearly with amplitude, so one table per key serves every amplitude and frequency.
+ * <p>
+ * The cached tables are never handed out. {@link #scaled(Waveform, int, double)} always returns a new array, so callers may modify the result.
+ */
+public class WaveformTableCache {
+
+  private final int maxSize;
+  private final Map<Key, double[]> tables;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Constructor
+   *
+   * @param maxSize - the maximum number of tables kept before the least recently used one is evicted
+   */
+  public WaveformTableCache(int maxSize) {
+
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.tables = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+
+        if (size() > WaveformTableCache.this.maxSize) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @param waveform
+   * @param sampleCount - the number of samples in one period
+   * @param amplitude
+   * @return a new array holding the waveform scaled to the given amplitude
+   */
+  public double[] scaled(Waveform waveform, int sampleCount, double amplitude) {
+
+    double[] table = get(waveform, sampleCount);
+    double[] scaled = new double[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      scaled[i] = table[i] * amplitude;
+    }
+    return scaled;
+  }
+
+  private synchronized double[] get(Waveform waveform, int sampleCount) {
+
+    Key key = new Key(waveform, sampleCount);
+    double[] table = tables.get(key);
+    if (table == null) {
+      missCount++;
+      table = WaveformUtils.generateUnitWaveform(waveform, sampleCount);
+      tables.put(key, table);
+    }
+    else {
+      hitCount++;
+    }
+    return table;
+  }
+
+  public synchronized void clear() {
+
+    tables.clear();
+  }
+
+  public int getMaxSize() {
+
+    return maxSize;
+  }
+
+  public synchronized int getSize() {
+
+    return tables.size();
+  }
+
+  public synchronized long getHitCount() {
+
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+
+    return missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+
+    return evictionCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+
+    return "WaveformTableCache [size=" + tables.size() + ", maxSize=" + maxSize + ", hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount="
+        + evictionCount + "]";
+  }
+
+  private static final class Key {
+
+    private final Waveform waveform;
+    private final int sampleCount;
+
+    private Key(Waveform waveform, int sampleCount) {
+
+      this.waveform = waveform;
+      this.sampleCount = sampleCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return waveform == other.waveform && sampleCount == other.sampleCount;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return 31 * waveform.hashCode() + sampleCount;
+    }
+  }
+}
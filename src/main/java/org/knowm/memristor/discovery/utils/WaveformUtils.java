@@ -44,6 +44,11 @@ import org.knowm.waveforms4j.DWF;
  */
 public class WaveformUtils {
 
+  public static final int CUSTOM_WAVEFORM_LENGTH = 4096;
+
+  // one entry per Waveform at the default length, with room for a few other lengths
+  private static final WaveformTableCache WAVEFORM_TABLE_CACHE = new WaveformTableCache(32);
+
   public static double[] generateSquarePulseWithReadPulses(double amplitude) {
 
     // read pulses
@@ -63,51 +68,71 @@ public class WaveformUtils {
     return rgdData; // weird name, but that's what Waveforms SDK calls it.
   }
 
+  /**
+   * @param waveform
+   * @param amplitude
+   * @param frequency - unused, one table covers every frequency
+   * @return one period of the waveform in CUSTOM_WAVEFORM_LENGTH samples, scaled between 1 and -1 for the Waveforms SDK
+   */
   public static double[] generateCustomWaveform(Waveform waveform, double amplitude, double frequency) {
 
+    return WAVEFORM_TABLE_CACHE.scaled(waveform, CUSTOM_WAVEFORM_LENGTH, amplitude);
+  }
+
+  /**
+   * Evaluate one period of a unit-amplitude, unit-frequency waveform. Use generateCustomWaveform, which caches the result.
+   *
+   * @param waveform
+   * @param sampleCount
+   * @return
+   */
+  static double[] generateUnitWaveform(Waveform waveform, int sampleCount) {
+
     Driver driver;
     switch (waveform) {
       case Sawtooth:
-        driver = new Sawtooth("Sawtooth", 0, 0, amplitude, frequency);
+        driver = new Sawtooth("Sawtooth", 0, 0, 1, 1);
         break;
       case SawtoothUpDown:
-        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
+        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, 1, 1);
         break;
       case Triangle:
-        driver = new Triangle("Triangle", 0, 0, amplitude, frequency);
+        driver = new Triangle("Triangle", 0, 0, 1, 1);
         break;
       case TriangleUpDown:
-        driver = new TriangleUpDown("TriangleUpDown", 0, 0, amplitude, frequency);
+        driver = new TriangleUpDown("TriangleUpDown", 0, 0, 1, 1);
         break;
       case Square:
-        driver = new Square("Square", amplitude / 2, 0, amplitude / 2, frequency);
+        driver = new Square("Square", 0.5, 0, 0.5, 1);
         break;
       case SquareUpDown:
-        driver = new Square("SquareUpDown", 0, 0, amplitude, frequency);
+        driver = new Square("SquareUpDown", 0, 0, 1, 1);
         break;
       case QuarterSine:
-        driver = new QuarterSine("QuarterSine", 0, 0, amplitude, frequency);
+        driver = new QuarterSine("QuarterSine", 0, 0, 1, 1);
         break;
       case HalfSine:
-        driver = new HalfSine("HalfSine", 0, 0, amplitude, frequency);
+        driver = new HalfSine("HalfSine", 0, 0, 1, 1);
         break;
       case SquareSmooth:
-        driver = new SquareSmooth("SquareSmooth", 0, 0, amplitude, frequency);
+        driver = new SquareSmooth("SquareSmooth", 0, 0, 1, 1);
         break;
       default:
-        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
+        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, 1, 1);
         break;
     }
 
-    int counter = 0;
-    double[] customWaveform = new double[4096];
-    double timeInc = 1.0 / frequency / 4096;
+    double[] unitWaveform = new double[sampleCount];
+    double timeInc = 1.0 / sampleCount;
+    for (int i = 0; i < sampleCount; i++) {
+      unitWaveform[i] = driver.getSignal(i * timeInc) / 5.0; // / 5.0 to scale between 1 and -1
+    }
+    return unitWaveform;
+  }
+
+  public static WaveformTableCache getWaveformTableCache() {
 
-    do {
-      double time = counter * timeInc;
-      customWaveform[counter] = driver.getSignal(time) / 5.0; // / 5.0 to scale between 1 and -1
-    } while (++counter < 4096);
-    return customWaveform;
+    return WAVEFORM_TABLE_CACHE;
   }
 
   public static DWF.Waveform getDWFWaveform(Waveform waveform) {